@@ -16,6 +16,10 @@
  */
 package org.apache.commons.imaging;
 
+import static org.apache.commons.imaging.ImagingConstants.FILE_ACCESS_CHANNEL;
+import static org.apache.commons.imaging.ImagingConstants.FILE_ACCESS_MEMORY_MAPPED;
+import static org.apache.commons.imaging.ImagingConstants.FILE_ACCESS_RANDOM_ACCESS_FILE;
+import static org.apache.commons.imaging.ImagingConstants.PARAM_KEY_FILE_ACCESS;
 import static org.apache.commons.imaging.ImagingConstants.PARAM_KEY_FILENAME;
 import static org.apache.commons.imaging.ImagingConstants.PARAM_KEY_FORMAT;
 
@@ -39,6 +43,7 @@ import org.apache.commons.imaging.common.XmpEmbeddable;
 import org.apache.commons.imaging.common.bytesource.ByteSource;
 import org.apache.commons.imaging.common.bytesource.ByteSourceArray;
 import org.apache.commons.imaging.common.bytesource.ByteSourceFile;
+import org.apache.commons.imaging.common.bytesource.ByteSourceFileChannel;
 import org.apache.commons.imaging.common.bytesource.ByteSourceInputStream;
 import org.apache.commons.imaging.icc.IccProfileInfo;
 import org.apache.commons.imaging.icc.IccProfileParser;
@@ -113,25 +118,54 @@ import org.apache.commons.imaging.icc.IccProfileParser;
  */
 public final class Imaging {
 
-    private static final int[] MAGIC_NUMBERS_GIF = { 0x47, 0x49, };
-    private static final int[] MAGIC_NUMBERS_PNG = { 0x89, 0x50, };
-    private static final int[] MAGIC_NUMBERS_JPEG = { 0xff, 0xd8, };
-    private static final int[] MAGIC_NUMBERS_BMP = { 0x42, 0x4d, };
-    private static final int[] MAGIC_NUMBERS_TIFF_MOTOROLA = { 0x4D, 0x4D, };
-    private static final int[] MAGIC_NUMBERS_TIFF_INTEL = { 0x49, 0x49, };
-    private static final int[] MAGIC_NUMBERS_PAM = { 0x50, 0x37, };
-    private static final int[] MAGIC_NUMBERS_PSD = { 0x38, 0x42, };
-    private static final int[] MAGIC_NUMBERS_PBM_A = { 0x50, 0x31, };
-    private static final int[] MAGIC_NUMBERS_PBM_B = { 0x50, 0x34, };
-    private static final int[] MAGIC_NUMBERS_PGM_A = { 0x50, 0x32, };
-    private static final int[] MAGIC_NUMBERS_PGM_B = { 0x50, 0x35, };
-    private static final int[] MAGIC_NUMBERS_PPM_A = { 0x50, 0x33, };
-    private static final int[] MAGIC_NUMBERS_PPM_B = { 0x50, 0x36, };
-    private static final int[] MAGIC_NUMBERS_JBIG2_1 = { 0x97, 0x4A, };
-    private static final int[] MAGIC_NUMBERS_JBIG2_2 = { 0x42, 0x32, };
-    private static final int[] MAGIC_NUMBERS_ICNS = { 0x69, 0x63, };
-    private static final int[] MAGIC_NUMBERS_DCX = { 0xB1, 0x68, };
-    private static final int[] MAGIC_NUMBERS_RGBE = { 0x23, 0x3F, };
+    private static final MagicNumberTrie MAGIC_NUMBERS = new MagicNumberTrie()
+            .add(ImageFormats.GIF, 0x47, 0x49)
+            .add(ImageFormats.PNG, 0x89, 0x50)
+            .add(ImageFormats.JPEG, 0xff, 0xd8)
+            .add(ImageFormats.BMP, 0x42, 0x4d)
+            .add(ImageFormats.TIFF, 0x4D, 0x4D)
+            .add(ImageFormats.TIFF, 0x49, 0x49)
+            .add(ImageFormats.PSD, 0x38, 0x42)
+            .add(ImageFormats.PAM, 0x50, 0x37)
+            .add(ImageFormats.PBM, 0x50, 0x31)
+            .add(ImageFormats.PBM, 0x50, 0x34)
+            .add(ImageFormats.PGM, 0x50, 0x32)
+            .add(ImageFormats.PGM, 0x50, 0x35)
+            .add(ImageFormats.PPM, 0x50, 0x33)
+            .add(ImageFormats.PPM, 0x50, 0x36)
+            .add(ImageFormats.JBIG2, 0x97, 0x4A, 0x42, 0x32)
+            .add(ImageFormats.ICNS, 0x69, 0x63)
+            .add(ImageFormats.DCX, 0xB1, 0x68)
+            .add(ImageFormats.RGBE, 0x23, 0x3F)
+            // Reserved 0, type 1. Cursors (type 2) are left out, as they
+            // start with the same bytes as most uncompressed true color TGAs.
+            .add(ImageFormats.ICO, 0x00, 0x00, 0x01, 0x00)
+            // Manufacturer 10, versions 0 and 2 to 5, uncompressed or RLE.
+            .add(ImageFormats.PCX, 0x0A, 0x00, 0x00)
+            .add(ImageFormats.PCX, 0x0A, 0x00, 0x01)
+            .add(ImageFormats.PCX, 0x0A, 0x02, 0x00)
+            .add(ImageFormats.PCX, 0x0A, 0x02, 0x01)
+            .add(ImageFormats.PCX, 0x0A, 0x03, 0x00)
+            .add(ImageFormats.PCX, 0x0A, 0x03, 0x01)
+            .add(ImageFormats.PCX, 0x0A, 0x04, 0x00)
+            .add(ImageFormats.PCX, 0x0A, 0x04, 0x01)
+            .add(ImageFormats.PCX, 0x0A, 0x05, 0x00)
+            .add(ImageFormats.PCX, 0x0A, 0x05, 0x01)
+            .add(ImageFormats.XPM, "/* XPM */")
+            .add(ImageFormats.XBM, "#define ");
+
+    private static final ImageParser[] IMAGE_PARSERS = ImageParser.getAllImageParsers();
+    private static final Map<ImageFormat, ImageParser> IMAGE_PARSERS_BY_FORMAT = new HashMap<>();
+
+    static {
+        for (final ImageParser imageParser : IMAGE_PARSERS) {
+            for (final ImageFormat format : imageParser.getAcceptedTypes()) {
+                if (!IMAGE_PARSERS_BY_FORMAT.containsKey(format)) {
+                    IMAGE_PARSERS_BY_FORMAT.put(format, imageParser);
+                }
+            }
+        }
+    }
 
     private Imaging() {
         // Instances can not be created
@@ -170,7 +204,7 @@ public final class Imaging {
 
         final String normalizedFilename = fileName.toLowerCase(Locale.ENGLISH);
 
-        for (final ImageParser imageParser : ImageParser.getAllImageParsers()) {
+        for (final ImageParser imageParser : IMAGE_PARSERS) {
             for (final String extension : imageParser.getAcceptedExtensions()) {
                 if (normalizedFilename.endsWith(extension.toLowerCase(Locale.ENGLISH))) {
                     return true;
@@ -227,13 +261,27 @@ public final class Imaging {
         return guessFormat(new ByteSourceFile(file));
     }
 
-    private static boolean compareBytePair(final int[] a, final int[] b) {
-        if (a.length != 2 && b.length != 2) {
-            throw new RuntimeException("Invalid Byte Pair.");
+    private static ByteSource createByteSource(final File file, final Map<String, Object> params)
+            throws ImageReadException {
+        final Object fileAccess = params == null ? null : params.get(PARAM_KEY_FILE_ACCESS);
+        if (fileAccess == null || FILE_ACCESS_RANDOM_ACCESS_FILE.equals(fileAccess)) {
+            return new ByteSourceFile(file);
+        } else if (FILE_ACCESS_CHANNEL.equals(fileAccess)) {
+            return new ByteSourceFileChannel(file);
+        } else if (FILE_ACCESS_MEMORY_MAPPED.equals(fileAccess)) {
+            return new ByteSourceFileChannel(file, true);
         }
-        return (a[0] == b[0]) && (a[1] == b[1]);
+        throw new ImageReadException("Invalid file access: " + fileAccess);
     }
 
+    private static Map<String, Object> removeFileAccessParam(final Map<String, Object> params) {
+        if (params == null || !params.containsKey(PARAM_KEY_FILE_ACCESS)) {
+            return params;
+        }
+        final Map<String, Object> result = new HashMap<>(params);
+        result.remove(PARAM_KEY_FILE_ACCESS);
+        return result;
+    }
 
     /**
      * Attempts to determine the image format of a file based on its
@@ -261,72 +309,22 @@ public final class Imaging {
             return ImageFormats.UNKNOWN;
         }
 
+        final byte[] bytes = new byte[MagicNumberTrie.MAX_LENGTH];
+        int length = 0;
         try (InputStream is = byteSource.getInputStream()) {
-            final int i1 = is.read();
-            final int i2 = is.read();
-            if ((i1 < 0) || (i2 < 0)) {
-                throw new ImageReadException(
-                        "Couldn't read magic numbers to guess format.");
-            }
-
-            final int b1 = i1 & 0xff;
-            final int b2 = i2 & 0xff;
-            final int[] bytePair = { b1, b2, };
-
-            if (compareBytePair(MAGIC_NUMBERS_GIF, bytePair)) {
-                return ImageFormats.GIF;
-            // } else if (b1 == 0x00 && b2 == 0x00) // too similar to TGA
-            // {
-            // return ImageFormat.IMAGE_FORMAT_ICO;
-            } else if (compareBytePair(MAGIC_NUMBERS_PNG, bytePair)) {
-                return ImageFormats.PNG;
-            } else if (compareBytePair(MAGIC_NUMBERS_JPEG, bytePair)) {
-                return ImageFormats.JPEG;
-            } else if (compareBytePair(MAGIC_NUMBERS_BMP, bytePair)) {
-                return ImageFormats.BMP;
-            } else if (compareBytePair(MAGIC_NUMBERS_TIFF_MOTOROLA, bytePair)) {
-                return ImageFormats.TIFF;
-            } else if (compareBytePair(MAGIC_NUMBERS_TIFF_INTEL, bytePair)) {
-                return ImageFormats.TIFF;
-            } else if (compareBytePair(MAGIC_NUMBERS_PSD, bytePair)) {
-                return ImageFormats.PSD;
-            } else if (compareBytePair(MAGIC_NUMBERS_PAM, bytePair)) {
-                return ImageFormats.PAM;
-            } else if (compareBytePair(MAGIC_NUMBERS_PBM_A, bytePair)) {
-                return ImageFormats.PBM;
-            } else if (compareBytePair(MAGIC_NUMBERS_PBM_B, bytePair)) {
-                return ImageFormats.PBM;
-            } else if (compareBytePair(MAGIC_NUMBERS_PGM_A, bytePair)) {
-                return ImageFormats.PGM;
-            } else if (compareBytePair(MAGIC_NUMBERS_PGM_B, bytePair)) {
-                return ImageFormats.PGM;
-            } else if (compareBytePair(MAGIC_NUMBERS_PPM_A, bytePair)) {
-                return ImageFormats.PPM;
-            } else if (compareBytePair(MAGIC_NUMBERS_PPM_B, bytePair)) {
-                return ImageFormats.PPM;
-            } else if (compareBytePair(MAGIC_NUMBERS_JBIG2_1, bytePair)) {
-                final int i3 = is.read();
-                final int i4 = is.read();
-                if ((i3 < 0) || (i4 < 0)) {
-                    throw new ImageReadException(
-                            "Couldn't read magic numbers to guess format.");
-                }
-
-                final int b3 = i3 & 0xff;
-                final int b4 = i4 & 0xff;
-                final int[] bytePair2 = { b3, b4, };
-                if (compareBytePair(MAGIC_NUMBERS_JBIG2_2, bytePair2)) {
-                    return ImageFormats.JBIG2;
+            while (length < bytes.length) {
+                final int read = is.read(bytes, length, bytes.length - length);
+                if (read < 0) {
+                    break;
                 }
-            } else if (compareBytePair(MAGIC_NUMBERS_ICNS, bytePair)) {
-                return ImageFormats.ICNS;
-            } else if (compareBytePair(MAGIC_NUMBERS_DCX, bytePair)) {
-                return ImageFormats.DCX;
-            } else if (compareBytePair(MAGIC_NUMBERS_RGBE, bytePair)) {
-                return ImageFormats.RGBE;
+                length += read;
             }
-            return ImageFormats.UNKNOWN;
         }
+        if (length < 2) {
+            throw new ImageReadException(
+                    "Couldn't read magic numbers to guess format.");
+        }
+        return MAGIC_NUMBERS.match(bytes, length);
     }
 
     /**
@@ -432,7 +430,9 @@ public final class Imaging {
      */
     public static ICC_Profile getICCProfile(final File file, final Map<String, Object> params)
             throws ImageReadException, IOException {
-        return getICCProfile(new ByteSourceFile(file), params);
+        try (ByteSource byteSource = createByteSource(file, params)) {
+            return getICCProfile(byteSource, removeFileAccessParam(params));
+        }
     }
 
     protected static ICC_Profile getICCProfile(final ByteSource byteSource, final Map<String, Object> params)
@@ -535,7 +535,9 @@ public final class Imaging {
      */
     public static byte[] getICCProfileBytes(final File file, final Map<String, Object> params)
             throws ImageReadException, IOException {
-        return getICCProfileBytes(new ByteSourceFile(file), params);
+        try (ByteSource byteSource = createByteSource(file, params)) {
+            return getICCProfileBytes(byteSource, removeFileAccessParam(params));
+        }
     }
 
     private static byte[] getICCProfileBytes(final ByteSource byteSource, final Map<String, Object> params)
@@ -698,7 +700,9 @@ public final class Imaging {
      */
     public static ImageInfo getImageInfo(final File file, final Map<String, Object> params)
             throws ImageReadException, IOException {
-        return getImageInfo(new ByteSourceFile(file), params);
+        try (ByteSource byteSource = createByteSource(file, params)) {
+            return getImageInfo(byteSource, removeFileAccessParam(params));
+        }
     }
 
     /**
@@ -729,24 +733,16 @@ public final class Imaging {
     private static ImageParser getImageParser(final ByteSource byteSource)
             throws ImageReadException, IOException {
         final ImageFormat format = guessFormat(byteSource);
-        if (!format.equals(ImageFormats.UNKNOWN)) {
-
-            final ImageParser[] imageParsers = ImageParser.getAllImageParsers();
-
-            for (final ImageParser imageParser : imageParsers) {
-                if (imageParser.canAcceptType(format)) {
-                    return imageParser;
-                }
-            }
+        final ImageParser imageParser = IMAGE_PARSERS_BY_FORMAT.get(format);
+        if (imageParser != null) {
+            return imageParser;
         }
 
         final String fileName = byteSource.getFileName();
         if (fileName != null) {
-            final ImageParser[] imageParsers = ImageParser.getAllImageParsers();
-
-            for (final ImageParser imageParser : imageParsers) {
-                if (imageParser.canAcceptExtension(fileName)) {
-                    return imageParser;
+            for (final ImageParser imageParser2 : IMAGE_PARSERS) {
+                if (imageParser2.canAcceptExtension(fileName)) {
+                    return imageParser2;
                 }
             }
         }
@@ -851,7 +847,9 @@ public final class Imaging {
      */
     public static Dimension getImageSize(final File file, final Map<String, Object> params)
             throws ImageReadException, IOException {
-        return getImageSize(new ByteSourceFile(file), params);
+        try (ByteSource byteSource = createByteSource(file, params)) {
+            return getImageSize(byteSource, removeFileAccessParam(params));
+        }
     }
 
     public static Dimension getImageSize(final ByteSource byteSource, final Map<String, Object> params)
@@ -958,7 +956,9 @@ public final class Imaging {
      */
     public static String getXmpXml(final File file, final Map<String, Object> params)
             throws ImageReadException, IOException {
-        return getXmpXml(new ByteSourceFile(file), params);
+        try (ByteSource byteSource = createByteSource(file, params)) {
+            return getXmpXml(byteSource, removeFileAccessParam(params));
+        }
     }
 
     /**
@@ -1139,7 +1139,9 @@ public final class Imaging {
      */
     public static ImageMetadata getMetadata(final File file, final Map<String, Object> params)
             throws ImageReadException, IOException {
-        return getMetadata(new ByteSourceFile(file), params);
+        try (ByteSource byteSource = createByteSource(file, params)) {
+            return getMetadata(byteSource, removeFileAccessParam(params));
+        }
     }
 
     private static ImageMetadata getMetadata(final ByteSource byteSource, final Map<String, Object> params)
@@ -1427,7 +1429,9 @@ public final class Imaging {
      */
     public static BufferedImage getBufferedImage(final File file, final Map<String, Object> params)
             throws ImageReadException, IOException {
-        return getBufferedImage(new ByteSourceFile(file), params);
+        try (ByteSource byteSource = createByteSource(file, params)) {
+            return getBufferedImage(byteSource, removeFileAccessParam(params));
+        }
     }
 
 
@@ -1535,8 +1539,6 @@ public final class Imaging {
     public static void writeImage(final BufferedImage src, final OutputStream os,
             final ImageFormat format, Map<String, Object> params) throws ImageWriteException,
             IOException {
-        final ImageParser[] imageParsers = ImageParser.getAllImageParsers();
-
         // make sure params are non-null
         if (params == null) {
             params = new HashMap<>();
@@ -1544,13 +1546,7 @@ public final class Imaging {
 
         params.put(PARAM_KEY_FORMAT, format);
 
-        ImageParser imageParser = null;
-        for (final ImageParser imageParser2 : imageParsers) {
-            if (imageParser2.canAcceptType(format)) {
-                imageParser = imageParser2;
-                break;
-            }
-        }
+        final ImageParser imageParser = IMAGE_PARSERS_BY_FORMAT.get(format);
         if (imageParser != null) {
             imageParser.writeImage(src, os, params);
         } else {
@@ -117,6 +117,24 @@ public final class ImagingConstants {
      */
     public static final String PARAM_KEY_PIXEL_DENSITY = "PIXEL_DENSITY";
 
+    /**
+     * <p>Parameter key. Selects how the {@code java.io.File} variants of the
+     * read methods in {@link Imaging} access the file.</p>
+     *
+     * <p>Valid values: {@link #FILE_ACCESS_RANDOM_ACCESS_FILE} (the default),
+     * which opens the file again for every block read,
+     * {@link #FILE_ACCESS_CHANNEL}, which reads every block through one
+     * {@code FileChannel}, and {@link #FILE_ACCESS_MEMORY_MAPPED}, which maps
+     * the file into memory.</p>
+     *
+     * @see org.apache.commons.imaging.common.bytesource.ByteSourceFileChannel
+     */
+    public static final String PARAM_KEY_FILE_ACCESS = "FILE_ACCESS";
+
+    public static final String FILE_ACCESS_RANDOM_ACCESS_FILE = "RANDOM_ACCESS_FILE";
+    public static final String FILE_ACCESS_CHANNEL = "CHANNEL";
+    public static final String FILE_ACCESS_MEMORY_MAPPED = "MEMORY_MAPPED";
+
     private ImagingConstants() {
     }
 }
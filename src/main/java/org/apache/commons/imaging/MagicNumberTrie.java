@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A prefix trie over the leading bytes of image files, used to guess the
+ * format of an image from its magic numbers in a single pass.
+ *
+ * <p>When one magic number is a prefix of another, the longest one that
+ * matches wins.</p>
+ */
+final class MagicNumberTrie {
+
+    /**
+     * The number of leading bytes that need to be read to match any magic
+     * number in the trie.
+     */
+    static final int MAX_LENGTH = 16;
+
+    private final Node root = new Node();
+
+    MagicNumberTrie add(final ImageFormat format, final int... magicNumber) {
+        if (magicNumber.length == 0 || magicNumber.length > MAX_LENGTH) {
+            throw new IllegalArgumentException("Invalid magic number length: " + magicNumber.length);
+        }
+        Node node = root;
+        for (final int b : magicNumber) {
+            node = node.getOrAddChild((byte) b);
+        }
+        if (node.format != null) {
+            throw new IllegalArgumentException("Duplicate magic number for " + format + " and " + node.format);
+        }
+        node.format = format;
+        return this;
+    }
+
+    MagicNumberTrie add(final ImageFormat format, final String magicNumber) {
+        final byte[] bytes = magicNumber.getBytes(StandardCharsets.US_ASCII);
+        final int[] magic = new int[bytes.length];
+        for (int i = 0; i < bytes.length; i++) {
+            magic[i] = 0xff & bytes[i];
+        }
+        return add(format, magic);
+    }
+
+    /**
+     * Finds the format with the longest magic number that is a prefix of the
+     * given bytes.
+     *
+     * @param bytes the leading bytes of the image
+     * @param length the number of valid bytes
+     * @return the format, or {@link ImageFormats#UNKNOWN} if no magic number
+     * matches
+     */
+    ImageFormat match(final byte[] bytes, final int length) {
+        ImageFormat result = ImageFormats.UNKNOWN;
+        Node node = root;
+        for (int i = 0; i < length; i++) {
+            node = node.getChild(bytes[i]);
+            if (node == null) {
+                break;
+            }
+            if (node.format != null) {
+                result = node.format;
+            }
+        }
+        return result;
+    }
+
+    private static final class Node {
+        private static final byte[] NO_KEYS = {};
+        private static final Node[] NO_CHILDREN = {};
+
+        // Sparse children: most nodes below the root have a single child.
+        private byte[] keys = NO_KEYS;
+        private Node[] children = NO_CHILDREN;
+        private ImageFormat format;
+
+        Node getChild(final byte key) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] == key) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        Node getOrAddChild(final byte key) {
+            Node child = getChild(key);
+            if (child == null) {
+                child = new Node();
+                keys = Arrays.copyOf(keys, keys.length + 1);
+                children = Arrays.copyOf(children, children.length + 1);
+                keys[keys.length - 1] = key;
+                children[children.length - 1] = child;
+            }
+            return child;
+        }
+    }
+}
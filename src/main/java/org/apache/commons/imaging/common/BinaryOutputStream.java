@@ -75,6 +75,16 @@ public class BinaryOutputStream extends OutputStream {
         return count;
     }
 
+    public final void write8Bytes(final long value) throws IOException {
+        if (byteOrder == ByteOrder.BIG_ENDIAN) {
+            write4Bytes((int) (value >> 32));
+            write4Bytes((int) value);
+        } else {
+            write4Bytes((int) value);
+            write4Bytes((int) (value >> 32));
+        }
+    }
+
     public final void write4Bytes(final int value) throws IOException {
         if (byteOrder == ByteOrder.BIG_ENDIAN) {
             write(0xff & (value >> 24));
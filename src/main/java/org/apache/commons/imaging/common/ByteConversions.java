@@ -86,6 +86,30 @@ public final class ByteConversions {
         }
     }
 
+    public static byte[] toBytes(final long value, final ByteOrder byteOrder) {
+        final byte[] result = new byte[8];
+        toBytes(value, byteOrder, result, 0);
+        return result;
+    }
+
+    public static byte[] toBytes(final long[] values, final ByteOrder byteOrder) {
+        final byte[] result = new byte[values.length * 8];
+        for (int i = 0; i < values.length; i++) {
+            toBytes(values[i], byteOrder, result, i * 8);
+        }
+        return result;
+    }
+
+    private static void toBytes(final long value, final ByteOrder byteOrder, final byte[] result, final int offset) {
+        if (byteOrder == ByteOrder.BIG_ENDIAN) {
+            toBytes((int) (value >> 32), byteOrder, result, offset);
+            toBytes((int) value, byteOrder, result, offset + 4);
+        } else {
+            toBytes((int) value, byteOrder, result, offset);
+            toBytes((int) (value >> 32), byteOrder, result, offset + 4);
+        }
+    }
+
     public static byte[] toBytes(final float value, final ByteOrder byteOrder) {
         final byte[] result = new byte[4];
         toBytes(value, byteOrder, result, 0);
@@ -280,6 +304,28 @@ public final class ByteConversions {
         return result;
     }
 
+    public static long toLong(final byte[] bytes, final ByteOrder byteOrder) {
+        return toLong(bytes, 0, byteOrder);
+    }
+
+    public static long toLong(final byte[] bytes, final int offset, final ByteOrder byteOrder) {
+        final long int0 = 0xFFFFffffL & toInt(bytes, offset, byteOrder);
+        final long int1 = 0xFFFFffffL & toInt(bytes, offset + 4, byteOrder);
+        if (byteOrder == ByteOrder.BIG_ENDIAN) {
+            return (int0 << 32) | int1;
+        } else {
+            return (int1 << 32) | int0;
+        }
+    }
+
+    public static long[] toLongs(final byte[] bytes, final ByteOrder byteOrder) {
+        final long[] result = new long[bytes.length / 8];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = toLong(bytes, 8 * i, byteOrder);
+        }
+        return result;
+    }
+
     public static float toFloat(final byte[] bytes, final ByteOrder byteOrder) {
         return toFloat(bytes, 0, byteOrder);
     }
@@ -0,0 +1,223 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.common;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+
+import org.apache.commons.imaging.ImageReadException;
+import org.apache.commons.imaging.ImageWriteException;
+import org.apache.commons.imaging.ImagingException;
+
+/**
+ * Runs tasks on an {@link Executor} and hands their results back on the
+ * calling thread, in the order the tasks were submitted. At most a few
+ * tasks per processor are pending at any time, so the results waiting to
+ * be taken, and the data the tasks that haven't run yet hold on to, don't
+ * take much memory.
+ *
+ * <p>A task that fails makes {@link #take()} throw what it threw: the
+ * exception type of the queue, an {@link IOException} or a
+ * {@link RuntimeException}. Anything else is wrapped in the exception type
+ * of the queue. The tasks still pending after a failure are cancelled, if
+ * they haven't started yet.</p>
+ *
+ * <p>This class is for the parsers and writers of this library, and is not
+ * meant to be used by applications.</p>
+ *
+ * @param <T> the type of the results of the tasks
+ * @param <E> the type of the exceptions thrown for failed tasks
+ */
+public final class PendingTasks<T, E extends ImagingException> {
+    private final Executor executor;
+    private final String activity;
+    private final Class<E> exceptionType;
+    private final ExceptionFactory<E> exceptionFactory;
+    private final int maxPending;
+    private final ArrayDeque<FutureTask<T>> pending;
+
+    /**
+     * Creates the exceptions for the tasks that fail.
+     *
+     * @param <E> the type of the exceptions
+     */
+    private interface ExceptionFactory<E> {
+        E create(String message, Throwable cause);
+    }
+
+    /**
+     * A task that computes the result for an index.
+     *
+     * @param <T> the type of the result
+     */
+    @FunctionalInterface
+    public interface IndexedTask<T> {
+        T call(int index) throws Exception;
+    }
+
+    /**
+     * Receives the results of the tasks on the calling thread.
+     *
+     * @param <T> the type of the results
+     * @param <E> the type of the exceptions thrown
+     */
+    @FunctionalInterface
+    public interface ResultConsumer<T, E extends ImagingException> {
+        void accept(int index, T result) throws E, IOException;
+    }
+
+    private PendingTasks(final Executor executor, final String activity, final Class<E> exceptionType,
+            final ExceptionFactory<E> exceptionFactory) {
+        this.executor = executor;
+        this.activity = activity;
+        this.exceptionType = exceptionType;
+        this.exceptionFactory = exceptionFactory;
+        this.maxPending = 4 * Runtime.getRuntime().availableProcessors();
+        this.pending = new ArrayDeque<>(maxPending);
+    }
+
+    /**
+     * Creates a queue for tasks that read images, which fail with
+     * {@link ImageReadException}.
+     *
+     * @param <T>      the type of the results of the tasks
+     * @param executor runs the tasks
+     * @param activity what the tasks do, for exception messages, such as
+     *                 "reading TIFF tiles"
+     * @return the queue
+     */
+    public static <T> PendingTasks<T, ImageReadException> forReading(final Executor executor,
+            final String activity) {
+        return new PendingTasks<>(executor, activity, ImageReadException.class, ImageReadException::new);
+    }
+
+    /**
+     * Creates a queue for tasks that write images, which fail with
+     * {@link ImageWriteException}.
+     *
+     * @param <T>      the type of the results of the tasks
+     * @param executor runs the tasks
+     * @param activity what the tasks do, for exception messages, such as
+     *                 "encoding image data"
+     * @return the queue
+     */
+    public static <T> PendingTasks<T, ImageWriteException> forWriting(final Executor executor,
+            final String activity) {
+        return new PendingTasks<>(executor, activity, ImageWriteException.class, ImageWriteException::new);
+    }
+
+    /**
+     * Runs a task for each index from 0 to {@code count - 1}, and passes
+     * their results to the consumer on the calling thread, in order. Once
+     * this returns or throws, no tasks are pending.
+     *
+     * @param count    the number of tasks
+     * @param task     the task to run for each index
+     * @param consumer receives the index and result of each task
+     * @throws E           if a task or the consumer fails, or the calling
+     *                     thread is interrupted
+     * @throws IOException if a task or the consumer fails reading or
+     *                     writing
+     */
+    public void run(final int count, final IndexedTask<T> task, final ResultConsumer<T, E> consumer)
+            throws E, IOException {
+        try {
+            int submitted = 0;
+            for (int index = 0; index < count; index++) {
+                while (submitted < count && !isFull()) {
+                    final int submittedIndex = submitted++;
+                    submit(() -> task.call(submittedIndex));
+                }
+                consumer.accept(index, take());
+            }
+        } finally {
+            cancel();
+        }
+    }
+
+    /**
+     * Submits a task to the executor. Callers take the result of the
+     * oldest task first if the queue {@link #isFull() is full}.
+     *
+     * @param task the task
+     */
+    public void submit(final Callable<T> task) {
+        final FutureTask<T> futureTask = new FutureTask<>(task);
+        pending.add(futureTask);
+        executor.execute(futureTask);
+    }
+
+    /**
+     * Waits for the oldest pending task, and removes it from the queue.
+     * If it failed, the pending tasks are cancelled.
+     *
+     * @return the result of the task
+     * @throws E           if the task failed, or the calling thread is
+     *                     interrupted
+     * @throws IOException if the task failed reading or writing
+     */
+    public T take() throws E, IOException {
+        final FutureTask<T> task = pending.remove();
+        try {
+            return task.get();
+        } catch (final InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+            cancel();
+            throw exceptionFactory.create("Interrupted while " + activity, interruptedException);
+        } catch (final ExecutionException executionException) {
+            cancel();
+            final Throwable cause = executionException.getCause();
+            if (exceptionType.isInstance(cause)) {
+                throw exceptionType.cast(cause);
+            } else if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw exceptionFactory.create("Error " + activity, cause);
+        }
+    }
+
+    /**
+     * Cancels the pending tasks that haven't started yet, and empties the
+     * queue. Tasks that are running are left to finish.
+     */
+    public void cancel() {
+        for (final FutureTask<T> task : pending) {
+            task.cancel(false);
+        }
+        pending.clear();
+    }
+
+    /**
+     * @return whether as many tasks are pending as the queue allows
+     */
+    public boolean isFull() {
+        return pending.size() >= maxPending;
+    }
+
+    /**
+     * @return whether no tasks are pending
+     */
+    public boolean isEmpty() {
+        return pending.isEmpty();
+    }
+}
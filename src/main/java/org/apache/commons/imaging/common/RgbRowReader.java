@@ -0,0 +1,191 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.common;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.SampleModel;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
+
+/**
+ * Reads the rows of an image as ARGB values, the same values as
+ * {@link BufferedImage#getRGB(int, int, int, int, int[], int, int)} gives.
+ * For the common image types, {@code TYPE_INT_ARGB}, {@code TYPE_INT_RGB},
+ * {@code TYPE_3BYTE_BGR}, {@code TYPE_4BYTE_ABGR} and
+ * {@code TYPE_BYTE_GRAY}, the samples are read straight from the data
+ * buffer of the image, rather than converting each pixel through its
+ * color model, which is several times faster. Other images are read with
+ * {@code getRGB}.
+ *
+ * <p>Writers call this once for each row of the image, so the caller
+ * provides the array the row is read into, and can reuse it.</p>
+ */
+public class RgbRowReader {
+    private final BufferedImage image;
+    private final int width;
+    private final int type;
+    private int[] intData;
+    private byte[] byteData;
+    private int offset;
+    private int scanlineStride;
+    private int pixelStride;
+    private int redOffset;
+    private int greenOffset;
+    private int blueOffset;
+    private int alphaOffset;
+    private int[] grayToRgb;
+
+    /**
+     * Creates a reader for the rows of an image.
+     * @param image the image to read
+     */
+    public RgbRowReader(final BufferedImage image) {
+        this.image = image;
+        this.width = image.getWidth();
+        this.type = findDataBuffer(image);
+    }
+
+    private int findDataBuffer(final BufferedImage image) {
+        final WritableRaster raster = image.getRaster();
+        final SampleModel sampleModel = raster.getSampleModel();
+        final DataBuffer dataBuffer = raster.getDataBuffer();
+        if (dataBuffer.getNumBanks() != 1) {
+            return BufferedImage.TYPE_CUSTOM;
+        }
+        // the raster of a subimage shares the data of the whole image
+        final int x0 = -raster.getSampleModelTranslateX();
+        final int y0 = -raster.getSampleModelTranslateY();
+
+        switch (image.getType()) {
+        case BufferedImage.TYPE_INT_ARGB:
+        case BufferedImage.TYPE_INT_RGB:
+            if (!(sampleModel instanceof SinglePixelPackedSampleModel)
+                    || !(dataBuffer instanceof DataBufferInt)) {
+                return BufferedImage.TYPE_CUSTOM;
+            }
+            final SinglePixelPackedSampleModel packedSampleModel = (SinglePixelPackedSampleModel) sampleModel;
+            intData = ((DataBufferInt) dataBuffer).getData();
+            scanlineStride = packedSampleModel.getScanlineStride();
+            offset = dataBuffer.getOffset() + packedSampleModel.getOffset(x0, y0);
+            return image.getType();
+
+        case BufferedImage.TYPE_3BYTE_BGR:
+        case BufferedImage.TYPE_4BYTE_ABGR:
+        case BufferedImage.TYPE_BYTE_GRAY:
+            if (!(sampleModel instanceof ComponentSampleModel)
+                    || !(dataBuffer instanceof DataBufferByte)) {
+                return BufferedImage.TYPE_CUSTOM;
+            }
+            final ComponentSampleModel componentSampleModel = (ComponentSampleModel) sampleModel;
+            final int[] bandOffsets = componentSampleModel.getBandOffsets();
+            byteData = ((DataBufferByte) dataBuffer).getData();
+            scanlineStride = componentSampleModel.getScanlineStride();
+            pixelStride = componentSampleModel.getPixelStride();
+            offset = dataBuffer.getOffset() + y0 * scanlineStride + x0 * pixelStride;
+            if (image.getType() == BufferedImage.TYPE_BYTE_GRAY) {
+                // the gray color space is linear, so getRGB doesn't give
+                // the samples back as they are. BufferedImage.getRGB passes
+                // the data elements to the color model, which rounds
+                // differently from getRGB(int) for a few values
+                final ColorModel colorModel = image.getColorModel();
+                final byte[] sample = new byte[1];
+                grayToRgb = new int[256];
+                for (int i = 0; i < grayToRgb.length; i++) {
+                    sample[0] = (byte) i;
+                    grayToRgb[i] = colorModel.getRGB(sample);
+                }
+                redOffset = bandOffsets[0];
+            } else {
+                redOffset = bandOffsets[0];
+                greenOffset = bandOffsets[1];
+                blueOffset = bandOffsets[2];
+                if (image.getType() == BufferedImage.TYPE_4BYTE_ABGR) {
+                    alphaOffset = bandOffsets[3];
+                }
+            }
+            return image.getType();
+
+        default:
+            return BufferedImage.TYPE_CUSTOM;
+        }
+    }
+
+    /**
+     * Reads a row of the image.
+     * @param y the row to read
+     * @param argb receives the ARGB value of each pixel of the row, and
+     * must hold at least as many values as the image is wide
+     */
+    public void getRgbRow(final int y, final int[] argb) {
+        getRgbRow(0, y, width, argb);
+    }
+
+    /**
+     * Reads part of a row of the image.
+     * @param x the first column to read
+     * @param y the row to read
+     * @param length the number of pixels to read
+     * @param argb receives the ARGB value of each pixel, starting at index 0
+     */
+    public void getRgbRow(final int x, final int y, final int length, final int[] argb) {
+        switch (type) {
+        case BufferedImage.TYPE_INT_ARGB:
+            System.arraycopy(intData, offset + y * scanlineStride + x, argb, 0, length);
+            break;
+
+        case BufferedImage.TYPE_INT_RGB:
+            for (int i = 0, j = offset + y * scanlineStride + x; i < length; i++, j++) {
+                argb[i] = 0xff000000 | intData[j];
+            }
+            break;
+
+        case BufferedImage.TYPE_3BYTE_BGR:
+            for (int i = 0, j = offset + y * scanlineStride + x * pixelStride; i < length; i++, j += pixelStride) {
+                argb[i] = 0xff000000
+                        | (0xff & byteData[j + redOffset]) << 16
+                        | (0xff & byteData[j + greenOffset]) << 8
+                        | (0xff & byteData[j + blueOffset]);
+            }
+            break;
+
+        case BufferedImage.TYPE_4BYTE_ABGR:
+            for (int i = 0, j = offset + y * scanlineStride + x * pixelStride; i < length; i++, j += pixelStride) {
+                argb[i] = (0xff & byteData[j + alphaOffset]) << 24
+                        | (0xff & byteData[j + redOffset]) << 16
+                        | (0xff & byteData[j + greenOffset]) << 8
+                        | (0xff & byteData[j + blueOffset]);
+            }
+            break;
+
+        case BufferedImage.TYPE_BYTE_GRAY:
+            for (int i = 0, j = offset + y * scanlineStride + x * pixelStride + redOffset; i < length;
+                    i++, j += pixelStride) {
+                argb[i] = grayToRgb[0xff & byteData[j]];
+            }
+            break;
+
+        default:
+            image.getRGB(x, y, length, 1, argb, 0, length);
+            break;
+        }
+    }
+}
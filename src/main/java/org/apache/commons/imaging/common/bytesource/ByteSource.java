@@ -16,12 +16,13 @@
  */
 package org.apache.commons.imaging.common.bytesource;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
 
 import org.apache.commons.imaging.common.BinaryFunctions;
 
-public abstract class ByteSource {
+public abstract class ByteSource implements Closeable {
     private final String fileName;
 
     public ByteSource(final String fileName) {
@@ -68,4 +69,16 @@ public abstract class ByteSource {
         return fileName;
     }
 
+    /**
+     * Releases any resources held by this byte source. Byte sources that do
+     * not hold resources between reads, like the default implementations,
+     * do nothing.
+     *
+     * @throws IOException if it fails to release the resources
+     */
+    @Override
+    public void close() throws IOException {
+        // nothing to release by default
+    }
+
 }
@@ -34,6 +34,10 @@ public class ByteSourceFile extends ByteSource {
         this.file = file;
     }
 
+    public File getFile() {
+        return file;
+    }
+
     @Override
     public InputStream getInputStream() throws IOException {
         return new BufferedInputStream(new FileInputStream(file));
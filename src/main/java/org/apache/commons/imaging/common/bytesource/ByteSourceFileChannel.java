@@ -0,0 +1,251 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.common.bytesource;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A byte source that reads a file through a single {@link FileChannel}, which
+ * is opened on first use and kept open until {@link #close()} is called.
+ * Blocks are read with positional reads, so no file handle is opened per
+ * block and several threads may read from the same instance concurrently.
+ *
+ * <p>Optionally the whole file is mapped into memory, in which case blocks are
+ * copied out of the mapping and {@link #getByteBuffer(long, int)} returns
+ * slices of it. Files larger than 2 GB are never mapped. The mapping is
+ * released by the garbage collector, not by {@link #close()}.</p>
+ */
+public class ByteSourceFileChannel extends ByteSource {
+    private final File file;
+    private final boolean memoryMapped;
+    private FileChannel channel;
+    private MappedByteBuffer mappedBuffer;
+
+    public ByteSourceFileChannel(final File file) {
+        this(file, false);
+    }
+
+    /**
+     * @param file the file to read
+     * @param memoryMapped whether to map the file into memory
+     */
+    public ByteSourceFileChannel(final File file, final boolean memoryMapped) {
+        super(file.getName());
+        this.file = file;
+        this.memoryMapped = memoryMapped;
+    }
+
+    private synchronized FileChannel getChannel() throws IOException {
+        if (channel == null) {
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+            final long size = channel.size();
+            if (memoryMapped && size <= Integer.MAX_VALUE) {
+                mappedBuffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            }
+        }
+        return channel;
+    }
+
+    private synchronized MappedByteBuffer getMappedBuffer() throws IOException {
+        getChannel();
+        return mappedBuffer;
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return new BufferedInputStream(new ChannelInputStream(getChannel(), getMappedBuffer()));
+    }
+
+    @Override
+    public byte[] getBlock(final long start, final int length) throws IOException {
+        final ByteBuffer buffer = getByteBuffer(start, length);
+        if (buffer.hasArray() && buffer.arrayOffset() == 0 && buffer.array().length == length) {
+            return buffer.array();
+        }
+        final byte[] result = new byte[length];
+        buffer.get(result);
+        return result;
+    }
+
+    /**
+     * Returns a block of the file as a buffer, positioned at its first byte.
+     * For a memory-mapped file this is a read-only view of the mapping and no
+     * bytes are copied.
+     *
+     * @param start the offset of the block in the file
+     * @param length the length of the block
+     * @return the block
+     * @throws IOException if the block lies outside the file or cannot be read
+     */
+    public ByteBuffer getByteBuffer(final long start, final int length) throws IOException {
+        final FileChannel fileChannel = getChannel();
+        final long size = fileChannel.size();
+        // We include a separate check for int overflow.
+        if ((start < 0) || (length < 0) || (start + length < 0)
+                || (start + length > size)) {
+            throw new IOException("Could not read block (block start: "
+                    + start + ", block length: " + length
+                    + ", data length: " + size + ").");
+        }
+
+        final MappedByteBuffer mapped = getMappedBuffer();
+        if (mapped != null) {
+            final ByteBuffer slice = mapped.asReadOnlyBuffer();
+            slice.position((int) start);
+            slice.limit((int) start + length);
+            return slice.slice();
+        }
+
+        final ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            final int read = fileChannel.read(buffer, start + buffer.position());
+            if (read < 0) {
+                throw new IOException("Could not read value from file");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Copies the file from an offset to its end into a channel with
+     * {@link FileChannel#transferTo(long, long, WritableByteChannel)}, which
+     * where the platform allows it copies the bytes without bringing them
+     * into the heap.
+     *
+     * @param start the offset of the first byte to copy
+     * @param target the channel to copy to
+     * @return the number of bytes copied
+     * @throws IOException if the file cannot be read or the target written
+     */
+    public long transferTo(final long start, final WritableByteChannel target) throws IOException {
+        final FileChannel fileChannel = getChannel();
+        final long size = fileChannel.size();
+        long position = start;
+        while (position < size) {
+            final long transferred = fileChannel.transferTo(position, size - position, target);
+            if (transferred <= 0) {
+                break;
+            }
+            position += transferred;
+        }
+        return Math.max(0, position - start);
+    }
+
+    @Override
+    public long getLength() throws IOException {
+        return getChannel().size();
+    }
+
+    @Override
+    public byte[] getAll() throws IOException {
+        final long length = getLength();
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("File too large to read into memory: " + file.getAbsolutePath());
+        }
+        return getBlock(0, (int) length);
+    }
+
+    @Override
+    public String getDescription() {
+        return "File: '" + file.getAbsolutePath() + "'";
+    }
+
+    /**
+     * Closes the channel. Streams returned by {@link #getInputStream()} can no
+     * longer be read afterwards, but the byte source itself may be read again,
+     * which reopens the file.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        mappedBuffer = null;
+        if (channel != null) {
+            try {
+                channel.close();
+            } finally {
+                channel = null;
+            }
+        }
+    }
+
+    /**
+     * Reads the channel from its own position, so any number of these streams
+     * can share the channel. Closing the stream leaves the channel open.
+     */
+    private static class ChannelInputStream extends InputStream {
+        private final FileChannel channel;
+        private final ByteBuffer mapped;
+        private long position;
+
+        ChannelInputStream(final FileChannel channel, final MappedByteBuffer mapped) {
+            this.channel = channel;
+            this.mapped = mapped == null ? null : mapped.asReadOnlyBuffer();
+        }
+
+        @Override
+        public int read() throws IOException {
+            final byte[] single = new byte[1];
+            final int read = read(single, 0, 1);
+            return read < 0 ? -1 : 0xff & single[0];
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (mapped != null) {
+                if (position >= mapped.limit()) {
+                    return -1;
+                }
+                final int count = (int) Math.min(len, mapped.limit() - position);
+                mapped.position((int) position);
+                mapped.get(b, off, count);
+                position += count;
+                return count;
+            }
+            final int read = channel.read(ByteBuffer.wrap(b, off, len), position);
+            if (read > 0) {
+                position += read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(final long n) throws IOException {
+            if (n <= 0) {
+                return 0;
+            }
+            final long skipped = Math.max(0, Math.min(n, channel.size() - position));
+            position += skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return (int) Math.max(0, Math.min(Integer.MAX_VALUE, channel.size() - position));
+        }
+    }
+}
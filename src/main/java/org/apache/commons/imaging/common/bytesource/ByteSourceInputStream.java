@@ -17,106 +17,212 @@
 package org.apache.commons.imaging.common.bytesource;
 
 import java.io.BufferedInputStream;
-import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
-import org.apache.commons.imaging.common.BinaryFunctions;
-
+/**
+ * A byte source that reads an input stream once, on demand, and caches what
+ * it read so the data can be read again from any position.
+ *
+ * <p>The cache is a list of fixed-size blocks indexed by their position in
+ * the stream, so every block is found in constant time. By default all blocks
+ * are kept in memory. A memory limit can be set, in which case reading past
+ * it fails, or the least recently used blocks are written to a temporary file
+ * and read back from it when needed again. The temporary file is deleted by
+ * {@link #close()}.</p>
+ */
 public class ByteSourceInputStream extends ByteSource {
-    private static final int BLOCK_SIZE = 1024;
+    private static final int DEFAULT_BLOCK_SIZE = 1024;
 
     private final InputStream is;
-    private CacheBlock cacheHead;
-    private byte[] readBuffer;
+    private final int blockSize;
+    private final long memoryLimit;
+    private final boolean spillToTempFile;
+    // blocks by index, null if a block is only held by the spill file
+    private final List<byte[]> blocks = new ArrayList<>();
+    // blocks held in memory, least recently used first; only when there is a memory limit
+    private final LinkedHashMap<Integer, byte[]> residentBlocks;
+    private long memoryUsed;
+    private long cachedLength;
+    private boolean endOfStream;
     private long streamLength = -1;
+    private File spillFile;
+    private RandomAccessFile spillData;
+    private final BitSet spilledBlocks = new BitSet();
 
     public ByteSourceInputStream(final InputStream is, final String fileName) {
+        this(is, fileName, DEFAULT_BLOCK_SIZE, Long.MAX_VALUE, false);
+    }
+
+    /**
+     * @param is the stream to read
+     * @param fileName the file name of the image, used as a format hint
+     * @param blockSize the size in bytes of the blocks the stream is cached in
+     * @param memoryLimit the maximum number of bytes of the stream to keep
+     *        in memory, or {@link Long#MAX_VALUE} for no limit
+     * @param spillToTempFile whether to write blocks exceeding the memory limit
+     *        to a temporary file; if {@code false} reading past the memory limit
+     *        throws an {@link IOException}
+     */
+    public ByteSourceInputStream(final InputStream is, final String fileName,
+            final int blockSize, final long memoryLimit, final boolean spillToTempFile) {
         super(fileName);
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("Invalid block size: " + blockSize);
+        }
+        if (memoryLimit < blockSize) {
+            throw new IllegalArgumentException("Memory limit " + memoryLimit
+                    + " is smaller than the block size " + blockSize);
+        }
         this.is = new BufferedInputStream(is);
+        this.blockSize = blockSize;
+        this.memoryLimit = memoryLimit;
+        this.spillToTempFile = spillToTempFile;
+        this.residentBlocks = memoryLimit == Long.MAX_VALUE ? null
+                : new LinkedHashMap<Integer, byte[]>(16, 0.75f, true);
     }
 
-    private class CacheBlock {
-        public final byte[] bytes;
-        private CacheBlock next;
-        private boolean triedNext;
-
-        CacheBlock(final byte[] bytes) {
-            this.bytes = bytes;
+    /**
+     * Returns the block with the given index, reading the stream up to it if
+     * it is not cached yet.
+     *
+     * @return the block, or null if the stream ends before it
+     */
+    private synchronized byte[] getCacheBlock(final int index) throws IOException {
+        while (index >= blocks.size()) {
+            if (endOfStream || !readBlock()) {
+                return null;
+            }
         }
+        byte[] block = blocks.get(index);
+        if (block == null) {
+            block = readSpilledBlock(index);
+            blocks.set(index, block);
+            addResidentBlock(index, block);
+        } else if (residentBlocks != null) {
+            residentBlocks.get(index);
+        }
+        return block;
+    }
 
-        public CacheBlock getNext() throws IOException {
-            if (null != next) {
-                return next;
+    private boolean readBlock() throws IOException {
+        final byte[] buffer = new byte[blockSize];
+        int total = 0;
+        while (total < blockSize) {
+            final int read = is.read(buffer, total, blockSize - total);
+            if (read < 0) {
+                break;
             }
-            if (triedNext) {
-                return null;
+            total += read;
+        }
+        if (total < blockSize) {
+            endOfStream = true;
+            streamLength = cachedLength + total;
+            if (total == 0) {
+                return false;
             }
-            triedNext = true;
-            next = readBlock();
-            return next;
         }
+        final byte[] block = total < blockSize ? copyOf(buffer, total) : buffer;
+        blocks.add(block);
+        cachedLength += total;
+        addResidentBlock(blocks.size() - 1, block);
+        return true;
+    }
 
+    private static byte[] copyOf(final byte[] bytes, final int length) {
+        final byte[] result = new byte[length];
+        System.arraycopy(bytes, 0, result, 0, length);
+        return result;
     }
 
-    private CacheBlock readBlock() throws IOException {
-        if (null == readBuffer) {
-            readBuffer = new byte[BLOCK_SIZE];
+    private void addResidentBlock(final int index, final byte[] block) throws IOException {
+        if (residentBlocks == null) {
+            return;
         }
+        memoryUsed += block.length;
+        residentBlocks.put(index, block);
+        final Iterator<Map.Entry<Integer, byte[]>> eldest = residentBlocks.entrySet().iterator();
+        while (memoryUsed > memoryLimit) {
+            if (!spillToTempFile) {
+                throw new IOException("Could not cache stream: it exceeds the memory limit of "
+                        + memoryLimit + " bytes");
+            }
+            final Map.Entry<Integer, byte[]> entry = eldest.next();
+            final int evicted = entry.getKey();
+            if (evicted == index) {
+                continue;
+            }
+            spillBlock(evicted, entry.getValue());
+            blocks.set(evicted, null);
+            memoryUsed -= entry.getValue().length;
+            eldest.remove();
+        }
+    }
 
-        final int read = is.read(readBuffer);
-        if (read < 1) {
-            return null;
-        } else if (read < BLOCK_SIZE) {
-            // return a copy.
-            final byte[] result = new byte[read];
-            System.arraycopy(readBuffer, 0, result, 0, read);
-            return new CacheBlock(result);
-        } else {
-            // return current buffer.
-            final byte[] result = readBuffer;
-            readBuffer = null;
-            return new CacheBlock(result);
+    private void spillBlock(final int index, final byte[] block) throws IOException {
+        if (spilledBlocks.get(index)) {
+            return;
         }
+        if (spillData == null) {
+            spillFile = File.createTempFile("commons-imaging-", ".cache");
+            spillFile.deleteOnExit();
+            spillData = new RandomAccessFile(spillFile, "rw");
+        }
+        spillData.seek((long) index * blockSize);
+        spillData.write(block);
+        spilledBlocks.set(index);
     }
 
-    private CacheBlock getFirstBlock() throws IOException {
-        if (null == cacheHead) {
-            cacheHead = readBlock();
+    private byte[] readSpilledBlock(final int index) throws IOException {
+        if (spillData == null) {
+            throw new IOException("Could not read block " + index + ": the byte source is closed");
         }
-        return cacheHead;
+        final long start = (long) index * blockSize;
+        final int length = (int) Math.min(blockSize, cachedLength - start);
+        final byte[] block = new byte[length];
+        spillData.seek(start);
+        spillData.readFully(block);
+        return block;
     }
 
     private class CacheReadingInputStream extends InputStream {
-        private CacheBlock block;
-        private boolean readFirst;
+        private long position;
+        private byte[] block;
         private int blockIndex;
 
-        @Override
-        public int read() throws IOException {
-            if (null == block) {
-                if (readFirst) {
-                    return -1;
-                }
-                block = getFirstBlock();
-                readFirst = true;
-            }
-
-            if (block != null && blockIndex >= block.bytes.length) {
-                block = block.getNext();
-                blockIndex = 0;
+        /**
+         * Makes block hold the bytes at position, returns false at the end of
+         * the stream.
+         */
+        private boolean fetchBlock() throws IOException {
+            if (block != null && blockIndex < block.length) {
+                return true;
             }
-
-            if (null == block) {
-                return -1;
+            final long index = position / blockSize;
+            if (index > Integer.MAX_VALUE) {
+                return false;
             }
+            block = getCacheBlock((int) index);
+            blockIndex = (int) (position % blockSize);
+            return block != null && blockIndex < block.length;
+        }
 
-            if (blockIndex >= block.bytes.length) {
+        @Override
+        public int read() throws IOException {
+            if (!fetchBlock()) {
                 return -1;
             }
-
-            return 0xff & block.bytes[blockIndex++];
+            position++;
+            return 0xff & block[blockIndex++];
         }
 
         @Override
@@ -130,77 +236,35 @@ public class ByteSourceInputStream extends ByteSource {
                 return 0;
             }
 
-            // optimized block read
-
-            if (null == block) {
-                if (readFirst) {
-                    return -1;
-                }
-                block = getFirstBlock();
-                readFirst = true;
-            }
-
-            if (block != null && blockIndex >= block.bytes.length) {
-                block = block.getNext();
-                blockIndex = 0;
-            }
-
-            if (null == block) {
-                return -1;
-            }
-
-            if (blockIndex >= block.bytes.length) {
+            if (!fetchBlock()) {
                 return -1;
             }
-
-            final int readSize = Math.min(len, block.bytes.length - blockIndex);
-            System.arraycopy(block.bytes, blockIndex, array, off, readSize);
+            final int readSize = Math.min(len, block.length - blockIndex);
+            System.arraycopy(block, blockIndex, array, off, readSize);
             blockIndex += readSize;
+            position += readSize;
             return readSize;
         }
 
         @Override
         public long skip(final long n) throws IOException {
-
-            long remaining = n;
-
             if (n <= 0) {
                 return 0;
             }
-
-            while (remaining > 0) {
-                // read the first block
-                if (null == block) {
-                    if (readFirst) {
-                        return -1;
-                    }
-                    block = getFirstBlock();
-                    readFirst = true;
-                }
-
-                // get next block
-                if (block != null && blockIndex >= block.bytes.length) {
-                    block = block.getNext();
-                    blockIndex = 0;
-                }
-
-                if (null == block) {
-                    break;
-                }
-
-                if (blockIndex >= block.bytes.length) {
-                    break;
-                }
-
-                final int readSize = Math.min((int) Math.min(BLOCK_SIZE, remaining), block.bytes.length - blockIndex);
-
-                blockIndex += readSize;
-                remaining -= readSize;
+            // make sure the stream is read, and cached, up to the target
+            final long target = position + n;
+            final long lastIndex = (target - 1) / blockSize;
+            final long available;
+            if (lastIndex > Integer.MAX_VALUE || getCacheBlock((int) lastIndex) == null) {
+                available = cachedLength;
+            } else {
+                available = Math.min(target, cachedLength);
             }
-
-            return n - remaining;
+            final long skipped = Math.max(0, available - position);
+            position += skipped;
+            block = null;
+            return skipped;
         }
-
     }
 
     @Override
@@ -213,55 +277,58 @@ public class ByteSourceInputStream extends ByteSource {
         // We include a separate check for int overflow.
         if ((blockStart < 0) || (blockLength < 0)
                 || (blockStart + blockLength < 0)
-                || (blockStart + blockLength > getLength())) {
+                || !isAvailable(blockStart + blockLength)) {
             throw new IOException("Could not read block (block start: "
                     + blockStart + ", block length: " + blockLength
                     + ", data length: " + streamLength + ").");
         }
 
-        final InputStream cis = getInputStream();
-        BinaryFunctions.skipBytes(cis, blockStart);
-
         final byte[] bytes = new byte[blockLength];
         int total = 0;
-        while (true) {
-            final int read = cis.read(bytes, total, bytes.length - total);
-            if (read < 1) {
-                throw new IOException("Could not read block.");
-            }
-            total += read;
-            if (total >= blockLength) {
-                return bytes;
-            }
+        while (total < blockLength) {
+            final long position = blockStart + total;
+            final byte[] block = getCacheBlock((int) (position / blockSize));
+            final int blockIndex = (int) (position % blockSize);
+            final int readSize = Math.min(blockLength - total, block.length - blockIndex);
+            System.arraycopy(block, blockIndex, bytes, total, readSize);
+            total += readSize;
         }
+        return bytes;
     }
 
-    @Override
-    public long getLength() throws IOException {
-        if (streamLength >= 0) {
-            return streamLength;
+    /**
+     * Reads the stream up to the given length, returns whether it is at
+     * least that long.
+     */
+    private boolean isAvailable(final long length) throws IOException {
+        if (length == 0) {
+            return true;
+        }
+        final long lastIndex = (length - 1) / blockSize;
+        if (lastIndex > Integer.MAX_VALUE) {
+            return false;
+        }
+        getCacheBlock((int) lastIndex);
+        synchronized (this) {
+            return length <= cachedLength;
         }
+    }
 
-        final InputStream cis = getInputStream();
-        long result = 0;
-        long skipped;
-        while ((skipped = cis.skip(1024)) > 0) {
-            result += skipped;
+    @Override
+    public synchronized long getLength() throws IOException {
+        while (!endOfStream) {
+            readBlock();
         }
-        streamLength = result;
-        return result;
+        return streamLength;
     }
 
     @Override
     public byte[] getAll() throws IOException {
-        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
-
-        CacheBlock block = getFirstBlock();
-        while (block != null) {
-            baos.write(block.bytes);
-            block = block.getNext();
+        final long length = getLength();
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("Stream too large to read into memory");
         }
-        return baos.toByteArray();
+        return getBlock(0, (int) length);
     }
 
     @Override
@@ -269,4 +336,21 @@ public class ByteSourceInputStream extends ByteSource {
         return "Inputstream: '" + getFileName() + "'";
     }
 
+    /**
+     * Deletes the temporary file blocks were written to, if any, after which
+     * those blocks can no longer be read. The stream itself is not closed.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (spillData != null) {
+            try {
+                spillData.close();
+            } finally {
+                spillData = null;
+                if (!spillFile.delete()) {
+                    spillFile.deleteOnExit();
+                }
+            }
+        }
+    }
 }
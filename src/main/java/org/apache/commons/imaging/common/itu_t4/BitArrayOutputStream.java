@@ -25,8 +25,9 @@ import java.io.OutputStream;
 class BitArrayOutputStream extends OutputStream {
     private byte[] buffer;
     private int bytesWritten;
+    // the bits not yet written, right aligned, fewer than 8 of them
     private int cache;
-    private int cacheMask = 0x80;
+    private int cacheBits;
 
     BitArrayOutputStream() {
         buffer = new byte[16];
@@ -57,10 +58,10 @@ class BitArrayOutputStream extends OutputStream {
 
     @Override
     public void flush() {
-        if (cacheMask != 0x80) {
-            writeByte(cache);
+        if (cacheBits > 0) {
+            writeByte(cache << (8 - cacheBits));
             cache = 0;
-            cacheMask = 0x80;
+            cacheBits = 0;
         }
     }
 
@@ -71,21 +72,27 @@ class BitArrayOutputStream extends OutputStream {
     }
 
     public void writeBit(final int bit) {
-        if (bit != 0) {
-            cache |= cacheMask;
-        }
-        cacheMask >>>= 1;
-        if (cacheMask == 0) {
-            flush();
+        writeBits(bit != 0 ? 1 : 0, 1);
+    }
+
+    /**
+     * Writes the lowest bits of a value, the most significant first.
+     *
+     * @param bits the bits, right aligned, and 0 above them
+     * @param count how many bits to write, at most 24
+     */
+    public void writeBits(final int bits, final int count) {
+        cache = (cache << count) | bits;
+        cacheBits += count;
+        while (cacheBits >= 8) {
+            cacheBits -= 8;
+            writeByte(cache >>> cacheBits);
         }
+        cache &= (1 << cacheBits) - 1;
     }
 
     public int getBitsAvailableInCurrentByte() {
-        int count = 0;
-        for (int mask = cacheMask; mask != 0; mask >>>= 1) {
-            ++count;
-        }
-        return count;
+        return 8 - cacheBits;
     }
 
     private void writeByte(final int b) {
@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.common.itu_t4;
+
+import org.apache.commons.imaging.ImageReadException;
+
+/**
+ * Reads up to 32 bits at a time from a byte array, most significant bit
+ * first. The bits are peeked from a 64 bit window over the array, which is
+ * refilled a byte at a time, so a code can be looked up in a table before
+ * it's known how many bits long it is.
+ */
+final class BitArrayReader {
+    private final byte[] bytes;
+    private final long totalBits;
+    private int nextByte;
+    // the next bits, left aligned
+    private long window;
+    private int windowBits;
+    private long bitsRead;
+
+    BitArrayReader(final byte[] bytes) {
+        this.bytes = bytes;
+        this.totalBits = 8L * bytes.length;
+    }
+
+    /**
+     * Returns the next bits without reading them. Past the end of the
+     * array the bits are 0.
+     *
+     * @param count how many bits, at most 32
+     * @return the bits, right aligned
+     */
+    int peekBits(final int count) {
+        if (windowBits < count) {
+            fill();
+        }
+        return (int) (window >>> (64 - count));
+    }
+
+    /**
+     * Reads past bits that were peeked.
+     *
+     * @param count how many bits, at most 32
+     * @throws ImageReadException if that's past the end of the array
+     */
+    void skipBits(final int count) throws ImageReadException {
+        if (windowBits < count) {
+            fill();
+        }
+        window <<= count;
+        windowBits -= count;
+        bitsRead += count;
+        if (bitsRead > totalBits) {
+            throw new ImageReadException("Premature end of compressed data");
+        }
+    }
+
+    int readBits(final int count) throws ImageReadException {
+        final int bits = peekBits(count);
+        skipBits(count);
+        return bits;
+    }
+
+    /**
+     * Skips the rest of the current byte, if it's been partly read.
+     *
+     * @throws ImageReadException can't happen, as the byte was read
+     */
+    void skipToByteBoundary() throws ImageReadException {
+        final int partialBits = (int) (bitsRead & 7);
+        if (partialBits != 0) {
+            skipBits(8 - partialBits);
+        }
+    }
+
+    private void fill() {
+        while (windowBits <= 56) {
+            final long b = nextByte < bytes.length ? bytes[nextByte] & 0xff : 0;
+            nextByte++;
+            window |= b << (56 - windowBits);
+            windowBits += 8;
+        }
+    }
+}
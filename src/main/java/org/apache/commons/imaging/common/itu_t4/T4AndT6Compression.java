@@ -16,89 +16,72 @@
  */
 package org.apache.commons.imaging.common.itu_t4;
 
-import java.io.ByteArrayInputStream;
-import java.io.IOException;
-
 import org.apache.commons.imaging.ImageReadException;
 import org.apache.commons.imaging.ImageWriteException;
 import org.apache.commons.imaging.common.itu_t4.T4_T6_Tables.Entry;
 
+/**
+ * Compresses and decompresses bilevel images with the modified Huffman, T.4
+ * and T.6 encodings.
+ *
+ * <p>A row is handled as the positions where its color changes, left to
+ * right, starting from white. The run lengths and 2D coding modes are decoded
+ * by looking up the next bits in tables, and the black runs are filled a byte
+ * at a time.</p>
+ */
 public final class T4AndT6Compression {
-    private static final HuffmanTree<Integer> WHITE_RUN_LENGTHS = new HuffmanTree<>();
-    private static final HuffmanTree<Integer> BLACK_RUN_LENGTHS = new HuffmanTree<>();
-    private static final HuffmanTree<Entry> CONTROL_CODES = new HuffmanTree<>();
+    // The run lengths are looked up by the next 13 bits, as many as there are
+    // in the longest code. The entries are the run length shifted left by 4,
+    // or'ed with the length of the code, or 0 if there's no code.
+    private static final int RUN_LENGTH_BITS = 13;
+    private static final int[] WHITE_RUN_LENGTHS = new int[1 << RUN_LENGTH_BITS];
+    private static final int[] BLACK_RUN_LENGTHS = new int[1 << RUN_LENGTH_BITS];
+    // The same for the 2D coding modes, whose value is a1 - b1 + 3 for the
+    // vertical modes.
+    private static final int MODE_BITS = 7;
+    private static final int[] MODES = new int[1 << MODE_BITS];
+    private static final int MODE_PASS = 7;
+    private static final int MODE_HORIZONTAL = 8;
+    private static final Entry[] VERTICAL_MODES = {
+            T4_T6_Tables.VL3, T4_T6_Tables.VL2, T4_T6_Tables.VL1, T4_T6_Tables.V0,
+            T4_T6_Tables.VR1, T4_T6_Tables.VR2, T4_T6_Tables.VR3 };
+    // an EOL is 11 zeros and a one, with up to 7 fill bits before it
+    private static final int EOL_ZEROS = 11;
+    private static final int EOL_MAX_ZEROS = EOL_ZEROS + 7;
 
     public static final int WHITE = 0;
     public static final int BLACK = 1;
 
     static {
-        try {
-            for (final Entry entry : T4_T6_Tables.WHITE_TERMINATING_CODES) {
-                WHITE_RUN_LENGTHS.insert(entry.bitString, entry.value);
-            }
-            for (final Entry entry : T4_T6_Tables.WHITE_MAKE_UP_CODES) {
-                WHITE_RUN_LENGTHS.insert(entry.bitString, entry.value);
-            }
-            for (final Entry entry : T4_T6_Tables.BLACK_TERMINATING_CODES) {
-                BLACK_RUN_LENGTHS.insert(entry.bitString, entry.value);
-            }
-            for (final Entry entry : T4_T6_Tables.BLACK_MAKE_UP_CODES) {
-                BLACK_RUN_LENGTHS.insert(entry.bitString, entry.value);
-            }
-            for (final Entry entry : T4_T6_Tables.ADDITIONAL_MAKE_UP_CODES) {
-                WHITE_RUN_LENGTHS.insert(entry.bitString, entry.value);
-                BLACK_RUN_LENGTHS.insert(entry.bitString, entry.value);
-            }
-            CONTROL_CODES.insert(T4_T6_Tables.EOL.bitString, T4_T6_Tables.EOL);
-            CONTROL_CODES.insert(T4_T6_Tables.EOL13.bitString, T4_T6_Tables.EOL13);
-            CONTROL_CODES.insert(T4_T6_Tables.EOL14.bitString, T4_T6_Tables.EOL14);
-            CONTROL_CODES.insert(T4_T6_Tables.EOL15.bitString, T4_T6_Tables.EOL15);
-            CONTROL_CODES.insert(T4_T6_Tables.EOL16.bitString, T4_T6_Tables.EOL16);
-            CONTROL_CODES.insert(T4_T6_Tables.EOL17.bitString, T4_T6_Tables.EOL17);
-            CONTROL_CODES.insert(T4_T6_Tables.EOL18.bitString, T4_T6_Tables.EOL18);
-            CONTROL_CODES.insert(T4_T6_Tables.EOL19.bitString, T4_T6_Tables.EOL19);
-            CONTROL_CODES.insert(T4_T6_Tables.P.bitString, T4_T6_Tables.P);
-            CONTROL_CODES.insert(T4_T6_Tables.H.bitString, T4_T6_Tables.H);
-            CONTROL_CODES.insert(T4_T6_Tables.V0.bitString, T4_T6_Tables.V0);
-            CONTROL_CODES.insert(T4_T6_Tables.VL1.bitString, T4_T6_Tables.VL1);
-            CONTROL_CODES.insert(T4_T6_Tables.VL2.bitString, T4_T6_Tables.VL2);
-            CONTROL_CODES.insert(T4_T6_Tables.VL3.bitString, T4_T6_Tables.VL3);
-            CONTROL_CODES.insert(T4_T6_Tables.VR1.bitString, T4_T6_Tables.VR1);
-            CONTROL_CODES.insert(T4_T6_Tables.VR2.bitString, T4_T6_Tables.VR2);
-            CONTROL_CODES.insert(T4_T6_Tables.VR3.bitString, T4_T6_Tables.VR3);
-        } catch (final HuffmanTreeException cannotHappen) {
-            throw new Error(cannotHappen);
+        addCodes(WHITE_RUN_LENGTHS, RUN_LENGTH_BITS, T4_T6_Tables.WHITE_TERMINATING_CODES);
+        addCodes(WHITE_RUN_LENGTHS, RUN_LENGTH_BITS, T4_T6_Tables.WHITE_MAKE_UP_CODES);
+        addCodes(WHITE_RUN_LENGTHS, RUN_LENGTH_BITS, T4_T6_Tables.ADDITIONAL_MAKE_UP_CODES);
+        addCodes(BLACK_RUN_LENGTHS, RUN_LENGTH_BITS, T4_T6_Tables.BLACK_TERMINATING_CODES);
+        addCodes(BLACK_RUN_LENGTHS, RUN_LENGTH_BITS, T4_T6_Tables.BLACK_MAKE_UP_CODES);
+        addCodes(BLACK_RUN_LENGTHS, RUN_LENGTH_BITS, T4_T6_Tables.ADDITIONAL_MAKE_UP_CODES);
+        addCode(MODES, MODE_BITS, T4_T6_Tables.P, MODE_PASS);
+        addCode(MODES, MODE_BITS, T4_T6_Tables.H, MODE_HORIZONTAL);
+        for (int i = 0; i < VERTICAL_MODES.length; i++) {
+            addCode(MODES, MODE_BITS, VERTICAL_MODES[i], i);
         }
     }
 
     private T4AndT6Compression() {
     }
 
-    private static void compress1DLine(final BitInputStreamFlexible inputStream,
-            final BitArrayOutputStream outputStream, final int[] referenceLine, final int width)
-            throws ImageWriteException {
-        int color = WHITE;
-        int runLength = 0;
-
-        for (int x = 0; x < width; x++) {
-            try {
-                final int nextColor = inputStream.readBits(1);
-                if (referenceLine != null) {
-                    referenceLine[x] = nextColor;
-                }
-                if (color == nextColor) {
-                    ++runLength;
-                } else {
-                    writeRunLength(outputStream, runLength, color);
-                    color = nextColor;
-                    runLength = 1;
-                }
-            } catch (final IOException ioException) {
-                throw new ImageWriteException("Error reading image to compress", ioException);
-            }
+    private static void addCodes(final int[] table, final int tableBits, final Entry[] entries) {
+        for (final Entry entry : entries) {
+            addCode(table, tableBits, entry, entry.value);
         }
+    }
 
-        writeRunLength(outputStream, runLength, color);
+    private static void addCode(final int[] table, final int tableBits, final Entry entry, final int value) {
+        // every index that starts with the code
+        final int unusedBits = tableBits - entry.length;
+        final int first = entry.code << unusedBits;
+        for (int i = 0; i < 1 << unusedBits; i++) {
+            table[first + i] = value << 4 | entry.length;
+        }
     }
 
     /**
@@ -114,11 +97,12 @@ public final class T4AndT6Compression {
      */
     public static byte[] compressModifiedHuffman(final byte[] uncompressed, final int width, final int height)
             throws ImageWriteException {
-        final BitInputStreamFlexible inputStream = new BitInputStreamFlexible(new ByteArrayInputStream(uncompressed));
+        final int rowLength = checkUncompressedLength(uncompressed, width, height);
+        final int[] changes = new int[width + 3];
         try (final BitArrayOutputStream outputStream = new BitArrayOutputStream()) {
             for (int y = 0; y < height; y++) {
-                compress1DLine(inputStream, outputStream, null, width);
-                inputStream.flushCache();
+                final int count = findChanges(uncompressed, y * rowLength, width, changes);
+                compress1DLine(outputStream, changes, count, width);
                 outputStream.flush();
             }
             return outputStream.toByteArray();
@@ -138,38 +122,22 @@ public final class T4AndT6Compression {
      */
     public static byte[] decompressModifiedHuffman(final byte[] compressed,
             final int width, final int height) throws ImageReadException {
-        try (ByteArrayInputStream baos = new ByteArrayInputStream(compressed);
-                BitInputStreamFlexible inputStream = new BitInputStreamFlexible(baos);
-                BitArrayOutputStream outputStream = new BitArrayOutputStream()) {
-            for (int y = 0; y < height; y++) {
-                int color = WHITE;
-                int rowLength;
-                for (rowLength = 0; rowLength < width;) {
-                    final int runLength = readTotalRunLength(inputStream, color);
-                    for (int i = 0; i < runLength; i++) {
-                        outputStream.writeBit(color);
-                    }
-                    color = 1 - color;
-                    rowLength += runLength;
-                }
-
-                if (rowLength == width) {
-                    inputStream.flushCache();
-                    outputStream.flush();
-                } else if (rowLength > width) {
-                    throw new ImageReadException("Unrecoverable row length error in image row " + y);
-                }
-            }
-            final byte[] ret = outputStream.toByteArray();
-            return ret;
-        } catch (final IOException ioException) {
-            throw new ImageReadException("Error reading image to decompress", ioException);
+        final BitArrayReader reader = new BitArrayReader(compressed);
+        final int rowLength = (width + 7) / 8;
+        final byte[] decompressed = new byte[height * rowLength];
+        final int[] changes = new int[width + 3];
+        for (int y = 0; y < height; y++) {
+            final int count = decompress1DLine(reader, changes, width, y);
+            fillLine(decompressed, y * rowLength, changes, count, width);
+            reader.skipToByteBoundary();
         }
+        return decompressed;
     }
 
     public static byte[] compressT4_1D(final byte[] uncompressed, final int width,
             final int height, final boolean hasFill) throws ImageWriteException {
-        final BitInputStreamFlexible inputStream = new BitInputStreamFlexible(new ByteArrayInputStream(uncompressed));
+        final int rowLength = checkUncompressedLength(uncompressed, width, height);
+        final int[] changes = new int[width + 3];
         try (final BitArrayOutputStream outputStream = new BitArrayOutputStream()) {
             if (hasFill) {
                 T4_T6_Tables.EOL16.writeBits(outputStream);
@@ -178,19 +146,12 @@ public final class T4AndT6Compression {
             }
 
             for (int y = 0; y < height; y++) {
-                compress1DLine(inputStream, outputStream, null, width);
+                final int count = findChanges(uncompressed, y * rowLength, width, changes);
+                compress1DLine(outputStream, changes, count, width);
                 if (hasFill) {
-                    int bitsAvailable = outputStream.getBitsAvailableInCurrentByte();
-                    if (bitsAvailable < 4) {
-                        outputStream.flush();
-                        bitsAvailable = 8;
-                    }
-                    for (; bitsAvailable > 4; bitsAvailable--) {
-                        outputStream.writeBit(0);
-                    }
+                    writeFillBits(outputStream);
                 }
                 T4_T6_Tables.EOL.writeBits(outputStream);
-                inputStream.flushCache();
             }
 
             return outputStream.toByteArray();
@@ -210,148 +171,59 @@ public final class T4AndT6Compression {
      */
     public static byte[] decompressT4_1D(final byte[] compressed, final int width,
             final int height, final boolean hasFill) throws ImageReadException {
-        final BitInputStreamFlexible inputStream = new BitInputStreamFlexible(new ByteArrayInputStream(compressed));
-        try (BitArrayOutputStream outputStream = new BitArrayOutputStream()) {
-            for (int y = 0; y < height; y++) {
-                int rowLength;
-                try {
-                    final T4_T6_Tables.Entry entry = CONTROL_CODES.decode(inputStream);
-                    if (!isEOL(entry, hasFill)) {
-                        throw new ImageReadException("Expected EOL not found");
-                    }
-                    int color = WHITE;
-                    for (rowLength = 0; rowLength < width;) {
-                        final int runLength = readTotalRunLength(inputStream, color);
-                        for (int i = 0; i < runLength; i++) {
-                            outputStream.writeBit(color);
-                        }
-                        color = 1 - color;
-                        rowLength += runLength;
-                    }
-                } catch (final HuffmanTreeException huffmanException) {
-                    throw new ImageReadException("Decompression error", huffmanException);
-                }
-
-                if (rowLength == width) {
-                    outputStream.flush();
-                } else if (rowLength > width) {
-                    throw new ImageReadException("Unrecoverable row length error in image row " + y);
-                }
-            }
-            final byte[] ret = outputStream.toByteArray();
-            return ret;
+        final BitArrayReader reader = new BitArrayReader(compressed);
+        final int rowLength = (width + 7) / 8;
+        final byte[] decompressed = new byte[height * rowLength];
+        final int[] changes = new int[width + 3];
+        for (int y = 0; y < height; y++) {
+            readEOL(reader, hasFill);
+            final int count = decompress1DLine(reader, changes, width, y);
+            fillLine(decompressed, y * rowLength, changes, count, width);
         }
+        return decompressed;
     }
 
-    private static int compressT(final int a0, final int a1, final int b1, final BitArrayOutputStream outputStream,final  int codingA0Color, final int[] codingLine ){
-          final int a1b1 = a1 - b1;
-          if (-3 <= a1b1 && a1b1 <= 3) {
-              T4_T6_Tables.Entry entry;
-              if (a1b1 == -3) {
-                  entry = T4_T6_Tables.VL3;
-              } else if (a1b1 == -2) {
-                  entry = T4_T6_Tables.VL2;
-              } else if (a1b1 == -1) {
-                  entry = T4_T6_Tables.VL1;
-              } else if (a1b1 == 0) {
-                  entry = T4_T6_Tables.V0;
-              } else if (a1b1 == 1) {
-                  entry = T4_T6_Tables.VR1;
-              } else if (a1b1 == 2) {
-                  entry = T4_T6_Tables.VR2;
-              } else {
-                  entry = T4_T6_Tables.VR3;
-              }
-              entry.writeBits(outputStream);
-              return a1;
-
-          } else {
-              final int a2 = nextChangingElement(codingLine, 1 - codingA0Color, a1 + 1);
-              final int a0a1 = a1 - a0;
-              final int a1a2 = a2 - a1;
-              T4_T6_Tables.H.writeBits(outputStream);
-              writeRunLength(outputStream, a0a1, codingA0Color);
-              writeRunLength(outputStream, a1a2, 1 - codingA0Color);
-              return a2;
-          }
-    }
     public static byte[] compressT4_2D(final byte[] uncompressed, final int width,
             final int height, final boolean hasFill, final int parameterK)
             throws ImageWriteException {
-        final BitInputStreamFlexible inputStream = new BitInputStreamFlexible(new ByteArrayInputStream(uncompressed));
-        final BitArrayOutputStream outputStream = new BitArrayOutputStream();
-        int[] referenceLine = new int[width];
-        int[] codingLine = new int[width];
-        int kCounter = 0;
-        if (hasFill) {
-            T4_T6_Tables.EOL16.writeBits(outputStream);
-        } else {
-            T4_T6_Tables.EOL.writeBits(outputStream);
-        }
+        final int rowLength = checkUncompressedLength(uncompressed, width, height);
+        try (final BitArrayOutputStream outputStream = new BitArrayOutputStream()) {
+            int[] referenceLine = new int[width + 3];
+            int[] codingLine = new int[width + 3];
+            endLine(referenceLine, 0, width);
+            int kCounter = 0;
+            if (hasFill) {
+                T4_T6_Tables.EOL16.writeBits(outputStream);
+            } else {
+                T4_T6_Tables.EOL.writeBits(outputStream);
+            }
 
-        for (int y = 0; y < height; y++) {
-            if (kCounter > 0) {
-                // 2D
-                outputStream.writeBit(0);
-                for (int i = 0; i < width; i++) {
-                    try {
-                        codingLine[i] = inputStream.readBits(1);
-                    } catch (final IOException ioException) {
-                        throw new ImageWriteException("Error reading image to compress", ioException);
-                    }
-                }
-                int codingA0Color = WHITE;
-                int referenceA0Color = WHITE;
-                int a1 = nextChangingElement(codingLine, codingA0Color, 0);
-                int b1 = nextChangingElement(referenceLine, referenceA0Color, 0);
-                int b2 = nextChangingElement(referenceLine, 1 - referenceA0Color, b1 + 1);
-                for (int a0 = 0; a0 < width;) {
-                    if (b2 < a1) {
-                        T4_T6_Tables.P.writeBits(outputStream);
-                        a0 = b2;
-                    } else {
-                        a0 = compressT(a0, a1, b1, outputStream, codingA0Color, codingLine);
-                        if (a0 == a1) {
-                            codingA0Color = 1 - codingA0Color;
-                        }
-                    }
-                    referenceA0Color = changingElementAt(referenceLine, a0);
-                    a1 = nextChangingElement(codingLine, codingA0Color, a0 + 1);
-                    if (codingA0Color == referenceA0Color) {
-                        b1 = nextChangingElement(referenceLine, referenceA0Color, a0 + 1);
-                    } else {
-                        b1 = nextChangingElement(referenceLine, referenceA0Color, a0 + 1);
-                        b1 = nextChangingElement(referenceLine, 1 - referenceA0Color, b1 + 1);
-                    }
-                    b2 = nextChangingElement(referenceLine, 1 - codingA0Color, b1 + 1);
+            for (int y = 0; y < height; y++) {
+                final int count = findChanges(uncompressed, y * rowLength, width, codingLine);
+                if (kCounter > 0) {
+                    // 2D
+                    outputStream.writeBit(0);
+                    compress2DLine(outputStream, codingLine, referenceLine, width);
+                } else {
+                    // 1D
+                    outputStream.writeBit(1);
+                    compress1DLine(outputStream, codingLine, count, width);
                 }
                 final int[] swap = referenceLine;
                 referenceLine = codingLine;
                 codingLine = swap;
-            } else {
-                // 1D
-                outputStream.writeBit(1);
-                compress1DLine(inputStream, outputStream, referenceLine, width);
-            }
-            if (hasFill) {
-                int bitsAvailable = outputStream.getBitsAvailableInCurrentByte();
-                if (bitsAvailable < 4) {
-                    outputStream.flush();
-                    bitsAvailable = 8;
+                if (hasFill) {
+                    writeFillBits(outputStream);
                 }
-                for (; bitsAvailable > 4; bitsAvailable--) {
-                    outputStream.writeBit(0);
+                T4_T6_Tables.EOL.writeBits(outputStream);
+                kCounter++;
+                if (kCounter == parameterK) {
+                    kCounter = 0;
                 }
             }
-            T4_T6_Tables.EOL.writeBits(outputStream);
-            kCounter++;
-            if (kCounter == parameterK) {
-                kCounter = 0;
-            }
-            inputStream.flushCache();
-        }
 
-        return outputStream.toByteArray();
+            return outputStream.toByteArray();
+        }
     }
 
     /**
@@ -369,154 +241,49 @@ public final class T4AndT6Compression {
      */
     public static byte[] decompressT4_2D(final byte[] compressed, final int width,
             final int height, final boolean hasFill) throws ImageReadException {
-        final BitInputStreamFlexible inputStream = new BitInputStreamFlexible(new ByteArrayInputStream(compressed));
-        try (final BitArrayOutputStream outputStream = new BitArrayOutputStream()) {
-            final int[] referenceLine = new int[width];
-            for (int y = 0; y < height; y++) {
-                int rowLength = 0;
-                try {
-                    T4_T6_Tables.Entry entry = CONTROL_CODES.decode(inputStream);
-                    if (!isEOL(entry, hasFill)) {
-                        throw new ImageReadException("Expected EOL not found");
-                    }
-                    final int tagBit = inputStream.readBits(1);
-                    if (tagBit == 0) {
-                        // 2D
-                        int codingA0Color = WHITE;
-                        int referenceA0Color = WHITE;
-                        int b1 = nextChangingElement(referenceLine, referenceA0Color, 0);
-                        int b2 = nextChangingElement(referenceLine, 1 - referenceA0Color, b1 + 1);
-                        for (int a0 = 0; a0 < width;) {
-                            int a1;
-                            int a2;
-                            entry = CONTROL_CODES.decode(inputStream);
-                            if (entry == T4_T6_Tables.P) {
-                                fillRange(outputStream, referenceLine, a0, b2, codingA0Color);
-                                a0 = b2;
-                            } else if (entry == T4_T6_Tables.H) {
-                                final int a0a1 = readTotalRunLength(inputStream, codingA0Color);
-                                a1 = a0 + a0a1;
-                                fillRange(outputStream, referenceLine, a0, a1, codingA0Color);
-                                final int a1a2 = readTotalRunLength(inputStream, 1 - codingA0Color);
-                                a2 = a1 + a1a2;
-                                fillRange(outputStream, referenceLine, a1, a2, 1 - codingA0Color);
-                                a0 = a2;
-                            } else {
-                                int a1b1;
-                                if (entry == T4_T6_Tables.V0) {
-                                    a1b1 = 0;
-                                } else if (entry == T4_T6_Tables.VL1) {
-                                    a1b1 = -1;
-                                } else if (entry == T4_T6_Tables.VL2) {
-                                    a1b1 = -2;
-                                } else if (entry == T4_T6_Tables.VL3) {
-                                    a1b1 = -3;
-                                } else if (entry == T4_T6_Tables.VR1) {
-                                    a1b1 = 1;
-                                } else if (entry == T4_T6_Tables.VR2) {
-                                    a1b1 = 2;
-                                } else if (entry == T4_T6_Tables.VR3) {
-                                    a1b1 = 3;
-                                } else {
-                                    throw new ImageReadException("Invalid/unknown T.4 control code " + entry.bitString);
-                                }
-                                a1 = b1 + a1b1;
-                                fillRange(outputStream, referenceLine, a0, a1, codingA0Color);
-                                a0 = a1;
-                                codingA0Color = 1 - codingA0Color;
-                            }
-                            referenceA0Color = changingElementAt(referenceLine, a0);
-                            if (codingA0Color == referenceA0Color) {
-                                b1 = nextChangingElement(referenceLine, referenceA0Color, a0 + 1);
-                            } else {
-                                b1 = nextChangingElement(referenceLine, referenceA0Color, a0 + 1);
-                                b1 = nextChangingElement(referenceLine, 1 - referenceA0Color, b1 + 1);
-                            }
-                            b2 = nextChangingElement(referenceLine, 1 - codingA0Color, b1 + 1);
-                            rowLength = a0;
-                        }
-                    } else {
-                        // 1D
-                        int color = WHITE;
-                        for (rowLength = 0; rowLength < width;) {
-                            final int runLength = readTotalRunLength(inputStream, color);
-                            for (int i = 0; i < runLength; i++) {
-                                outputStream.writeBit(color);
-                                referenceLine[rowLength + i] = color;
-                            }
-                            color = 1 - color;
-                            rowLength += runLength;
-                        }
-                    }
-                } catch (final IOException ioException) {
-                    throw new ImageReadException("Decompression error", ioException);
-                } catch (final HuffmanTreeException huffmanException) {
-                    throw new ImageReadException("Decompression error", huffmanException);
-                }
-
-                if (rowLength == width) {
-                    outputStream.flush();
-                } else if (rowLength > width) {
-                    throw new ImageReadException("Unrecoverable row length error in image row " + y);
-                }
+        final BitArrayReader reader = new BitArrayReader(compressed);
+        final int rowLength = (width + 7) / 8;
+        final byte[] decompressed = new byte[height * rowLength];
+        int[] referenceLine = new int[width + 3];
+        int[] codingLine = new int[width + 3];
+        endLine(referenceLine, 0, width);
+        for (int y = 0; y < height; y++) {
+            readEOL(reader, hasFill);
+            final int tagBit = reader.readBits(1);
+            final int count;
+            if (tagBit == 0) {
+                // 2D
+                count = decompress2DLine(reader, codingLine, referenceLine, width, y);
+            } else {
+                // 1D
+                count = decompress1DLine(reader, codingLine, width, y);
             }
-
-            return outputStream.toByteArray();
+            fillLine(decompressed, y * rowLength, codingLine, count, width);
+            final int[] swap = referenceLine;
+            referenceLine = codingLine;
+            codingLine = swap;
         }
+        return decompressed;
     }
 
     public static byte[] compressT6(final byte[] uncompressed, final int width, final int height)
             throws ImageWriteException {
-        try (final ByteArrayInputStream bais = new ByteArrayInputStream(uncompressed);
-                BitInputStreamFlexible inputStream = new BitInputStreamFlexible(bais)) {
-            final BitArrayOutputStream outputStream = new BitArrayOutputStream();
-            int[] referenceLine = new int[width];
-            int[] codingLine = new int[width];
+        final int rowLength = checkUncompressedLength(uncompressed, width, height);
+        try (final BitArrayOutputStream outputStream = new BitArrayOutputStream()) {
+            int[] referenceLine = new int[width + 3];
+            int[] codingLine = new int[width + 3];
+            endLine(referenceLine, 0, width);
             for (int y = 0; y < height; y++) {
-                for (int i = 0; i < width; i++) {
-                    try {
-                        codingLine[i] = inputStream.readBits(1);
-                    } catch (final IOException ioException) {
-                        throw new ImageWriteException("Error reading image to compress", ioException);
-                    }
-                }
-                int codingA0Color = WHITE;
-                int referenceA0Color = WHITE;
-                int a1 = nextChangingElement(codingLine, codingA0Color, 0);
-                int b1 = nextChangingElement(referenceLine, referenceA0Color, 0);
-                int b2 = nextChangingElement(referenceLine, 1 - referenceA0Color, b1 + 1);
-                for (int a0 = 0; a0 < width;) {
-                    if (b2 < a1) {
-                        T4_T6_Tables.P.writeBits(outputStream);
-                        a0 = b2;
-                    } else {
-                        a0 = compressT(a0, a1, b1, outputStream, codingA0Color, codingLine);
-                        if (a0 == a1) {
-                            codingA0Color = 1 - codingA0Color;
-                        }
-                    }
-                    referenceA0Color = changingElementAt(referenceLine, a0);
-                    a1 = nextChangingElement(codingLine, codingA0Color, a0 + 1);
-                    if (codingA0Color == referenceA0Color) {
-                        b1 = nextChangingElement(referenceLine, referenceA0Color, a0 + 1);
-                    } else {
-                        b1 = nextChangingElement(referenceLine, referenceA0Color, a0 + 1);
-                        b1 = nextChangingElement(referenceLine, 1 - referenceA0Color, b1 + 1);
-                    }
-                    b2 = nextChangingElement(referenceLine, 1 - codingA0Color, b1 + 1);
-                }
+                findChanges(uncompressed, y * rowLength, width, codingLine);
+                compress2DLine(outputStream, codingLine, referenceLine, width);
                 final int[] swap = referenceLine;
                 referenceLine = codingLine;
                 codingLine = swap;
-                inputStream.flushCache();
             }
             // EOFB
             T4_T6_Tables.EOL.writeBits(outputStream);
             T4_T6_Tables.EOL.writeBits(outputStream);
-            final byte[] ret = outputStream.toByteArray();
-            return ret;
-        } catch (final IOException ioException) {
-            throw new ImageWriteException("I/O error", ioException);
+            return outputStream.toByteArray();
         }
     }
 
@@ -533,98 +300,238 @@ public final class T4AndT6Compression {
      */
     public static byte[] decompressT6(final byte[] compressed, final int width, final int height)
             throws ImageReadException {
-        final BitInputStreamFlexible inputStream = new BitInputStreamFlexible(new ByteArrayInputStream(compressed));
-        final BitArrayOutputStream outputStream = new BitArrayOutputStream();
-        final int[] referenceLine = new int[width];
+        final BitArrayReader reader = new BitArrayReader(compressed);
+        final int rowLength = (width + 7) / 8;
+        final byte[] decompressed = new byte[height * rowLength];
+        int[] referenceLine = new int[width + 3];
+        int[] codingLine = new int[width + 3];
+        endLine(referenceLine, 0, width);
         for (int y = 0; y < height; y++) {
-            int rowLength = 0;
-            try {
-                int codingA0Color = WHITE;
-                int referenceA0Color = WHITE;
-                int b1 = nextChangingElement(referenceLine, referenceA0Color, 0);
-                int b2 = nextChangingElement(referenceLine, 1 - referenceA0Color, b1 + 1);
-                for (int a0 = 0; a0 < width;) {
-                    int a1;
-                    int a2;
-                    final T4_T6_Tables.Entry  entry = CONTROL_CODES.decode(inputStream);
-                    if (entry == T4_T6_Tables.P) {
-                        fillRange(outputStream, referenceLine, a0, b2, codingA0Color);
-                        a0 = b2;
-                    } else if (entry == T4_T6_Tables.H) {
-                        final int a0a1 = readTotalRunLength(inputStream, codingA0Color);
-                        a1 = a0 + a0a1;
-                        fillRange(outputStream, referenceLine, a0, a1, codingA0Color);
-                        final int a1a2 = readTotalRunLength(inputStream, 1 - codingA0Color);
-                        a2 = a1 + a1a2;
-                        fillRange(outputStream, referenceLine, a1, a2, 1 - codingA0Color);
-                        a0 = a2;
-                    } else {
-                        int a1b1;
-                        if (entry == T4_T6_Tables.V0) {
-                            a1b1 = 0;
-                        } else if (entry == T4_T6_Tables.VL1) {
-                            a1b1 = -1;
-                        } else if (entry == T4_T6_Tables.VL2) {
-                            a1b1 = -2;
-                        } else if (entry == T4_T6_Tables.VL3) {
-                            a1b1 = -3;
-                        } else if (entry == T4_T6_Tables.VR1) {
-                            a1b1 = 1;
-                        } else if (entry == T4_T6_Tables.VR2) {
-                            a1b1 = 2;
-                        } else if (entry == T4_T6_Tables.VR3) {
-                            a1b1 = 3;
-                        } else {
-                            throw new ImageReadException("Invalid/unknown T.6 control code " + entry.bitString);
-                        }
-                        a1 = b1 + a1b1;
-                        fillRange(outputStream, referenceLine, a0, a1, codingA0Color);
-                        a0 = a1;
-                        codingA0Color = 1 - codingA0Color;
-                    }
-                    referenceA0Color = changingElementAt(referenceLine, a0);
-                    if (codingA0Color == referenceA0Color) {
-                        b1 = nextChangingElement(referenceLine, referenceA0Color, a0 + 1);
-                    } else {
-                        b1 = nextChangingElement(referenceLine, referenceA0Color, a0 + 1);
-                        b1 = nextChangingElement(referenceLine, 1 - referenceA0Color, b1 + 1);
-                    }
-                    b2 = nextChangingElement(referenceLine, 1 - codingA0Color, b1 + 1);
-                    rowLength = a0;
+            final int count = decompress2DLine(reader, codingLine, referenceLine, width, y);
+            fillLine(decompressed, y * rowLength, codingLine, count, width);
+            final int[] swap = referenceLine;
+            referenceLine = codingLine;
+            codingLine = swap;
+        }
+        return decompressed;
+    }
+
+    private static int checkUncompressedLength(final byte[] uncompressed, final int width, final int height)
+            throws ImageWriteException {
+        final int rowLength = (width + 7) / 8;
+        if (uncompressed.length < (long) height * rowLength) {
+            throw new ImageWriteException("Error reading image to compress: " + uncompressed.length
+                    + " bytes is too few for a " + width + "x" + height + " image");
+        }
+        return rowLength;
+    }
+
+    /**
+     * Finds where the color changes in a row of packed pixels, 1 for black,
+     * skipping bytes with no change.
+     *
+     * @param pixels the pixels
+     * @param start the index of the first byte of the row
+     * @param width the number of pixels in the row
+     * @param changes receives the positions of the changes, followed by 3
+     *            times the width
+     * @return the number of changes
+     */
+    private static int findChanges(final byte[] pixels, final int start, final int width, final int[] changes) {
+        int count = 0;
+        // the bits are flipped when looking for white pixels
+        int flip = 0;
+        for (int x = 0; x < width;) {
+            final int b = ((pixels[start + (x >>> 3)] & 0xff) ^ flip) & (0xff >>> (x & 7));
+            if (b == 0) {
+                x = (x | 7) + 1;
+            } else {
+                x = (x & ~7) + Integer.numberOfLeadingZeros(b) - 24;
+                if (x >= width) {
+                    break;
                 }
-            } catch (final HuffmanTreeException huffmanException) {
-                throw new ImageReadException("Decompression error", huffmanException);
+                changes[count++] = x;
+                flip ^= 0xff;
             }
+        }
+        endLine(changes, count, width);
+        return count;
+    }
 
-            if (rowLength == width) {
-                outputStream.flush();
-            } else if (rowLength > width) {
-                throw new ImageReadException("Unrecoverable row length error in image row " + y);
+    /**
+     * Ends the changes of a line with the width, so the changes after the
+     * last are the end of the line.
+     */
+    private static void endLine(final int[] changes, final int count, final int width) {
+        changes[count] = width;
+        changes[count + 1] = width;
+        changes[count + 2] = width;
+    }
+
+    /**
+     * Adds a change to a line that's being decompressed. A change at the
+     * same position as the previous one, after a run of 0 pixels, undoes it.
+     */
+    private static int addChange(final int[] changes, final int count, final int position, final int width) {
+        if (position >= width) {
+            return count;
+        }
+        if (count > 0 && changes[count - 1] == position) {
+            return count - 1;
+        }
+        changes[count] = position;
+        return count + 1;
+    }
+
+    /**
+     * Finds b1, the first change in the reference line right of a0 and to the
+     * opposite color of a0. Its index is near that of the last b1, so the
+     * search starts there.
+     *
+     * @param referenceLine the changes of the reference line
+     * @param index the index of the last b1
+     * @param a0 the position of a0, or -1 at the start of the line
+     * @param color the color of a0
+     * @return the index of b1, which is followed by b2
+     */
+    private static int findB1(final int[] referenceLine, int index, final int a0, final int color) {
+        while (index > 0 && referenceLine[index - 1] > a0) {
+            index--;
+        }
+        while (referenceLine[index] <= a0) {
+            index++;
+        }
+        // the changes at even indices are to black
+        if ((index & 1) != color) {
+            index++;
+        }
+        return index;
+    }
+
+    private static void compress1DLine(final BitArrayOutputStream outputStream, final int[] changes,
+            final int count, final int width) {
+        int color = WHITE;
+        int runStart = 0;
+        for (int i = 0; i < count; i++) {
+            writeRunLength(outputStream, changes[i] - runStart, color);
+            runStart = changes[i];
+            color = 1 - color;
+        }
+        writeRunLength(outputStream, width - runStart, color);
+    }
+
+    private static void compress2DLine(final BitArrayOutputStream outputStream, final int[] codingLine,
+            final int[] referenceLine, final int width) {
+        int codingA0Color = WHITE;
+        int a0 = 0;
+        // the changes right of a0 are searched, and at 0 on the first
+        int searchFrom = -1;
+        int a1Index = 0;
+        int b1Index = 0;
+        while (a0 < width) {
+            while (codingLine[a1Index] <= searchFrom) {
+                a1Index++;
+            }
+            b1Index = findB1(referenceLine, b1Index, searchFrom, codingA0Color);
+            final int a1 = codingLine[a1Index];
+            final int b1 = referenceLine[b1Index];
+            final int b2 = referenceLine[b1Index + 1];
+            final int a1b1 = a1 - b1;
+            if (b2 < a1) {
+                T4_T6_Tables.P.writeBits(outputStream);
+                a0 = b2;
+            } else if (-3 <= a1b1 && a1b1 <= 3) {
+                VERTICAL_MODES[a1b1 + 3].writeBits(outputStream);
+                a0 = a1;
+                codingA0Color = 1 - codingA0Color;
+            } else {
+                final int a2 = codingLine[a1Index + 1];
+                T4_T6_Tables.H.writeBits(outputStream);
+                writeRunLength(outputStream, a1 - a0, codingA0Color);
+                writeRunLength(outputStream, a2 - a1, 1 - codingA0Color);
+                a0 = a2;
             }
+            searchFrom = a0;
         }
+    }
 
-        return outputStream.toByteArray();
+    private static int decompress1DLine(final BitArrayReader reader, final int[] changes, final int width,
+            final int y) throws ImageReadException {
+        int count = 0;
+        int color = WHITE;
+        for (int rowLength = 0; rowLength < width;) {
+            rowLength += readTotalRunLength(reader, color);
+            if (rowLength > width) {
+                throw new ImageReadException("Unrecoverable row length error in image row " + y);
+            }
+            count = addChange(changes, count, rowLength, width);
+            color = 1 - color;
+        }
+        endLine(changes, count, width);
+        return count;
     }
 
-    private static boolean isEOL(final T4_T6_Tables.Entry entry, final boolean hasFill) {
-        if (entry == T4_T6_Tables.EOL) {
-            return true;
+    private static int decompress2DLine(final BitArrayReader reader, final int[] codingLine,
+            final int[] referenceLine, final int width, final int y) throws ImageReadException {
+        int count = 0;
+        int codingA0Color = WHITE;
+        int a0 = 0;
+        // the changes right of a0 are searched, and at 0 on the first
+        int searchFrom = -1;
+        int b1Index = 0;
+        while (a0 < width) {
+            b1Index = findB1(referenceLine, b1Index, searchFrom, codingA0Color);
+            final int entry = MODES[reader.peekBits(MODE_BITS)];
+            if (entry == 0) {
+                throw new ImageReadException("Invalid/unknown control code in image row " + y);
+            }
+            reader.skipBits(entry & 0xf);
+            final int mode = entry >>> 4;
+            if (mode == MODE_PASS) {
+                a0 = referenceLine[b1Index + 1];
+            } else if (mode == MODE_HORIZONTAL) {
+                final int a1 = a0 + readTotalRunLength(reader, codingA0Color);
+                final int a2 = a1 + readTotalRunLength(reader, 1 - codingA0Color);
+                if (a2 > width) {
+                    throw new ImageReadException("Unrecoverable row length error in image row " + y);
+                }
+                count = addChange(codingLine, count, a1, width);
+                count = addChange(codingLine, count, a2, width);
+                a0 = a2;
+            } else {
+                final int a1 = referenceLine[b1Index] + mode - 3;
+                if (a1 < a0 || a1 > width) {
+                    throw new ImageReadException("Unrecoverable row length error in image row " + y);
+                }
+                count = addChange(codingLine, count, a1, width);
+                a0 = a1;
+                codingA0Color = 1 - codingA0Color;
+            }
+            searchFrom = a0;
         }
-        if (hasFill) {
-            return entry == T4_T6_Tables.EOL13 || entry == T4_T6_Tables.EOL14
-                    || entry == T4_T6_Tables.EOL15
-                    || entry == T4_T6_Tables.EOL16
-                    || entry == T4_T6_Tables.EOL17
-                    || entry == T4_T6_Tables.EOL18
-                    || entry == T4_T6_Tables.EOL19;
+        endLine(codingLine, count, width);
+        return count;
+    }
+
+    private static void readEOL(final BitArrayReader reader, final boolean hasFill) throws ImageReadException {
+        final int bits = reader.peekBits(EOL_MAX_ZEROS + 1);
+        final int zeros = Integer.numberOfLeadingZeros(bits) - (32 - (EOL_MAX_ZEROS + 1));
+        if (zeros != EOL_ZEROS && !(hasFill && EOL_ZEROS < zeros && zeros <= EOL_MAX_ZEROS)) {
+            throw new ImageReadException("Expected EOL not found");
         }
-        return false;
+        reader.skipBits(zeros + 1);
+    }
+
+    private static void writeFillBits(final BitArrayOutputStream outputStream) {
+        // so the EOL that follows ends on a byte boundary
+        final int bitsAvailable = outputStream.getBitsAvailableInCurrentByte();
+        outputStream.writeBits(0, bitsAvailable < 4 ? bitsAvailable + 4 : bitsAvailable - 4);
     }
 
     private static void writeRunLength(final BitArrayOutputStream bitStream,
             int runLength, final int color) {
-        final T4_T6_Tables.Entry[] makeUpCodes;
-        final T4_T6_Tables.Entry[] terminatingCodes;
+        final Entry[] makeUpCodes;
+        final Entry[] terminatingCodes;
         if (color == WHITE) {
             makeUpCodes = T4_T6_Tables.WHITE_MAKE_UP_CODES;
             terminatingCodes = T4_T6_Tables.WHITE_TERMINATING_CODES;
@@ -632,80 +539,58 @@ public final class T4AndT6Compression {
             makeUpCodes = T4_T6_Tables.BLACK_MAKE_UP_CODES;
             terminatingCodes = T4_T6_Tables.BLACK_TERMINATING_CODES;
         }
+        // the make up codes are for multiples of 64, from 64 and 1792
         while (runLength >= 1792) {
-            final T4_T6_Tables.Entry entry = lowerBound(
-                    T4_T6_Tables.ADDITIONAL_MAKE_UP_CODES, runLength);
+            final Entry entry = T4_T6_Tables.ADDITIONAL_MAKE_UP_CODES[Math.min(runLength / 64, 40) - 28];
             entry.writeBits(bitStream);
             runLength -= entry.value;
         }
-        while (runLength >= 64) {
-            final T4_T6_Tables.Entry entry = lowerBound(makeUpCodes, runLength);
+        if (runLength >= 64) {
+            final Entry entry = makeUpCodes[runLength / 64 - 1];
             entry.writeBits(bitStream);
             runLength -= entry.value;
         }
-        final T4_T6_Tables.Entry terminatingEntry = terminatingCodes[runLength];
-        terminatingEntry.writeBits(bitStream);
+        terminatingCodes[runLength].writeBits(bitStream);
     }
 
-    private static T4_T6_Tables.Entry lowerBound(final T4_T6_Tables.Entry[] entries, final int value) {
-        int first = 0;
-        int last = entries.length - 1;
+    private static int readTotalRunLength(final BitArrayReader reader, final int color)
+            throws ImageReadException {
+        final int[] runLengths = color == WHITE ? WHITE_RUN_LENGTHS : BLACK_RUN_LENGTHS;
+        int totalLength = 0;
+        int entry;
         do {
-            final int middle = (first + last) >>> 1;
-            if (entries[middle].value <= value
-                    && ((middle + 1) >= entries.length || value < entries[middle + 1].value)) {
-                return entries[middle];
-            } else if (entries[middle].value > value) {
-                last = middle - 1;
-            } else {
-                first = middle + 1;
+            entry = runLengths[reader.peekBits(RUN_LENGTH_BITS)];
+            if (entry == 0) {
+                throw new ImageReadException("Decompression error: invalid run length code");
             }
-        } while (first < last);
-
-        return entries[first];
+            reader.skipBits(entry & 0xf);
+            totalLength += entry >>> 4;
+        } while (entry >>> 4 > 63);
+        return totalLength;
     }
 
-    private static int readTotalRunLength(final BitInputStreamFlexible bitStream,
-            final int color) throws ImageReadException {
-        try {
-            int totalLength = 0;
-            Integer runLength;
-            do {
-                if (color == WHITE) {
-                    runLength = WHITE_RUN_LENGTHS.decode(bitStream);
-                } else {
-                    runLength = BLACK_RUN_LENGTHS.decode(bitStream);
+    /**
+     * Sets the bits of the black runs of a line, which start at the even
+     * changes and end at the odd ones.
+     */
+    private static void fillLine(final byte[] pixels, final int start, final int[] changes, final int count,
+            final int width) {
+        for (int i = 0; i < count; i += 2) {
+            final int runStart = changes[i];
+            final int runEnd = changes[i + 1];
+            int first = start + (runStart >>> 3);
+            final int last = start + ((runEnd - 1) >>> 3);
+            final int firstMask = 0xff >>> (runStart & 7);
+            final int lastMask = (0xff00 >>> (((runEnd - 1) & 7) + 1)) & 0xff;
+            if (first == last) {
+                pixels[first] |= firstMask & lastMask;
+            } else {
+                pixels[first++] |= firstMask;
+                while (first < last) {
+                    pixels[first++] = (byte) 0xff;
                 }
-                totalLength += runLength;
-            } while (runLength > 63);
-            return totalLength;
-        } catch (final HuffmanTreeException huffmanException) {
-            throw new ImageReadException("Decompression error", huffmanException);
-        }
-    }
-
-    private static int changingElementAt(final int[] line, final int position) {
-        if (position < 0 || position >= line.length) {
-            return WHITE;
-        }
-        return line[position];
-    }
-
-    private static int nextChangingElement(final int[] line, final int currentColour, final int start) {
-        int position;
-        for (position = start; position < line.length
-                && line[position] == currentColour; position++) {
-            // noop
-        }
-
-        return Math.min(position, line.length);
-    }
-
-    private static void fillRange(final BitArrayOutputStream outputStream,
-            final int[] referenceRow, final int a0, final int end, final int color) {
-        for (int i = a0; i < end; i++) {
-            referenceRow[i] = color;
-            outputStream.writeBit(color);
+                pixels[last] |= lastMask;
+            }
         }
     }
 }
@@ -241,22 +241,21 @@ class T4_T6_Tables {
     public static final Entry VL3 = new Entry("0000010", 0);
 
     public static class Entry {
-        String bitString;
-        Integer value;
+        final String bitString;
+        final int value;
+        // the bits of the code, right aligned, and how many there are
+        final int code;
+        final int length;
 
         Entry(final String bitString, final int value) {
             this.bitString = bitString;
             this.value = value;
+            this.code = Integer.parseInt(bitString, 2);
+            this.length = bitString.length();
         }
 
         public void writeBits(final BitArrayOutputStream outputStream) {
-            for (int i = 0; i < bitString.length(); i++) {
-                if (bitString.charAt(i) == '0') {
-                    outputStream.writeBit(0);
-                } else {
-                    outputStream.writeBit(1);
-                }
-            }
+            outputStream.writeBits(code, length);
         }
     }
 }
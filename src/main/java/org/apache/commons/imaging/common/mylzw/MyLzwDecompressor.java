@@ -16,15 +16,24 @@
  */
 package org.apache.commons.imaging.common.mylzw;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
 import java.nio.ByteOrder;
+import java.util.Arrays;
 
+/**
+ * Decompresses LZW data as used by GIF and TIFF.
+ *
+ * <p>Every string in the table, except for the single byte ones, has been
+ * written to the output before it is added, so an entry is just the offset
+ * and length of an earlier copy of the string in the output. Adding an
+ * entry doesn't allocate, and a string is written by copying it within the
+ * output buffer.</p>
+ */
 public final class MyLzwDecompressor {
     private static final int MAX_TABLE_SIZE = 1 << 12;
-    private final byte[][] table;
+    private final int[] offsets;
+    private final int[] lengths;
     private int codeSize;
     private final int initialCodeSize;
     private int codes = -1;
@@ -34,6 +43,7 @@ public final class MyLzwDecompressor {
     private final int eoiCode;
     private int written;
     private boolean tiffLZWMode;
+    private byte[] result;
 
     public interface Listener {
         void code(int code);
@@ -52,7 +62,8 @@ public final class MyLzwDecompressor {
 
         this.initialCodeSize = initialCodeSize;
 
-        table = new byte[MAX_TABLE_SIZE][];
+        offsets = new int[MAX_TABLE_SIZE];
+        lengths = new int[MAX_TABLE_SIZE];
         clearCode = 1 << initialCodeSize;
         eoiCode = clearCode + 1;
 
@@ -60,17 +71,7 @@ public final class MyLzwDecompressor {
             listener.init(clearCode, eoiCode);
         }
 
-        initializeTable();
-    }
-
-    private void initializeTable() {
         codeSize = initialCodeSize;
-
-        final int intialEntriesCount = 1 << codeSize + 2;
-
-        for (int i = 0; i < intialEntriesCount; i++) {
-            table[i] = new byte[] { (byte) i, };
-        }
     }
 
     private void clearTable() {
@@ -88,25 +89,33 @@ public final class MyLzwDecompressor {
         return code;
     }
 
-    private byte[] stringFromCode(final int code) throws IOException {
+    private void checkCode(final int code) throws IOException {
         if ((code >= codes) || (code < 0)) {
             throw new IOException("Bad Code: " + code + " codes: " + codes
-                    + " code_size: " + codeSize + ", table: " + table.length);
+                    + " code_size: " + codeSize + ", table: " + MAX_TABLE_SIZE);
         }
-        return table[code];
     }
 
     private boolean isInTable(final int code) {
         return code < codes;
     }
 
-    private byte firstChar(final byte[] bytes) {
-        return bytes[0];
+    /**
+     * Codes up to and including the end of information code stand for a
+     * single byte, the code itself.
+     */
+    private boolean isSingleByte(final int code) {
+        return code <= eoiCode;
     }
 
-    private void addStringToTable(final byte[] bytes) throws IOException {
+    private int getLength(final int code) {
+        return isSingleByte(code) ? 1 : lengths[code];
+    }
+
+    private void addStringToTable(final int offset, final int length) {
         if (codes < (1 << codeSize)) {
-            table[codes] = bytes;
+            offsets[codes] = offset;
+            lengths[codes] = length;
             codes++;
         }
         // If the table already full, then we simply ignore these bytes
@@ -115,18 +124,29 @@ public final class MyLzwDecompressor {
         checkCodeSize();
     }
 
-    private byte[] appendBytes(final byte[] bytes, final byte b) {
-        final byte[] result = new byte[bytes.length + 1];
-
-        System.arraycopy(bytes, 0, result, 0, bytes.length);
-        result[result.length - 1] = b;
-        return result;
+    private void ensureCapacity(final int capacity) {
+        if (capacity > result.length) {
+            result = Arrays.copyOf(result, Math.max(capacity, result.length * 2));
+        }
     }
 
-    private void writeToResult(final OutputStream os, final byte[] bytes)
-            throws IOException {
-        os.write(bytes);
-        written += bytes.length;
+    /**
+     * Appends the string of a code that is in the table to the result.
+     *
+     * @return the offset the string was written at
+     */
+    private int writeToResult(final int code) {
+        final int offset = written;
+        if (isSingleByte(code)) {
+            ensureCapacity(written + 1);
+            result[written++] = (byte) code;
+        } else {
+            final int length = lengths[code];
+            ensureCapacity(written + length);
+            System.arraycopy(result, offsets[code], result, written, length);
+            written += length;
+        }
+        return offset;
     }
 
     public void setTiffLZWMode() {
@@ -136,52 +156,67 @@ public final class MyLzwDecompressor {
     public byte[] decompress(final InputStream is, final int expectedLength) throws IOException {
         int code;
         int oldCode = -1;
+        // where the string of oldCode was last written
+        int oldOffset = -1;
         final MyBitInputStream mbis = new MyBitInputStream(is, byteOrder);
         if (tiffLZWMode) {
             mbis.setTiffLZWMode();
         }
 
-        final ByteArrayOutputStream baos = new ByteArrayOutputStream(expectedLength);
+        result = new byte[expectedLength];
+        written = 0;
 
         clearTable();
 
-        while ((code = getNextCode(mbis)) != eoiCode) {
-            if (code == clearCode) {
-                clearTable();
+        try {
+            while ((code = getNextCode(mbis)) != eoiCode) {
+                if (code == clearCode) {
+                    clearTable();
 
-                if (written >= expectedLength) {
-                    break;
-                }
-                code = getNextCode(mbis);
-
-                if (code == eoiCode) {
-                    break;
-                }
-                writeToResult(baos, stringFromCode(code));
+                    if (written >= expectedLength) {
+                        break;
+                    }
+                    code = getNextCode(mbis);
 
-                oldCode = code;
-            } else {
-                if (isInTable(code)) {
-                    writeToResult(baos, stringFromCode(code));
+                    if (code == eoiCode) {
+                        break;
+                    }
+                    checkCode(code);
+                    oldOffset = writeToResult(code);
 
-                    addStringToTable(appendBytes(stringFromCode(oldCode),
-                            firstChar(stringFromCode(code))));
                     oldCode = code;
                 } else {
-                    final byte[] outString = appendBytes(stringFromCode(oldCode),
-                            firstChar(stringFromCode(oldCode)));
-                    writeToResult(baos, outString);
-                    addStringToTable(outString);
-                    oldCode = code;
+                    if (isInTable(code)) {
+                        checkCode(code);
+                        final int offset = writeToResult(code);
+
+                        // the string of oldCode is followed by the first
+                        // byte of the string just written
+                        checkCode(oldCode);
+                        addStringToTable(oldOffset, getLength(oldCode) + 1);
+                        oldCode = code;
+                        oldOffset = offset;
+                    } else {
+                        // the string of oldCode followed by its own first byte
+                        checkCode(oldCode);
+                        final int offset = writeToResult(oldCode);
+                        ensureCapacity(written + 1);
+                        result[written++] = result[offset];
+                        addStringToTable(offset, written - offset);
+                        oldCode = code;
+                        oldOffset = offset;
+                    }
                 }
-            }
 
-            if (written >= expectedLength) {
-                break;
+                if (written >= expectedLength) {
+                    break;
+                }
             }
-        }
 
-        return baos.toByteArray();
+            return (written == result.length) ? result : Arrays.copyOf(result, written);
+        } finally {
+            result = null;
+        }
     }
 
     private void checkCodeSize() {
@@ -160,6 +160,16 @@ public final class JpegConstants {
                     0, });
     public static final int CONST_8BIM = BinaryFunctions.charsToQuad('8', 'B', 'I', 'M');
 
+    /**
+     * Parameter key. Used in read operations to decode the restart intervals
+     * of a baseline JPEG concurrently.
+     * <p>
+     * Valid values: any {@link java.util.concurrent.Executor}, for instance a
+     * {@link java.util.concurrent.ForkJoinPool}. Images without restart
+     * markers are always decoded on the calling thread.
+     */
+    public static final String PARAM_KEY_JPEG_DECODE_EXECUTOR = "JPEG_DECODE_EXECUTOR";
+
     private JpegConstants() {
     }
 }
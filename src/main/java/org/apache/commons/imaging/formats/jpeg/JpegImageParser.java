@@ -33,6 +33,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -70,6 +71,22 @@ public class JpegImageParser extends ImageParser implements XmpEmbeddable {
 
     private static final String DEFAULT_EXTENSION = ".jpg";
     private static final String[] ACCEPTED_EXTENSIONS = { ".jpg", ".jpeg", };
+    private static final int[] SOFN_MARKERS = {
+            // kJFIFMarker,
+            JpegConstants.SOF0_MARKER,
+            JpegConstants.SOF1_MARKER,
+            JpegConstants.SOF2_MARKER,
+            JpegConstants.SOF3_MARKER,
+            JpegConstants.SOF5_MARKER,
+            JpegConstants.SOF6_MARKER,
+            JpegConstants.SOF7_MARKER,
+            JpegConstants.SOF9_MARKER,
+            JpegConstants.SOF10_MARKER,
+            JpegConstants.SOF11_MARKER,
+            JpegConstants.SOF13_MARKER,
+            JpegConstants.SOF14_MARKER,
+            JpegConstants.SOF15_MARKER,
+    };
 
     public JpegImageParser() {
         setByteOrder(ByteOrder.BIG_ENDIAN);
@@ -100,7 +117,15 @@ public class JpegImageParser extends ImageParser implements XmpEmbeddable {
     @Override
     public final BufferedImage getBufferedImage(final ByteSource byteSource,
             final Map<String, Object> params) throws ImageReadException, IOException {
-        final JpegDecoder jpegDecoder = new JpegDecoder();
+        Executor executor = null;
+        if (params != null && params.containsKey(JpegConstants.PARAM_KEY_JPEG_DECODE_EXECUTOR)) {
+            final Object value = params.get(JpegConstants.PARAM_KEY_JPEG_DECODE_EXECUTOR);
+            if (!(value instanceof Executor)) {
+                throw new ImageReadException("Invalid decode executor: " + value);
+            }
+            executor = (Executor) value;
+        }
+        final JpegDecoder jpegDecoder = new JpegDecoder(executor);
         return jpegDecoder.decode(byteSource);
     }
 
@@ -121,86 +146,44 @@ public class JpegImageParser extends ImageParser implements XmpEmbeddable {
     public List<Segment> readSegments(final ByteSource byteSource,
             final int[] markers, final boolean returnAfterFirst,
             final boolean readEverything) throws ImageReadException, IOException {
-        final List<Segment> result = new ArrayList<>();
-        final JpegImageParser parser = this;
-        final int[] sofnSegments = {
-                // kJFIFMarker,
-                JpegConstants.SOF0_MARKER,
-                JpegConstants.SOF1_MARKER,
-                JpegConstants.SOF2_MARKER,
-                JpegConstants.SOF3_MARKER,
-                JpegConstants.SOF5_MARKER,
-                JpegConstants.SOF6_MARKER,
-                JpegConstants.SOF7_MARKER,
-                JpegConstants.SOF9_MARKER,
-                JpegConstants.SOF10_MARKER,
-                JpegConstants.SOF11_MARKER,
-                JpegConstants.SOF13_MARKER,
-                JpegConstants.SOF14_MARKER,
-                JpegConstants.SOF15_MARKER,
-        };
+        return readSegments(JpegSegmentIndex.read(byteSource), markers, returnAfterFirst);
+    }
 
-        final JpegUtils.Visitor visitor = new JpegUtils.Visitor() {
-            // return false to exit before reading image data.
-            @Override
-            public boolean beginSOS() {
-                return false;
+    private List<Segment> readSegments(final JpegSegmentIndex index,
+            final int[] markers, final boolean returnAfterFirst)
+            throws ImageReadException, IOException {
+        final List<Segment> result = new ArrayList<>();
+        for (final JpegSegmentIndex.Entry entry : index.getEntries()) {
+            final int marker = entry.marker;
+            if (!keepMarker(marker, markers)) {
+                continue;
             }
 
-            @Override
-            public void visitSOS(final int marker, final byte[] markerBytes,
-                    final byte[] imageData) {
-                // don't need image data
+            final byte[] segmentData = index.getSegmentData(entry);
+            if (marker == JpegConstants.JPEG_APP13_MARKER) {
+                result.add(new App13Segment(this, marker, segmentData));
+            } else if (marker == JpegConstants.JPEG_APP14_MARKER) {
+                result.add(new App14Segment(marker, segmentData));
+            } else if (marker == JpegConstants.JPEG_APP2_MARKER) {
+                result.add(new App2Segment(marker, segmentData));
+            } else if (marker == JpegConstants.JFIF_MARKER) {
+                result.add(new JfifSegment(marker, segmentData));
+            } else if (Arrays.binarySearch(SOFN_MARKERS, marker) >= 0) {
+                result.add(new SofnSegment(marker, segmentData));
+            } else if (marker == JpegConstants.DQT_MARKER) {
+                result.add(new DqtSegment(marker, segmentData));
+            } else if ((marker >= JpegConstants.JPEG_APP1_MARKER)
+                    && (marker <= JpegConstants.JPEG_APP15_MARKER)) {
+                result.add(new UnknownSegment(marker, segmentData));
+            } else if (marker == JpegConstants.COM_MARKER) {
+                result.add(new ComSegment(marker, segmentData));
             }
 
-            // return false to exit traversal.
-            @Override
-            public boolean visitSegment(final int marker, final byte[] markerBytes,
-                    final int markerLength, final byte[] markerLengthBytes,
-                    final byte[] segmentData) throws ImageReadException, IOException {
-                if (marker == JpegConstants.EOI_MARKER) {
-                    return false;
-                }
-
-                // Debug.debug("visitSegment marker", marker);
-                // // Debug.debug("visitSegment keepMarker(marker, markers)",
-                // keepMarker(marker, markers));
-                // Debug.debug("visitSegment keepMarker(marker, markers)",
-                // keepMarker(marker, markers));
-
-                if (!keepMarker(marker, markers)) {
-                    return true;
-                }
-
-                if (marker == JpegConstants.JPEG_APP13_MARKER) {
-                    // Debug.debug("app 13 segment data", segmentData.length);
-                    result.add(new App13Segment(parser, marker, segmentData));
-                } else if (marker == JpegConstants.JPEG_APP14_MARKER) {
-                    result.add(new App14Segment(marker, segmentData));
-                } else if (marker == JpegConstants.JPEG_APP2_MARKER) {
-                    result.add(new App2Segment(marker, segmentData));
-                } else if (marker == JpegConstants.JFIF_MARKER) {
-                    result.add(new JfifSegment(marker, segmentData));
-                } else if (Arrays.binarySearch(sofnSegments, marker) >= 0) {
-                    result.add(new SofnSegment(marker, segmentData));
-                } else if (marker == JpegConstants.DQT_MARKER) {
-                    result.add(new DqtSegment(marker, segmentData));
-                } else if ((marker >= JpegConstants.JPEG_APP1_MARKER)
-                        && (marker <= JpegConstants.JPEG_APP15_MARKER)) {
-                    result.add(new UnknownSegment(marker, segmentData));
-                } else if (marker == JpegConstants.COM_MARKER) {
-                    result.add(new ComSegment(marker, segmentData));
-                }
-
-                if (returnAfterFirst) {
-                    return false;
-                }
-
-                return true;
+            if (returnAfterFirst) {
+                return result;
             }
-        };
-
-        new JpegUtils().traverseJFIF(byteSource, visitor);
+        }
+        index.checkComplete();
 
         return result;
     }
@@ -314,9 +297,14 @@ public class JpegImageParser extends ImageParser implements XmpEmbeddable {
     @Override
     public ImageMetadata getMetadata(final ByteSource byteSource, final Map<String, Object> params)
             throws ImageReadException, IOException {
-        final TiffImageMetadata exif = getExifMetadata(byteSource, params);
+        return getMetadata(JpegSegmentIndex.read(byteSource), params);
+    }
+
+    private ImageMetadata getMetadata(final JpegSegmentIndex index, final Map<String, Object> params)
+            throws ImageReadException, IOException {
+        final TiffImageMetadata exif = getExifMetadata(index, params);
 
-        final JpegPhotoshopMetadata photoshop = getPhotoshopMetadata(byteSource,
+        final JpegPhotoshopMetadata photoshop = getPhotoshopMetadata(index,
                 params);
 
         if (null == exif && null == photoshop) {
@@ -343,9 +331,14 @@ public class JpegImageParser extends ImageParser implements XmpEmbeddable {
         return result;
     }
 
-    public TiffImageMetadata getExifMetadata(final ByteSource byteSource, Map<String, Object> params)
+    public TiffImageMetadata getExifMetadata(final ByteSource byteSource, final Map<String, Object> params)
             throws ImageReadException, IOException {
-        final byte[] bytes = getExifRawData(byteSource);
+        return getExifMetadata(JpegSegmentIndex.read(byteSource), params);
+    }
+
+    private TiffImageMetadata getExifMetadata(final JpegSegmentIndex index, Map<String, Object> params)
+            throws ImageReadException, IOException {
+        final byte[] bytes = getExifRawData(index);
         if (null == bytes) {
             return null;
         }
@@ -363,7 +356,12 @@ public class JpegImageParser extends ImageParser implements XmpEmbeddable {
 
     public byte[] getExifRawData(final ByteSource byteSource)
             throws ImageReadException, IOException {
-        final List<Segment> segments = readSegments(byteSource,
+        return getExifRawData(JpegSegmentIndex.read(byteSource));
+    }
+
+    private byte[] getExifRawData(final JpegSegmentIndex index)
+            throws ImageReadException, IOException {
+        final List<Segment> segments = readSegments(index,
                 new int[] { JpegConstants.JPEG_APP1_MARKER, }, false);
 
         if ((segments == null) || (segments.isEmpty())) {
@@ -400,127 +398,44 @@ public class JpegImageParser extends ImageParser implements XmpEmbeddable {
 
     public boolean hasExifSegment(final ByteSource byteSource)
             throws ImageReadException, IOException {
-        final boolean[] result = { false, };
-
-        final JpegUtils.Visitor visitor = new JpegUtils.Visitor() {
-            // return false to exit before reading image data.
-            @Override
-            public boolean beginSOS() {
-                return false;
-            }
-
-            @Override
-            public void visitSOS(final int marker, final byte[] markerBytes,
-                    final byte[] imageData) {
-                // don't need image data
-            }
-
-            // return false to exit traversal.
-            @Override
-            public boolean visitSegment(final int marker, final byte[] markerBytes,
-                    final int markerLength, final byte[] markerLengthBytes,
-                    final byte[] segmentData) throws ImageReadException, IOException {
-                if (marker == 0xffd9) {
-                    return false;
-                }
-
-                if (marker == JpegConstants.JPEG_APP1_MARKER) {
-                    if (startsWith(segmentData, JpegConstants.EXIF_IDENTIFIER_CODE)) {
-                        result[0] = true;
-                        return false;
-                    }
-                }
-
+        final JpegSegmentIndex index = JpegSegmentIndex.read(byteSource);
+        for (final JpegSegmentIndex.Entry entry : index.getEntries()) {
+            if (entry.marker == JpegConstants.JPEG_APP1_MARKER
+                    && startsWith(index.getSegmentData(entry), JpegConstants.EXIF_IDENTIFIER_CODE)) {
                 return true;
             }
-        };
-
-        new JpegUtils().traverseJFIF(byteSource, visitor);
+        }
+        index.checkComplete();
 
-        return result[0];
+        return false;
     }
 
     public boolean hasIptcSegment(final ByteSource byteSource)
             throws ImageReadException, IOException {
-        final boolean[] result = { false, };
-
-        final JpegUtils.Visitor visitor = new JpegUtils.Visitor() {
-            // return false to exit before reading image data.
-            @Override
-            public boolean beginSOS() {
-                return false;
-            }
-
-            @Override
-            public void visitSOS(final int marker, final byte[] markerBytes,
-                    final byte[] imageData) {
-                // don't need image data
-            }
-
-            // return false to exit traversal.
-            @Override
-            public boolean visitSegment(final int marker, final byte[] markerBytes,
-                    final int markerLength, final byte[] markerLengthBytes,
-                    final byte[] segmentData) throws ImageReadException, IOException {
-                if (marker == 0xffd9) {
-                    return false;
-                }
-
-                if (marker == JpegConstants.JPEG_APP13_MARKER) {
-                    if (new IptcParser().isPhotoshopJpegSegment(segmentData)) {
-                        result[0] = true;
-                        return false;
-                    }
-                }
-
+        final JpegSegmentIndex index = JpegSegmentIndex.read(byteSource);
+        for (final JpegSegmentIndex.Entry entry : index.getEntries()) {
+            if (entry.marker == JpegConstants.JPEG_APP13_MARKER
+                    && new IptcParser().isPhotoshopJpegSegment(index.getSegmentData(entry))) {
                 return true;
             }
-        };
-
-        new JpegUtils().traverseJFIF(byteSource, visitor);
+        }
+        index.checkComplete();
 
-        return result[0];
+        return false;
     }
 
     public boolean hasXmpSegment(final ByteSource byteSource)
             throws ImageReadException, IOException {
-        final boolean[] result = { false, };
-
-        final JpegUtils.Visitor visitor = new JpegUtils.Visitor() {
-            // return false to exit before reading image data.
-            @Override
-            public boolean beginSOS() {
-                return false;
-            }
-
-            @Override
-            public void visitSOS(final int marker, final byte[] markerBytes,
-                    final byte[] imageData) {
-                // don't need image data
-            }
-
-            // return false to exit traversal.
-            @Override
-            public boolean visitSegment(final int marker, final byte[] markerBytes,
-                    final int markerLength, final byte[] markerLengthBytes,
-                    final byte[] segmentData) throws ImageReadException, IOException {
-                if (marker == 0xffd9) {
-                    return false;
-                }
-
-                if (marker == JpegConstants.JPEG_APP1_MARKER) {
-                    if (new JpegXmpParser().isXmpJpegSegment(segmentData)) {
-                        result[0] = true;
-                        return false;
-                    }
-                }
-
+        final JpegSegmentIndex index = JpegSegmentIndex.read(byteSource);
+        for (final JpegSegmentIndex.Entry entry : index.getEntries()) {
+            if (entry.marker == JpegConstants.JPEG_APP1_MARKER
+                    && new JpegXmpParser().isXmpJpegSegment(index.getSegmentData(entry))) {
                 return true;
             }
-        };
-        new JpegUtils().traverseJFIF(byteSource, visitor);
+        }
+        index.checkComplete();
 
-        return result[0];
+        return false;
     }
 
     /**
@@ -536,56 +451,28 @@ public class JpegImageParser extends ImageParser implements XmpEmbeddable {
     @Override
     public String getXmpXml(final ByteSource byteSource, final Map<String, Object> params)
             throws ImageReadException, IOException {
-
-        final List<String> result = new ArrayList<>();
-
-        final JpegUtils.Visitor visitor = new JpegUtils.Visitor() {
-            // return false to exit before reading image data.
-            @Override
-            public boolean beginSOS() {
-                return false;
-            }
-
-            @Override
-            public void visitSOS(final int marker, final byte[] markerBytes,
-                    final byte[] imageData) {
-                // don't need image data
-            }
-
-            // return false to exit traversal.
-            @Override
-            public boolean visitSegment(final int marker, final byte[] markerBytes,
-                    final int markerLength, final byte[] markerLengthBytes,
-                    final byte[] segmentData) throws ImageReadException, IOException {
-                if (marker == 0xffd9) {
-                    return false;
-                }
-
-                if (marker == JpegConstants.JPEG_APP1_MARKER) {
-                    if (new JpegXmpParser().isXmpJpegSegment(segmentData)) {
-                        result.add(new JpegXmpParser().parseXmpJpegSegment(segmentData));
-                        return false;
-                    }
+        final JpegSegmentIndex index = JpegSegmentIndex.read(byteSource);
+        for (final JpegSegmentIndex.Entry entry : index.getEntries()) {
+            if (entry.marker == JpegConstants.JPEG_APP1_MARKER) {
+                final byte[] segmentData = index.getSegmentData(entry);
+                if (new JpegXmpParser().isXmpJpegSegment(segmentData)) {
+                    return new JpegXmpParser().parseXmpJpegSegment(segmentData);
                 }
-
-                return true;
             }
-        };
-        new JpegUtils().traverseJFIF(byteSource, visitor);
-
-        if (result.isEmpty()) {
-            return null;
-        }
-        if (result.size() > 1) {
-            throw new ImageReadException(
-                    "Jpeg file contains more than one XMP segment.");
         }
-        return result.get(0);
+        index.checkComplete();
+
+        return null;
     }
 
     public JpegPhotoshopMetadata getPhotoshopMetadata(final ByteSource byteSource,
             final Map<String, Object> params) throws ImageReadException, IOException {
-        final List<Segment> segments = readSegments(byteSource,
+        return getPhotoshopMetadata(JpegSegmentIndex.read(byteSource), params);
+    }
+
+    private JpegPhotoshopMetadata getPhotoshopMetadata(final JpegSegmentIndex index,
+            final Map<String, Object> params) throws ImageReadException, IOException {
+        final List<Segment> segments = readSegments(index,
                 new int[] { JpegConstants.JPEG_APP13_MARKER, }, false);
 
         if ((segments == null) || (segments.isEmpty())) {
@@ -615,23 +502,7 @@ public class JpegImageParser extends ImageParser implements XmpEmbeddable {
     @Override
     public Dimension getImageSize(final ByteSource byteSource, final Map<String, Object> params)
             throws ImageReadException, IOException {
-        final List<Segment> segments = readSegments(byteSource, new int[] {
-                // kJFIFMarker,
-                JpegConstants.SOF0_MARKER,
-                JpegConstants.SOF1_MARKER,
-                JpegConstants.SOF2_MARKER,
-                JpegConstants.SOF3_MARKER,
-                JpegConstants.SOF5_MARKER,
-                JpegConstants.SOF6_MARKER,
-                JpegConstants.SOF7_MARKER,
-                JpegConstants.SOF9_MARKER,
-                JpegConstants.SOF10_MARKER,
-                JpegConstants.SOF11_MARKER,
-                JpegConstants.SOF13_MARKER,
-                JpegConstants.SOF14_MARKER,
-                JpegConstants.SOF15_MARKER,
-
-        }, true);
+        final List<Segment> segments = readSegments(byteSource, SOFN_MARKERS, true);
 
         if ((segments == null) || (segments.isEmpty())) {
             throw new ImageReadException("No JFIF Data Found.");
@@ -649,26 +520,9 @@ public class JpegImageParser extends ImageParser implements XmpEmbeddable {
     @Override
     public ImageInfo getImageInfo(final ByteSource byteSource, final Map<String, Object> params)
             throws ImageReadException, IOException {
-        // List allSegments = readSegments(byteSource, null, false);
-
-        final List<Segment> SOF_segments = readSegments(byteSource, new int[] {
-                // kJFIFMarker,
-
-                JpegConstants.SOF0_MARKER,
-                JpegConstants.SOF1_MARKER,
-                JpegConstants.SOF2_MARKER,
-                JpegConstants.SOF3_MARKER,
-                JpegConstants.SOF5_MARKER,
-                JpegConstants.SOF6_MARKER,
-                JpegConstants.SOF7_MARKER,
-                JpegConstants.SOF9_MARKER,
-                JpegConstants.SOF10_MARKER,
-                JpegConstants.SOF11_MARKER,
-                JpegConstants.SOF13_MARKER,
-                JpegConstants.SOF14_MARKER,
-                JpegConstants.SOF15_MARKER,
-
-        }, false);
+        final JpegSegmentIndex index = JpegSegmentIndex.read(byteSource);
+
+        final List<Segment> SOF_segments = readSegments(index, SOFN_MARKERS, false);
 
         if (SOF_segments == null) {
             throw new ImageReadException("No SOFN Data Found.");
@@ -678,7 +532,7 @@ public class JpegImageParser extends ImageParser implements XmpEmbeddable {
         // System.out.println("Incoherent SOFN Data Found: "
         // + SOF_segments.size());
 
-        final List<Segment> jfifSegments = readSegments(byteSource,
+        final List<Segment> jfifSegments = readSegments(index,
                 new int[] { JpegConstants.JFIF_MARKER, }, true);
 
         final SofnSegment fSOFNSegment = (SofnSegment) SOF_segments.get(0);
@@ -698,7 +552,7 @@ public class JpegImageParser extends ImageParser implements XmpEmbeddable {
             jfifSegment = (JfifSegment) jfifSegments.get(0);
         }
 
-        final List<Segment> app14Segments = readSegments(byteSource, new int[] { JpegConstants.JPEG_APP14_MARKER}, true);
+        final List<Segment> app14Segments = readSegments(index, new int[] { JpegConstants.JPEG_APP14_MARKER}, true);
         App14Segment app14Segment = null;
         if (app14Segments != null && !app14Segments.isEmpty()) {
             app14Segment = (App14Segment) app14Segments.get(0);
@@ -738,7 +592,7 @@ public class JpegImageParser extends ImageParser implements XmpEmbeddable {
             }
         } else {
             final JpegImageMetadata metadata = (JpegImageMetadata) getMetadata(
-                    byteSource, params);
+                    index, params);
 
             if (metadata != null) {
                 {
@@ -791,7 +645,7 @@ public class JpegImageParser extends ImageParser implements XmpEmbeddable {
             physicalHeightInch = (float) (height / (yDensity * unitsPerInch));
         }
 
-        final List<Segment> commentSegments = readSegments(byteSource,
+        final List<Segment> commentSegments = readSegments(index,
                 new int[] { JpegConstants.COM_MARKER}, false);
         final List<String> comments = new ArrayList<>(commentSegments.size());
         for (final Segment commentSegment : commentSegments) {
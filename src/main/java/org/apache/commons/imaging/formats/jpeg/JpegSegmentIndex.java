@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.formats.jpeg;
+
+import static org.apache.commons.imaging.common.BinaryFunctions.readAndVerifyBytes;
+import static org.apache.commons.imaging.common.BinaryFunctions.skipBytes;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.imaging.ImageReadException;
+import org.apache.commons.imaging.common.bytesource.ByteSource;
+
+/**
+ * The markers and positions of the segments of a JPEG file that come before
+ * its first scan, found in a single pass that skips over the data of the
+ * segments. The metadata queries look up their segments here and read only
+ * the data of those, so a file is traversed once however many of them are
+ * made, and the compressed image data is never read.
+ *
+ * <p>A file whose segments can't all be traversed is indexed up to the
+ * problem, which is thrown by {@link #checkComplete()}: a query that finds
+ * what it looks for before the problem succeeds, as it did when each query
+ * traversed the file itself.</p>
+ */
+final class JpegSegmentIndex {
+
+    static final class Entry {
+        final int marker;
+        /** The offset of the data of the segment, after its length. */
+        final long offset;
+        /** The length of the data of the segment, without its length. */
+        final int length;
+
+        Entry(final int marker, final long offset, final int length) {
+            this.marker = marker;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    private final ByteSource byteSource;
+    private final List<Entry> entries;
+    private final ImageReadException readException;
+    private final IOException ioException;
+
+    private JpegSegmentIndex(final ByteSource byteSource, final List<Entry> entries,
+            final ImageReadException readException, final IOException ioException) {
+        this.byteSource = byteSource;
+        this.entries = Collections.unmodifiableList(entries);
+        this.readException = readException;
+        this.ioException = ioException;
+    }
+
+    static JpegSegmentIndex read(final ByteSource byteSource) throws ImageReadException, IOException {
+        final List<Entry> entries = new ArrayList<>();
+        try (InputStream is = byteSource.getInputStream()) {
+            readAndVerifyBytes(is, JpegConstants.SOI,
+                    "Not a Valid JPEG File: doesn't begin with 0xffd8");
+            try {
+                JpegUtils.walkSegments(is, new JpegUtils.SegmentHandler() {
+                    @Override
+                    public boolean visitSegment(final int marker, final long offset, final int length,
+                            final InputStream is) throws IOException {
+                        entries.add(new Entry(marker, offset, length));
+                        skipBytes(is, length, "Invalid Segment: insufficient data");
+                        return true;
+                    }
+
+                    @Override
+                    public void visitEnd(final int marker, final long offset, final InputStream is) {
+                        // the index ends at the first scan
+                    }
+                });
+            } catch (final ImageReadException e) {
+                return new JpegSegmentIndex(byteSource, entries, e, null);
+            } catch (final IOException e) {
+                return new JpegSegmentIndex(byteSource, entries, null, e);
+            }
+        }
+        return new JpegSegmentIndex(byteSource, entries, null, null);
+    }
+
+    /**
+     * Returns the segments found, in the order of the file.
+     */
+    List<Entry> getEntries() {
+        return entries;
+    }
+
+    byte[] getSegmentData(final Entry entry) throws IOException {
+        return byteSource.getBlock(entry.offset, entry.length);
+    }
+
+    /**
+     * Throws what stopped the traversal of the file before its first scan,
+     * if anything did, for a query that looked at every segment found.
+     */
+    void checkComplete() throws ImageReadException, IOException {
+        if (readException != null) {
+            throw readException;
+        }
+        if (ioException != null) {
+            throw ioException;
+        }
+    }
+}
@@ -27,7 +27,6 @@ import java.nio.ByteOrder;
 
 import org.apache.commons.imaging.ImageReadException;
 import org.apache.commons.imaging.common.BinaryFileParser;
-import org.apache.commons.imaging.common.ByteConversions;
 import org.apache.commons.imaging.common.bytesource.ByteSource;
 import org.apache.commons.imaging.internal.Debug;
 
@@ -52,51 +51,157 @@ public class JpegUtils extends BinaryFileParser {
     public void traverseJFIF(final ByteSource byteSource, final Visitor visitor)
             throws ImageReadException,
             IOException {
+        walkSegments(byteSource, new SegmentVisitor(visitor) {
+            @Override
+            public void visitEnd(final int marker, final long offset, final InputStream is)
+                    throws ImageReadException, IOException {
+                if (!visitor.beginSOS()) {
+                    return;
+                }
+
+                final byte[] imageData = getStreamBytes(is);
+                visitor.visitSOS(marker, toBytes(marker), imageData);
+            }
+        });
+    }
+
+    /**
+     * Traverses the segments of a JPEG file that come before its first scan,
+     * as {@link #traverseJFIF(ByteSource, Visitor)} does, without reading the
+     * scan: the visitor's {@link Visitor#beginSOS()} and
+     * {@link Visitor#visitSOS(int, byte[], byte[])} aren't called. Returns the
+     * offset of the marker of the first scan, or of the end of the image if
+     * there is no scan, so that the rest of the file can be copied from the
+     * byte source rather than held in memory.
+     *
+     * @param byteSource the JPEG file
+     * @param visitor visits the segments
+     * @return the offset of the marker, or -1 if the visitor exited the
+     *         traversal before it
+     * @throws ImageReadException if the segments are invalid
+     * @throws IOException if it fails to read the segments
+     */
+    public long traverseJFIFSegments(final ByteSource byteSource, final Visitor visitor)
+            throws ImageReadException, IOException {
+        final SegmentVisitor handler = new SegmentVisitor(visitor);
+        walkSegments(byteSource, handler);
+        return handler.endOffset;
+    }
+
+    private static void walkSegments(final ByteSource byteSource, final SegmentHandler handler)
+            throws ImageReadException, IOException {
         try (InputStream is = byteSource.getInputStream()) {
             readAndVerifyBytes(is, JpegConstants.SOI,
                     "Not a Valid JPEG File: doesn't begin with 0xffd8");
+            walkSegments(is, handler);
+        }
+    }
 
-            int markerCount;
-            for (markerCount = 0; true; markerCount++) {
-                final byte[] markerBytes = new byte[2];
-                do {
-                    markerBytes[0] = markerBytes[1];
-                    markerBytes[1] = readByte("marker", is,
-                            "Could not read marker");
-                } while ((0xff & markerBytes[0]) != 0xff
-                        || (0xff & markerBytes[1]) == 0xff);
-                final int marker = ((0xff & markerBytes[0]) << 8)
-                        | (0xff & markerBytes[1]);
-
-                if (marker == JpegConstants.EOI_MARKER || marker == JpegConstants.SOS_MARKER) {
-                    if (!visitor.beginSOS()) {
-                        return;
-                    }
-
-                    final byte[] imageData = getStreamBytes(is);
-                    visitor.visitSOS(marker, markerBytes, imageData);
-                    break;
-                }
+    /**
+     * Reads the data of each segment for a {@link Visitor}, and records
+     * where the segments end.
+     */
+    private static class SegmentVisitor implements SegmentHandler {
+        private final Visitor visitor;
+        long endOffset = -1;
 
-                final byte[] segmentLengthBytes = readBytes("segmentLengthBytes", is, 2, "segmentLengthBytes");
-                final int segmentLength = ByteConversions.toUInt16(segmentLengthBytes, getByteOrder());
-                if (segmentLength < 2) {
-                    throw new ImageReadException("Invalid segment size");
-                }
+        SegmentVisitor(final Visitor visitor) {
+            this.visitor = visitor;
+        }
 
-                final byte[] segmentData = readBytes("Segment Data",
-                        is, segmentLength - 2,
-                        "Invalid Segment: insufficient data");
+        @Override
+        public boolean visitSegment(final int marker, final long offset, final int length,
+                final InputStream is) throws ImageReadException, IOException {
+            final byte[] segmentData = readBytes("Segment Data",
+                    is, length,
+                    "Invalid Segment: insufficient data");
+            return visitor.visitSegment(marker, toBytes(marker), length + 2, toBytes(length + 2),
+                    segmentData);
+        }
 
-                if (!visitor.visitSegment(marker, markerBytes, segmentLength, segmentLengthBytes, segmentData)) {
-                    return;
-                }
+        @Override
+        public void visitEnd(final int marker, final long offset, final InputStream is)
+                throws ImageReadException, IOException {
+            endOffset = offset;
+        }
+    }
+
+    /**
+     * Receives the segments of a JPEG file from
+     * {@link JpegUtils#walkSegments(InputStream, SegmentHandler)}.
+     */
+    interface SegmentHandler {
+        /**
+         * Called for each segment before the first scan, with the stream at
+         * the data of the segment, which the handler must read or skip.
+         *
+         * @param marker the marker of the segment
+         * @param offset the offset of the data of the segment in the file
+         * @param length the length of the data, without the length field
+         * @param is the file, at the data of the segment
+         * @return false to stop the walk
+         */
+        boolean visitSegment(int marker, long offset, int length, InputStream is)
+                throws ImageReadException, IOException;
+
+        /**
+         * Called with the marker of the first scan, or of the end of the
+         * image if there is no scan, which ends the walk.
+         *
+         * @param marker the marker
+         * @param offset the offset of the marker in the file
+         * @param is the file, just past the marker
+         */
+        void visitEnd(int marker, long offset, InputStream is) throws ImageReadException, IOException;
+    }
+
+    /**
+     * Walks the segments of a JPEG file up to its first scan, finding their
+     * markers and lengths. The handler reads or skips the data of each
+     * segment.
+     *
+     * @param is the file, just past its SOI marker
+     * @param handler receives the segments
+     * @throws ImageReadException if the segments are invalid
+     * @throws IOException if it fails to read the segments
+     */
+    static void walkSegments(final InputStream is, final SegmentHandler handler)
+            throws ImageReadException, IOException {
+        long position = JpegConstants.SOI.size();
+        while (true) {
+            int previous;
+            int current = 0;
+            do {
+                previous = current;
+                current = 0xff & readByte("marker", is, "Could not read marker");
+                position++;
+            } while (previous != 0xff || current == 0xff);
+            final int marker = (previous << 8) | current;
+
+            if (marker == JpegConstants.EOI_MARKER || marker == JpegConstants.SOS_MARKER) {
+                handler.visitEnd(marker, position - 2, is);
+                return;
+            }
+
+            final int high = 0xff & readByte("segmentLengthBytes", is, "segmentLengthBytes");
+            final int low = 0xff & readByte("segmentLengthBytes", is, "segmentLengthBytes");
+            final int segmentLength = (high << 8) | low;
+            if (segmentLength < 2) {
+                throw new ImageReadException("Invalid segment size");
             }
+            position += 2;
 
-            Debug.debug(markerCount + " markers");
+            if (!handler.visitSegment(marker, position, segmentLength - 2, is)) {
+                return;
+            }
+            position += segmentLength - 2;
         }
     }
 
+    private static byte[] toBytes(final int value) {
+        return new byte[] { (byte) (value >> 8), (byte) value };
+    }
+
     public static String getMarkerName(final int marker) {
         switch (marker) {
         case JpegConstants.SOS_MARKER:
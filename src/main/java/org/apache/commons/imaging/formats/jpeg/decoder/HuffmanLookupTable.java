@@ -0,0 +1,71 @@
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *  under the License.
+ */
+
+package org.apache.commons.imaging.formats.jpeg.decoder;
+
+import org.apache.commons.imaging.ImageReadException;
+import org.apache.commons.imaging.formats.jpeg.segments.DhtSegment;
+
+/**
+ * Decodes Huffman codes by looking up the next {@link #LOOKAHEAD_BITS} bits
+ * of the stream in a table, which resolves nearly all codes found in real
+ * images with a single array access. Longer codes fall back to the
+ * "DECODE" procedure of section F.2.2.3 of T.81.
+ */
+final class HuffmanLookupTable {
+    static final int LOOKAHEAD_BITS = 9;
+    private static final int MAX_CODE_LENGTH = 16;
+
+    private final DhtSegment.HuffmanTable huffmanTable;
+    // (code length << 8) | value for every LOOKAHEAD_BITS-bit prefix
+    // of a code no longer than LOOKAHEAD_BITS bits, else 0
+    private final int[] lookup = new int[1 << LOOKAHEAD_BITS];
+
+    HuffmanLookupTable(final DhtSegment.HuffmanTable huffmanTable) {
+        this.huffmanTable = huffmanTable;
+        for (int length = 1; length <= LOOKAHEAD_BITS; length++) {
+            final int maxCode = huffmanTable.getMaxCode(length);
+            final int minCode = huffmanTable.getMinCode(length);
+            final int unusedBits = LOOKAHEAD_BITS - length;
+            for (int code = minCode; code <= maxCode; code++) {
+                final int value = huffmanTable.getHuffVal(huffmanTable.getValPtr(length) + code - minCode);
+                final int first = code << unusedBits;
+                final int last = (code + 1) << unusedBits;
+                for (int prefix = first; prefix < last && prefix < lookup.length; prefix++) {
+                    lookup[prefix] = (length << 8) | value;
+                }
+            }
+        }
+    }
+
+    int decode(final JpegInputStream is) throws ImageReadException {
+        final int entry = lookup[is.peekBits(LOOKAHEAD_BITS)];
+        if (entry != 0) {
+            is.skipBits(entry >> 8);
+            return entry & 0xff;
+        }
+        // "DECODE", section F.2.2.3, figure F.16, page 109 of T.81
+        final int bits = is.peekBits(MAX_CODE_LENGTH);
+        for (int length = LOOKAHEAD_BITS + 1; length <= MAX_CODE_LENGTH; length++) {
+            final int code = bits >>> (MAX_CODE_LENGTH - length);
+            if (code <= huffmanTable.getMaxCode(length)) {
+                is.skipBits(length);
+                return huffmanTable.getHuffVal(huffmanTable.getValPtr(length)
+                        + code - huffmanTable.getMinCode(length));
+            }
+        }
+        throw new ImageReadException("Invalid Huffman code in entropy data");
+    }
+}
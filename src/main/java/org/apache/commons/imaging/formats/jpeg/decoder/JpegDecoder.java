@@ -27,10 +27,13 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.Executor;
 
 import org.apache.commons.imaging.ImageReadException;
 import org.apache.commons.imaging.color.ColorConversions;
 import org.apache.commons.imaging.common.BinaryFileParser;
+import org.apache.commons.imaging.common.ByteConversions;
+import org.apache.commons.imaging.common.PendingTasks;
 import org.apache.commons.imaging.common.bytesource.ByteSource;
 import org.apache.commons.imaging.formats.jpeg.JpegConstants;
 import org.apache.commons.imaging.formats.jpeg.JpegUtils;
@@ -53,17 +56,34 @@ public class JpegDecoder extends BinaryFileParser implements JpegUtils.Visitor {
      */
 
     private final DqtSegment.QuantizationTable[] quantizationTables = new DqtSegment.QuantizationTable[4];
-    private final DhtSegment.HuffmanTable[] huffmanDCTables = new DhtSegment.HuffmanTable[4];
-    private final DhtSegment.HuffmanTable[] huffmanACTables = new DhtSegment.HuffmanTable[4];
+    private final HuffmanLookupTable[] huffmanDCTables = new HuffmanLookupTable[4];
+    private final HuffmanLookupTable[] huffmanACTables = new HuffmanLookupTable[4];
     private SofnSegment sofnSegment;
     private SosSegment sosSegment;
     private final float[][] scaledQuantizationTables = new float[4][];
     private BufferedImage image;
     private ImageReadException imageReadException;
     private IOException ioException;
-    private final int[] zz = new int[64];
-    private final int[] blockInt = new int[64];
-    private final float[] block = new float[64];
+    private int restartInterval;
+    private final Executor executor;
+
+    /**
+     * Creates a decoder that decodes the whole scan on the calling thread.
+     */
+    public JpegDecoder() {
+        this(null);
+    }
+
+    /**
+     * Creates a decoder that decodes independent restart intervals
+     * concurrently on the given executor.
+     *
+     * @param executor the executor to decode restart intervals on, or
+     *        {@code null} to decode the whole scan on the calling thread
+     */
+    public JpegDecoder(final Executor executor) {
+        this.executor = executor;
+    }
 
     @Override
     public boolean beginSOS() {
@@ -82,12 +102,7 @@ public class JpegDecoder extends BinaryFileParser implements JpegUtils.Visitor {
             // the payload contains the entropy-encoded segments (or ECS) divided by RST markers
             // or only one ECS if the entropy-encoded data is not divided by RST markers
             // length of payload = length of image data - length of data already read
-            final int[] scanPayload = new int[imageData.length - segmentLength];
-            int payloadReadCount = 0;
-            while (payloadReadCount < scanPayload.length) {
-                scanPayload[payloadReadCount] = is.read();
-                payloadReadCount++;
-            }
+            final byte[] scanPayload = Arrays.copyOfRange(imageData, segmentLength, imageData.length);
 
             int hMax = 0;
             int vMax = 0;
@@ -102,12 +117,6 @@ public class JpegDecoder extends BinaryFileParser implements JpegUtils.Visitor {
 
             final int xMCUs = (sofnSegment.width + hSize - 1) / hSize;
             final int yMCUs = (sofnSegment.height + vSize - 1) / vSize;
-            final Block[] mcu = allocateMCUMemory();
-            final Block[] scaledMCU = new Block[mcu.length];
-            for (int i = 0; i < scaledMCU.length; i++) {
-                scaledMCU[i] = new Block(hSize, vSize);
-            }
-            final int[] preds = new int[sofnSegment.numberOfComponents];
             ColorModel colorModel;
             WritableRaster raster;
             if (sofnSegment.numberOfComponents == 4) {
@@ -139,53 +148,35 @@ public class JpegDecoder extends BinaryFileParser implements JpegUtils.Visitor {
             final DataBuffer dataBuffer = raster.getDataBuffer();
 
             final JpegInputStream[] bitInputStreams = splitByRstMarkers(scanPayload);
-            int bitInputStreamCount = 0;
-            JpegInputStream bitInputStream = bitInputStreams[0];
-
-            for (int y1 = 0; y1 < vSize * yMCUs; y1 += vSize) {
-                for (int x1 = 0; x1 < hSize * xMCUs; x1 += hSize) {
-                    // Provide the next interval if an interval is read until it's end
-                    // as long there are unread intervals available
-                    if (!bitInputStream.hasNext()) {
-                        bitInputStreamCount++;
-                        if (bitInputStreamCount < bitInputStreams.length) {
-                            bitInputStream = bitInputStreams[bitInputStreamCount];
-                        }
-                    }
-
-                    readMCU(bitInputStream, preds, mcu);
-                    rescaleMCU(mcu, hSize, vSize, scaledMCU);
-                    int srcRowOffset = 0;
-                    int dstRowOffset = y1 * sofnSegment.width + x1;
-                    for (int y2 = 0; y2 < vSize && y1 + y2 < sofnSegment.height; y2++) {
-                        for (int x2 = 0; x2 < hSize
-                                && x1 + x2 < sofnSegment.width; x2++) {
-                            if (scaledMCU.length == 4) {
-                                final int C = scaledMCU[0].samples[srcRowOffset + x2];
-                                final int M = scaledMCU[1].samples[srcRowOffset + x2];
-                                final int Y = scaledMCU[2].samples[srcRowOffset + x2];
-                                final int K = scaledMCU[3].samples[srcRowOffset + x2];
-                                final int rgb = ColorConversions.convertCMYKtoRGB(C, M, Y, K);
-                                dataBuffer.setElem(dstRowOffset + x2, rgb);
-                            } else if (scaledMCU.length == 3) {
-                                final int Y = scaledMCU[0].samples[srcRowOffset + x2];
-                                final int Cb = scaledMCU[1].samples[srcRowOffset + x2];
-                                final int Cr = scaledMCU[2].samples[srcRowOffset + x2];
-                                final int rgb = YCbCrConverter.convertYCbCrToRGB(Y,
-                                        Cb, Cr);
-                                dataBuffer.setElem(dstRowOffset + x2, rgb);
-                            } else if (mcu.length == 1) {
-                                final int Y = scaledMCU[0].samples[srcRowOffset + x2];
-                                dataBuffer.setElem(dstRowOffset + x2, (Y << 16)
-                                        | (Y << 8) | Y);
-                            } else {
-                                throw new ImageReadException(
-                                        "Unsupported JPEG with " + mcu.length
-                                                + " components");
+            // a non-interleaved scan codes one data unit per MCU, which does
+            // not match the MCU layout below unless it is a single 8x8 block
+            final boolean restartIntervalsMatchMCUs = sosSegment.numberOfComponents > 1
+                    || (hMax == 1 && vMax == 1);
+            if (executor != null && restartInterval > 0 && bitInputStreams.length > 1
+                    && restartIntervalsMatchMCUs) {
+                decodeIntervalsConcurrently(bitInputStreams, xMCUs, yMCUs, hSize, vSize, dataBuffer);
+            } else {
+                final McuBuffers buffers = new McuBuffers(hSize, vSize);
+                int bitInputStreamCount = 0;
+                JpegInputStream bitInputStream = bitInputStreams[0];
+
+                for (int y1 = 0; y1 < vSize * yMCUs; y1 += vSize) {
+                    for (int x1 = 0; x1 < hSize * xMCUs; x1 += hSize) {
+                        // Provide the next interval if an interval is read until it's end
+                        // as long there are unread intervals available
+                        if (!bitInputStream.hasNext()) {
+                            bitInputStreamCount++;
+                            if (bitInputStreamCount < bitInputStreams.length) {
+                                bitInputStream = bitInputStreams[bitInputStreamCount];
+                                // the DC predictions are reset at each restart marker,
+                                // section F.2.1.3.1, page 99 of T.81
+                                Arrays.fill(buffers.preds, 0);
                             }
                         }
-                        srcRowOffset += hSize;
-                        dstRowOffset += sofnSegment.width;
+
+                        readMCU(bitInputStream, buffers);
+                        rescaleMCU(buffers.mcu, hSize, vSize, buffers.scaledMCU);
+                        writeMCU(buffers.scaledMCU, x1, y1, hSize, vSize, dataBuffer);
                     }
                 }
             }
@@ -233,6 +224,11 @@ public class JpegDecoder extends BinaryFileParser implements JpegUtils.Visitor {
                         + "are supported at the moment");
             }
             sofnSegment = new SofnSegment(marker, segmentData);
+        } else if (marker == JpegConstants.DRI_MARKER) {
+            if (segmentData.length < 2) {
+                throw new ImageReadException("Invalid DRI segment");
+            }
+            restartInterval = ByteConversions.toUInt16(segmentData, getByteOrder());
         } else if (marker == JpegConstants.DQT_MARKER) {
             final DqtSegment dqtSegment = new DqtSegment(marker, segmentData);
             for (int i = 0; i < dqtSegment.quantizationTables.size(); i++) {
@@ -257,7 +253,7 @@ public class JpegDecoder extends BinaryFileParser implements JpegUtils.Visitor {
             final DhtSegment dhtSegment = new DhtSegment(marker, segmentData);
             for (int i = 0; i < dhtSegment.huffmanTables.size(); i++) {
                 final DhtSegment.HuffmanTable table = dhtSegment.huffmanTables.get(i);
-                DhtSegment.HuffmanTable[] tables;
+                HuffmanLookupTable[] tables;
                 if (table.tableClass == 0) {
                     tables = huffmanDCTables;
                 } else if (table.tableClass == 1) {
@@ -272,12 +268,86 @@ public class JpegDecoder extends BinaryFileParser implements JpegUtils.Visitor {
                             "Invalid huffman table identifier "
                                     + table.destinationIdentifier);
                 }
-                tables[table.destinationIdentifier] = table;
+                tables[table.destinationIdentifier] = new HuffmanLookupTable(table);
             }
         }
         return true;
     }
 
+    /**
+     * Decodes the restart intervals of the scan concurrently. Each interval
+     * starts with fresh DC predictions and covers its own range of MCUs, so
+     * the tasks share nothing but the destination buffer, into which they
+     * write disjoint pixels.
+     */
+    private void decodeIntervalsConcurrently(final JpegInputStream[] bitInputStreams,
+            final int xMCUs, final int yMCUs, final int hSize, final int vSize,
+            final DataBuffer dataBuffer) throws ImageReadException, IOException {
+        final int mcuCount = xMCUs * yMCUs;
+        final int intervalCount = Math.min(bitInputStreams.length,
+                (mcuCount + restartInterval - 1) / restartInterval);
+        // many small intervals are grouped to keep the task overhead low
+        final int taskCount = Math.min(intervalCount,
+                4 * Runtime.getRuntime().availableProcessors());
+        PendingTasks.<Void>forReading(executor, "decoding JPEG").run(taskCount, t -> {
+            final int firstInterval = (int) ((long) intervalCount * t / taskCount);
+            final int lastInterval = (int) ((long) intervalCount * (t + 1) / taskCount);
+            final McuBuffers buffers = new McuBuffers(hSize, vSize);
+            for (int interval = firstInterval; interval < lastInterval; interval++) {
+                final JpegInputStream bitInputStream = bitInputStreams[interval];
+                Arrays.fill(buffers.preds, 0);
+                final int firstMCU = interval * restartInterval;
+                final int lastMCU = Math.min(firstMCU + restartInterval, mcuCount);
+                for (int m = firstMCU; m < lastMCU; m++) {
+                    readMCU(bitInputStream, buffers);
+                    rescaleMCU(buffers.mcu, hSize, vSize, buffers.scaledMCU);
+                    writeMCU(buffers.scaledMCU, (m % xMCUs) * hSize,
+                            (m / xMCUs) * vSize, hSize, vSize, dataBuffer);
+                }
+            }
+            return null;
+        }, (t, ignored) -> {
+            // the intervals are decoded into the data buffer
+        });
+    }
+
+    private void writeMCU(final Block[] scaledMCU, final int x1, final int y1,
+            final int hSize, final int vSize, final DataBuffer dataBuffer)
+            throws ImageReadException {
+        int srcRowOffset = 0;
+        int dstRowOffset = y1 * sofnSegment.width + x1;
+        for (int y2 = 0; y2 < vSize && y1 + y2 < sofnSegment.height; y2++) {
+            for (int x2 = 0; x2 < hSize
+                    && x1 + x2 < sofnSegment.width; x2++) {
+                if (scaledMCU.length == 4) {
+                    final int C = scaledMCU[0].samples[srcRowOffset + x2];
+                    final int M = scaledMCU[1].samples[srcRowOffset + x2];
+                    final int Y = scaledMCU[2].samples[srcRowOffset + x2];
+                    final int K = scaledMCU[3].samples[srcRowOffset + x2];
+                    final int rgb = ColorConversions.convertCMYKtoRGB(C, M, Y, K);
+                    dataBuffer.setElem(dstRowOffset + x2, rgb);
+                } else if (scaledMCU.length == 3) {
+                    final int Y = scaledMCU[0].samples[srcRowOffset + x2];
+                    final int Cb = scaledMCU[1].samples[srcRowOffset + x2];
+                    final int Cr = scaledMCU[2].samples[srcRowOffset + x2];
+                    final int rgb = YCbCrConverter.convertYCbCrToRGB(Y,
+                            Cb, Cr);
+                    dataBuffer.setElem(dstRowOffset + x2, rgb);
+                } else if (scaledMCU.length == 1) {
+                    final int Y = scaledMCU[0].samples[srcRowOffset + x2];
+                    dataBuffer.setElem(dstRowOffset + x2, (Y << 16)
+                            | (Y << 8) | Y);
+                } else {
+                    throw new ImageReadException(
+                            "Unsupported JPEG with " + scaledMCU.length
+                                    + " components");
+                }
+            }
+            srcRowOffset += hSize;
+            dstRowOffset += sofnSegment.width;
+        }
+    }
+
     private void rescaleMCU(final Block[] dataUnits, final int hSize, final int vSize, final Block[] ret) {
         for (int i = 0; i < dataUnits.length; i++) {
             final Block dataUnit = dataUnits[i];
@@ -336,8 +406,12 @@ public class JpegDecoder extends BinaryFileParser implements JpegUtils.Visitor {
         return mcu;
     }
 
-    private void readMCU(final JpegInputStream is, final int[] preds, final Block[] mcu)
+    private void readMCU(final JpegInputStream is, final McuBuffers buffers)
             throws IOException, ImageReadException {
+        final int[] preds = buffers.preds;
+        final int[] zz = buffers.zz;
+        final int[] blockInt = buffers.blockInt;
+        final float[] block = buffers.block;
         for (int i = 0; i < sosSegment.numberOfComponents; i++) {
             final SosSegment.Component scanComponent = sosSegment.getComponents(i);
             SofnSegment.Component frameComponent = null;
@@ -350,15 +424,13 @@ public class JpegDecoder extends BinaryFileParser implements JpegUtils.Visitor {
             if (frameComponent == null) {
                 throw new ImageReadException("Invalid component");
             }
-            final Block fullBlock = mcu[i];
+            final Block fullBlock = buffers.mcu[i];
             for (int y = 0; y < frameComponent.verticalSamplingFactor; y++) {
                 for (int x = 0; x < frameComponent.horizontalSamplingFactor; x++) {
                     Arrays.fill(zz, 0);
                     // page 104 of T.81
-                    final int t = decode(
-                            is,
-                            huffmanDCTables[scanComponent.dcCodingTableSelector]);
-                    int diff = receive(t, is);
+                    final int t = huffmanDCTables[scanComponent.dcCodingTableSelector].decode(is);
+                    int diff = is.readBits(t);
                     diff = extend(diff, t);
                     zz[0] = preds[i] + diff;
                     preds[i] = zz[0];
@@ -366,9 +438,7 @@ public class JpegDecoder extends BinaryFileParser implements JpegUtils.Visitor {
                     // "Decode_AC_coefficients", figure F.13, page 106 of T.81
                     int k = 1;
                     while (true) {
-                        final int rs = decode(
-                                is,
-                                huffmanACTables[scanComponent.acCodingTableSelector]);
+                        final int rs = huffmanACTables[scanComponent.acCodingTableSelector].decode(is);
                         final int ssss = rs & 0xf;
                         final int rrrr = rs >> 4;
                         final int r = rrrr;
@@ -383,7 +453,7 @@ public class JpegDecoder extends BinaryFileParser implements JpegUtils.Visitor {
                             k += r;
 
                             // "Decode_ZZ(k)", figure F.14, page 107 of T.81
-                            zz[k] = receive(ssss, is);
+                            zz[k] = is.readBits(ssss);
                             zz[k] = extend(zz[k], ssss);
 
                             if (k == 63) {
@@ -434,7 +504,7 @@ public class JpegDecoder extends BinaryFileParser implements JpegUtils.Visitor {
      * @param scanPayload array to read intervals from
      * @return JpegInputStreams for all intervals, at least one stream is always provided
      */
-    static JpegInputStream[] splitByRstMarkers(final int[] scanPayload) {
+    static JpegInputStream[] splitByRstMarkers(final byte[] scanPayload) {
         final List<Integer> intervalStarts = getIntervalStartPositions(scanPayload);
         // get number of intervals in payload to init an array of appropriate length
         final int intervalCount = intervalStarts.size();
@@ -449,8 +519,7 @@ public class JpegDecoder extends BinaryFileParser implements JpegUtils.Visitor {
             } else { // the last interval ends with the array
                 to = scanPayload.length;
             }
-            int[] interval = Arrays.copyOfRange(scanPayload, from, to);
-            streams[i] = new JpegInputStream(interval);
+            streams[i] = new JpegInputStream(scanPayload, from, to);
         }
         return streams;
     }
@@ -464,7 +533,7 @@ public class JpegDecoder extends BinaryFileParser implements JpegUtils.Visitor {
      * @param scanPayload array to examine
      * @return the start positions
      */
-    static List<Integer> getIntervalStartPositions(final int[] scanPayload) {
+    static List<Integer> getIntervalStartPositions(final byte[] scanPayload) {
         final List<Integer> intervalStarts = new ArrayList<Integer>();
         intervalStarts.add(0);
         boolean foundFF = false;
@@ -473,15 +542,15 @@ public class JpegDecoder extends BinaryFileParser implements JpegUtils.Visitor {
         while (pos < scanPayload.length) {
             if (foundFF) {
                 // found 0xFF D0 .. 0xFF D7 => RST marker
-                if (scanPayload[pos] >= (0xff & JpegConstants.RST0_MARKER) &&
-                    scanPayload[pos] <= (0xff & JpegConstants.RST7_MARKER)) {
+                if ((0xff & scanPayload[pos]) >= (0xff & JpegConstants.RST0_MARKER) &&
+                    (0xff & scanPayload[pos]) <= (0xff & JpegConstants.RST7_MARKER)) {
                     foundD0toD7 = true;
                 } else { // found 0xFF followed by something else => no RST marker
                     foundFF = false;
                 }
             }
 
-            if (scanPayload[pos] == 0xFF) {
+            if ((0xff & scanPayload[pos]) == 0xFF) {
                 foundFF = true;
             }
 
@@ -511,32 +580,6 @@ public class JpegDecoder extends BinaryFileParser implements JpegUtils.Visitor {
         return v;
     }
 
-    private int receive(final int ssss, final JpegInputStream is) throws IOException,
-            ImageReadException {
-        // "RECEIVE", section F.2.2.4, figure F.17, page 110 of T.81
-        int i = 0;
-        int v = 0;
-        while (i != ssss) {
-            i++;
-            v = (v << 1) + is.nextBit();
-        }
-        return v;
-    }
-
-    private int decode(final JpegInputStream is, final DhtSegment.HuffmanTable huffmanTable)
-            throws IOException, ImageReadException {
-        // "DECODE", section F.2.2.3, figure F.16, page 109 of T.81
-        int i = 1;
-        int code = is.nextBit();
-        while (code > huffmanTable.getMaxCode(i)) {
-            i++;
-            code = (code << 1) | is.nextBit();
-        }
-        int j = huffmanTable.getValPtr(i);
-        j += code - huffmanTable.getMinCode(i);
-        return huffmanTable.getHuffVal(j);
-    }
-
     public BufferedImage decode(final ByteSource byteSource) throws IOException,
             ImageReadException {
         final JpegUtils jpegUtils = new JpegUtils();
@@ -549,4 +592,24 @@ public class JpegDecoder extends BinaryFileParser implements JpegUtils.Visitor {
         }
         return image;
     }
+
+    /**
+     * Working memory for decoding MCUs, one instance per decoding thread.
+     */
+    private final class McuBuffers {
+        final int[] zz = new int[64];
+        final int[] blockInt = new int[64];
+        final float[] block = new float[64];
+        final int[] preds = new int[sofnSegment.numberOfComponents];
+        final Block[] mcu;
+        final Block[] scaledMCU;
+
+        McuBuffers(final int hSize, final int vSize) throws ImageReadException {
+            mcu = allocateMCUMemory();
+            scaledMCU = new Block[mcu.length];
+            for (int i = 0; i < scaledMCU.length; i++) {
+                scaledMCU[i] = new Block(hSize, vSize);
+            }
+        }
+    }
 }
@@ -15,71 +15,131 @@
 
 package org.apache.commons.imaging.formats.jpeg.decoder;
 
-import java.util.Arrays;
-
 import org.apache.commons.imaging.ImageReadException;
 import org.apache.commons.imaging.formats.jpeg.JpegConstants;
 
 class JpegInputStream {
+    private static final int MAX_BUFFERED_BITS = 56;
     // Figure F.18, F.2.2.5, page 111 of ITU-T T.81
-    private final int[] interval;
+    private final byte[] interval;
     // next position in the array to read
     private int nextPos;
-    private int cnt;
-    private int b;
+    private final int end;
+    // the lowest bitCount bits of bitBuffer are the next bits of the stream
+    private long bitBuffer;
+    private int bitCount;
+    // second byte of the marker that ended the entropy-coded data, or -1
+    private int marker = -1;
 
-    JpegInputStream(final int[] interval) {
-        this.interval = Arrays.copyOf(interval, interval.length);
-        this.nextPos = 0;
+    JpegInputStream(final byte[] interval) {
+        this(interval, 0, interval.length);
     }
 
     /**
-     * Returns {@code true} as long there are unread fields available, else {@code false}
+     * Creates a stream over a range of an array, without copying it.
+     * @param interval the entropy-coded data
+     * @param from the index of the first byte of the range
+     * @param to the index after the last byte of the range
+     */
+    JpegInputStream(final byte[] interval, final int from, final int to) {
+        this.interval = interval;
+        this.nextPos = from;
+        this.end = to;
+    }
+
+    /**
+     * Returns {@code true} as long there are unread bytes available, else {@code false}
      * @return
      */
     public boolean hasNext() {
-        return nextPos < this.interval.length;
+        return bitCount >= 8 || (nextPos < end && marker < 0);
     }
 
     public int nextBit() throws ImageReadException {
-        if (cnt == 0) {
-            b = this.read();
-            if (b < 0) {
-                throw new ImageReadException("Premature End of File");
+        return readBits(1);
+    }
+
+    /**
+     * Returns the next {@code n} bits of the stream without consuming them.
+     * Bits beyond the end of the entropy-coded data are returned as zeros, it
+     * is an error to consume them with {@link #skipBits(int)}.
+     * @param n the number of bits to look at, at most 16
+     * @return the bits, most significant bit first
+     */
+    int peekBits(final int n) {
+        if (bitCount < n) {
+            fill();
+            if (bitCount < n) {
+                return (int) (bitBuffer << (n - bitCount)) & ((1 << n) - 1);
             }
-            cnt = 8;
-            if (b == 0xff) {
-                final int b2 = this.read();
-                if (b2 < 0) {
-                    throw new ImageReadException("Premature End of File");
+        }
+        return (int) (bitBuffer >>> (bitCount - n)) & ((1 << n) - 1);
+    }
+
+    /**
+     * Consumes the next {@code n} bits of the stream.
+     * @param n the number of bits to consume, at most 16
+     * @throws ImageReadException if a marker is found in the entropy-coded data
+     * @throws IllegalStateException if the stream hasn't enough bits left
+     */
+    void skipBits(final int n) throws ImageReadException {
+        if (bitCount < n) {
+            fill();
+            if (bitCount < n) {
+                if (marker == (0xff & JpegConstants.DNL_MARKER)) {
+                    throw new ImageReadException("DNL not yet supported");
                 }
-                if (b2 != 0) {
-                    if (b2 == (0xff & JpegConstants.DNL_MARKER)) {
-                        throw new ImageReadException("DNL not yet supported");
-                    }
+                if (marker >= 0) {
                     throw new ImageReadException("Invalid marker found "
-                        + "in entropy data: 0xFF " + Integer.toHexString(b2));
+                            + "in entropy data: 0xFF " + Integer.toHexString(marker));
                 }
+                throw new IllegalStateException("This stream hasn't any other value, all values were already read.");
             }
         }
-        final int bit = (b >> 7) & 0x1;
-        cnt--;
-        b <<= 1;
-        return bit;
+        bitCount -= n;
     }
 
     /**
-     * Returns the value from current field (as {@code InputStream.read()} would do)
-     * and set the position of the pointer to the next field to read.
-     * @return
-     * @throws IllegalStateException if the stream hasn't any other value.
+     * Reads the next {@code n} bits of the stream, "RECEIVE" in section F.2.2.4
+     * of T.81.
+     * @param n the number of bits to read, at most 16
+     * @return the bits, most significant bit first
+     * @throws ImageReadException if a marker is found in the entropy-coded data
+     */
+    int readBits(final int n) throws ImageReadException {
+        if (n == 0) {
+            return 0;
+        }
+        if (n > 16) {
+            throw new ImageReadException("Invalid number of bits in entropy data: " + n);
+        }
+        final int bits = peekBits(n);
+        skipBits(n);
+        return bits;
+    }
+
+    /**
+     * Moves whole bytes from the array into the bit buffer, removing the
+     * stuffed zero after each 0xFF and stopping at the first marker.
      */
-    int read() {
-        if (!this.hasNext()) {
-            throw new IllegalStateException("This stream hasn't any other value, all values were already read.");
+    private void fill() {
+        while (bitCount <= MAX_BUFFERED_BITS && marker < 0 && nextPos < end) {
+            final int b = 0xff & interval[nextPos];
+            if (b == 0xff) {
+                if (nextPos + 1 >= end) {
+                    break;
+                }
+                final int b2 = 0xff & interval[nextPos + 1];
+                if (b2 != 0) {
+                    marker = b2;
+                    break;
+                }
+                nextPos += 2;
+            } else {
+                nextPos++;
+            }
+            bitBuffer = (bitBuffer << 8) | b;
+            bitCount += 8;
         }
-        int value = this.interval[nextPos];
-        this.nextPos++;
-        return value;
     }
 }
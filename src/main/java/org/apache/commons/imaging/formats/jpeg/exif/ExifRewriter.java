@@ -26,6 +26,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.ByteOrder;
+import java.nio.channels.Channels;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -36,6 +37,7 @@ import org.apache.commons.imaging.common.ByteConversions;
 import org.apache.commons.imaging.common.bytesource.ByteSource;
 import org.apache.commons.imaging.common.bytesource.ByteSourceArray;
 import org.apache.commons.imaging.common.bytesource.ByteSourceFile;
+import org.apache.commons.imaging.common.bytesource.ByteSourceFileChannel;
 import org.apache.commons.imaging.common.bytesource.ByteSourceInputStream;
 import org.apache.commons.imaging.formats.jpeg.JpegConstants;
 import org.apache.commons.imaging.formats.jpeg.JpegUtils;
@@ -118,20 +120,39 @@ public class ExifRewriter extends BinaryFileParser {
         }
     }
 
+    /**
+     * The first scan and everything after it, copied from the byte source
+     * when written rather than held in memory.
+     */
     private static class JFIFPieceImageData extends JFIFPiece {
-        public final byte[] markerBytes;
-        public final byte[] imageData;
+        private static final int COPY_BUFFER_SIZE = 64 * 1024;
 
-        JFIFPieceImageData(final byte[] markerBytes, final byte[] imageData) {
+        public final ByteSource byteSource;
+        public final long offset;
+
+        JFIFPieceImageData(final ByteSource byteSource, final long offset) {
             super();
-            this.markerBytes = markerBytes;
-            this.imageData = imageData;
+            this.byteSource = byteSource;
+            this.offset = offset;
         }
 
         @Override
         protected void write(final OutputStream os) throws IOException {
-            os.write(markerBytes);
-            os.write(imageData);
+            if (byteSource instanceof ByteSourceFileChannel) {
+                ((ByteSourceFileChannel) byteSource).transferTo(offset, Channels.newChannel(os));
+            } else if (byteSource instanceof ByteSourceFile) {
+                try (ByteSourceFileChannel file = new ByteSourceFileChannel(((ByteSourceFile) byteSource).getFile())) {
+                    file.transferTo(offset, Channels.newChannel(os));
+                }
+            } else {
+                try (InputStream is = byteSource.getInputStream(offset)) {
+                    final byte[] buffer = new byte[COPY_BUFFER_SIZE];
+                    int read;
+                    while ((read = is.read(buffer)) > 0) {
+                        os.write(buffer, 0, read);
+                    }
+                }
+            }
         }
     }
 
@@ -140,15 +161,15 @@ public class ExifRewriter extends BinaryFileParser {
         final List<JFIFPiece> exifPieces = new ArrayList<>();
 
         final JpegUtils.Visitor visitor = new JpegUtils.Visitor() {
-            // return false to exit before reading image data.
+            // not called: the image data isn't read.
             @Override
             public boolean beginSOS() {
-                return true;
+                return false;
             }
 
             @Override
             public void visitSOS(final int marker, final byte[] markerBytes, final byte[] imageData) {
-                pieces.add(new JFIFPieceImageData(markerBytes, imageData));
+                // not called.
             }
 
             // return false to exit traversal.
@@ -179,7 +200,8 @@ public class ExifRewriter extends BinaryFileParser {
             }
         };
 
-        new JpegUtils().traverseJFIF(byteSource, visitor);
+        final long imageDataOffset = new JpegUtils().traverseJFIFSegments(byteSource, visitor);
+        pieces.add(new JFIFPieceImageData(byteSource, imageDataOffset));
 
         // GenericSegment exifSegment = exifSegmentArray[0];
         // if (exifSegments.size() < 1)
@@ -181,7 +181,7 @@ class PcxWriter {
         final byte[] palette16 = new byte[16 * 3];
         for (int i = 0; i < 16; i++) {
             int rgb;
-            if (i < palette.length()) {
+            if (palette != null && i < palette.length()) {
                 rgb = palette.getEntry(i);
             } else {
                 rgb = 0;
@@ -19,12 +19,84 @@ package org.apache.commons.imaging.formats.png;
 /**
  * Filter types for filter method 0.
  *
+ * <p>Each type filters a row before it is compressed; the reverse of the
+ * unfiltering done by the {@code ScanlineFilter} of the same type.</p>
+ *
  * @see <a href="http://www.w3.org/TR/PNG/#9Filters">Portable Network Graphics Specification - Filtering</a>
  */
 enum FilterType {
-    NONE,
-    SUB,
-    UP,
-    AVERAGE,
-    PAETH
+    NONE {
+        @Override
+        void filter(final byte[] src, final byte[] dst, final byte[] up, final int bytesPerPixel) {
+            System.arraycopy(src, 0, dst, 0, src.length);
+        }
+    },
+    SUB {
+        @Override
+        void filter(final byte[] src, final byte[] dst, final byte[] up, final int bytesPerPixel) {
+            System.arraycopy(src, 0, dst, 0, Math.min(bytesPerPixel, src.length));
+            for (int i = bytesPerPixel; i < src.length; i++) {
+                dst[i] = (byte) (src[i] - src[i - bytesPerPixel]);
+            }
+        }
+    },
+    UP {
+        @Override
+        void filter(final byte[] src, final byte[] dst, final byte[] up, final int bytesPerPixel) {
+            if (up == null) {
+                System.arraycopy(src, 0, dst, 0, src.length);
+                return;
+            }
+            for (int i = 0; i < src.length; i++) {
+                dst[i] = (byte) (src[i] - up[i]);
+            }
+        }
+    },
+    AVERAGE {
+        @Override
+        void filter(final byte[] src, final byte[] dst, final byte[] up, final int bytesPerPixel) {
+            for (int i = 0; i < src.length; i++) {
+                final int left = (i >= bytesPerPixel) ? 0xff & src[i - bytesPerPixel] : 0;
+                final int above = (up != null) ? 0xff & up[i] : 0;
+                dst[i] = (byte) (src[i] - ((left + above) >> 1));
+            }
+        }
+    },
+    PAETH {
+        @Override
+        void filter(final byte[] src, final byte[] dst, final byte[] up, final int bytesPerPixel) {
+            for (int i = 0; i < src.length; i++) {
+                final int prevIndex = i - bytesPerPixel;
+                final int left = (prevIndex >= 0) ? 0xff & src[prevIndex] : 0;
+                final int above = (up != null) ? 0xff & up[i] : 0;
+                final int upperleft = (prevIndex >= 0 && up != null) ? 0xff & up[prevIndex] : 0;
+                dst[i] = (byte) (src[i] - paethPredictor(left, above, upperleft));
+            }
+        }
+    };
+
+    /**
+     * Filters a row.
+     *
+     * @param src the bytes of the row
+     * @param dst receives the filtered bytes
+     * @param up the bytes of the previous row, or null for the first row
+     * @param bytesPerPixel the number of bytes per pixel, rounded up
+     */
+    abstract void filter(byte[] src, byte[] dst, byte[] up, int bytesPerPixel);
+
+    private static int paethPredictor(final int a, final int b, final int c) {
+        // a = left, b = above, c = upper left
+        final int p = a + b - c;
+        final int pa = Math.abs(p - a);
+        final int pb = Math.abs(p - b);
+        final int pc = Math.abs(p - c);
+        // the nearest of a, b, c, breaking ties in order a, b, c
+        if ((pa <= pb) && (pa <= pc)) {
+            return a;
+        } else if (pb <= pc) {
+            return b;
+        }
+        return c;
+    }
 }
@@ -0,0 +1,159 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.formats.png;
+
+import static org.apache.commons.imaging.common.BinaryFunctions.read4Bytes;
+import static org.apache.commons.imaging.common.BinaryFunctions.skipBytes;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteOrder;
+import java.util.zip.CRC32;
+
+import org.apache.commons.imaging.ImageReadException;
+
+/**
+ * The compressed image data of a PNG, read from the data of its IDAT chunks
+ * as they come in the file, so the chunks are never collected in memory.
+ * The CRC of each chunk is checked once its data has been read.
+ *
+ * <p>The stream must be positioned at the start of a chunk. Other chunks
+ * between the IDAT chunks are skipped, and the stream ends at the IEND
+ * chunk.</p>
+ *
+ * <p>Invalid chunks are reported as a {@link CorruptDataException}, an
+ * {@code IOException} that carries the {@link ImageReadException} the
+ * parser throws in its place.</p>
+ */
+class IdatInputStream extends InputStream {
+
+    /**
+     * The invalid content of a PNG file, which the methods of an InputStream
+     * can only throw as an IOException.
+     */
+    static final class CorruptDataException extends IOException {
+        private static final long serialVersionUID = -2307468471829917284L;
+
+        private final ImageReadException imageReadException;
+
+        CorruptDataException(final String message) {
+            super(message);
+            this.imageReadException = new ImageReadException(message);
+        }
+
+        ImageReadException getImageReadException() {
+            return imageReadException;
+        }
+    }
+
+    private final InputStream is;
+    private final ByteOrder byteOrder;
+    private final CRC32 crc = new CRC32();
+    private boolean inChunk;
+    private int remaining;
+    private boolean finished;
+
+    IdatInputStream(final InputStream is, final ByteOrder byteOrder) {
+        this.is = is;
+        this.byteOrder = byteOrder;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!nextData()) {
+            return -1;
+        }
+        final int b = is.read();
+        if (b < 0) {
+            throw new IOException("Not a Valid PNG File: Couldn't read Chunk Data.");
+        }
+        crc.update(b);
+        remaining--;
+        return b;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!nextData()) {
+            return -1;
+        }
+        final int read = is.read(b, off, Math.min(len, remaining));
+        if (read < 0) {
+            throw new IOException("Not a Valid PNG File: Couldn't read Chunk Data.");
+        }
+        crc.update(b, off, read);
+        remaining -= read;
+        return read;
+    }
+
+    /**
+     * Reads the rest of the image data, up to the IEND chunk. The decoder
+     * stops reading once it has all the pixels, which leaves the end of the
+     * last chunk, and its CRC, unread.
+     */
+    void readToEnd() throws IOException {
+        final byte[] buffer = new byte[4096];
+        int read;
+        do {
+            read = read(buffer, 0, buffer.length);
+        } while (read >= 0);
+    }
+
+    /**
+     * Moves on to the next IDAT chunk once all the data of the current one
+     * has been read.
+     *
+     * @return false at the end of the image data
+     */
+    private boolean nextData() throws IOException {
+        while (remaining == 0) {
+            if (inChunk) {
+                final int expected = read4Bytes("CRC", is, "Not a Valid PNG File", byteOrder);
+                if ((int) crc.getValue() != expected) {
+                    throw new CorruptDataException("PNG: IDAT chunk has an invalid CRC");
+                }
+                inChunk = false;
+            }
+            if (finished) {
+                return false;
+            }
+
+            final int length = read4Bytes("Length", is, "Not a Valid PNG File", byteOrder);
+            if (length < 0) {
+                throw new CorruptDataException("Invalid PNG chunk length: " + length);
+            }
+            final int chunkType = read4Bytes("ChunkType", is, "Not a Valid PNG File", byteOrder);
+            if (chunkType == ChunkType.IDAT.value) {
+                crc.reset();
+                crc.update(chunkType >>> 24);
+                crc.update(chunkType >>> 16);
+                crc.update(chunkType >>> 8);
+                crc.update(chunkType);
+                inChunk = true;
+                remaining = length;
+            } else if (chunkType == ChunkType.IEND.value) {
+                finished = true;
+            } else {
+                skipBytes(is, length + 4L, "Not a Valid PNG File");
+            }
+        }
+        return true;
+    }
+}
@@ -87,6 +87,38 @@ public final class PngConstants {
      */
     public static final String PARAM_KEY_PNG_COMPRESSION_LEVEL = "PNG_COMPRESSION_LEVEL";
 
+    /**
+     * Parameter key. Used in write operations to choose how the rows of the
+     * image are filtered before they are compressed.
+     *
+     * <p>Valid values: a {@link PngFilterStrategy}. If no value is specified,
+     * {@link PngFilterStrategy#NONE} is used.</p>
+     */
+    public static final String PARAM_KEY_PNG_FILTER_STRATEGY = "PNG_FILTER_STRATEGY";
+
+    /**
+     * Parameter key. Used in write operations to filter and compress the
+     * image data in bands, concurrently, on the given executor. The bands
+     * are joined into a single zlib stream, so the file can be read by any
+     * decoder.
+     *
+     * <p>Valid values: any {@link java.util.concurrent.Executor}, such as a
+     * {@link java.util.concurrent.ForkJoinPool}. If no value is specified,
+     * the image is written on the calling thread.</p>
+     */
+    public static final String PARAM_KEY_PNG_ENCODE_EXECUTOR = "PNG_ENCODE_EXECUTOR";
+
+    /**
+     * Parameter key. Used in write operations with
+     * {@link #PARAM_KEY_PNG_ENCODE_EXECUTOR}, to set the number of rows in
+     * each band of the image that is compressed on its own. Smaller bands
+     * make for more tasks, at the cost of slightly larger files.
+     *
+     * <p>Valid values: a positive Integer. If no value is specified, bands
+     * of about 128K of image data are used.</p>
+     */
+    public static final String PARAM_KEY_PNG_ENCODE_BAND_HEIGHT = "PNG_ENCODE_BAND_HEIGHT";
+
     private PngConstants() {
     }
 }
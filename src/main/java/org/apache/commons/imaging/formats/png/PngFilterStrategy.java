@@ -0,0 +1,47 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.formats.png;
+
+/**
+ * How the writer chooses the filter applied to each row of the image before
+ * it is compressed.
+ *
+ * @see PngConstants#PARAM_KEY_PNG_FILTER_STRATEGY
+ * @see <a href="http://www.w3.org/TR/PNG/#12Filter-selection">Portable Network Graphics Specification - Filter selection</a>
+ */
+public enum PngFilterStrategy {
+    /**
+     * Rows are not filtered. The fastest to write, and usually the smallest
+     * for palette images. This is the default.
+     */
+    NONE,
+
+    /**
+     * Each row uses the filter whose output has the smallest sum of absolute
+     * values, taken as signed bytes. Palette images are not filtered.
+     * Usually the smallest for photos, but drawings and other color images
+     * with few colors can come out larger than with {@link #NONE}.
+     */
+    ADAPTIVE,
+
+    /**
+     * The image is compressed with each filter, and with the adaptive
+     * choice, and the smallest result is written. This compresses the image
+     * several times, so it is only worth it for small images.
+     */
+    BRUTE_FORCE
+}
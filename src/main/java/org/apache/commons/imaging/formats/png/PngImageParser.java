@@ -21,6 +21,7 @@ import static org.apache.commons.imaging.common.BinaryFunctions.read4Bytes;
 import static org.apache.commons.imaging.common.BinaryFunctions.readAndVerifyBytes;
 import static org.apache.commons.imaging.common.BinaryFunctions.readBytes;
 import static org.apache.commons.imaging.common.BinaryFunctions.skipBytes;
+import static org.apache.commons.imaging.common.ByteConversions.toBytes;
 
 import java.awt.Dimension;
 import java.awt.color.ColorSpace;
@@ -28,12 +29,11 @@ import java.awt.color.ICC_ColorSpace;
 import java.awt.color.ICC_Profile;
 import java.awt.image.BufferedImage;
 import java.awt.image.ColorModel;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.PrintWriter;
+import java.io.PushbackInputStream;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -164,48 +164,10 @@ public class PngImageParser extends ImageParser  implements XmpEmbeddable {
                 printCharQuad("ChunkType", chunkType);
                 debugNumber("Length", length, 4);
             }
-            final boolean keep = keepChunk(chunkType, chunkTypes);
 
-            byte[] bytes = null;
-            if (keep) {
-                bytes = readBytes("Chunk Data", is, length,
-                        "Not a Valid PNG File: Couldn't read Chunk Data.");
-            } else {
-                skipBytes(is, length, "Not a Valid PNG File");
-            }
-
-            if (LOGGER.isLoggable(Level.FINEST)) {
-                if (bytes != null) {
-                    debugNumber("bytes", bytes.length, 4);
-                }
-            }
-
-            final int crc = read4Bytes("CRC", is, "Not a Valid PNG File", getByteOrder());
-
-            if (keep) {
-                if (chunkType == ChunkType.iCCP.value) {
-                    result.add(new PngChunkIccp(length, chunkType, crc, bytes));
-                } else if (chunkType == ChunkType.tEXt.value) {
-                    result.add(new PngChunkText(length, chunkType, crc, bytes));
-                } else if (chunkType == ChunkType.zTXt.value) {
-                    result.add(new PngChunkZtxt(length, chunkType, crc, bytes));
-                } else if (chunkType == ChunkType.IHDR.value) {
-                    result.add(new PngChunkIhdr(length, chunkType, crc, bytes));
-                } else if (chunkType == ChunkType.PLTE.value) {
-                    result.add(new PngChunkPlte(length, chunkType, crc, bytes));
-                } else if (chunkType == ChunkType.pHYs.value) {
-                    result.add(new PngChunkPhys(length, chunkType, crc, bytes));
-                } else if (chunkType == ChunkType.sCAL.value) {
-                    result.add(new PngChunkScal(length, chunkType, crc, bytes));
-                } else if (chunkType == ChunkType.IDAT.value) {
-                    result.add(new PngChunkIdat(length, chunkType, crc, bytes));
-                } else if (chunkType == ChunkType.gAMA.value) {
-                    result.add(new PngChunkGama(length, chunkType, crc, bytes));
-                } else if (chunkType == ChunkType.iTXt.value) {
-                    result.add(new PngChunkItxt(length, chunkType, crc, bytes));
-                } else {
-                    result.add(new PngChunk(length, chunkType, crc, bytes));
-                }
+            final PngChunk chunk = readChunk(is, length, chunkType, keepChunk(chunkType, chunkTypes));
+            if (chunk != null) {
+                result.add(chunk);
 
                 if (returnAfterFirst) {
                     return result;
@@ -222,6 +184,93 @@ public class PngImageParser extends ImageParser  implements XmpEmbeddable {
 
     }
 
+    /**
+     * Reads the chunks that come before the image data, leaving the stream
+     * at the start of the first IDAT chunk.
+     */
+    private List<PngChunk> readChunksBeforeImageData(final PushbackInputStream is,
+            final ChunkType[] chunkTypes) throws ImageReadException, IOException {
+        final List<PngChunk> result = new ArrayList<>();
+
+        while (true) {
+            final int length = read4Bytes("Length", is, "Not a Valid PNG File", getByteOrder());
+            if (length < 0) {
+                throw new ImageReadException("Invalid PNG chunk length: " + length);
+            }
+            final int chunkType = read4Bytes("ChunkType", is, "Not a Valid PNG File", getByteOrder());
+
+            if (LOGGER.isLoggable(Level.FINEST)) {
+                printCharQuad("ChunkType", chunkType);
+                debugNumber("Length", length, 4);
+            }
+
+            if (chunkType == ChunkType.IDAT.value) {
+                is.unread(toBytes(chunkType, getByteOrder()));
+                is.unread(toBytes(length, getByteOrder()));
+                return result;
+            }
+            if (chunkType == ChunkType.IEND.value) {
+                throw new ImageReadException("PNG missing image data");
+            }
+
+            final PngChunk chunk = readChunk(is, length, chunkType, keepChunk(chunkType, chunkTypes));
+            if (chunk != null) {
+                result.add(chunk);
+            }
+        }
+    }
+
+    /**
+     * Reads the data and the CRC of a chunk whose length and type have been
+     * read, returning the chunk, or skipping it and returning null if it
+     * should not be kept.
+     */
+    private PngChunk readChunk(final InputStream is, final int length, final int chunkType,
+            final boolean keep) throws ImageReadException, IOException {
+        byte[] bytes = null;
+        if (keep) {
+            bytes = readBytes("Chunk Data", is, length,
+                    "Not a Valid PNG File: Couldn't read Chunk Data.");
+        } else {
+            skipBytes(is, length, "Not a Valid PNG File");
+        }
+
+        if (LOGGER.isLoggable(Level.FINEST)) {
+            if (bytes != null) {
+                debugNumber("bytes", bytes.length, 4);
+            }
+        }
+
+        final int crc = read4Bytes("CRC", is, "Not a Valid PNG File", getByteOrder());
+
+        if (!keep) {
+            return null;
+        }
+        if (chunkType == ChunkType.iCCP.value) {
+            return new PngChunkIccp(length, chunkType, crc, bytes);
+        } else if (chunkType == ChunkType.tEXt.value) {
+            return new PngChunkText(length, chunkType, crc, bytes);
+        } else if (chunkType == ChunkType.zTXt.value) {
+            return new PngChunkZtxt(length, chunkType, crc, bytes);
+        } else if (chunkType == ChunkType.IHDR.value) {
+            return new PngChunkIhdr(length, chunkType, crc, bytes);
+        } else if (chunkType == ChunkType.PLTE.value) {
+            return new PngChunkPlte(length, chunkType, crc, bytes);
+        } else if (chunkType == ChunkType.pHYs.value) {
+            return new PngChunkPhys(length, chunkType, crc, bytes);
+        } else if (chunkType == ChunkType.sCAL.value) {
+            return new PngChunkScal(length, chunkType, crc, bytes);
+        } else if (chunkType == ChunkType.IDAT.value) {
+            return new PngChunkIdat(length, chunkType, crc, bytes);
+        } else if (chunkType == ChunkType.gAMA.value) {
+            return new PngChunkGama(length, chunkType, crc, bytes);
+        } else if (chunkType == ChunkType.iTXt.value) {
+            return new PngChunkItxt(length, chunkType, crc, bytes);
+        } else {
+            return new PngChunk(length, chunkType, crc, bytes);
+        }
+    }
+
     public void readSignature(final InputStream is) throws ImageReadException,
             IOException {
         readAndVerifyBytes(is, PngConstants.PNG_SIGNATURE,
@@ -485,7 +534,64 @@ public class PngImageParser extends ImageParser  implements XmpEmbeddable {
     }
 
     @Override
-    public BufferedImage getBufferedImage(final ByteSource byteSource, Map<String, Object> params)
+    public BufferedImage getBufferedImage(final ByteSource byteSource, final Map<String, Object> params)
+            throws ImageReadException, IOException {
+        return readImage(byteSource, params, null);
+    }
+
+    /**
+     * Decodes the image one row at a time, passing the unfiltered samples of
+     * each row to the handler instead of building a {@link BufferedImage}.
+     * Only two rows are held in memory.
+     *
+     * <p>The samples are not converted to ARGB: the palette, transparency,
+     * gamma and ICC profile of the image are not applied. Interlaced images
+     * are not supported, since no row is complete before the whole image is
+     * decoded; use {@link #getBufferedImage(ByteSource, Map)} for those.</p>
+     *
+     * @param byteSource the PNG image
+     * @param params optional parameters, may be null
+     * @param handler receives the rows of the image
+     * @throws ImageReadException if the image is invalid or interlaced, or
+     *         the handler fails
+     * @throws IOException if the image cannot be read, or the handler fails
+     */
+    public void readScanlines(final ByteSource byteSource, final Map<String, Object> params,
+            final PngScanlineHandler handler) throws ImageReadException, IOException {
+        readImage(byteSource, params, handler);
+    }
+
+    /**
+     * Decodes the image into a new BufferedImage, or into the handler if one
+     * is given, in which case null is returned.
+     */
+    private BufferedImage readImage(final ByteSource byteSource, final Map<String, Object> params,
+            final PngScanlineHandler handler) throws ImageReadException, IOException {
+        try (InputStream is = byteSource.getInputStream()) {
+            readSignature(is);
+            final PushbackInputStream pis = new PushbackInputStream(is, 8);
+            final List<PngChunk> chunks = readChunksBeforeImageData(pis, new ChunkType[] {
+                    ChunkType.IHDR,
+                    ChunkType.PLTE,
+                    ChunkType.tRNS,
+                    ChunkType.iCCP,
+                    ChunkType.gAMA,
+                    ChunkType.sRGB,
+                });
+            // the image data is inflated as it is read from the IDAT chunks
+            final IdatInputStream imageData = new IdatInputStream(pis, getByteOrder());
+            try {
+                final BufferedImage result = readImage(chunks, imageData, params, handler);
+                imageData.readToEnd();
+                return result;
+            } catch (final IdatInputStream.CorruptDataException e) {
+                throw e.getImageReadException();
+            }
+        }
+    }
+
+    private BufferedImage readImage(final List<PngChunk> chunks, final InputStream imageData,
+            Map<String, Object> params, final PngScanlineHandler handler)
             throws ImageReadException, IOException {
         params = (params == null) ? new HashMap<>() : new HashMap<>(params);
 
@@ -494,16 +600,6 @@ public class PngImageParser extends ImageParser  implements XmpEmbeddable {
         // throw new ImageWriteException("Unknown parameter: " + firstKey);
         // }
 
-        final List<PngChunk> chunks = readChunks(byteSource, new ChunkType[] {
-                ChunkType.IHDR,
-                ChunkType.PLTE,
-                ChunkType.IDAT,
-                ChunkType.tRNS,
-                ChunkType.iCCP,
-                ChunkType.gAMA,
-                ChunkType.sRGB,
-            }, false);
-
         if ((chunks == null) || (chunks.isEmpty())) {
             throw new ImageReadException("PNG: no chunks");
         }
@@ -525,25 +621,6 @@ public class PngImageParser extends ImageParser  implements XmpEmbeddable {
             pngChunkPLTE = (PngChunkPlte) PLTEs.get(0);
         }
 
-        // -----
-
-        final List<PngChunk> IDATs = filterChunks(chunks, ChunkType.IDAT);
-        if (IDATs.isEmpty()) {
-            throw new ImageReadException("PNG missing image data");
-        }
-
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        for (final PngChunk IDAT : IDATs) {
-            final PngChunkIdat pngChunkIDAT = (PngChunkIdat) IDAT;
-            final byte[] bytes = pngChunkIDAT.getBytes();
-            // System.out.println(i + ": bytes: " + bytes.length);
-            baos.write(bytes);
-        }
-
-        final byte[] compressed = baos.toByteArray();
-
-        baos = null;
-
         TransparencyFilter transparencyFilter = null;
 
         final List<PngChunk> tRNSs = filterChunks(chunks, ChunkType.tRNS);
@@ -617,6 +694,20 @@ public class PngImageParser extends ImageParser  implements XmpEmbeddable {
 
             final boolean hasAlpha = pngColorType.hasAlpha() || transparencyFilter != null;
 
+            final InflaterInputStream iis = new InflaterInputStream(imageData);
+
+            if (handler != null) {
+                if (pngChunkIHDR.interlaceMethod != InterlaceMethod.NONE) {
+                    // the last Adam7 pass fills every other row, so no row
+                    // is complete before all of them are
+                    throw new ImageReadException("PNG: readScanlines does not support interlaced images");
+                }
+                handler.start(width, height, pngColorType, bitDepth);
+                new ScanExpediterSimple(width, height, iis, null, pngColorType, bitDepth, bitsPerPixel,
+                        pngChunkPLTE, gammaCorrection, transparencyFilter).readScanlines(handler);
+                return null;
+            }
+
             BufferedImage result;
             if (pngColorType.isGreyscale()) {
                 result = getBufferedImageFactory(params).getGrayscaleBufferedImage(width, height, hasAlpha);
@@ -624,9 +715,6 @@ public class PngImageParser extends ImageParser  implements XmpEmbeddable {
                 result = getBufferedImageFactory(params).getColorBufferedImage(width, height, hasAlpha);
             }
 
-            final ByteArrayInputStream bais = new ByteArrayInputStream(compressed);
-            final InflaterInputStream iis = new InflaterInputStream(bais);
-
             ScanExpediter scanExpediter;
 
             switch (pngChunkIHDR.interlaceMethod) {
@@ -0,0 +1,64 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.formats.png;
+
+import java.io.IOException;
+
+import org.apache.commons.imaging.ImageReadException;
+
+/**
+ * Receives the unfiltered rows of a non-interlaced PNG image, top to bottom,
+ * as they are decoded by
+ * {@link PngImageParser#readScanlines(org.apache.commons.imaging.common.bytesource.ByteSource, java.util.Map, PngScanlineHandler)}.
+ */
+public interface PngScanlineHandler {
+
+    /**
+     * Called once, before the first row, with the header of the image.
+     *
+     * @param width the width of the image
+     * @param height the height of the image
+     * @param pngColorType the color type of the image, which gives the
+     *        samples of each pixel
+     * @param bitDepth the number of bits per sample: 1, 2, 4, 8 or 16
+     * @throws ImageReadException to stop reading the image
+     * @throws IOException to stop reading the image
+     */
+    default void start(final int width, final int height, final PngColorType pngColorType, final int bitDepth)
+            throws ImageReadException, IOException {
+        // nothing to do by default
+    }
+
+    /**
+     * Called for each row of the image, after its filter has been undone.
+     *
+     * <p>The samples are packed as in the PNG file: big-endian for 16 bit
+     * samples, and with several pixels per byte for bit depths below 8,
+     * the leftmost in the high bits. Indexed images give palette indices.
+     * No gamma correction or transparency is applied.</p>
+     *
+     * <p>The array is reused for a later row, so it must be copied if the
+     * samples are needed after this method returns. It may be modified,
+     * which doesn't affect the decoding of later rows.</p>
+     *
+     * @param y the index of the row
+     * @param samples the samples of the row, {@code (width * bitsPerPixel + 7) / 8} bytes
+     * @throws ImageReadException to stop reading the image
+     * @throws IOException to stop reading the image
+     */
+    void scanline(int y, byte[] samples) throws ImageReadException, IOException;
+}
@@ -21,20 +21,30 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.zip.Adler32;
 import java.util.zip.Deflater;
 import java.util.zip.DeflaterOutputStream;
 
 import org.apache.commons.imaging.ImageWriteException;
 import org.apache.commons.imaging.ImagingConstants;
 import org.apache.commons.imaging.PixelDensity;
+import org.apache.commons.imaging.common.PendingTasks;
+import org.apache.commons.imaging.common.RgbRowReader;
 import org.apache.commons.imaging.internal.Debug;
 import org.apache.commons.imaging.palette.Palette;
 import org.apache.commons.imaging.palette.PaletteFactory;
 
 class PngWriter {
+    /**
+     * The default size of the bands of image data that are compressed
+     * concurrently, as in pigz.
+     */
+    private static final int DEFAULT_BAND_SIZE = 128 * 1024;
 
     /*
      1. IHDR: image header, which is the first chunk in a PNG datastream.
@@ -306,6 +316,162 @@ class PngWriter {
         return pngColorType.isBitDepthAllowed(depth) ? depth : 8;
     }
 
+    /**
+     * Filters each row of the image with whichever of the given filters gives
+     * the smallest sum of absolute values, taking the filtered bytes as
+     * signed, and prefixes the row with the type of the filter. This is the
+     * heuristic recommended by the PNG specification. If an executor is
+     * given, bands of rows are filtered concurrently.
+     */
+    private byte[] filterRows(final byte[] pixels, final int rowLength, final int bytesPerPixel,
+            final FilterType[] filterTypes, final Executor executor, final int bandHeight)
+            throws ImageWriteException, IOException {
+        final int height = pixels.length / rowLength;
+        final byte[] result = new byte[height * (rowLength + 1)];
+        if (executor == null || bandHeight >= height) {
+            filterRows(pixels, rowLength, bytesPerPixel, filterTypes, 0, height, result);
+            return result;
+        }
+
+        final int bandCount = (height + bandHeight - 1) / bandHeight;
+        PendingTasks.<Void>forWriting(executor, "filtering PNG image data").run(bandCount, band -> {
+            final int y0 = band * bandHeight;
+            filterRows(pixels, rowLength, bytesPerPixel, filterTypes, y0, Math.min(height, y0 + bandHeight), result);
+            return null;
+        }, (band, ignored) -> {
+            // the rows are filtered into the result
+        });
+        return result;
+    }
+
+    private void filterRows(final byte[] pixels, final int rowLength, final int bytesPerPixel,
+            final FilterType[] filterTypes, final int y0, final int y1, final byte[] result) {
+        final byte[][] filtered = new byte[filterTypes.length][rowLength];
+
+        byte[] row = new byte[rowLength];
+        byte[] up = null;
+        if (y0 > 0) {
+            up = new byte[rowLength];
+            System.arraycopy(pixels, (y0 - 1) * rowLength, up, 0, rowLength);
+        }
+        int offset = y0 * (rowLength + 1);
+        for (int y = y0; y < y1; y++) {
+            System.arraycopy(pixels, y * rowLength, row, 0, rowLength);
+
+            int best = 0;
+            long bestSum = Long.MAX_VALUE;
+            for (int i = 0; i < filterTypes.length; i++) {
+                filterTypes[i].filter(row, filtered[i], up, bytesPerPixel);
+                if (filterTypes.length == 1) {
+                    break;
+                }
+                long sum = 0;
+                for (final byte b : filtered[i]) {
+                    sum += Math.abs(b);
+                }
+                if (sum < bestSum) {
+                    bestSum = sum;
+                    best = i;
+                }
+            }
+
+            result[offset++] = (byte) filterTypes[best].ordinal();
+            System.arraycopy(filtered[best], 0, result, offset, rowLength);
+            offset += rowLength;
+
+            final byte[] swap = (up == null) ? new byte[rowLength] : up;
+            up = row;
+            row = swap;
+        }
+    }
+
+    private long getDeflatedSize(final byte[] data, final int compressionLevel) {
+        final Deflater deflater = new Deflater(compressionLevel);
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+            final byte[] buffer = new byte[64 * 1024];
+            while (!deflater.finished()) {
+                deflater.deflate(buffer);
+            }
+            return deflater.getBytesWritten();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Compresses the image data in bands concurrently, as pigz does, and
+     * writes each band as an IDAT chunk. Each band is compressed on its own,
+     * with the end of the previous band as preset dictionary, and all but the
+     * last end with a sync flush, so that the bands join into one zlib stream.
+     */
+    private void writeImageDataConcurrently(final OutputStream os, final byte[] uncompressed,
+            final int bandSize, final int compressionLevel, final Executor executor)
+            throws ImageWriteException, IOException {
+        final int bandCount = (uncompressed.length + bandSize - 1) / bandSize;
+        PendingTasks.<byte[]>forWriting(executor, "compressing PNG image data").run(bandCount, band -> {
+            final int bandStart = band * bandSize;
+            return deflateBand(uncompressed, bandStart, Math.min(uncompressed.length, bandStart + bandSize),
+                    compressionLevel);
+        }, (band, compressed) -> writeChunkIDAT(os, compressed));
+    }
+
+    /**
+     * Compresses one band of the image data into raw deflate blocks. The
+     * first band starts with the zlib header, and the last one ends with the
+     * Adler-32 checksum of all the data.
+     */
+    private byte[] deflateBand(final byte[] data, final int start, final int end,
+            final int compressionLevel) {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        if (start == 0) {
+            final int level = (compressionLevel == Deflater.DEFAULT_COMPRESSION) ? 6 : compressionLevel;
+            final int cmf = 0x78; // deflate, 32K window
+            int flg = ((level < 2) ? 0 : (level < 6) ? 1 : (level == 6) ? 2 : 3) << 6;
+            flg += (31 - ((cmf << 8) | flg) % 31) % 31;
+            baos.write(cmf);
+            baos.write(flg);
+        }
+
+        final Deflater deflater = new Deflater(compressionLevel, true);
+        try {
+            if (start > 0) {
+                // before Java 16, setDictionary(byte[], int, int) ignores
+                // the offset (JDK-8252739), so pass a copy
+                final int dictionaryStart = Math.max(0, start - 32 * 1024);
+                deflater.setDictionary(Arrays.copyOfRange(data, dictionaryStart, start));
+            }
+            deflater.setInput(data, start, end - start);
+            final byte[] buffer = new byte[64 * 1024];
+            if (end == data.length) {
+                deflater.finish();
+                while (!deflater.finished()) {
+                    baos.write(buffer, 0, deflater.deflate(buffer));
+                }
+            } else {
+                int length;
+                do {
+                    length = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+                    baos.write(buffer, 0, length);
+                } while (length == buffer.length);
+            }
+        } finally {
+            deflater.end();
+        }
+
+        if (end == data.length) {
+            final Adler32 adler32 = new Adler32();
+            adler32.update(data, 0, data.length);
+            final int checksum = (int) adler32.getValue();
+            baos.write(checksum >>> 24);
+            baos.write(checksum >>> 16);
+            baos.write(checksum >>> 8);
+            baos.write(checksum);
+        }
+        return baos.toByteArray();
+    }
+
     /*
      between two chunk types indicates alternatives.
      Table 5.3 - Chunk ordering rules
@@ -365,6 +531,30 @@ class PngWriter {
         if (params.containsKey(PngConstants.PARAM_KEY_PNG_COMPRESSION_LEVEL)) {
             compressionLevel = (int) params.remove(PngConstants.PARAM_KEY_PNG_COMPRESSION_LEVEL);
         }
+        PngFilterStrategy filterStrategy = PngFilterStrategy.NONE;
+        if (params.containsKey(PngConstants.PARAM_KEY_PNG_FILTER_STRATEGY)) {
+            final Object value = params.remove(PngConstants.PARAM_KEY_PNG_FILTER_STRATEGY);
+            if (!(value instanceof PngFilterStrategy)) {
+                throw new ImageWriteException("Invalid PNG filter strategy: " + value);
+            }
+            filterStrategy = (PngFilterStrategy) value;
+        }
+        Executor encodeExecutor = null;
+        if (params.containsKey(PngConstants.PARAM_KEY_PNG_ENCODE_EXECUTOR)) {
+            final Object value = params.remove(PngConstants.PARAM_KEY_PNG_ENCODE_EXECUTOR);
+            if (!(value instanceof Executor)) {
+                throw new ImageWriteException("Invalid encode executor: " + value);
+            }
+            encodeExecutor = (Executor) value;
+        }
+        int bandHeight = 0;
+        if (params.containsKey(PngConstants.PARAM_KEY_PNG_ENCODE_BAND_HEIGHT)) {
+            final Object value = params.remove(PngConstants.PARAM_KEY_PNG_ENCODE_BAND_HEIGHT);
+            if (!(value instanceof Integer) || (Integer) value < 1) {
+                throw new ImageWriteException("Invalid encode band height: " + value);
+            }
+            bandHeight = (Integer) value;
+        }
         params.remove(ImagingConstants.PARAM_KEY_PIXEL_DENSITY);
         params.remove(PngConstants.PARAM_KEY_PHYSICAL_SCALE);
         params.remove(PngConstants.PARAM_KEY_PNG_COMPRESSION_LEVEL);
@@ -503,25 +693,29 @@ class PngWriter {
 
             // IDAT Yes Multiple IDAT chunks shall be consecutive
 
-            byte[] uncompressed;
-            {
-                final ByteArrayOutputStream baos = new ByteArrayOutputStream();
-
-                final boolean useAlpha = pngColorType == PngColorType.GREYSCALE_WITH_ALPHA
-                        || pngColorType == PngColorType.TRUE_COLOR_WITH_ALPHA;
+            final boolean useAlpha = pngColorType == PngColorType.GREYSCALE_WITH_ALPHA
+                    || pngColorType == PngColorType.TRUE_COLOR_WITH_ALPHA;
+            final int bytesPerPixel = (palette != null) ? 1 : (isGrayscale ? 1 : 3) + (useAlpha ? 1 : 0);
+            final int rowLength = width * bytesPerPixel;
+            if (bandHeight == 0) {
+                bandHeight = Math.max(1, DEFAULT_BAND_SIZE / (rowLength + 1));
+            }
 
+            final byte[] pixels = new byte[height * rowLength];
+            {
+                int i = 0;
+                final RgbRowReader rowReader = new RgbRowReader(src);
                 final int[] row = new int[width];
                 for (int y = 0; y < height; y++) {
                     // Debug.debug("y", y + "/" + height);
-                    src.getRGB(0, y, width, 1, row, 0, width);
+                    rowReader.getRgbRow(y, row);
 
-                    baos.write(FilterType.NONE.ordinal());
                     for (int x = 0; x < width; x++) {
                         final int argb = row[x];
 
                         if (palette != null) {
                             final int index = palette.getPaletteIndex(argb);
-                            baos.write(0xff & index);
+                            pixels[i++] = (byte) index;
                         } else {
                             final int alpha = 0xff & (argb >> 24);
                             final int red = 0xff & (argb >> 16);
@@ -530,62 +724,82 @@ class PngWriter {
 
                             if (isGrayscale) {
                                 final int gray = (red + green + blue) / 3;
-                                // if (y == 0)
-                                // {
-                                // Debug.debug("gray: " + x + ", " + y +
-                                // " argb: 0x"
-                                // + Integer.toHexString(argb) + " gray: 0x"
-                                // + Integer.toHexString(gray));
-                                // // Debug.debug(x + ", " + y + " gray", gray);
-                                // // Debug.debug(x + ", " + y + " gray", gray);
-                                // Debug.debug(x + ", " + y + " gray", gray +
-                                // " " + Integer.toHexString(gray));
-                                // Debug.debug();
-                                // }
-                                baos.write(gray);
+                                pixels[i++] = (byte) gray;
                             } else {
-                                baos.write(red);
-                                baos.write(green);
-                                baos.write(blue);
+                                pixels[i++] = (byte) red;
+                                pixels[i++] = (byte) green;
+                                pixels[i++] = (byte) blue;
                             }
                             if (useAlpha) {
-                                baos.write(alpha);
+                                pixels[i++] = (byte) alpha;
                             }
                         }
                     }
                 }
-                uncompressed = baos.toByteArray();
             }
 
-            // Debug.debug("uncompressed", uncompressed.length);
-
-            final ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            final int chunkSize = 256 * 1024;
-            Deflater deflater = new Deflater(compressionLevel);
-            final DeflaterOutputStream dos = new DeflaterOutputStream(baos,deflater,chunkSize);
+            // the spec recommends not filtering palette images
+            final FilterType[] adaptive = palette != null
+                    ? new FilterType[] { FilterType.NONE }
+                    : FilterType.values();
+            byte[] uncompressed;
+            switch (filterStrategy) {
+                case NONE:
+                    uncompressed = filterRows(pixels, rowLength, bytesPerPixel,
+                            new FilterType[] { FilterType.NONE }, encodeExecutor, bandHeight);
+                    break;
+                case BRUTE_FORCE:
+                    uncompressed = filterRows(pixels, rowLength, bytesPerPixel, adaptive, encodeExecutor, bandHeight);
+                    long smallest = getDeflatedSize(uncompressed, compressionLevel);
+                    for (final FilterType filterType : FilterType.values()) {
+                        final byte[] filtered = filterRows(pixels, rowLength, bytesPerPixel,
+                                new FilterType[] { filterType }, encodeExecutor, bandHeight);
+                        final long size = getDeflatedSize(filtered, compressionLevel);
+                        if (size < smallest) {
+                            smallest = size;
+                            uncompressed = filtered;
+                        }
+                    }
+                    break;
+                default:
+                    uncompressed = filterRows(pixels, rowLength, bytesPerPixel, adaptive, encodeExecutor, bandHeight);
+                    break;
+            }
 
-            for (int index = 0; index < uncompressed.length; index += chunkSize) {
-                final int end = Math.min(uncompressed.length, index + chunkSize);
-                final int length = end - index;
+            // Debug.debug("uncompressed", uncompressed.length);
 
-                dos.write(uncompressed, index, length);
-                dos.flush();
-                baos.flush();
+            final int bandSize = bandHeight * (rowLength + 1);
+            if (encodeExecutor != null && uncompressed.length > bandSize) {
+                writeImageDataConcurrently(os, uncompressed, bandSize, compressionLevel, encodeExecutor);
+            } else {
+                final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+                final int chunkSize = 256 * 1024;
+                Deflater deflater = new Deflater(compressionLevel);
+                final DeflaterOutputStream dos = new DeflaterOutputStream(baos,deflater,chunkSize);
+
+                for (int index = 0; index < uncompressed.length; index += chunkSize) {
+                    final int end = Math.min(uncompressed.length, index + chunkSize);
+                    final int length = end - index;
+
+                    dos.write(uncompressed, index, length);
+                    dos.flush();
+                    baos.flush();
+
+                    final byte[] compressed = baos.toByteArray();
+                    baos.reset();
+                    if (compressed.length > 0) {
+                        // Debug.debug("compressed", compressed.length);
+                        writeChunkIDAT(os, compressed);
+                    }
 
-                final byte[] compressed = baos.toByteArray();
-                baos.reset();
-                if (compressed.length > 0) {
-                    // Debug.debug("compressed", compressed.length);
-                    writeChunkIDAT(os, compressed);
                 }
-
-            }
-            {
-                dos.finish();
-                final byte[] compressed = baos.toByteArray();
-                if (compressed.length > 0) {
-                    // Debug.debug("compressed final", compressed.length);
-                    writeChunkIDAT(os, compressed);
+                {
+                    dos.finish();
+                    final byte[] compressed = baos.toByteArray();
+                    if (compressed.length > 0) {
+                        // Debug.debug("compressed final", compressed.length);
+                        writeChunkIDAT(os, compressed);
+                    }
                 }
             }
         }
@@ -618,7 +832,6 @@ class PngWriter {
          */
 
         os.close();
-    } // todo: filter types
-      // proper colour types
+    } // todo: proper colour types
       // srgb, etc.
 }
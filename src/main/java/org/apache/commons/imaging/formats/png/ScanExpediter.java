@@ -16,9 +16,6 @@
  */
 package org.apache.commons.imaging.formats.png;
 
-import static org.apache.commons.imaging.common.BinaryFunctions.readBytes;
-
-import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.io.InputStream;
 
@@ -36,7 +33,6 @@ abstract class ScanExpediter {
     final int width;
     final int height;
     final InputStream is;
-    final BufferedImage bi;
     final PngColorType pngColorType;
     final int bitDepth;
     final int bytesPerPixel;
@@ -46,13 +42,12 @@ abstract class ScanExpediter {
     final TransparencyFilter transparencyFilter;
 
     ScanExpediter(final int width, final int height, final InputStream is,
-            final BufferedImage bi, final PngColorType pngColorType, final int bitDepth, final int bitsPerPixel,
+            final PngColorType pngColorType, final int bitDepth, final int bitsPerPixel,
             final PngChunkPlte pngChunkPLTE, final GammaCorrection gammaCorrection,
             final TransparencyFilter transparencyFilter) {
         this.width = width;
         this.height = height;
         this.is = is;
-        this.bi = bi;
         this.pngColorType = pngColorType;
         this.bitDepth = bitDepth;
         this.bytesPerPixel = this.getBitsToBytesRoundingUp(bitsPerPixel);
@@ -186,17 +181,25 @@ abstract class ScanExpediter {
         return null;
     }
 
-    byte[] unfilterScanline(final FilterType filterType, final byte[] src, final byte[] prev,
+    byte[] getNextScanline(final InputStream is, final int length, final byte[] prev,
             final int bytesPerPixel) throws ImageReadException, IOException {
-        final ScanlineFilter filter = getScanlineFilter(filterType, bytesPerPixel);
-
-        final byte[] dst = new byte[src.length];
-        filter.unfilter(src, dst, prev);
-        return dst;
+        final byte[] unfiltered = new byte[length];
+        readNextScanline(is, new byte[length], unfiltered, prev, bytesPerPixel);
+        return unfiltered;
     }
 
-    byte[] getNextScanline(final InputStream is, final int length, final byte[] prev,
-            final int bytesPerPixel) throws ImageReadException, IOException {
+    /**
+     * Reads the next scanline into caller supplied buffers, so that rows can
+     * be decoded without allocating.
+     *
+     * @param is the decompressed image data
+     * @param scanline buffer for the filtered bytes of the scanline
+     * @param dst receives the unfiltered bytes, must not be {@code prev}
+     * @param prev the unfiltered previous scanline, or null for the first
+     * @param bytesPerPixel the number of bytes per complete pixel, at least 1
+     */
+    void readNextScanline(final InputStream is, final byte[] scanline, final byte[] dst,
+            final byte[] prev, final int bytesPerPixel) throws ImageReadException, IOException {
         final int filterType = is.read();
         if (filterType < 0) {
             throw new ImageReadException("PNG: missing filter type");
@@ -205,9 +208,17 @@ abstract class ScanExpediter {
             throw new ImageReadException("PNG: unknown filterType: " + filterType);
         }
 
-        final byte[] scanline = readBytes("scanline", is, length, "PNG: missing image data");
+        int read = 0;
+        while (read < scanline.length) {
+            final int count = is.read(scanline, read, scanline.length - read);
+            if (count < 0) {
+                throw new IOException("PNG: missing image data count: " + count
+                        + " read: " + read + " length: " + scanline.length);
+            }
+            read += count;
+        }
 
-        return unfilterScanline(FilterType.values()[filterType], scanline, prev, bytesPerPixel);
+        getScanlineFilter(FilterType.values()[filterType], bytesPerPixel).unfilter(scanline, dst, prev);
     }
 
 }
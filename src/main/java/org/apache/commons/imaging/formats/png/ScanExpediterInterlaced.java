@@ -29,6 +29,7 @@ class ScanExpediterInterlaced extends ScanExpediter {
     private static final int[] STARTING_COL = { 0, 4, 0, 2, 0, 1, 0 };
     private static final int[] ROW_INCREMENT = { 8, 8, 8, 4, 4, 2, 2 };
     private static final int[] COL_INCREMENT = { 8, 8, 4, 4, 2, 2, 1 };
+    private final BufferedImage bi;
 //    private static final int Block_Height[] = { 8, 8, 4, 4, 2, 2, 1 };
 //    private static final int Block_Width[] = { 8, 4, 4, 2, 2, 1, 1 };
 
@@ -38,8 +39,9 @@ class ScanExpediterInterlaced extends ScanExpediter {
             final PngChunkPlte fPNGChunkPLTE,
             final GammaCorrection gammaCorrection,
             final TransparencyFilter transparencyFilter) {
-        super(width, height, is, bi, pngColorType, bitDepth, bitsPerPixel,
+        super(width, height, is, pngColorType, bitDepth, bitsPerPixel,
                 fPNGChunkPLTE, gammaCorrection, transparencyFilter);
+        this.bi = bi;
     }
 
     private void visit(final int x, final int y, final BufferedImage bi, final BitParser fBitParser,
@@ -24,35 +24,60 @@ import org.apache.commons.imaging.ImageReadException;
 import org.apache.commons.imaging.formats.png.chunks.PngChunkPlte;
 import org.apache.commons.imaging.formats.png.transparencyfilters.TransparencyFilter;
 
+/**
+ * Decodes a non-interlaced image one row at a time. Only the current and the
+ * previous row are kept in memory.
+ */
 class ScanExpediterSimple extends ScanExpediter {
+    private final BufferedImage bi;
+
     ScanExpediterSimple(final int width, final int height, final InputStream is,
-            final BufferedImage bi, final PngColorType pngColorType, final int bitDepth, final int bitsPerPixel,
-            final PngChunkPlte pngChunkPLTE, final GammaCorrection gammaCorrection,
+            final BufferedImage bi, final PngColorType pngColorType, final int bitDepth,
+            final int bitsPerPixel, final PngChunkPlte pngChunkPLTE, final GammaCorrection gammaCorrection,
             final TransparencyFilter transparencyFilter) {
-        super(width, height, is, bi, pngColorType, bitDepth, bitsPerPixel,
+        super(width, height, is, pngColorType, bitDepth, bitsPerPixel,
                 pngChunkPLTE, gammaCorrection, transparencyFilter);
+        this.bi = bi;
     }
 
     @Override
     public void drive() throws ImageReadException, IOException {
+        final int[] argb = new int[width];
+        readScanlines((y, unfiltered) -> {
+            final BitParser bitParser = new BitParser(unfiltered, bitsPerPixel,
+                    bitDepth);
+
+            for (int x = 0; x < width; x++) {
+                argb[x] = getRGB(bitParser, x);
+            }
+            bi.setRGB(0, y, width, 1, argb, 0, width);
+        });
+    }
+
+    /**
+     * Reads and unfilters each row, and passes it to the handler.
+     */
+    void readScanlines(final PngScanlineHandler handler) throws ImageReadException, IOException {
         final int bitsPerScanLine = bitsPerPixel * width;
         final int pixelBytesPerScanLine = getBitsToBytesRoundingUp(bitsPerScanLine);
+        final byte[] scanline = new byte[pixelBytesPerScanLine];
+        byte[] unfiltered = new byte[pixelBytesPerScanLine];
         byte[] prev = null;
+        // the handler gets a copy, so that changing it doesn't corrupt the
+        // unfiltering of the next row
+        final byte[] samples = new byte[pixelBytesPerScanLine];
 
         for (int y = 0; y < height; y++) {
-            final byte[] unfiltered = getNextScanline(is, pixelBytesPerScanLine, prev, bytesPerPixel);
+            readNextScanline(is, scanline, unfiltered, prev, bytesPerPixel);
 
-            prev = unfiltered;
+            System.arraycopy(unfiltered, 0, samples, 0, pixelBytesPerScanLine);
+            handler.scanline(y, samples);
 
-            final BitParser bitParser = new BitParser(unfiltered, bitsPerPixel,
-                    bitDepth);
-
-            for (int x = 0; x < width; x++) {
-                final int rgb = getRGB(bitParser, x);
-
-                bi.setRGB(x, y, rgb);
-            }
+            // the current row becomes the previous one, and the old previous
+            // row is overwritten next
+            final byte[] swap = (prev == null) ? new byte[pixelBytesPerScanLine] : prev;
+            prev = unfiltered;
+            unfiltered = swap;
         }
-
     }
 }
@@ -75,6 +75,10 @@ public class TiffDirectory extends TiffElement {
     // argument, though that use could be phased out eventually.
     private final ByteOrder headerByteOrder;
 
+    // the first field with each tag, in an open addressing table
+    // indexed by the Fibonacci hash of the tag
+    private final TiffField[] fieldSlots;
+    private final int fieldSlotShift;
 
     public TiffDirectory(
         final int type,
@@ -82,14 +86,45 @@ public class TiffDirectory extends TiffElement {
         final long offset,
         final long nextDirectoryOffset,
         final ByteOrder byteOrder) {
-        super(offset, TiffConstants.TIFF_DIRECTORY_HEADER_LENGTH
-                + entries.size() * TiffConstants.TIFF_ENTRY_LENGTH
-                + TiffConstants.TIFF_DIRECTORY_FOOTER_LENGTH);
+        this(type, entries, offset, nextDirectoryOffset, byteOrder, false);
+    }
+
+    /**
+     * @param bigTiff whether the directory is from a BigTIFF, whose
+     * entries are 20 bytes long rather than 12
+     */
+    public TiffDirectory(
+        final int type,
+        final List<TiffField> entries,
+        final long offset,
+        final long nextDirectoryOffset,
+        final ByteOrder byteOrder,
+        final boolean bigTiff) {
+        super(offset, bigTiff
+                ? TiffConstants.TIFF_BIG_DIRECTORY_HEADER_LENGTH
+                        + entries.size() * TiffConstants.TIFF_BIG_ENTRY_LENGTH
+                        + TiffConstants.TIFF_BIG_DIRECTORY_FOOTER_LENGTH
+                : TiffConstants.TIFF_DIRECTORY_HEADER_LENGTH
+                        + entries.size() * TiffConstants.TIFF_ENTRY_LENGTH
+                        + TiffConstants.TIFF_DIRECTORY_FOOTER_LENGTH);
 
         this.type = type;
         this.entries = Collections.unmodifiableList(entries);
         this.nextDirectoryOffset = nextDirectoryOffset;
         this.headerByteOrder = byteOrder;
+
+        final int slots = Integer.highestOneBit(Math.max(1, 2 * entries.size() - 1)) << 1;
+        fieldSlots = new TiffField[slots];
+        fieldSlotShift = 32 - Integer.numberOfTrailingZeros(slots);
+        for (final TiffField field : entries) {
+            int slot = (field.getTag() * 0x9E3779B9) >>> fieldSlotShift;
+            while (fieldSlots[slot] != null && fieldSlots[slot].getTag() != field.getTag()) {
+                slot = (slot + 1) & (slots - 1);
+            }
+            if (fieldSlots[slot] == null) {
+                fieldSlots[slot] = field;
+            }
+        }
     }
 
     public String description() {
@@ -263,13 +298,11 @@ public class TiffDirectory extends TiffElement {
 
     public TiffField findField(final TagInfo tag, final boolean failIfMissing)
             throws ImageReadException {
-        if (entries == null) {
-            return null;
-        }
-
-        for (final TiffField field : entries) {
-            if (field.getTag() == tag.tag) {
-                return field;
+        final int mask = fieldSlots.length - 1;
+        for (int slot = (tag.tag * 0x9E3779B9) >>> fieldSlotShift; fieldSlots[slot] != null;
+                slot = (slot + 1) & mask) {
+            if (fieldSlots[slot].getTag() == tag.tag) {
+                return fieldSlots[slot];
             }
         }
 
@@ -805,7 +838,7 @@ public class TiffDirectory extends TiffElement {
     private List<ImageDataElement> getRawImageDataElements(
             final TiffField offsetsField, final TiffField byteCountsField)
             throws ImageReadException {
-        final int[] offsets = offsetsField.getIntArrayValue();
+        final long[] offsets = offsetsField.getLongArrayValue();
         final int[] byteCounts = byteCountsField.getIntArrayValue();
 
         if (offsets.length != byteCounts.length) {
@@ -856,7 +889,7 @@ public class TiffDirectory extends TiffElement {
         final TiffField jpegInterchangeFormatLength = findField(TiffTagConstants.TIFF_TAG_JPEG_INTERCHANGE_FORMAT_LENGTH);
 
         if (jpegInterchangeFormat != null && jpegInterchangeFormatLength != null) {
-            final int offSet = jpegInterchangeFormat.getIntArrayValue()[0];
+            final long offSet = jpegInterchangeFormat.getLongArrayValue()[0];
             final int byteCount = jpegInterchangeFormatLength.getIntArrayValue()[0];
 
             return new ImageDataElement(offSet, byteCount);
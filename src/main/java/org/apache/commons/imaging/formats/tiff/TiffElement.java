@@ -16,6 +16,7 @@
  */
 package org.apache.commons.imaging.formats.tiff;
 
+import java.io.IOException;
 import java.util.Comparator;
 
 public abstract class TiffElement {
@@ -51,6 +52,17 @@ public abstract class TiffElement {
             return data.clone();
         }
 
+        /**
+         * Gets the data, reading it from the underlying byte source if it was
+         * not loaded with the element.
+         *
+         * @return a copy of the data
+         * @throws IOException if the data can't be read
+         */
+        public byte[] readData() throws IOException {
+            return getData();
+        }
+
         public int getDataLength() {
             return data.length;
         }
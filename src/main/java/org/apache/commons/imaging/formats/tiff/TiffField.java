@@ -50,10 +50,21 @@ public class TiffField {
     private final byte[] value;
     private final ByteOrder byteOrder;
     private final int sortHint;
+    private final boolean bigTiff;
 
     public TiffField(final int tag, final int directoryType, final FieldType fieldType,
             final long count, final long offset, final byte[] value,
             final ByteOrder byteOrder, final int sortHint) {
+        this(tag, directoryType, fieldType, count, offset, value, byteOrder, sortHint, false);
+    }
+
+    /**
+     * @param bigTiff whether the field is from a BigTIFF, whose entries
+     * hold values of up to 8 bytes rather than 4
+     */
+    public TiffField(final int tag, final int directoryType, final FieldType fieldType,
+            final long count, final long offset, final byte[] value,
+            final ByteOrder byteOrder, final int sortHint, final boolean bigTiff) {
 
         this.tag = tag;
         this.directoryType = directoryType;
@@ -63,6 +74,7 @@ public class TiffField {
         this.value = value;
         this.byteOrder = byteOrder;
         this.sortHint = sortHint;
+        this.bigTiff = bigTiff;
 
         tagInfo = TiffTags.getTag(directoryType, tag);
     }
@@ -125,7 +137,8 @@ public class TiffField {
      * @return true if the value is inlined
      */
     public boolean isLocalValue() {
-        return (count * fieldType.getSize()) <= TiffConstants.TIFF_ENTRY_MAX_VALUE_LENGTH;
+        return (count * fieldType.getSize()) <= (bigTiff ? TiffConstants.TIFF_BIG_ENTRY_MAX_VALUE_LENGTH
+                : TiffConstants.TIFF_ENTRY_MAX_VALUE_LENGTH);
     }
 
     /**
@@ -145,7 +158,7 @@ public class TiffField {
     }
 
     public final class OversizeValueElement extends TiffElement {
-        public OversizeValueElement(final int offset, final int length) {
+        public OversizeValueElement(final long offset, final int length) {
             super(offset, length);
         }
 
@@ -161,7 +174,7 @@ public class TiffField {
             return null;
         }
 
-        return new OversizeValueElement(getOffset(), value.length);
+        return new OversizeValueElement(offset, value.length);
     }
 
     public String getValueDescription() {
@@ -433,7 +446,9 @@ public class TiffField {
         // if (o == null)
         // return null;
 
-        if (o instanceof Number) {
+        if (o instanceof Long) {
+            return new int[] { toInt((Long) o) };
+        } else if (o instanceof Number) {
             return new int[] { ((Number) o).intValue() };
         } else if (o instanceof Number[]) {
             final Number[] numbers = (Number[]) o;
@@ -454,6 +469,13 @@ public class TiffField {
             final int[] result = new int[numbers.length];
             System.arraycopy(numbers, 0, result, 0, numbers.length);
             return result;
+        } else if (o instanceof long[]) {
+            final long[] numbers = (long[]) o;
+            final int[] result = new int[numbers.length];
+            for (int i = 0; i < numbers.length; i++) {
+                result[i] = toInt(numbers[i]);
+            }
+            return result;
         }
 
         throw new ImageReadException("Unknown value: " + o + " for: "
@@ -461,6 +483,44 @@ public class TiffField {
         // return null;
     }
 
+    /**
+     * Returns the value of the field as unsigned integers. Offsets and byte
+     * counts are read this way, since they can exceed 2 GB, or 4 GB in a
+     * BigTIFF.
+     * @return the values of the field
+     * @throws ImageReadException if the field doesn't hold integers
+     */
+    public long[] getLongArrayValue() throws ImageReadException {
+        final Object o = getValue();
+
+        if (o instanceof Long) {
+            return new long[] { (Long) o };
+        } else if (o instanceof Integer) {
+            return new long[] { 0xFFFFffffL & (Integer) o };
+        } else if (o instanceof Short) {
+            return new long[] { 0xffff & (Short) o };
+        } else if (o instanceof short[]) {
+            final short[] numbers = (short[]) o;
+            final long[] result = new long[numbers.length];
+            for (int i = 0; i < numbers.length; i++) {
+                result[i] = 0xffff & numbers[i];
+            }
+            return result;
+        } else if (o instanceof int[]) {
+            final int[] numbers = (int[]) o;
+            final long[] result = new long[numbers.length];
+            for (int i = 0; i < numbers.length; i++) {
+                result[i] = 0xFFFFffffL & numbers[i];
+            }
+            return result;
+        } else if (o instanceof long[]) {
+            return ((long[]) o).clone();
+        }
+
+        throw new ImageReadException("Unknown value: " + o + " for: "
+                + getTagInfo().getDescription());
+    }
+
     public double[] getDoubleArrayValue() throws ImageReadException {
         final Object o = getValue();
         // if (o == null)
@@ -489,6 +549,13 @@ public class TiffField {
                 result[i] = numbers[i];
             }
             return result;
+        } else if (o instanceof long[]) {
+            final long[] numbers = (long[]) o;
+            final double[] result = new double[numbers.length];
+            for (int i = 0; i < numbers.length; i++) {
+                result[i] = numbers[i];
+            }
+            return result;
         } else if (o instanceof float[]) {
             final float[] numbers = (float[]) o;
             final double[] result = new double[numbers.length];
@@ -513,7 +580,9 @@ public class TiffField {
         // if (o == null)
         // return -1;
 
-        if (o instanceof Number) {
+        if (o instanceof Long) {
+            return toInt((Long) o);
+        } else if (o instanceof Number) {
             return ((Number) o).intValue();
         } else if (o instanceof Number[]) {
             final Number[] numbers = (Number[]) o;
@@ -536,6 +605,13 @@ public class TiffField {
                 sum += number;
             }
             return sum;
+        } else if (o instanceof long[]) {
+            final long[] numbers = (long[]) o;
+            int sum = 0;
+            for (final long number : numbers) {
+                sum += toInt(number);
+            }
+            return sum;
         }
 
         throw new ImageReadException("Unknown value: " + o + " for: "
@@ -549,10 +625,24 @@ public class TiffField {
             throw new ImageReadException("Missing value: "
                     + getTagInfo().getDescription());
         }
+        if (o instanceof Long) {
+            return toInt((Long) o);
+        }
 
         return ((Number) o).intValue();
     }
 
+    /**
+     * Narrows a LONG8 or SLONG8 value, which only BigTIFFs have, to an int.
+     */
+    private int toInt(final long value) throws ImageReadException {
+        if (value != (int) value) {
+            throw new ImageReadException("Value " + value + " of " + getTagInfo().getDescription()
+                    + " does not fit in an int");
+        }
+        return (int) value;
+    }
+
     public double getDoubleValue() throws ImageReadException {
         final Object o = getValue();
         if (o == null) {
@@ -24,13 +24,19 @@ public class TiffHeader extends TiffElement {
     public final ByteOrder byteOrder;
     public final int tiffVersion;
     public final long offsetToFirstIFD;
+    /**
+     * Whether the file is a BigTIFF, with 8 byte offsets.
+     */
+    public final boolean bigTiff;
 
     public TiffHeader(final ByteOrder byteOrder, final int tiffVersion, final long offsetToFirstIFD) {
-        super(0, TiffConstants.TIFF_HEADER_SIZE);
+        super(0, tiffVersion == TiffConstants.TIFF_VERSION_BIG ? TiffConstants.TIFF_BIG_HEADER_SIZE
+                : TiffConstants.TIFF_HEADER_SIZE);
 
         this.byteOrder = byteOrder;
         this.tiffVersion = tiffVersion;
         this.offsetToFirstIFD = offsetToFirstIFD;
+        this.bigTiff = tiffVersion == TiffConstants.TIFF_VERSION_BIG;
     }
 
     @Override
@@ -20,7 +20,7 @@ import java.io.IOException;
 import java.nio.ByteOrder;
 
 import org.apache.commons.imaging.ImageReadException;
-import org.apache.commons.imaging.common.bytesource.ByteSourceFile;
+import org.apache.commons.imaging.common.bytesource.ByteSource;
 import org.apache.commons.imaging.formats.tiff.constants.TiffTagConstants;
 import org.apache.commons.imaging.formats.tiff.datareaders.ImageDataReader;
 import org.apache.commons.imaging.formats.tiff.datareaders.DataReaderStrips;
@@ -155,12 +155,17 @@ public abstract class TiffImageData {
 
     }
 
+    /**
+     * Image data that is only read from the byte source when it is used, so
+     * strips and tiles outside the part of the image being read are never
+     * loaded.
+     */
     public static class ByteSourceData extends Data {
-        ByteSourceFile byteSourceFile;
+        private final ByteSource byteSource;
 
-        public ByteSourceData(final long offset, final int length, final ByteSourceFile byteSource) {
+        public ByteSourceData(final long offset, final int length, final ByteSource byteSource) {
             super(offset, length, new byte[0]);
-            byteSourceFile = byteSource;
+            this.byteSource = byteSource;
         }
 
         @Override
@@ -168,14 +173,27 @@ public abstract class TiffImageData {
             return "Tiff image data: " + getDataLength() + " bytes";
         }
 
+        /**
+         * @throws IllegalStateException if the data can't be read
+         */
         @Override
         public byte[] getData() {
             try {
-                return byteSourceFile.getBlock(offset, length);
+                return readData();
             } catch (final IOException ioex) {
-                return new byte[0];
+                throw new IllegalStateException("Could not read TIFF image data", ioex);
             }
         }
+
+        @Override
+        public byte[] readData() throws IOException {
+            return byteSource.getBlock(offset, length);
+        }
+
+        @Override
+        public int getDataLength() {
+            return length;
+        }
     }
 
     private static int extractSampleFormat(TiffDirectory directory) throws ImageReadException {
@@ -221,8 +221,7 @@ public class TiffImageMetadata extends GenericImageMetadata {
     public TiffField findField(final TagInfo tagInfo, final boolean exactDirectoryMatch)
             throws ImageReadException {
         // Please keep this method in sync with TiffField's getTag()
-        final Integer tagCount = TiffTags.getTagCount(tagInfo.tag);
-        final int tagsMatching = tagCount == null ? 0 : tagCount;
+        final int tagsMatching = TiffTags.getTagCount(tagInfo.tag);
 
         final List<? extends ImageMetadataItem> directories = getDirectories();
         if (exactDirectoryMatch
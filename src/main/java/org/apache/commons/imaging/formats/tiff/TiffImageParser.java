@@ -36,6 +36,7 @@ import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 import org.apache.commons.imaging.FormatCompliance;
 import org.apache.commons.imaging.ImageFormat;
@@ -48,6 +49,8 @@ import org.apache.commons.imaging.common.ImageBuilder;
 import org.apache.commons.imaging.common.ImageMetadata;
 import org.apache.commons.imaging.common.XmpEmbeddable;
 import org.apache.commons.imaging.common.bytesource.ByteSource;
+import org.apache.commons.imaging.common.bytesource.ByteSourceFile;
+import org.apache.commons.imaging.common.bytesource.ByteSourceFileChannel;
 import org.apache.commons.imaging.formats.tiff.TiffDirectory.ImageDataElement;
 import org.apache.commons.imaging.formats.tiff.constants.TiffConstants;
 import org.apache.commons.imaging.formats.tiff.constants.TiffEpTagConstants;
@@ -401,21 +404,26 @@ public class TiffImageParser extends ImageParser implements XmpEmbeddable {
 
     public List<byte[]> collectRawImageData(final ByteSource byteSource, final Map<String, Object> params)
             throws ImageReadException, IOException {
-        final FormatCompliance formatCompliance = FormatCompliance.getDefault();
-        final TiffContents contents = new TiffReader(isStrict(params)).readDirectories(
-                byteSource, true, formatCompliance);
-
-        final List<byte[]> result = new ArrayList<>();
-        for (int i = 0; i < contents.directories.size(); i++) {
-            final TiffDirectory directory = contents.directories.get(i);
-            final List<ImageDataElement> dataElements = directory.getTiffRawImageDataElements();
-            for (final ImageDataElement element : dataElements) {
-                final byte[] bytes = byteSource.getBlock(element.offset,
-                        element.length);
-                result.add(bytes);
+        final ByteSource imageSource = openImageSource(byteSource);
+        try {
+            final FormatCompliance formatCompliance = FormatCompliance.getDefault();
+            final TiffContents contents = new TiffReader(isStrict(params)).readDirectories(
+                    imageSource, true, formatCompliance);
+
+            final List<byte[]> result = new ArrayList<>();
+            for (int i = 0; i < contents.directories.size(); i++) {
+                final TiffDirectory directory = contents.directories.get(i);
+                final List<ImageDataElement> dataElements = directory.getTiffRawImageDataElements();
+                for (final ImageDataElement element : dataElements) {
+                    final byte[] bytes = imageSource.getBlock(element.offset,
+                            element.length);
+                    result.add(bytes);
+                }
             }
+            return result;
+        } finally {
+            closeImageSource(byteSource, imageSource);
         }
-        return result;
     }
 
      /**
@@ -460,36 +468,65 @@ public class TiffImageParser extends ImageParser implements XmpEmbeddable {
     @Override
     public BufferedImage getBufferedImage(final ByteSource byteSource, final Map<String, Object> params)
             throws ImageReadException, IOException {
-        final FormatCompliance formatCompliance = FormatCompliance.getDefault();
-        final TiffReader reader = new TiffReader(isStrict(params));
-        final TiffContents contents = reader.readFirstDirectory(byteSource, params,
-                true, formatCompliance);
-        final ByteOrder byteOrder = reader.getByteOrder();
-        final TiffDirectory directory = contents.directories.get(0);
-        final BufferedImage result = directory.getTiffImage(byteOrder, params);
-        if (null == result) {
-            throw new ImageReadException("TIFF does not contain an image.");
+        final ByteSource imageSource = openImageSource(byteSource);
+        try {
+            final FormatCompliance formatCompliance = FormatCompliance.getDefault();
+            final TiffReader reader = new TiffReader(isStrict(params));
+            final TiffContents contents = reader.readFirstDirectory(imageSource, params,
+                    true, formatCompliance);
+            final ByteOrder byteOrder = reader.getByteOrder();
+            final TiffDirectory directory = contents.directories.get(0);
+            final BufferedImage result = directory.getTiffImage(byteOrder, params);
+            if (null == result) {
+                throw new ImageReadException("TIFF does not contain an image.");
+            }
+            return result;
+        } finally {
+            closeImageSource(byteSource, imageSource);
         }
-        return result;
     }
 
     @Override
     public List<BufferedImage> getAllBufferedImages(final ByteSource byteSource)
             throws ImageReadException, IOException {
-        final FormatCompliance formatCompliance = FormatCompliance.getDefault();
-        final TiffReader tiffReader = new TiffReader(true);
-        final TiffContents contents = tiffReader.readDirectories(byteSource, true,
-                formatCompliance);
-        final List<BufferedImage> results = new ArrayList<>();
-        for (int i = 0; i < contents.directories.size(); i++) {
-            final TiffDirectory directory = contents.directories.get(i);
-            final BufferedImage result = directory.getTiffImage(
-                    tiffReader.getByteOrder(), null);
-            if (result != null) {
-                results.add(result);
+        final ByteSource imageSource = openImageSource(byteSource);
+        try {
+            final FormatCompliance formatCompliance = FormatCompliance.getDefault();
+            final TiffReader tiffReader = new TiffReader(true);
+            final TiffContents contents = tiffReader.readDirectories(imageSource, true,
+                    formatCompliance);
+            final List<BufferedImage> results = new ArrayList<>();
+            for (int i = 0; i < contents.directories.size(); i++) {
+                final TiffDirectory directory = contents.directories.get(i);
+                final BufferedImage result = directory.getTiffImage(
+                        tiffReader.getByteOrder(), null);
+                if (result != null) {
+                    results.add(result);
+                }
             }
+            return results;
+        } finally {
+            closeImageSource(byteSource, imageSource);
+        }
+    }
+
+    /**
+     * Strips and tiles are read one at a time, and ByteSourceFile opens the
+     * file again for every read. While reading image data, read a file
+     * through a single channel instead.
+     */
+    private static ByteSource openImageSource(final ByteSource byteSource) {
+        if (byteSource instanceof ByteSourceFile) {
+            return new ByteSourceFileChannel(((ByteSourceFile) byteSource).getFile());
+        }
+        return byteSource;
+    }
+
+    private static void closeImageSource(final ByteSource byteSource, final ByteSource imageSource)
+            throws IOException {
+        if (imageSource != byteSource) {
+            imageSource.close();
         }
-        return results;
     }
 
     private Integer getIntegerParameter(
@@ -511,6 +548,18 @@ public class TiffImageParser extends ImageParser implements XmpEmbeddable {
         throw new ImageReadException("Non-Integer parameter " + key);
     }
 
+    private Executor getDecodeExecutor(final Map<String, Object> params)
+            throws ImageReadException {
+        if (params == null || !params.containsKey(TiffConstants.PARAM_KEY_TIFF_DECODE_EXECUTOR)) {
+            return null;
+        }
+        final Object value = params.get(TiffConstants.PARAM_KEY_TIFF_DECODE_EXECUTOR);
+        if (!(value instanceof Executor)) {
+            throw new ImageReadException("Invalid decode executor: " + value);
+        }
+        return (Executor) value;
+    }
+
     private Rectangle checkForSubImage(
             final Map<String, Object> params)
             throws ImageReadException {
@@ -654,6 +703,7 @@ public class TiffImageParser extends ImageParser implements XmpEmbeddable {
         final ImageDataReader dataReader = imageData.getDataReader(directory,
                 photometricInterpreter, bitsPerPixel, bitsPerSample, predictor,
                 samplesPerPixel, width, height, compression, byteOrder);
+        dataReader.setExecutor(getDecodeExecutor(params));
 
         BufferedImage result = null;
         if (subImage != null) {
@@ -900,6 +950,7 @@ public class TiffImageParser extends ImageParser implements XmpEmbeddable {
         final ImageDataReader dataReader = imageData.getDataReader(directory,
             photometricInterpreter, bitsPerPixel, bitsPerSample, predictor,
             samplesPerPixel, width, height, compression, byteOrder);
+        dataReader.setExecutor(getDecodeExecutor(params));
 
         return dataReader.readRasterData(subImage);
     }
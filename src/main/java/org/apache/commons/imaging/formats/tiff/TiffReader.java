@@ -21,13 +21,21 @@ import static org.apache.commons.imaging.common.BinaryFunctions.read4Bytes;
 import static org.apache.commons.imaging.common.BinaryFunctions.readByte;
 import static org.apache.commons.imaging.common.BinaryFunctions.readBytes;
 import static org.apache.commons.imaging.common.BinaryFunctions.skipBytes;
+import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.TIFF_BIG_ENTRY_MAX_VALUE_LENGTH;
+import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.TIFF_BIG_HEADER_SIZE;
 import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.TIFF_ENTRY_MAX_VALUE_LENGTH;
+import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.TIFF_HEADER_SIZE;
+import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.TIFF_VERSION;
+import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.TIFF_VERSION_BIG;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteOrder;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -37,18 +45,24 @@ import org.apache.commons.imaging.ImagingConstants;
 import org.apache.commons.imaging.common.BinaryFileParser;
 import org.apache.commons.imaging.common.ByteConversions;
 import org.apache.commons.imaging.common.bytesource.ByteSource;
-import org.apache.commons.imaging.common.bytesource.ByteSourceFile;
 import org.apache.commons.imaging.formats.jpeg.JpegConstants;
 import org.apache.commons.imaging.formats.tiff.TiffDirectory.ImageDataElement;
 import org.apache.commons.imaging.formats.tiff.constants.ExifTagConstants;
+import org.apache.commons.imaging.formats.tiff.constants.TiffConstants;
 import org.apache.commons.imaging.formats.tiff.constants.TiffDirectoryConstants;
+import org.apache.commons.imaging.formats.tiff.constants.TiffDirectoryType;
 import org.apache.commons.imaging.formats.tiff.constants.TiffTagConstants;
 import org.apache.commons.imaging.formats.tiff.fieldtypes.FieldType;
+import org.apache.commons.imaging.formats.tiff.fieldtypes.FieldTypeLong8;
+import org.apache.commons.imaging.formats.tiff.taginfos.TagInfo;
 import org.apache.commons.imaging.formats.tiff.taginfos.TagInfoDirectory;
 
 public class TiffReader extends BinaryFileParser {
 
     private final boolean strict;
+    private boolean bigTiff;
+    // the tags of the fields read, or null to read every field
+    private ReadTags readTags;
 
     public TiffReader(final boolean strict) {
         this.strict = strict;
@@ -81,18 +95,36 @@ public class TiffReader extends BinaryFileParser {
         setByteOrder(byteOrder);
 
         final int tiffVersion = read2Bytes("tiffVersion", is, "Not a Valid TIFF File", getByteOrder());
-        if (tiffVersion != 42) {
+        if (tiffVersion == TIFF_VERSION_BIG) {
+            final int offsetSize = read2Bytes("offsetSize", is, "Not a Valid TIFF File", getByteOrder());
+            final int reserved = read2Bytes("reserved", is, "Not a Valid TIFF File", getByteOrder());
+            if (offsetSize != 8 || reserved != 0) {
+                throw new ImageReadException("Unsupported BigTIFF offset size: " + offsetSize);
+            }
+        } else if (tiffVersion != TIFF_VERSION) {
             throw new ImageReadException("Unknown Tiff Version: " + tiffVersion);
         }
+        bigTiff = tiffVersion == TIFF_VERSION_BIG;
 
-        final long offsetToFirstIFD =
-                0xFFFFffffL & read4Bytes("offsetToFirstIFD", is, "Not a Valid TIFF File", getByteOrder());
+        final long offsetToFirstIFD = readOffset("offsetToFirstIFD", is);
 
-        skipBytes(is, offsetToFirstIFD - 8, "Not a Valid TIFF File: couldn't find IFDs");
+        skipBytes(is, offsetToFirstIFD - (bigTiff ? TIFF_BIG_HEADER_SIZE : TIFF_HEADER_SIZE),
+                "Not a Valid TIFF File: couldn't find IFDs");
 
         return new TiffHeader(byteOrder, tiffVersion, offsetToFirstIFD);
     }
 
+    /**
+     * Reads an offset, which is 4 bytes long in a TIFF, and 8 bytes long in
+     * a BigTIFF.
+     */
+    private long readOffset(final String name, final InputStream is) throws IOException {
+        if (bigTiff) {
+            return ByteConversions.toLong(readBytes(name, is, 8, "Not a Valid TIFF File"), getByteOrder());
+        }
+        return 0xFFFFffffL & read4Bytes(name, is, "Not a Valid TIFF File", getByteOrder());
+    }
+
     private void readDirectories(final ByteSource byteSource,
             final FormatCompliance formatCompliance, final Listener listener)
             throws ImageReadException, IOException {
@@ -135,9 +167,13 @@ public class TiffReader extends BinaryFileParser {
 
             final List<TiffField> fields = new ArrayList<>();
 
-            int entryCount;
+            long entryCount;
             try {
-                entryCount = read2Bytes("DirectoryEntryCount", is, "Not a Valid TIFF File", getByteOrder());
+                if (bigTiff) {
+                    entryCount = readOffset("DirectoryEntryCount", is);
+                } else {
+                    entryCount = read2Bytes("DirectoryEntryCount", is, "Not a Valid TIFF File", getByteOrder());
+                }
             } catch (final IOException e) {
                 if (strict) {
                     throw e;
@@ -148,9 +184,12 @@ public class TiffReader extends BinaryFileParser {
             for (int i = 0; i < entryCount; i++) {
                 final int tag = read2Bytes("Tag", is, "Not a Valid TIFF File", getByteOrder());
                 final int type = read2Bytes("Type", is, "Not a Valid TIFF File", getByteOrder());
-                final long count = 0xFFFFffffL & read4Bytes("Count", is, "Not a Valid TIFF File", getByteOrder());
-                final byte[] offsetBytes = readBytes("Offset", is, 4, "Not a Valid TIFF File");
-                final long offset = 0xFFFFffffL & ByteConversions.toInt(offsetBytes, getByteOrder());
+                final long count = readOffset("Count", is);
+                final byte[] offsetBytes = readBytes("Offset", is,
+                        bigTiff ? TIFF_BIG_ENTRY_MAX_VALUE_LENGTH : TIFF_ENTRY_MAX_VALUE_LENGTH,
+                        "Not a Valid TIFF File");
+                final long offset = bigTiff ? ByteConversions.toLong(offsetBytes, getByteOrder())
+                        : 0xFFFFffffL & ByteConversions.toInt(offsetBytes, getByteOrder());
 
                 if (tag == 0) {
                     // skip invalid fields.
@@ -159,6 +198,9 @@ public class TiffReader extends BinaryFileParser {
                     // which can cause OOM problems.
                     continue;
                 }
+                if (readTags != null && !readTags.contains(dirType, tag)) {
+                    continue;
+                }
 
                 final FieldType fieldType;
                 try {
@@ -171,8 +213,9 @@ public class TiffReader extends BinaryFileParser {
                 }
                 final long valueLength = count * fieldType.getSize();
                 final byte[] value;
-                if (valueLength > TIFF_ENTRY_MAX_VALUE_LENGTH) {
-                    if ((offset < 0) || (offset + valueLength) > byteSource.getLength()) {
+                if (valueLength > offsetBytes.length || count > Integer.MAX_VALUE) {
+                    if ((offset < 0) || (count > Integer.MAX_VALUE) || (valueLength > Integer.MAX_VALUE)
+                            || (offset + valueLength) > byteSource.getLength()) {
                         if (strict) {
                             throw new IOException(
                                     "Attempt to read byte range starting from " + offset + " "
@@ -190,7 +233,7 @@ public class TiffReader extends BinaryFileParser {
                 }
 
                 final TiffField field = new TiffField(tag, dirType, fieldType, count,
-                        offset, value, getByteOrder(), i);
+                        offset, value, getByteOrder(), i, bigTiff);
 
                 fields.add(field);
 
@@ -199,15 +242,15 @@ public class TiffReader extends BinaryFileParser {
                 }
             }
 
-            final long nextDirectoryOffset = 0xFFFFffffL & read4Bytes("nextDirectoryOffset", is,
-                    "Not a Valid TIFF File", getByteOrder());
+            final long nextDirectoryOffset = readOffset("nextDirectoryOffset", is);
 
             final TiffDirectory directory = new TiffDirectory(
                 dirType,
                 fields,
                 directoryOffset,
                 nextDirectoryOffset,
-                getByteOrder());
+                getByteOrder(),
+                bigTiff);
 
             if (listener.readImageData()) {
                 if (directory.hasTiffImageData()) {
@@ -245,7 +288,12 @@ public class TiffReader extends BinaryFileParser {
                         int subDirectoryType;
                         boolean subDirectoryRead = false;
                         try {
-                            subDirectoryOffset = directory.getFieldValue(offsetField);
+                            if (field.getFieldType() instanceof FieldTypeLong8) {
+                                // the IFD8 offsets of a BigTIFF
+                                subDirectoryOffset = field.getLongArrayValue()[0];
+                            } else {
+                                subDirectoryOffset = 0xFFFFffffL & directory.getFieldValue(offsetField);
+                            }
                             subDirectoryType = directoryTypes[i];
                             subDirectoryRead = readDirectory(byteSource,
                                     subDirectoryOffset, subDirectoryType,
@@ -408,10 +456,82 @@ public class TiffReader extends BinaryFileParser {
             IOException {
 
         final Collector collector = new Collector(params);
-        read(byteSource, params, formatCompliance, collector);
+        readTags = getReadTags(params);
+        try {
+            read(byteSource, params, formatCompliance, collector);
+        } finally {
+            readTags = null;
+        }
         return collector.getContents();
     }
 
+    /**
+     * The tags of the fields to read, in each type of directory.
+     */
+    private static final class ReadTags {
+        // the tags read in every directory
+        private final BitSet anyDirectory = new BitSet();
+        private final Map<Integer, BitSet> byDirectory = new HashMap<>();
+
+        void add(final TiffDirectoryType directoryType, final int tag) {
+            if (directoryType == TiffDirectoryType.EXIF_DIRECTORY_UNKNOWN) {
+                anyDirectory.set(tag);
+                return;
+            }
+            BitSet tags = byDirectory.get(directoryType.directoryType);
+            if (tags == null) {
+                tags = new BitSet();
+                byDirectory.put(directoryType.directoryType, tags);
+            }
+            tags.set(tag);
+        }
+
+        boolean contains(final int dirType, final int tag) {
+            if (anyDirectory.get(tag)) {
+                return true;
+            }
+            final BitSet tags = byDirectory.get(dirType);
+            return tags != null && tags.get(tag);
+        }
+    }
+
+    private static ReadTags getReadTags(final Map<String, Object> params) throws ImageReadException {
+        if (params == null || !params.containsKey(TiffConstants.PARAM_KEY_TIFF_READ_TAGS)) {
+            return null;
+        }
+        final Object value = params.get(TiffConstants.PARAM_KEY_TIFF_READ_TAGS);
+        if (!(value instanceof Collection)) {
+            throw new ImageReadException("Invalid tags to read: " + value);
+        }
+
+        final ReadTags tags = new ReadTags();
+        for (final Object element : (Collection<?>) value) {
+            if (!(element instanceof TagInfo)) {
+                throw new ImageReadException("Invalid tag to read: " + element);
+            }
+            final TagInfo tagInfo = (TagInfo) element;
+            if (tagInfo.tag >= 0) {
+                tags.add(tagInfo.directoryType, tagInfo.tag);
+            }
+            // the sub-directories are read through the fields of their
+            // offsets, and the interoperability directory is in the EXIF one
+            if (tagInfo.directoryType == TiffDirectoryType.EXIF_DIRECTORY_UNKNOWN
+                    || tagInfo.directoryType == TiffDirectoryType.EXIF_DIRECTORY_INTEROP_IFD) {
+                tags.add(TiffDirectoryType.EXIF_DIRECTORY_UNKNOWN, ExifTagConstants.EXIF_TAG_EXIF_OFFSET.tag);
+                tags.add(TiffDirectoryType.EXIF_DIRECTORY_EXIF_IFD, ExifTagConstants.EXIF_TAG_INTEROP_OFFSET.tag);
+            }
+            if (tagInfo.directoryType == TiffDirectoryType.EXIF_DIRECTORY_UNKNOWN
+                    || tagInfo.directoryType == TiffDirectoryType.EXIF_DIRECTORY_EXIF_IFD) {
+                tags.add(TiffDirectoryType.EXIF_DIRECTORY_UNKNOWN, ExifTagConstants.EXIF_TAG_EXIF_OFFSET.tag);
+            }
+            if (tagInfo.directoryType == TiffDirectoryType.EXIF_DIRECTORY_UNKNOWN
+                    || tagInfo.directoryType == TiffDirectoryType.EXIF_DIRECTORY_GPS) {
+                tags.add(TiffDirectoryType.EXIF_DIRECTORY_UNKNOWN, ExifTagConstants.EXIF_TAG_GPSINFO.tag);
+            }
+        }
+        return tags;
+    }
+
     public void read(final ByteSource byteSource, final Map<String, Object> params,
             final FormatCompliance formatCompliance, final Listener listener)
             throws ImageReadException, IOException {
@@ -425,19 +545,10 @@ public class TiffReader extends BinaryFileParser {
         final List<ImageDataElement> elements = directory.getTiffRawImageDataElements();
         final TiffImageData.Data[] data = new TiffImageData.Data[elements.size()];
 
-        if (byteSource instanceof ByteSourceFile) {
-            final ByteSourceFile bsf = (ByteSourceFile) byteSource;
-            for (int i = 0; i < elements.size(); i++) {
-                final TiffDirectory.ImageDataElement element = elements.get(i);
-                data[i] = new TiffImageData.ByteSourceData(element.offset,
-                        element.length, bsf);
-            }
-        } else {
-            for (int i = 0; i < elements.size(); i++) {
-                final TiffDirectory.ImageDataElement element = elements.get(i);
-                final byte[] bytes = byteSource.getBlock(element.offset, element.length);
-                data[i] = new TiffImageData.Data(element.offset, element.length, bytes);
-            }
+        for (int i = 0; i < elements.size(); i++) {
+            final TiffDirectory.ImageDataElement element = elements.get(i);
+            data[i] = new TiffImageData.ByteSourceData(element.offset,
+                    element.length, byteSource);
         }
 
         if (directory.imageDataInStrips()) {
@@ -17,6 +17,7 @@
 package org.apache.commons.imaging.formats.tiff;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -50,8 +51,59 @@ final class TiffTags {
     }
 
     private static final List<TagInfo> ALL_TAGS = makeMergedTagList();
-    private static final Map<Integer, List<TagInfo>> ALL_TAG_MAP = makeTagMap(TiffTags.ALL_TAGS);
-    private static final Map<Integer, Integer> TAG_COUNTS = countTags(TiffTags.ALL_TAGS);
+
+    // The tags are looked up in an open addressing table of their numbers,
+    // which gives the row of each tag in MATCHES and COUNTS. MATCHES holds
+    // the TagInfo of the tag for each directory type from one less than the
+    // lowest type of any tag, which stands for all the lower, non-image
+    // types, to one more than the highest, which stands for all the higher,
+    // image types.
+    private static final int MIN_DIRECTORY_TYPE;
+    private static final int MAX_DIRECTORY_TYPE;
+    private static final int DIRECTORY_TYPES;
+    private static final int EMPTY_SLOT = Integer.MIN_VALUE;
+    private static final int[] SLOT_TAGS;
+    private static final int[] SLOT_ROWS;
+    private static final int SLOT_SHIFT;
+    private static final TagInfo[] MATCHES;
+    private static final int[] COUNTS;
+
+    static {
+        int minDirectoryType = 0;
+        int maxDirectoryType = 0;
+        for (final TiffDirectoryType directoryType : TiffDirectoryType.values()) {
+            minDirectoryType = Math.min(minDirectoryType, directoryType.directoryType);
+            maxDirectoryType = Math.max(maxDirectoryType, directoryType.directoryType);
+        }
+        MIN_DIRECTORY_TYPE = minDirectoryType - 1;
+        MAX_DIRECTORY_TYPE = maxDirectoryType + 1;
+        DIRECTORY_TYPES = MAX_DIRECTORY_TYPE - MIN_DIRECTORY_TYPE + 1;
+
+        final Map<Integer, List<TagInfo>> tagMap = makeTagMap(ALL_TAGS);
+        final int slots = Integer.highestOneBit(2 * tagMap.size() - 1) << 1;
+        SLOT_TAGS = new int[slots];
+        Arrays.fill(SLOT_TAGS, EMPTY_SLOT);
+        SLOT_ROWS = new int[slots];
+        SLOT_SHIFT = 32 - Integer.numberOfTrailingZeros(slots);
+        MATCHES = new TagInfo[tagMap.size() * DIRECTORY_TYPES];
+        COUNTS = new int[tagMap.size()];
+
+        int row = 0;
+        for (final Map.Entry<Integer, List<TagInfo>> entry : tagMap.entrySet()) {
+            final int tag = entry.getKey();
+            int slot = (tag * 0x9E3779B9) >>> SLOT_SHIFT;
+            while (SLOT_TAGS[slot] != EMPTY_SLOT) {
+                slot = (slot + 1) & (slots - 1);
+            }
+            SLOT_TAGS[slot] = tag;
+            SLOT_ROWS[slot] = row;
+            for (int type = MIN_DIRECTORY_TYPE; type <= MAX_DIRECTORY_TYPE; type++) {
+                MATCHES[row * DIRECTORY_TYPES + type - MIN_DIRECTORY_TYPE] = getTag(type, entry.getValue());
+            }
+            COUNTS[row] = entry.getValue().size();
+            row++;
+        }
+    }
 
     private static List<TagInfo> makeMergedTagList() {
         final ArrayList<TagInfo> result = new ArrayList<>();
@@ -95,33 +147,34 @@ final class TiffTags {
         return map;
     }
 
-    private static Map<Integer, Integer> countTags(final List<TagInfo> tags) {
-        final Map<Integer, Integer> map = new HashMap<>();
-
-        for (final TagInfo tag : tags) {
-            final Integer count = map.get(tag.tag);
-            if (count == null) {
-                map.put(tag.tag, 1);
-            } else {
-                map.put(tag.tag, count + 1);
+    private static int findRow(final int tag) {
+        final int mask = SLOT_TAGS.length - 1;
+        for (int slot = (tag * 0x9E3779B9) >>> SLOT_SHIFT; SLOT_TAGS[slot] != EMPTY_SLOT; slot = (slot + 1) & mask) {
+            if (SLOT_TAGS[slot] == tag) {
+                return SLOT_ROWS[slot];
             }
         }
-
-        return map;
+        return -1;
     }
 
-    static Integer getTagCount(final int tag) {
-        return TAG_COUNTS.get(tag);
+    /**
+     * Returns the number of known tags with a number, in any directory.
+     */
+    static int getTagCount(final int tag) {
+        final int row = findRow(tag);
+        return row < 0 ? 0 : COUNTS[row];
     }
 
     static TagInfo getTag(final int directoryType, final int tag) {
-        final List<TagInfo> possibleMatches = ALL_TAG_MAP.get(tag);
-
-        if (null == possibleMatches) {
+        final int row = findRow(tag);
+        if (row < 0) {
             return TiffTagConstants.TIFF_TAG_UNKNOWN;
         }
 
-        return getTag(directoryType, possibleMatches);
+        // the directory types without tags of their own share the TagInfo
+        // of the ones beyond the known types
+        final int type = Math.max(MIN_DIRECTORY_TYPE, Math.min(MAX_DIRECTORY_TYPE, directoryType));
+        return MATCHES[row * DIRECTORY_TYPES + type - MIN_DIRECTORY_TYPE];
     }
 
     private static TagInfo getTag(final int directoryType, final List<TagInfo> possibleMatches) {
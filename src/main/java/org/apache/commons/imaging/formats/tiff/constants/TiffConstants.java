@@ -28,6 +28,16 @@ public final class TiffConstants {
     public static final int TIFF_ENTRY_LENGTH = 12;
     public static final int TIFF_ENTRY_MAX_VALUE_LENGTH = 4;
 
+    public static final int TIFF_VERSION = 42;
+    public static final int TIFF_VERSION_BIG = 43;
+
+    // BigTIFF uses 8 byte offsets and counts, so it can exceed 4 GB
+    public static final int TIFF_BIG_HEADER_SIZE = 16;
+    public static final int TIFF_BIG_DIRECTORY_HEADER_LENGTH = 8;
+    public static final int TIFF_BIG_DIRECTORY_FOOTER_LENGTH = 8;
+    public static final int TIFF_BIG_ENTRY_LENGTH = 20;
+    public static final int TIFF_BIG_ENTRY_MAX_VALUE_LENGTH = 8;
+
     public static final int TIFF_COMPRESSION_UNCOMPRESSED_1 = 1;
     public static final int TIFF_COMPRESSION_UNCOMPRESSED = TIFF_COMPRESSION_UNCOMPRESSED_1;
     public static final int TIFF_COMPRESSION_CCITT_1D = 2;
@@ -73,6 +83,80 @@ public final class TiffConstants {
     public static final String PARAM_KEY_CUSTOM_PHOTOMETRIC_INTERPRETER
         = "CUSTOM_PHOTOMETRIC_INTERPRETER";
 
+    /**
+     * Parameter key. Used in read operations to decompress the tiles of a
+     * tiled TIFF concurrently. The pixels are still interpreted on the
+     * calling thread, in tile order.
+     * <p>
+     * Valid values: any {@link java.util.concurrent.Executor}, for instance a
+     * {@link java.util.concurrent.ForkJoinPool}. Images organized in strips
+     * are always read on the calling thread.
+     */
+    public static final String PARAM_KEY_TIFF_DECODE_EXECUTOR = "TIFF_DECODE_EXECUTOR";
+
+    /**
+     * Parameter key. Used in write operations to organize the image in
+     * tiles of this width, rather than in strips. If only one of the tile
+     * width and tile length is given, the tiles are square.
+     * <p>
+     * Valid values: any positive Integer that is a multiple of 16.
+     */
+    public static final String PARAM_KEY_TIFF_TILE_WIDTH = "TIFF_TILE_WIDTH";
+
+    /**
+     * Parameter key. Used in write operations to organize the image in
+     * tiles of this length, rather than in strips.
+     * <p>
+     * Valid values: any positive Integer that is a multiple of 16.
+     */
+    public static final String PARAM_KEY_TIFF_TILE_LENGTH = "TIFF_TILE_LENGTH";
+
+    /**
+     * Parameter key. Used in write operations to indicate the predictor
+     * applied to the samples before they are compressed. Horizontal
+     * differencing often makes photographs compress much better.
+     * <p>
+     * Valid values: TiffTagConstants.PREDICTOR_VALUE_NONE, the default, or
+     * TiffTagConstants.PREDICTOR_VALUE_HORIZONTAL_DIFFERENCING, which is
+     * only supported with TIFF_COMPRESSION_LZW and
+     * TIFF_COMPRESSION_DEFLATE_ADOBE.
+     */
+    public static final String PARAM_KEY_TIFF_PREDICTOR = "TIFF_PREDICTOR";
+
+    /**
+     * Parameter key. Used in write operations to compress the strips or
+     * tiles of the image concurrently. The output is the same as when they
+     * are compressed on the calling thread.
+     * <p>
+     * Valid values: any {@link java.util.concurrent.Executor}, for instance a
+     * {@link java.util.concurrent.ForkJoinPool}.
+     */
+    public static final String PARAM_KEY_TIFF_ENCODE_EXECUTOR = "TIFF_ENCODE_EXECUTOR";
+
+    /**
+     * Parameter key. Used in write operations to write a BigTIFF, whose
+     * 8 byte offsets allow files larger than 4 GB. Readers that don't
+     * support BigTIFF can't read it.
+     * <p>
+     * Valid values: Boolean.FALSE, the default, or Boolean.TRUE.
+     */
+    public static final String PARAM_KEY_TIFF_BIG_TIFF = "TIFF_BIG_TIFF";
+
+    /**
+     * Parameter key. Used in metadata read operations to read only the
+     * fields with the tags of these TagInfos, in the directories that the
+     * TagInfos belong to, and only the EXIF, GPS and interoperability
+     * directories that the TagInfos belong to. The values
+     * of the other fields, such as maker notes, aren't read at all. Image
+     * data, such as the EXIF thumbnail, is only read where the fields that
+     * locate it are among the tags. TagInfos that don't belong to a
+     * directory, like those of unknown tags, are read in every directory,
+     * and need every directory read.
+     * <p>
+     * Valid values: a Collection of TagInfo.
+     */
+    public static final String PARAM_KEY_TIFF_READ_TAGS = "TIFF_READ_TAGS";
+
     /**
      * Specifies the amount of memory in bytes to be used for a strip
      * or tile size when employing LZW compression.  The default is
@@ -241,7 +241,7 @@ public final class DataReaderStrips extends ImageDataReader {
             final long bytesPerStrip = rowsInThisStrip * bytesPerRow;
             final long pixelsPerStrip = rowsInThisStrip * width;
 
-            final byte[] compressed = imageData.getImageData(strip).getData();
+            final byte[] compressed = imageData.getImageData(strip).readData();
 
             final byte[] decompressed = decompress(compressed, compression,
                     (int) bytesPerStrip, width, (int) rowsInThisStrip);
@@ -295,7 +295,7 @@ public final class DataReaderStrips extends ImageDataReader {
             final long bytesPerStrip = rowsInThisStrip * bytesPerRow;
             final long pixelsPerStrip = rowsInThisStrip * width;
 
-            final byte[] compressed = imageData.getImageData(strip).getData();
+            final byte[] compressed = imageData.getImageData(strip).readData();
 
             final byte[] decompressed = decompress(compressed, compression,
                     (int) bytesPerStrip, width, (int) rowsInThisStrip);
@@ -360,7 +360,7 @@ public final class DataReaderStrips extends ImageDataReader {
             int bytesPerRow = (bitsPerPixel * width + 7) / 8;
             int bytesPerStrip = rowsInThisStrip * bytesPerRow;
 
-            final byte[] compressed = imageData.getImageData(strip).getData();
+            final byte[] compressed = imageData.getImageData(strip).readData();
             final byte[] decompressed = decompress(compressed, compression,
                 bytesPerStrip, width, rowsInThisStrip);
 
@@ -28,12 +28,13 @@ import java.awt.image.BufferedImage;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.nio.ByteOrder;
+import java.util.concurrent.Executor;
 
 import org.apache.commons.imaging.ImageReadException;
 import org.apache.commons.imaging.common.ImageBuilder;
+import org.apache.commons.imaging.common.PendingTasks;
 import org.apache.commons.imaging.formats.tiff.TiffRasterData;
 import org.apache.commons.imaging.formats.tiff.TiffDirectory;
-import org.apache.commons.imaging.formats.tiff.TiffElement.DataElement;
 import org.apache.commons.imaging.formats.tiff.TiffImageData;
 import org.apache.commons.imaging.formats.tiff.constants.TiffTagConstants;
 import org.apache.commons.imaging.formats.tiff.photometricinterpreters.PhotometricInterpreter;
@@ -207,40 +208,26 @@ public final class DataReaderTiled extends ImageDataReader {
     @Override
     public void readImageData(final ImageBuilder imageBuilder)
             throws ImageReadException, IOException {
-        final int bitsPerRow = tileWidth * bitsPerPixel;
-        final int bytesPerRow = (bitsPerRow + 7) / 8;
-        final int bytesPerTile = bytesPerRow * tileLength;
-        int x = 0;
-        int y = 0;
-
-        for (final DataElement tile2 : imageData.tiles) {
-            final byte[] compressed = tile2.getData();
-
-            final byte[] decompressed = decompress(compressed, compression,
-                    bytesPerTile, tileWidth, tileLength);
+        final int nColumnsOfTiles = (width + tileWidth - 1) / tileWidth;
+        final int nRowsOfTiles = (height + tileLength - 1) / tileLength;
+        // images with fewer tiles than their size requires are read as far
+        // as the tiles go
+        final int nTiles = Math.min(nColumnsOfTiles * nRowsOfTiles, imageData.tiles.length);
+        final int[] tiles = new int[nTiles];
+        for (int tile = 0; tile < nTiles; tile++) {
+            tiles[tile] = tile;
+        }
 
+        readTiles(tiles, decompressed -> decompressed, (tile, decompressed) -> {
+            final int x = (tile % nColumnsOfTiles) * tileWidth;
+            final int y = (tile / nColumnsOfTiles) * tileLength;
             interpretTile(imageBuilder, decompressed, x, y, width, height);
-
-            x += tileWidth;
-            if (x >= width) {
-                x = 0;
-                y += tileLength;
-                if (y >= height) {
-                    break;
-                }
-            }
-
-        }
+        });
     }
 
     @Override
     public BufferedImage readImageData(final Rectangle subImage)
             throws ImageReadException, IOException {
-        final int bitsPerRow = tileWidth * bitsPerPixel;
-        final int bytesPerRow = (bitsPerRow + 7) / 8;
-        final int bytesPerTile = bytesPerRow * tileLength;
-
-
         // tileWidth is the width of the tile
         // tileLength is the height of the tile
         final int col0 = subImage.x / tileWidth;
@@ -261,17 +248,12 @@ public final class DataReaderTiled extends ImageDataReader {
         final ImageBuilder workingBuilder =
                 new ImageBuilder(workingWidth, workingHeight, false);
 
-        for (int iRow = row0; iRow <= row1; iRow++) {
-            for (int iCol = col0; iCol <= col1; iCol++) {
-                final int tile = iRow * nColumnsOfTiles + iCol;
-                final byte[] compressed = imageData.tiles[tile].getData();
-                final byte[] decompressed = decompress(compressed, compression,
-                        bytesPerTile, tileWidth, tileLength);
-                int x = iCol * tileWidth - x0;
-                int y = iRow * tileLength - y0;
-                interpretTile(workingBuilder, decompressed, x, y, workingWidth, workingHeight);
-            }
-        }
+        readTiles(getTiles(row0, row1, col0, col1, nColumnsOfTiles),
+                decompressed -> decompressed, (tile, decompressed) -> {
+            final int x = (tile % nColumnsOfTiles) * tileWidth - x0;
+            final int y = (tile / nColumnsOfTiles) * tileLength - y0;
+            interpretTile(workingBuilder, decompressed, x, y, workingWidth, workingHeight);
+        });
 
         if (subImage.x == x0
                 && subImage.y == y0
@@ -289,9 +271,6 @@ public final class DataReaderTiled extends ImageDataReader {
     @Override
     public TiffRasterData readRasterData(final Rectangle subImage)
         throws ImageReadException, IOException {
-        final int bitsPerRow = tileWidth * bitsPerPixel;
-        final int bytesPerRow = (bitsPerRow + 7) / 8;
-        final int bytesPerTile = bytesPerRow * tileLength;
         int xRaster;
         int yRaster;
         int rasterWidth;
@@ -321,24 +300,74 @@ public final class DataReaderTiled extends ImageDataReader {
         final int x0 = col0 * tileWidth;
         final int y0 = row0 * tileLength;
 
-        for (int iRow = row0; iRow <= row1; iRow++) {
-            for (int iCol = col0; iCol <= col1; iCol++) {
-                final int tile = iRow * nColumnsOfTiles + iCol;
-                final byte[] compressed = imageData.tiles[tile].getData();
-                final byte[] decompressed = decompress(compressed, compression,
-                    bytesPerTile, tileWidth, tileLength);
-                int x = iCol * tileWidth - x0;
-                int y = iRow * tileLength - y0;
-                int[] blockData = unpackFloatingPointSamples(
+        // unpacking the samples only touches the tile's own bytes, so it is
+        // done along with the decompression
+        readTiles(getTiles(row0, row1, col0, col1, nColumnsOfTiles),
+                decompressed -> unpackFloatingPointSamples(
                     tileWidth, tileLength, tileWidth,
                     decompressed,
-                    predictor, bitsPerPixel, byteOrder);
-                transferBlockToRaster(x, y, tileWidth, tileLength, blockData,
-                    xRaster, yRaster, rasterWidth, rasterHeight, rasterData);
+                    predictor, bitsPerPixel, byteOrder),
+                (tile, blockData) -> {
+            int x = (tile % nColumnsOfTiles) * tileWidth - x0;
+            int y = (tile / nColumnsOfTiles) * tileLength - y0;
+            transferBlockToRaster(x, y, tileWidth, tileLength, blockData,
+                xRaster, yRaster, rasterWidth, rasterHeight, rasterData);
+        });
+
+        return new TiffRasterData(rasterWidth, rasterHeight, rasterData);
+    }
+
+    private static int[] getTiles(final int row0, final int row1, final int col0,
+            final int col1, final int nColumnsOfTiles) {
+        final int nCol = col1 - col0 + 1;
+        final int[] tiles = new int[(row1 - row0 + 1) * nCol];
+        for (int i = 0; i < tiles.length; i++) {
+            tiles[i] = (row0 + i / nCol) * nColumnsOfTiles + col0 + i % nCol;
+        }
+        return tiles;
+    }
+
+    /**
+     * Reads, decompresses and decodes the given tiles, and passes each one to
+     * the consumer on the calling thread, in order. If an executor was set,
+     * the tiles are read, decompressed and decoded concurrently, with at most a
+     * few tiles per processor waiting to be consumed at any time. The
+     * consumer, which interprets the pixels, always runs on the calling
+     * thread: the predictor and the photometric interpreters keep state from
+     * one pixel to the next.
+     */
+    private <T> void readTiles(final int[] tiles, final TileDecoder<T> decoder,
+            final TileConsumer<T> consumer) throws ImageReadException, IOException {
+        final int bitsPerRow = tileWidth * bitsPerPixel;
+        final int bytesPerRow = (bitsPerRow + 7) / 8;
+        final int bytesPerTile = bytesPerRow * tileLength;
+
+        final Executor executor = getExecutor();
+        if (executor == null || tiles.length < 2) {
+            for (final int tile : tiles) {
+                final byte[] compressed = imageData.tiles[tile].readData();
+                final byte[] decompressed = decompress(compressed, compression,
+                        bytesPerTile, tileWidth, tileLength);
+                consumer.accept(tile, decoder.decode(decompressed));
             }
+            return;
         }
 
-        return new TiffRasterData(rasterWidth, rasterHeight, rasterData);
+        PendingTasks.<T>forReading(executor, "reading TIFF tiles").run(tiles.length, index -> {
+            final byte[] compressed = imageData.tiles[tiles[index]].readData();
+            final byte[] decompressed = decompress(compressed, compression,
+                    bytesPerTile, tileWidth, tileLength);
+            return decoder.decode(decompressed);
+        }, (index, decoded) -> consumer.accept(tiles[index], decoded));
     }
 
+    @FunctionalInterface
+    private interface TileDecoder<T> {
+        T decode(byte[] decompressed) throws ImageReadException, IOException;
+    }
+
+    @FunctionalInterface
+    private interface TileConsumer<T> {
+        void accept(int tile, T decoded) throws ImageReadException, IOException;
+    }
 }
@@ -36,6 +36,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteOrder;
 import java.util.Arrays;
+import java.util.concurrent.Executor;
 
 import org.apache.commons.imaging.ImageReadException;
 import org.apache.commons.imaging.common.ImageBuilder;
@@ -157,6 +158,8 @@ public abstract class ImageDataReader {
     protected final int height;
     protected final int sampleFormat;
 
+    private Executor executor;
+
     public ImageDataReader(final TiffDirectory directory,
             final PhotometricInterpreter photometricInterpreter, final int[] bitsPerSample,
         final int predictor, final int samplesPerPixel, final int sampleFormat,
@@ -173,6 +176,20 @@ public abstract class ImageDataReader {
         last = new int[samplesPerPixel];
     }
 
+    /**
+     * Sets the executor used to decompress blocks of image data concurrently.
+     * Readers that can't do so ignore it.
+     *
+     * @param executor an executor, or null to read on the calling thread
+     */
+    public void setExecutor(final Executor executor) {
+        this.executor = executor;
+    }
+
+    protected Executor getExecutor() {
+        return executor;
+    }
+
     // public abstract void readImageData(BufferedImage bi, ByteSource
     // byteSource)
     public abstract void readImageData(ImageBuilder imageBuilder)
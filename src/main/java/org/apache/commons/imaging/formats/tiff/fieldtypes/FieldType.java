@@ -42,6 +42,9 @@ public abstract class FieldType {
     public static final FieldTypeFloat FLOAT = new FieldTypeFloat(11, "Float");
     public static final FieldTypeDouble DOUBLE = new FieldTypeDouble(12, "Double");
     public static final FieldTypeLong IFD = new FieldTypeLong(13, "IFD");
+    public static final FieldTypeLong8 LONG8 = new FieldTypeLong8(16, "Long8");
+    public static final FieldTypeLong8 SLONG8 = new FieldTypeLong8(17, "SLong8");
+    public static final FieldTypeLong8 IFD8 = new FieldTypeLong8(18, "IFD8");
 
     private final int type;
     private final String name;
@@ -53,7 +56,8 @@ public abstract class FieldType {
                     LONG, RATIONAL, SBYTE,
                     UNDEFINED, SSHORT, SLONG,
                     SRATIONAL, FLOAT, DOUBLE,
-                    IFD));
+                    IFD, LONG8, SLONG8,
+                    IFD8));
 
     public static final List<FieldType> SHORT_OR_LONG =
             Collections.unmodifiableList(Arrays.asList(
@@ -0,0 +1,226 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.formats.tiff.write;
+
+import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.TIFF_COMPRESSION_CCITT_1D;
+import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.TIFF_COMPRESSION_CCITT_GROUP_3;
+import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.TIFF_COMPRESSION_CCITT_GROUP_4;
+import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.TIFF_COMPRESSION_DEFLATE_ADOBE;
+import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.TIFF_COMPRESSION_LZW;
+import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.TIFF_COMPRESSION_PACKBITS;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.util.concurrent.Executor;
+
+import org.apache.commons.imaging.ImageWriteException;
+import org.apache.commons.imaging.common.PackBits;
+import org.apache.commons.imaging.common.PendingTasks;
+import org.apache.commons.imaging.common.RgbRowReader;
+import org.apache.commons.imaging.common.ZlibDeflate;
+import org.apache.commons.imaging.common.itu_t4.T4AndT6Compression;
+import org.apache.commons.imaging.common.mylzw.MyLzwCompressor;
+import org.apache.commons.imaging.formats.tiff.constants.TiffTagConstants;
+
+/**
+ * Packs the pixels of the strips or tiles of an image into samples,
+ * applies the predictor and compresses them. Each strip or tile is
+ * encoded independently of the others, so they can be encoded
+ * concurrently.
+ */
+class ImageDataEncoder {
+    private static final int LZW_MINIMUM_CODE_SIZE = 8;
+
+    private final RgbRowReader rowReader;
+    private final int width;
+    private final int height;
+    private final int samplesPerPixel;
+    private final int bitsPerSample;
+    private final int compression;
+    private final int predictor;
+    private final int t4Options;
+    private final int blockWidth;
+    private final int blockLength;
+    private final boolean tiles;
+    private final int columns;
+    private final int blockCount;
+
+    /**
+     * @param src             the image, or null if the pixels of each strip
+     *                        or tile are passed to
+     *                        {@link #encode(int, RgbRowReader, int, int)}
+     * @param width           the width of the image
+     * @param height          the height of the image
+     * @param samplesPerPixel 3 for RGB or 1 for bilevel images
+     * @param bitsPerSample   8 for RGB or 1 for bilevel images
+     * @param compression     the TIFF compression, which has been validated
+     * @param predictor       the TIFF predictor
+     * @param t4Options       the T.4 options, for CCITT Group 3 compression
+     * @param blockWidth      the width of each tile, or of the image for
+     *                        strips
+     * @param blockLength     the length of each tile, or the rows per strip
+     * @param tiles           whether the blocks are tiles, which are all the
+     *                        same size and padded past the edges of the
+     *                        image, or strips, where the last strip stops at
+     *                        the bottom of the image
+     */
+    ImageDataEncoder(final BufferedImage src, final int width, final int height,
+            final int samplesPerPixel, final int bitsPerSample, final int compression,
+            final int predictor, final int t4Options, final int blockWidth,
+            final int blockLength, final boolean tiles) {
+        this.rowReader = src != null ? new RgbRowReader(src) : null;
+        this.width = width;
+        this.height = height;
+        this.samplesPerPixel = samplesPerPixel;
+        this.bitsPerSample = bitsPerSample;
+        this.compression = compression;
+        this.predictor = predictor;
+        this.t4Options = t4Options;
+        this.blockWidth = blockWidth;
+        this.blockLength = blockLength;
+        this.tiles = tiles;
+        this.columns = (width + blockWidth - 1) / blockWidth;
+        this.blockCount = columns * ((height + blockLength - 1) / blockLength);
+    }
+
+    /**
+     * Encodes all the strips or tiles of the image.
+     *
+     * @param executor encodes the strips or tiles concurrently, or null to
+     *                 encode them on the calling thread
+     * @return the compressed strips or tiles, in the order they are stored
+     * @throws ImageWriteException if encoding fails or is interrupted
+     * @throws IOException         if compressing fails
+     */
+    byte[][] encode(final Executor executor) throws ImageWriteException, IOException {
+        final byte[][] blocks = new byte[blockCount][];
+        if (executor == null) {
+            for (int i = 0; i < blockCount; i++) {
+                blocks[i] = encode(i);
+            }
+            return blocks;
+        }
+
+        PendingTasks.<byte[]>forWriting(executor, "encoding image data").run(blockCount, this::encode,
+                (index, block) -> blocks[index] = block);
+        return blocks;
+    }
+
+    /**
+     * @return the number of strips or tiles of the image
+     */
+    int getBlockCount() {
+        return blockCount;
+    }
+
+    /**
+     * @return the number of tiles in each row of tiles, or 1 for strips
+     */
+    int getColumns() {
+        return columns;
+    }
+
+    private byte[] encode(final int index) throws ImageWriteException, IOException {
+        return encode(index, rowReader, 0, 0);
+    }
+
+    /**
+     * Encodes a strip or tile.
+     *
+     * @param index   the index of the strip or tile, in the order they are
+     *                stored
+     * @param reader  reads the pixels of the strip or tile
+     * @param originX the column of the image that is column 0 of the
+     *                reader
+     * @param originY the row of the image that is row 0 of the reader
+     * @return the compressed strip or tile
+     * @throws ImageWriteException if encoding fails
+     * @throws IOException         if compressing fails
+     */
+    byte[] encode(final int index, final RgbRowReader reader, final int originX, final int originY)
+            throws ImageWriteException, IOException {
+        final int x0 = (index % columns) * blockWidth;
+        final int y0 = (index / columns) * blockLength;
+        final int rows = tiles ? blockLength : Math.min(blockLength, height - y0);
+        final int bytesPerRow = (blockWidth * samplesPerPixel * bitsPerSample + 7) / 8;
+        final byte[] uncompressed = new byte[rows * bytesPerRow];
+
+        // the pixels of tiles past the edges of the image are left 0
+        final int pixelsInRow = Math.min(blockWidth, width - x0);
+        final int[] argb = new int[pixelsInRow];
+        for (int row = 0; row < rows && y0 + row < height; row++) {
+            reader.getRgbRow(x0 - originX, y0 + row - originY, pixelsInRow, argb);
+            final int rowStart = row * bytesPerRow;
+            if (bitsPerSample == 1) {
+                for (int x = 0; x < pixelsInRow; x++) {
+                    final int rgb = argb[x];
+                    final int sample = ((0xff & (rgb >> 16)) + (0xff & (rgb >> 8)) + (0xff & rgb)) / 3;
+                    // 0 is white
+                    if (sample <= 127) {
+                        uncompressed[rowStart + (x >> 3)] |= 0x80 >> (x & 7);
+                    }
+                }
+            } else {
+                for (int x = 0, i = rowStart; x < pixelsInRow; x++) {
+                    final int rgb = argb[x];
+                    uncompressed[i++] = (byte) (rgb >> 16);
+                    uncompressed[i++] = (byte) (rgb >> 8);
+                    uncompressed[i++] = (byte) rgb;
+                }
+                if (predictor == TiffTagConstants.PREDICTOR_VALUE_HORIZONTAL_DIFFERENCING) {
+                    for (int i = rowStart + bytesPerRow - 1; i >= rowStart + samplesPerPixel; i--) {
+                        uncompressed[i] -= uncompressed[i - samplesPerPixel];
+                    }
+                }
+            }
+        }
+
+        return compress(uncompressed, rows);
+    }
+
+    private byte[] compress(final byte[] uncompressed, final int rows)
+            throws ImageWriteException, IOException {
+        if (compression == TIFF_COMPRESSION_CCITT_1D) {
+            return T4AndT6Compression.compressModifiedHuffman(uncompressed, blockWidth, rows);
+        }
+        if (compression == TIFF_COMPRESSION_CCITT_GROUP_3) {
+            final boolean hasFillBitsBeforeEOL = (t4Options & 4) != 0;
+            if ((t4Options & 1) != 0) {
+                return T4AndT6Compression.compressT4_2D(uncompressed, blockWidth, rows,
+                        hasFillBitsBeforeEOL, blockLength);
+            }
+            return T4AndT6Compression.compressT4_1D(uncompressed, blockWidth, rows,
+                    hasFillBitsBeforeEOL);
+        }
+        if (compression == TIFF_COMPRESSION_CCITT_GROUP_4) {
+            return T4AndT6Compression.compressT6(uncompressed, blockWidth, rows);
+        }
+        if (compression == TIFF_COMPRESSION_PACKBITS) {
+            return new PackBits().compress(uncompressed);
+        }
+        if (compression == TIFF_COMPRESSION_LZW) {
+            final MyLzwCompressor compressor = new MyLzwCompressor(
+                    LZW_MINIMUM_CODE_SIZE, ByteOrder.BIG_ENDIAN, true);
+            return compressor.compress(uncompressed);
+        }
+        if (compression == TIFF_COMPRESSION_DEFLATE_ADOBE) {
+            return ZlibDeflate.compress(uncompressed);
+        }
+        return uncompressed;
+    }
+}
@@ -16,23 +16,25 @@
  */
 package org.apache.commons.imaging.formats.tiff.write;
 
+import java.io.IOException;
+
 import org.apache.commons.imaging.formats.tiff.TiffElement;
 
 class ImageDataOffsets {
-    final int[] imageDataOffsets;
+    final long[] imageDataOffsets;
     final TiffOutputField imageDataOffsetsField;
     final TiffOutputItem[] outputItems;
 
     ImageDataOffsets(final TiffElement.DataElement[] imageData,
-            final int[] imageDataOffsets,
-            final TiffOutputField imageDataOffsetsField) {
+            final long[] imageDataOffsets,
+            final TiffOutputField imageDataOffsetsField) throws IOException {
         this.imageDataOffsets = imageDataOffsets;
         this.imageDataOffsetsField = imageDataOffsetsField;
 
         outputItems = new TiffOutputItem[imageData.length];
         for (int i = 0; i < imageData.length; i++) {
             final TiffOutputItem item = new TiffOutputItem.Value("TIFF image data",
-                    imageData[i].getData());
+                    imageData[i].readData());
             outputItems[i] = item;
         }
 
@@ -0,0 +1,402 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.formats.tiff.write;
+
+import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.PARAM_KEY_LZW_COMPRESSION_BLOCK_SIZE;
+import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.PARAM_KEY_T4_OPTIONS;
+import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.PARAM_KEY_T6_OPTIONS;
+import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.PARAM_KEY_TIFF_BIG_TIFF;
+import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.PARAM_KEY_TIFF_ENCODE_EXECUTOR;
+import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.PARAM_KEY_TIFF_PREDICTOR;
+import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.PARAM_KEY_TIFF_TILE_LENGTH;
+import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.PARAM_KEY_TIFF_TILE_WIDTH;
+import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.TIFF_COMPRESSION_CCITT_1D;
+import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.TIFF_COMPRESSION_CCITT_GROUP_3;
+import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.TIFF_COMPRESSION_CCITT_GROUP_4;
+import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.TIFF_COMPRESSION_DEFLATE_ADOBE;
+import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.TIFF_COMPRESSION_LZW;
+import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.TIFF_COMPRESSION_PACKBITS;
+import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.TIFF_COMPRESSION_UNCOMPRESSED;
+import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.TIFF_FLAG_T6_OPTIONS_UNCOMPRESSED_MODE;
+
+import java.awt.image.BufferedImage;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+import org.apache.commons.imaging.ImageWriteException;
+import org.apache.commons.imaging.ImagingConstants;
+import org.apache.commons.imaging.PixelDensity;
+import org.apache.commons.imaging.common.RationalNumber;
+import org.apache.commons.imaging.formats.tiff.TiffImageData;
+import org.apache.commons.imaging.formats.tiff.constants.TiffTagConstants;
+
+/**
+ * The parameters of writing an image to a TIFF, which are shared by
+ * {@link TiffImageWriterBase#writeImage(BufferedImage, java.io.OutputStream, Map)}
+ * and {@link TiffImageWriterStreaming}. Parsing them validates them, so
+ * nothing is written if they are invalid.
+ */
+final class ImageWriteParameters {
+    final TiffOutputSet userExif;
+    final String xmpXml;
+    final PixelDensity pixelDensity;
+    final int compression;
+    final int tileWidth;
+    final int tileLength;
+    final int predictor;
+    // null to write the kind of file the writer was created for
+    final Boolean bigTiff;
+    final Executor executor;
+    final int samplesPerPixel;
+    final int bitsPerSample;
+    final int photometricInterpretation;
+    final int t4Options;
+    final int t6Options;
+    private final int stripSizeInBits;
+
+    ImageWriteParameters(Map<String, Object> params) throws ImageWriteException {
+        // make copy of params; we'll clear keys as we consume them.
+        params = new HashMap<>(params);
+
+        // clear format key.
+        if (params.containsKey(ImagingConstants.PARAM_KEY_FORMAT)) {
+            params.remove(ImagingConstants.PARAM_KEY_FORMAT);
+        }
+
+        TiffOutputSet userExif = null;
+        if (params.containsKey(ImagingConstants.PARAM_KEY_EXIF)) {
+            userExif = (TiffOutputSet) params.remove(ImagingConstants.PARAM_KEY_EXIF);
+        }
+        this.userExif = userExif;
+
+        String xmpXml = null;
+        if (params.containsKey(ImagingConstants.PARAM_KEY_XMP_XML)) {
+            xmpXml = (String) params.get(ImagingConstants.PARAM_KEY_XMP_XML);
+            params.remove(ImagingConstants.PARAM_KEY_XMP_XML);
+        }
+        this.xmpXml = xmpXml;
+
+        PixelDensity pixelDensity = (PixelDensity) params.remove(
+                ImagingConstants.PARAM_KEY_PIXEL_DENSITY);
+        if (pixelDensity == null) {
+            pixelDensity = PixelDensity.createFromPixelsPerInch(72, 72);
+        }
+        this.pixelDensity = pixelDensity;
+
+        int compression = TIFF_COMPRESSION_LZW; // LZW is default
+        int stripSizeInBits = 64000; // the default from legacy implementation
+        if (params.containsKey(ImagingConstants.PARAM_KEY_COMPRESSION)) {
+            final Object value = params.get(ImagingConstants.PARAM_KEY_COMPRESSION);
+            if (value != null) {
+                if (!(value instanceof Number)) {
+                    throw new ImageWriteException(
+                            "Invalid compression parameter, must be numeric: "
+                                    + value);
+                }
+                compression = ((Number) value).intValue();
+            }
+            params.remove(ImagingConstants.PARAM_KEY_COMPRESSION);
+            if (params.containsKey(PARAM_KEY_LZW_COMPRESSION_BLOCK_SIZE)) {
+                final Object bValue =
+                    params.get(PARAM_KEY_LZW_COMPRESSION_BLOCK_SIZE);
+                if (!(bValue instanceof Number)) {
+                    throw new ImageWriteException(
+                            "Invalid compression block-size parameter: " + value);
+                }
+                final int stripSizeInBytes = ((Number) bValue).intValue();
+                if (stripSizeInBytes < 8000) {
+                    throw new ImageWriteException(
+                            "Block size parameter " + stripSizeInBytes
+                            + " is less than 8000 minimum");
+                }
+                stripSizeInBits = stripSizeInBytes*8;
+                params.remove(PARAM_KEY_LZW_COMPRESSION_BLOCK_SIZE);
+            }
+        }
+        this.compression = compression;
+        this.stripSizeInBits = stripSizeInBits;
+
+        int tileWidth = 0;
+        int tileLength = 0;
+        if (params.containsKey(PARAM_KEY_TIFF_TILE_WIDTH)
+                || params.containsKey(PARAM_KEY_TIFF_TILE_LENGTH)) {
+            final Object widthValue = params.remove(PARAM_KEY_TIFF_TILE_WIDTH);
+            final Object lengthValue = params.remove(PARAM_KEY_TIFF_TILE_LENGTH);
+            // tiles are square unless both sides are given
+            tileWidth = getTileSize("width", widthValue != null ? widthValue : lengthValue);
+            tileLength = getTileSize("length", lengthValue != null ? lengthValue : widthValue);
+        }
+        this.tileWidth = tileWidth;
+        this.tileLength = tileLength;
+
+        int predictor = TiffTagConstants.PREDICTOR_VALUE_NONE;
+        if (params.containsKey(PARAM_KEY_TIFF_PREDICTOR)) {
+            final Object value = params.remove(PARAM_KEY_TIFF_PREDICTOR);
+            if (!(value instanceof Number)
+                    || (((Number) value).intValue() != TiffTagConstants.PREDICTOR_VALUE_NONE
+                    && ((Number) value).intValue() != TiffTagConstants.PREDICTOR_VALUE_HORIZONTAL_DIFFERENCING)) {
+                throw new ImageWriteException("Invalid predictor: " + value);
+            }
+            predictor = ((Number) value).intValue();
+        }
+        this.predictor = predictor;
+
+        Boolean bigTiff = null;
+        if (params.containsKey(PARAM_KEY_TIFF_BIG_TIFF)) {
+            final Object value = params.remove(PARAM_KEY_TIFF_BIG_TIFF);
+            if (!(value instanceof Boolean)) {
+                throw new ImageWriteException("Invalid BigTIFF parameter: " + value);
+            }
+            bigTiff = (Boolean) value;
+        }
+        this.bigTiff = bigTiff;
+
+        Executor executor = null;
+        if (params.containsKey(PARAM_KEY_TIFF_ENCODE_EXECUTOR)) {
+            final Object value = params.remove(PARAM_KEY_TIFF_ENCODE_EXECUTOR);
+            if (!(value instanceof Executor)) {
+                throw new ImageWriteException("Invalid encode executor: " + value);
+            }
+            executor = (Executor) value;
+        }
+        this.executor = executor;
+
+        final HashMap<String, Object> rawParams = new HashMap<>(params);
+        params.remove(PARAM_KEY_T4_OPTIONS);
+        params.remove(PARAM_KEY_T6_OPTIONS);
+        if (!params.isEmpty()) {
+            final Object firstKey = params.keySet().iterator().next();
+            throw new ImageWriteException("Unknown parameter: " + firstKey);
+        }
+
+        if (compression == TIFF_COMPRESSION_CCITT_1D
+                || compression == TIFF_COMPRESSION_CCITT_GROUP_3
+                || compression == TIFF_COMPRESSION_CCITT_GROUP_4) {
+            samplesPerPixel = 1;
+            bitsPerSample = 1;
+            photometricInterpretation = 0;
+        } else {
+            samplesPerPixel = 3;
+            bitsPerSample = 8;
+            photometricInterpretation = 2;
+        }
+
+        int t4Options = 0;
+        int t6Options = 0;
+        if (compression == TIFF_COMPRESSION_CCITT_GROUP_3) {
+            final Integer t4Parameter = (Integer) rawParams.get(PARAM_KEY_T4_OPTIONS);
+            if (t4Parameter != null) {
+                t4Options = t4Parameter.intValue();
+            }
+            t4Options &= 0x7;
+            final boolean usesUncompressedMode = (t4Options & 2) != 0;
+            if (usesUncompressedMode) {
+                throw new ImageWriteException(
+                        "T.4 compression with the uncompressed mode extension is not yet supported");
+            }
+        } else if (compression == TIFF_COMPRESSION_CCITT_GROUP_4) {
+            final Integer t6Parameter = (Integer) rawParams.get(PARAM_KEY_T6_OPTIONS);
+            if (t6Parameter != null) {
+                t6Options = t6Parameter.intValue();
+            }
+            t6Options &= 0x4;
+            final boolean usesUncompressedMode = (t6Options & TIFF_FLAG_T6_OPTIONS_UNCOMPRESSED_MODE) != 0;
+            if (usesUncompressedMode) {
+                throw new ImageWriteException(
+                        "T.6 compression with the uncompressed mode extension is not yet supported");
+            }
+        } else if (compression != TIFF_COMPRESSION_CCITT_1D
+                && compression != TIFF_COMPRESSION_PACKBITS
+                && compression != TIFF_COMPRESSION_LZW
+                && compression != TIFF_COMPRESSION_DEFLATE_ADOBE
+                && compression != TIFF_COMPRESSION_UNCOMPRESSED) {
+            throw new ImageWriteException(
+                    "Invalid compression parameter (Only CCITT 1D/Group 3/Group 4, LZW, Packbits, Zlib Deflate and uncompressed supported).");
+        }
+        this.t4Options = t4Options;
+        this.t6Options = t6Options;
+
+        if (predictor == TiffTagConstants.PREDICTOR_VALUE_HORIZONTAL_DIFFERENCING
+                && compression != TIFF_COMPRESSION_LZW
+                && compression != TIFF_COMPRESSION_DEFLATE_ADOBE) {
+            throw new ImageWriteException(
+                    "The horizontal differencing predictor is only supported with LZW and Zlib Deflate compression");
+        }
+    }
+
+    private static int getTileSize(final String side, final Object value)
+            throws ImageWriteException {
+        // TIFF 6.0 requires the sides of tiles to be multiples of 16
+        if (!(value instanceof Number) || ((Number) value).intValue() <= 0
+                || ((Number) value).intValue() % 16 != 0) {
+            throw new ImageWriteException("Invalid tile " + side + ": " + value);
+        }
+        return ((Number) value).intValue();
+    }
+
+    boolean isTiled() {
+        return tileWidth > 0;
+    }
+
+    /**
+     * @param width the width of the image
+     * @return the rows in each strip of an image written in strips
+     */
+    int getRowsPerStrip(final int width) {
+        final int rowsPerStrip = stripSizeInBits / (width * bitsPerSample * samplesPerPixel);
+        return Math.max(1, rowsPerStrip); // must have at least one.
+    }
+
+    /**
+     * Creates the encoder of the strips or tiles of an image.
+     *
+     * @param src    the image, or null if the pixels are passed to the
+     *               encoder a strip or tile at a time
+     * @param width  the width of the image
+     * @param height the height of the image
+     */
+    ImageDataEncoder createEncoder(final BufferedImage src, final int width, final int height) {
+        if (isTiled()) {
+            return new ImageDataEncoder(src, width, height, samplesPerPixel, bitsPerSample,
+                    compression, predictor, t4Options, tileWidth, tileLength, true);
+        }
+        return new ImageDataEncoder(src, width, height, samplesPerPixel, bitsPerSample,
+                compression, predictor, t4Options, width, getRowsPerStrip(width), false);
+    }
+
+    /**
+     * Creates the output set of the image, with the fields describing the
+     * image and the user's EXIF and XMP metadata.
+     */
+    TiffOutputSet createOutputSet(final ByteOrder byteOrder, final int width, final int height,
+            final TiffImageData tiffImageData) throws ImageWriteException {
+        final TiffOutputSet outputSet = new TiffOutputSet(byteOrder);
+        final TiffOutputDirectory directory = outputSet.addRootDirectory();
+
+        // WriteField stripOffsetsField;
+
+        {
+
+            directory.add(TiffTagConstants.TIFF_TAG_IMAGE_WIDTH, width);
+            directory.add(TiffTagConstants.TIFF_TAG_IMAGE_LENGTH, height);
+            directory.add(TiffTagConstants.TIFF_TAG_PHOTOMETRIC_INTERPRETATION,
+                    (short) photometricInterpretation);
+            directory.add(TiffTagConstants.TIFF_TAG_COMPRESSION,
+                    (short) compression);
+            directory.add(TiffTagConstants.TIFF_TAG_SAMPLES_PER_PIXEL,
+                    (short) samplesPerPixel);
+
+            if (samplesPerPixel == 3) {
+                directory.add(TiffTagConstants.TIFF_TAG_BITS_PER_SAMPLE,
+                        (short) bitsPerSample, (short) bitsPerSample,
+                        (short) bitsPerSample);
+            } else if (samplesPerPixel == 1) {
+                directory.add(TiffTagConstants.TIFF_TAG_BITS_PER_SAMPLE,
+                        (short) bitsPerSample);
+            }
+            // {
+            // stripOffsetsField = new WriteField(TIFF_TAG_STRIP_OFFSETS,
+            // FIELD_TYPE_LONG, stripOffsets.length, FIELD_TYPE_LONG
+            // .writeData(stripOffsets, byteOrder));
+            // directory.add(stripOffsetsField);
+            // }
+            // {
+            // WriteField field = new WriteField(TIFF_TAG_STRIP_BYTE_COUNTS,
+            // FIELD_TYPE_LONG, stripByteCounts.length,
+            // FIELD_TYPE_LONG.writeData(stripByteCounts,
+            // WRITE_BYTE_ORDER));
+            // directory.add(field);
+            // }
+            if (isTiled()) {
+                directory.add(TiffTagConstants.TIFF_TAG_TILE_WIDTH, tileWidth);
+                directory.add(TiffTagConstants.TIFF_TAG_TILE_LENGTH, tileLength);
+            } else {
+                directory.add(TiffTagConstants.TIFF_TAG_ROWS_PER_STRIP,
+                        getRowsPerStrip(width));
+            }
+            if (predictor != TiffTagConstants.PREDICTOR_VALUE_NONE) {
+                directory.add(TiffTagConstants.TIFF_TAG_PREDICTOR, (short) predictor);
+            }
+            if (pixelDensity.isUnitless()) {
+                directory.add(TiffTagConstants.TIFF_TAG_RESOLUTION_UNIT,
+                        (short) 0);
+                directory.add(TiffTagConstants.TIFF_TAG_XRESOLUTION,
+                        RationalNumber.valueOf(pixelDensity.getRawHorizontalDensity()));
+                directory.add(TiffTagConstants.TIFF_TAG_YRESOLUTION,
+                        RationalNumber.valueOf(pixelDensity.getRawVerticalDensity()));
+            } else if (pixelDensity.isInInches()) {
+                directory.add(TiffTagConstants.TIFF_TAG_RESOLUTION_UNIT,
+                        (short) 2);
+                directory.add(TiffTagConstants.TIFF_TAG_XRESOLUTION,
+                        RationalNumber.valueOf(pixelDensity.horizontalDensityInches()));
+                directory.add(TiffTagConstants.TIFF_TAG_YRESOLUTION,
+                        RationalNumber.valueOf(pixelDensity.verticalDensityInches()));
+            } else {
+                directory.add(TiffTagConstants.TIFF_TAG_RESOLUTION_UNIT,
+                        (short) 1);
+                directory.add(TiffTagConstants.TIFF_TAG_XRESOLUTION,
+                        RationalNumber.valueOf(pixelDensity.horizontalDensityCentimetres()));
+                directory.add(TiffTagConstants.TIFF_TAG_YRESOLUTION,
+                        RationalNumber.valueOf(pixelDensity.verticalDensityCentimetres()));
+            }
+            if (t4Options != 0) {
+                directory.add(TiffTagConstants.TIFF_TAG_T4_OPTIONS, t4Options);
+            }
+            if (t6Options != 0) {
+                directory.add(TiffTagConstants.TIFF_TAG_T6_OPTIONS, t6Options);
+            }
+
+            if (null != xmpXml) {
+                final byte[] xmpXmlBytes = xmpXml.getBytes(StandardCharsets.UTF_8);
+                directory.add(TiffTagConstants.TIFF_TAG_XMP, xmpXmlBytes);
+            }
+
+        }
+
+        directory.setTiffImageData(tiffImageData);
+
+        if (userExif != null) {
+            combineUserExifIntoFinalExif(userExif, outputSet);
+        }
+        return outputSet;
+    }
+
+    private static void combineUserExifIntoFinalExif(final TiffOutputSet userExif,
+            final TiffOutputSet outputSet) throws ImageWriteException {
+        final List<TiffOutputDirectory> outputDirectories = outputSet.getDirectories();
+        Collections.sort(outputDirectories, TiffOutputDirectory.COMPARATOR);
+        for (final TiffOutputDirectory userDirectory : userExif.getDirectories()) {
+            final int location = Collections.binarySearch(outputDirectories,
+                    userDirectory, TiffOutputDirectory.COMPARATOR);
+            if (location < 0) {
+                outputSet.addDirectory(userDirectory);
+            } else {
+                final TiffOutputDirectory outputDirectory = outputDirectories.get(location);
+                for (final TiffOutputField userField : userDirectory.getFields()) {
+                    if (outputDirectory.findField(userField.tagInfo) == null) {
+                        outputDirectory.add(userField);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -17,24 +17,15 @@
 package org.apache.commons.imaging.formats.tiff.write;
 
 import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.DEFAULT_TIFF_BYTE_ORDER;
-import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.PARAM_KEY_LZW_COMPRESSION_BLOCK_SIZE;
-import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.PARAM_KEY_T4_OPTIONS;
-import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.PARAM_KEY_T6_OPTIONS;
-import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.TIFF_COMPRESSION_CCITT_1D;
-import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.TIFF_COMPRESSION_CCITT_GROUP_3;
-import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.TIFF_COMPRESSION_CCITT_GROUP_4;
-import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.TIFF_COMPRESSION_LZW;
-import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.TIFF_COMPRESSION_PACKBITS;
-import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.TIFF_COMPRESSION_UNCOMPRESSED;
-import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.TIFF_COMPRESSION_DEFLATE_ADOBE;
-import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.TIFF_FLAG_T6_OPTIONS_UNCOMPRESSED_MODE;
+import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.TIFF_BIG_HEADER_SIZE;
 import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.TIFF_HEADER_SIZE;
+import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.TIFF_VERSION;
+import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.TIFF_VERSION_BIG;
 
 import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.ByteOrder;
-import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -43,30 +34,34 @@ import java.util.List;
 import java.util.Map;
 
 import org.apache.commons.imaging.ImageWriteException;
-import org.apache.commons.imaging.ImagingConstants;
-import org.apache.commons.imaging.PixelDensity;
 import org.apache.commons.imaging.common.BinaryOutputStream;
-import org.apache.commons.imaging.common.PackBits;
-import org.apache.commons.imaging.common.RationalNumber;
-import org.apache.commons.imaging.common.itu_t4.T4AndT6Compression;
-import org.apache.commons.imaging.common.mylzw.MyLzwCompressor;
-import org.apache.commons.imaging.common.ZlibDeflate;
 import org.apache.commons.imaging.formats.tiff.TiffElement;
 import org.apache.commons.imaging.formats.tiff.TiffImageData;
 import org.apache.commons.imaging.formats.tiff.constants.ExifTagConstants;
 import org.apache.commons.imaging.formats.tiff.constants.TiffDirectoryConstants;
-import org.apache.commons.imaging.formats.tiff.constants.TiffTagConstants;
+import org.apache.commons.imaging.formats.tiff.fieldtypes.FieldTypeLong8;
 
 public abstract class TiffImageWriterBase {
 
     protected final ByteOrder byteOrder;
+    protected final boolean bigTiff;
 
     public TiffImageWriterBase() {
-        this.byteOrder = DEFAULT_TIFF_BYTE_ORDER;
+        this(DEFAULT_TIFF_BYTE_ORDER);
     }
 
     public TiffImageWriterBase(final ByteOrder byteOrder) {
+        this(byteOrder, false);
+    }
+
+    /**
+     * @param byteOrder the byte order of the file
+     * @param bigTiff   whether to write a BigTIFF, with 8 byte offsets, so
+     *                  the file can be larger than 4 GB
+     */
+    public TiffImageWriterBase(final ByteOrder byteOrder, final boolean bigTiff) {
         this.byteOrder = byteOrder;
+        this.bigTiff = bigTiff;
     }
 
     protected static int imageDataPaddingLength(final int dataLength) {
@@ -199,7 +194,7 @@ public abstract class TiffImageWriterBase {
 
         // prepare results
         final TiffOutputSummary result = new TiffOutputSummary(byteOrder,
-                rootDirectory, directoryTypeMap);
+                bigTiff, rootDirectory, directoryTypeMap);
 
         if (interoperabilityDirectory == null
                 && interoperabilityDirectoryOffsetField != null) {
@@ -220,7 +215,7 @@ public abstract class TiffImageWriterBase {
             }
 
             result.add(interoperabilityDirectory,
-                    interoperabilityDirectoryOffsetField);
+                    getWrittenOffsetField(interoperabilityDirectoryOffsetField, result));
         }
 
         // make sure offset fields and offset'd directories correspond.
@@ -235,7 +230,7 @@ public abstract class TiffImageWriterBase {
                 rootDirectory.add(exifDirectoryOffsetField);
             }
 
-            result.add(exifDirectory, exifDirectoryOffsetField);
+            result.add(exifDirectory, getWrittenOffsetField(exifDirectoryOffsetField, result));
         }
 
         if (gpsDirectory == null && gpsDirectoryOffsetField != null) {
@@ -249,7 +244,7 @@ public abstract class TiffImageWriterBase {
                 rootDirectory.add(gpsDirectoryOffsetField);
             }
 
-            result.add(gpsDirectory, gpsDirectoryOffsetField);
+            result.add(gpsDirectory, getWrittenOffsetField(gpsDirectoryOffsetField, result));
         }
 
         return result;
@@ -257,358 +252,54 @@ public abstract class TiffImageWriterBase {
         // Debug.debug();
     }
 
-    public void writeImage(final BufferedImage src, final OutputStream os, Map<String, Object> params)
-            throws ImageWriteException, IOException {
-        // make copy of params; we'll clear keys as we consume them.
-        params = new HashMap<>(params);
-
-        // clear format key.
-        if (params.containsKey(ImagingConstants.PARAM_KEY_FORMAT)) {
-            params.remove(ImagingConstants.PARAM_KEY_FORMAT);
-        }
-
-        TiffOutputSet userExif = null;
-        if (params.containsKey(ImagingConstants.PARAM_KEY_EXIF)) {
-            userExif = (TiffOutputSet) params.remove(ImagingConstants.PARAM_KEY_EXIF);
-        }
-
-        String xmpXml = null;
-        if (params.containsKey(ImagingConstants.PARAM_KEY_XMP_XML)) {
-            xmpXml = (String) params.get(ImagingConstants.PARAM_KEY_XMP_XML);
-            params.remove(ImagingConstants.PARAM_KEY_XMP_XML);
+    /**
+     * Returns the field a sub-directory offset is written to: the field of
+     * the output set if it has the offset type of the file, or else a field
+     * of that type, which the summary writes in its place so that the output
+     * set is left as it is. A LONG may not hold a BigTIFF offset, and a
+     * classic TIFF has no IFD8.
+     */
+    private TiffOutputField getWrittenOffsetField(final TiffOutputField field,
+            final TiffOutputSummary outputSummary) throws ImageWriteException {
+        if ((field.fieldType instanceof FieldTypeLong8) == bigTiff) {
+            return field;
         }
+        final TiffOutputField writtenField = TiffOutputField.createOffsetField(field.tagInfo, byteOrder, bigTiff);
+        outputSummary.replaceField(field, writtenField);
+        return writtenField;
+    }
 
-        PixelDensity pixelDensity = (PixelDensity) params.remove(
-                ImagingConstants.PARAM_KEY_PIXEL_DENSITY);
-        if (pixelDensity == null) {
-            pixelDensity = PixelDensity.createFromPixelsPerInch(72, 72);
-        }
+    public void writeImage(final BufferedImage src, final OutputStream os, final Map<String, Object> params)
+            throws ImageWriteException, IOException {
+        final ImageWriteParameters parameters = new ImageWriteParameters(params);
 
         final int width = src.getWidth();
         final int height = src.getHeight();
+        final byte[][] blocks = parameters.createEncoder(src, width, height).encode(parameters.executor);
 
-        int compression = TIFF_COMPRESSION_LZW; // LZW is default
-        int stripSizeInBits = 64000; // the default from legacy implementation
-        if (params.containsKey(ImagingConstants.PARAM_KEY_COMPRESSION)) {
-            final Object value = params.get(ImagingConstants.PARAM_KEY_COMPRESSION);
-            if (value != null) {
-                if (!(value instanceof Number)) {
-                    throw new ImageWriteException(
-                            "Invalid compression parameter, must be numeric: "
-                                    + value);
-                }
-                compression = ((Number) value).intValue();
-            }
-            params.remove(ImagingConstants.PARAM_KEY_COMPRESSION);
-            if (params.containsKey(PARAM_KEY_LZW_COMPRESSION_BLOCK_SIZE)) {
-                final Object bValue =
-                    params.get(PARAM_KEY_LZW_COMPRESSION_BLOCK_SIZE);
-                if (!(bValue instanceof Number)) {
-                    throw new ImageWriteException(
-                            "Invalid compression block-size parameter: " + value);
-                }
-                final int stripSizeInBytes = ((Number) bValue).intValue();
-                if (stripSizeInBytes < 8000) {
-                    throw new ImageWriteException(
-                            "Block size parameter " + stripSizeInBytes
-                            + " is less than 8000 minimum");
-                }
-                stripSizeInBits = stripSizeInBytes*8;
-                params.remove(PARAM_KEY_LZW_COMPRESSION_BLOCK_SIZE);
-            }
-        }
-        final HashMap<String, Object> rawParams = new HashMap<>(params);
-        params.remove(PARAM_KEY_T4_OPTIONS);
-        params.remove(PARAM_KEY_T6_OPTIONS);
-        if (!params.isEmpty()) {
-            final Object firstKey = params.keySet().iterator().next();
-            throw new ImageWriteException("Unknown parameter: " + firstKey);
+        final TiffElement.DataElement[] imageData = new TiffElement.DataElement[blocks.length];
+        for (int i = 0; i < blocks.length; i++) {
+            imageData[i] = new TiffImageData.Data(0, blocks[i].length, blocks[i]);
         }
 
-        int samplesPerPixel;
-        int bitsPerSample;
-        int photometricInterpretation;
-        if (compression == TIFF_COMPRESSION_CCITT_1D
-                || compression == TIFF_COMPRESSION_CCITT_GROUP_3
-                || compression == TIFF_COMPRESSION_CCITT_GROUP_4) {
-            samplesPerPixel = 1;
-            bitsPerSample = 1;
-            photometricInterpretation = 0;
+        final TiffImageData tiffImageData;
+        if (parameters.isTiled()) {
+            tiffImageData = new TiffImageData.Tiles(imageData, parameters.tileWidth, parameters.tileLength);
         } else {
-            samplesPerPixel = 3;
-            bitsPerSample = 8;
-            photometricInterpretation = 2;
+            tiffImageData = new TiffImageData.Strips(imageData, parameters.getRowsPerStrip(width));
         }
+        final TiffOutputSet outputSet = parameters.createOutputSet(byteOrder, width, height, tiffImageData);
 
-        int rowsPerStrip = stripSizeInBits / (width * bitsPerSample * samplesPerPixel);
-        rowsPerStrip = Math.max(1, rowsPerStrip); // must have at least one.
-
-        final byte[][] strips = getStrips(src, samplesPerPixel, bitsPerSample, rowsPerStrip);
-
-        // System.out.println("width: " + width);
-        // System.out.println("height: " + height);
-        // System.out.println("fRowsPerStrip: " + fRowsPerStrip);
-        // System.out.println("fSamplesPerPixel: " + fSamplesPerPixel);
-        // System.out.println("stripCount: " + stripCount);
-
-        int t4Options = 0;
-        int t6Options = 0;
-        if (compression == TIFF_COMPRESSION_CCITT_1D) {
-            for (int i = 0; i < strips.length; i++) {
-                strips[i] = T4AndT6Compression.compressModifiedHuffman(
-                        strips[i], width, strips[i].length / ((width + 7) / 8));
-            }
-        } else if (compression == TIFF_COMPRESSION_CCITT_GROUP_3) {
-            final Integer t4Parameter = (Integer) rawParams.get(PARAM_KEY_T4_OPTIONS);
-            if (t4Parameter != null) {
-                t4Options = t4Parameter.intValue();
-            }
-            t4Options &= 0x7;
-            final boolean is2D = (t4Options & 1) != 0;
-            final boolean usesUncompressedMode = (t4Options & 2) != 0;
-            if (usesUncompressedMode) {
-                throw new ImageWriteException(
-                        "T.4 compression with the uncompressed mode extension is not yet supported");
-            }
-            final boolean hasFillBitsBeforeEOL = (t4Options & 4) != 0;
-            for (int i = 0; i < strips.length; i++) {
-                if (is2D) {
-                    strips[i] = T4AndT6Compression.compressT4_2D(strips[i],
-                            width, strips[i].length / ((width + 7) / 8),
-                            hasFillBitsBeforeEOL, rowsPerStrip);
-                } else {
-                    strips[i] = T4AndT6Compression.compressT4_1D(strips[i],
-                            width, strips[i].length / ((width + 7) / 8),
-                            hasFillBitsBeforeEOL);
-                }
-            }
-        } else if (compression == TIFF_COMPRESSION_CCITT_GROUP_4) {
-            final Integer t6Parameter = (Integer) rawParams.get(PARAM_KEY_T6_OPTIONS);
-            if (t6Parameter != null) {
-                t6Options = t6Parameter.intValue();
-            }
-            t6Options &= 0x4;
-            final boolean usesUncompressedMode = (t6Options & TIFF_FLAG_T6_OPTIONS_UNCOMPRESSED_MODE) != 0;
-            if (usesUncompressedMode) {
-                throw new ImageWriteException(
-                        "T.6 compression with the uncompressed mode extension is not yet supported");
-            }
-            for (int i = 0; i < strips.length; i++) {
-                strips[i] = T4AndT6Compression.compressT6(strips[i], width,
-                        strips[i].length / ((width + 7) / 8));
-            }
-        } else if (compression == TIFF_COMPRESSION_PACKBITS) {
-            for (int i = 0; i < strips.length; i++) {
-                strips[i] = new PackBits().compress(strips[i]);
-            }
-        } else if (compression == TIFF_COMPRESSION_LZW) {
-            for (int i = 0; i < strips.length; i++) {
-                final byte[] uncompressed = strips[i];
-
-                final int LZW_MINIMUM_CODE_SIZE = 8;
-
-                final MyLzwCompressor compressor = new MyLzwCompressor(
-                        LZW_MINIMUM_CODE_SIZE, ByteOrder.BIG_ENDIAN, true);
-                final byte[] compressed = compressor.compress(uncompressed);
-
-                strips[i] = compressed;
-            }
-        } else if (compression == TIFF_COMPRESSION_DEFLATE_ADOBE) {
-            for (int i = 0; i < strips.length; i++) {
-                strips[i] = ZlibDeflate.compress(strips[i]);
-            }
-        } else if (compression == TIFF_COMPRESSION_UNCOMPRESSED) {
-            // do nothing.
+        if (parameters.bigTiff != null && parameters.bigTiff != bigTiff) {
+            new TiffImageWriterLossy(byteOrder, parameters.bigTiff).write(os, outputSet);
         } else {
-            throw new ImageWriteException(
-                    "Invalid compression parameter (Only CCITT 1D/Group 3/Group 4, LZW, Packbits, Zlib Deflate and uncompressed supported).");
-        }
-
-        final TiffElement.DataElement[] imageData = new TiffElement.DataElement[strips.length];
-        for (int i = 0; i < strips.length; i++) {
-            imageData[i] = new TiffImageData.Data(0, strips[i].length, strips[i]);
-        }
-
-        final TiffOutputSet outputSet = new TiffOutputSet(byteOrder);
-        final TiffOutputDirectory directory = outputSet.addRootDirectory();
-
-        // WriteField stripOffsetsField;
-
-        {
-
-            directory.add(TiffTagConstants.TIFF_TAG_IMAGE_WIDTH, width);
-            directory.add(TiffTagConstants.TIFF_TAG_IMAGE_LENGTH, height);
-            directory.add(TiffTagConstants.TIFF_TAG_PHOTOMETRIC_INTERPRETATION,
-                    (short) photometricInterpretation);
-            directory.add(TiffTagConstants.TIFF_TAG_COMPRESSION,
-                    (short) compression);
-            directory.add(TiffTagConstants.TIFF_TAG_SAMPLES_PER_PIXEL,
-                    (short) samplesPerPixel);
-
-            if (samplesPerPixel == 3) {
-                directory.add(TiffTagConstants.TIFF_TAG_BITS_PER_SAMPLE,
-                        (short) bitsPerSample, (short) bitsPerSample,
-                        (short) bitsPerSample);
-            } else if (samplesPerPixel == 1) {
-                directory.add(TiffTagConstants.TIFF_TAG_BITS_PER_SAMPLE,
-                        (short) bitsPerSample);
-            }
-            // {
-            // stripOffsetsField = new WriteField(TIFF_TAG_STRIP_OFFSETS,
-            // FIELD_TYPE_LONG, stripOffsets.length, FIELD_TYPE_LONG
-            // .writeData(stripOffsets, byteOrder));
-            // directory.add(stripOffsetsField);
-            // }
-            // {
-            // WriteField field = new WriteField(TIFF_TAG_STRIP_BYTE_COUNTS,
-            // FIELD_TYPE_LONG, stripByteCounts.length,
-            // FIELD_TYPE_LONG.writeData(stripByteCounts,
-            // WRITE_BYTE_ORDER));
-            // directory.add(field);
-            // }
-            directory.add(TiffTagConstants.TIFF_TAG_ROWS_PER_STRIP,
-                    rowsPerStrip);
-            if (pixelDensity.isUnitless()) {
-                directory.add(TiffTagConstants.TIFF_TAG_RESOLUTION_UNIT,
-                        (short) 0);
-                directory.add(TiffTagConstants.TIFF_TAG_XRESOLUTION,
-                        RationalNumber.valueOf(pixelDensity.getRawHorizontalDensity()));
-                directory.add(TiffTagConstants.TIFF_TAG_YRESOLUTION,
-                        RationalNumber.valueOf(pixelDensity.getRawVerticalDensity()));
-            } else if (pixelDensity.isInInches()) {
-                directory.add(TiffTagConstants.TIFF_TAG_RESOLUTION_UNIT,
-                        (short) 2);
-                directory.add(TiffTagConstants.TIFF_TAG_XRESOLUTION,
-                        RationalNumber.valueOf(pixelDensity.horizontalDensityInches()));
-                directory.add(TiffTagConstants.TIFF_TAG_YRESOLUTION,
-                        RationalNumber.valueOf(pixelDensity.verticalDensityInches()));
-            } else {
-                directory.add(TiffTagConstants.TIFF_TAG_RESOLUTION_UNIT,
-                        (short) 1);
-                directory.add(TiffTagConstants.TIFF_TAG_XRESOLUTION,
-                        RationalNumber.valueOf(pixelDensity.horizontalDensityCentimetres()));
-                directory.add(TiffTagConstants.TIFF_TAG_YRESOLUTION,
-                        RationalNumber.valueOf(pixelDensity.verticalDensityCentimetres()));
-            }
-            if (t4Options != 0) {
-                directory.add(TiffTagConstants.TIFF_TAG_T4_OPTIONS, t4Options);
-            }
-            if (t6Options != 0) {
-                directory.add(TiffTagConstants.TIFF_TAG_T6_OPTIONS, t6Options);
-            }
-
-            if (null != xmpXml) {
-                final byte[] xmpXmlBytes = xmpXml.getBytes(StandardCharsets.UTF_8);
-                directory.add(TiffTagConstants.TIFF_TAG_XMP, xmpXmlBytes);
-            }
-
+            write(os, outputSet);
         }
-
-        final TiffImageData tiffImageData = new TiffImageData.Strips(imageData,
-                rowsPerStrip);
-        directory.setTiffImageData(tiffImageData);
-
-        if (userExif != null) {
-            combineUserExifIntoFinalExif(userExif, outputSet);
-        }
-
-        write(os, outputSet);
-    }
-
-    private void combineUserExifIntoFinalExif(final TiffOutputSet userExif,
-            final TiffOutputSet outputSet) throws ImageWriteException {
-        final List<TiffOutputDirectory> outputDirectories = outputSet.getDirectories();
-        Collections.sort(outputDirectories, TiffOutputDirectory.COMPARATOR);
-        for (final TiffOutputDirectory userDirectory : userExif.getDirectories()) {
-            final int location = Collections.binarySearch(outputDirectories,
-                    userDirectory, TiffOutputDirectory.COMPARATOR);
-            if (location < 0) {
-                outputSet.addDirectory(userDirectory);
-            } else {
-                final TiffOutputDirectory outputDirectory = outputDirectories.get(location);
-                for (final TiffOutputField userField : userDirectory.getFields()) {
-                    if (outputDirectory.findField(userField.tagInfo) == null) {
-                        outputDirectory.add(userField);
-                    }
-                }
-            }
-        }
-    }
-
-    private byte[][] getStrips(final BufferedImage src, final int samplesPerPixel,
-            final int bitsPerSample, final int rowsPerStrip) {
-        final int width = src.getWidth();
-        final int height = src.getHeight();
-
-        final int stripCount = (height + rowsPerStrip - 1) / rowsPerStrip;
-
-        byte[][] result;
-        { // Write Strips
-            result = new byte[stripCount][];
-
-            int remainingRows = height;
-
-            for (int i = 0; i < stripCount; i++) {
-                final int rowsInStrip = Math.min(rowsPerStrip, remainingRows);
-                remainingRows -= rowsInStrip;
-
-                final int bitsInRow = bitsPerSample * samplesPerPixel * width;
-                final int bytesPerRow = (bitsInRow + 7) / 8;
-                final int bytesInStrip = rowsInStrip * bytesPerRow;
-
-                final byte[] uncompressed = new byte[bytesInStrip];
-
-                int counter = 0;
-                int y = i * rowsPerStrip;
-                final int stop = i * rowsPerStrip + rowsPerStrip;
-
-                for (; (y < height) && (y < stop); y++) {
-                    int bitCache = 0;
-                    int bitsInCache = 0;
-                    for (int x = 0; x < width; x++) {
-                        final int rgb = src.getRGB(x, y);
-                        final int red = 0xff & (rgb >> 16);
-                        final int green = 0xff & (rgb >> 8);
-                        final int blue = 0xff & (rgb >> 0);
-
-                        if (bitsPerSample == 1) {
-                            int sample = (red + green + blue) / 3;
-                            if (sample > 127) {
-                                sample = 0;
-                            } else {
-                                sample = 1;
-                            }
-                            bitCache <<= 1;
-                            bitCache |= sample;
-                            bitsInCache++;
-                            if (bitsInCache == 8) {
-                                uncompressed[counter++] = (byte) bitCache;
-                                bitCache = 0;
-                                bitsInCache = 0;
-                            }
-                        } else {
-                            uncompressed[counter++] = (byte) red;
-                            uncompressed[counter++] = (byte) green;
-                            uncompressed[counter++] = (byte) blue;
-                        }
-                    }
-                    if (bitsInCache > 0) {
-                        bitCache <<= (8 - bitsInCache);
-                        uncompressed[counter++] = (byte) bitCache;
-                    }
-                }
-
-                result[i] = uncompressed;
-            }
-
-        }
-
-        return result;
     }
 
     protected void writeImageFileHeader(final BinaryOutputStream bos)
             throws IOException {
-        final int offsetToFirstIFD = TIFF_HEADER_SIZE;
+        final int offsetToFirstIFD = bigTiff ? TIFF_BIG_HEADER_SIZE : TIFF_HEADER_SIZE;
 
         writeImageFileHeader(bos, offsetToFirstIFD);
     }
@@ -623,9 +314,16 @@ public abstract class TiffImageWriterBase {
             bos.write('M');
         }
 
-        bos.write2Bytes(42); // tiffVersion
+        if (bigTiff) {
+            bos.write2Bytes(TIFF_VERSION_BIG);
+            bos.write2Bytes(8); // offset size
+            bos.write2Bytes(0); // reserved
+            bos.write8Bytes(offsetToFirstIFD);
+        } else {
+            bos.write2Bytes(TIFF_VERSION); // tiffVersion
 
-        bos.write4Bytes((int) offsetToFirstIFD);
+            bos.write4Bytes((int) offsetToFirstIFD);
+        }
     }
 
 }
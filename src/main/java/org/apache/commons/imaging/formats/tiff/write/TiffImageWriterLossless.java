@@ -17,6 +17,7 @@
 package org.apache.commons.imaging.formats.tiff.write;
 
 import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.TIFF_HEADER_SIZE;
+import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.TIFF_VERSION_BIG;
 
 import java.io.IOException;
 import java.io.OutputStream;
@@ -33,6 +34,7 @@ import org.apache.commons.imaging.FormatCompliance;
 import org.apache.commons.imaging.ImageReadException;
 import org.apache.commons.imaging.ImageWriteException;
 import org.apache.commons.imaging.common.BinaryOutputStream;
+import org.apache.commons.imaging.common.ByteConversions;
 import org.apache.commons.imaging.common.bytesource.ByteSource;
 import org.apache.commons.imaging.common.bytesource.ByteSourceArray;
 import org.apache.commons.imaging.formats.tiff.JpegImageData;
@@ -134,6 +136,13 @@ public class TiffImageWriterLossless extends TiffImageWriterBase {
     @Override
     public void write(final OutputStream os, final TiffOutputSet outputSet)
             throws IOException, ImageWriteException {
+        if (bigTiff || isBigTiff(exifBytes)) {
+            // only the gaps of a classic TIFF are reused, the directories
+            // of a BigTIFF are rewritten
+            new TiffImageWriterLossy(byteOrder, true).write(os, outputSet);
+            return;
+        }
+
         // There are some fields whose address in the file must not change,
         // unless of course their value is changed.
         final Map<Integer, TiffOutputField> frozenFields = new HashMap<>();
@@ -181,6 +190,14 @@ public class TiffImageWriterLossless extends TiffImageWriterBase {
 
     }
 
+    private static boolean isBigTiff(final byte[] bytes) {
+        if (bytes.length < TIFF_HEADER_SIZE) {
+            return false;
+        }
+        final ByteOrder order = bytes[0] == 'M' ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN;
+        return ByteConversions.toUInt16(bytes, 2, order) == TIFF_VERSION_BIG;
+    }
+
     private long updateOffsetsStep(final List<TiffElement> analysis,
             final List<TiffOutputItem> outputItems) {
         // items we cannot fit into a gap, we shall append to tail.
@@ -16,6 +16,7 @@
  */
 package org.apache.commons.imaging.formats.tiff.write;
 
+import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.TIFF_BIG_HEADER_SIZE;
 import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.TIFF_HEADER_SIZE;
 
 import java.io.IOException;
@@ -36,6 +37,10 @@ public class TiffImageWriterLossy extends TiffImageWriterBase {
         super(byteOrder);
     }
 
+    public TiffImageWriterLossy(final ByteOrder byteOrder, final boolean bigTiff) {
+        super(byteOrder, bigTiff);
+    }
+
     @Override
     public void write(final OutputStream os, final TiffOutputSet outputSet)
             throws IOException, ImageWriteException {
@@ -43,7 +48,7 @@ public class TiffImageWriterLossy extends TiffImageWriterBase {
 
         final List<TiffOutputItem> outputItems = outputSet.getOutputItems(outputSummary);
 
-        updateOffsetsStep(outputItems);
+        updateOffsetsStep(outputItems, bigTiff ? TIFF_BIG_HEADER_SIZE : TIFF_HEADER_SIZE);
 
         outputSummary.updateOffsets(byteOrder);
 
@@ -53,9 +58,12 @@ public class TiffImageWriterLossy extends TiffImageWriterBase {
         writeStep(bos, outputItems);
     }
 
-    private void updateOffsetsStep(final List<TiffOutputItem> outputItems) {
-        int offset = TIFF_HEADER_SIZE;
-
+    /**
+     * Lays out the items one after the other.
+     *
+     * @param offset the offset of the first item
+     */
+    void updateOffsetsStep(final List<TiffOutputItem> outputItems, long offset) {
         for (final TiffOutputItem outputItem : outputItems) {
             outputItem.setOffset(offset);
             final int itemLength = outputItem.getItemLength();
@@ -71,6 +79,15 @@ public class TiffImageWriterLossy extends TiffImageWriterBase {
             ImageWriteException {
         writeImageFileHeader(bos);
 
+        writeItems(bos, outputItems);
+    }
+
+    /**
+     * Writes the items in the order they were laid out by
+     * {@link #updateOffsetsStep(List, long)}.
+     */
+    void writeItems(final BinaryOutputStream bos, final List<TiffOutputItem> outputItems)
+            throws IOException, ImageWriteException {
         for (final TiffOutputItem outputItem : outputItems) {
             outputItem.writeItem(bos);
 
@@ -81,6 +98,5 @@ public class TiffImageWriterLossy extends TiffImageWriterBase {
                 bos.write(0);
             }
         }
-
     }
 }
@@ -0,0 +1,399 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.formats.tiff.write;
+
+import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.DEFAULT_TIFF_BYTE_ORDER;
+import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.TIFF_BIG_HEADER_SIZE;
+import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.TIFF_HEADER_SIZE;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.util.ArrayDeque;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.imaging.ImageWriteException;
+import org.apache.commons.imaging.common.BinaryOutputStream;
+import org.apache.commons.imaging.common.PendingTasks;
+import org.apache.commons.imaging.common.RgbRowReader;
+import org.apache.commons.imaging.formats.tiff.TiffElement;
+import org.apache.commons.imaging.formats.tiff.TiffImageData;
+
+/**
+ * Writes an image to a TIFF file a few rows or a tile at a time, so images
+ * much larger than the heap can be written. Each strip or tile is
+ * compressed and written to the file as soon as its pixels are complete.
+ * The directory, with the offsets and byte counts of the strips or tiles,
+ * is written at the end of the file by {@link #finish()}, which then fills
+ * in the offset of the directory in the header.
+ *
+ * <p>Only the strip, or the row of tiles, that is being filled is held in
+ * memory, and, if the strips or tiles are compressed by an executor, the
+ * few that are being compressed.</p>
+ *
+ * <p>The parameters are those of
+ * {@link TiffImageWriterBase#writeImage(BufferedImage, java.io.OutputStream, Map)},
+ * and the file is the same as the one that writes for the same image and
+ * parameters, except for where the directory and its values are.</p>
+ *
+ * <pre>
+ * try (TiffImageWriterStreaming writer = new TiffImageWriterStreaming(file, width, height, params)) {
+ *     for (int y = 0; y &lt; height; y += rows) {
+ *         writer.writeRows(renderRows(y, rows), 0, rows);
+ *     }
+ *     writer.finish();
+ * }
+ * </pre>
+ */
+public final class TiffImageWriterStreaming implements Closeable {
+    private static final byte[] PADDING = new byte[3];
+    // the image data is in the file, not in the elements
+    private static final byte[] NO_DATA = new byte[0];
+
+    private final RandomAccessFile file;
+    private final ByteOrder byteOrder;
+    private final TiffImageWriterLossy writer;
+    private final int width;
+    private final int height;
+    private final ImageWriteParameters parameters;
+    private final ImageDataEncoder encoder;
+    private final int blockWidth;
+    private final int blockLength;
+    private final long[] offsets;
+    private final int[] byteCounts;
+    private final BitSet blocksDone;
+    private final PendingTasks<byte[], ImageWriteException> pending;
+    // the indices of the pending strips or tiles, in the same order
+    private final ArrayDeque<Integer> pendingIndices = new ArrayDeque<>();
+    // where the next strip or tile is written
+    private long position;
+    // the rows passed to writeRows(), and the image they're copied into
+    private int rowsWritten;
+    private BufferedImage band;
+    // the last tile passed to writeTile(), if the tiles aren't compressed
+    // concurrently
+    private BufferedImage tile;
+    private boolean finished;
+
+    /**
+     * Creates a TIFF file in the default byte order, and writes its
+     * header.
+     *
+     * @param file   the file, which is overwritten if it exists
+     * @param width  the width of the image
+     * @param height the height of the image
+     * @param params the parameters of the image, as for
+     *               {@link TiffImageWriterBase#writeImage(BufferedImage, java.io.OutputStream, Map)}
+     * @throws ImageWriteException if the size or parameters are invalid
+     * @throws IOException         if the file can't be written
+     */
+    public TiffImageWriterStreaming(final File file, final int width, final int height,
+            final Map<String, Object> params) throws ImageWriteException, IOException {
+        this(file, DEFAULT_TIFF_BYTE_ORDER, width, height, params);
+    }
+
+    /**
+     * Creates a TIFF file, and writes its header.
+     *
+     * @param file      the file, which is overwritten if it exists
+     * @param byteOrder the byte order of the file
+     * @param width     the width of the image
+     * @param height    the height of the image
+     * @param params    the parameters of the image, as for
+     *                  {@link TiffImageWriterBase#writeImage(BufferedImage, java.io.OutputStream, Map)}
+     * @throws ImageWriteException if the size or parameters are invalid
+     * @throws IOException         if the file can't be written
+     */
+    public TiffImageWriterStreaming(final File file, final ByteOrder byteOrder, final int width,
+            final int height, final Map<String, Object> params) throws ImageWriteException, IOException {
+        if (width <= 0 || height <= 0) {
+            throw new ImageWriteException("Invalid image size: " + width + "x" + height);
+        }
+        this.parameters = new ImageWriteParameters(params);
+        this.byteOrder = byteOrder;
+        this.writer = new TiffImageWriterLossy(byteOrder,
+                parameters.bigTiff != null && parameters.bigTiff);
+        this.width = width;
+        this.height = height;
+        this.encoder = parameters.createEncoder(null, width, height);
+        if (parameters.isTiled()) {
+            blockWidth = parameters.tileWidth;
+            blockLength = parameters.tileLength;
+        } else {
+            blockWidth = width;
+            blockLength = parameters.getRowsPerStrip(width);
+        }
+        offsets = new long[encoder.getBlockCount()];
+        byteCounts = new int[encoder.getBlockCount()];
+        blocksDone = new BitSet(encoder.getBlockCount());
+        pending = PendingTasks.forWriting(parameters.executor, "encoding image data");
+
+        this.file = new RandomAccessFile(file, "rw");
+        try {
+            this.file.setLength(0);
+            // the offset of the directory is filled in by finish()
+            writeHeader(0);
+            position = writer.bigTiff ? TIFF_BIG_HEADER_SIZE : TIFF_HEADER_SIZE;
+        } catch (final IOException e) {
+            this.file.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Writes the next rows of the image. The rows are written from the top
+     * of the image down, and can be passed any number at a time.
+     *
+     * @param argb   the ARGB values of the pixels of the rows, one row
+     *               after the other, each as wide as the image
+     * @param offset the index of the first pixel of the first row in
+     *               {@code argb}
+     * @param rows   the number of rows
+     * @throws ImageWriteException if there are more rows than the image
+     *                             has, tiles have been written, or
+     *                             compressing them fails
+     * @throws IOException         if the file can't be written
+     */
+    public void writeRows(final int[] argb, final int offset, final int rows)
+            throws ImageWriteException, IOException {
+        checkNotFinished();
+        if (rows < 0 || rowsWritten + rows > height) {
+            throw new ImageWriteException("The image only has " + height + " rows, "
+                    + rowsWritten + " of which are already written");
+        }
+        if (tile != null) {
+            throw new ImageWriteException("Rows can't be written after tiles");
+        }
+
+        for (int row = 0; row < rows; row++) {
+            if (band == null) {
+                band = new BufferedImage(width, blockLength, BufferedImage.TYPE_INT_ARGB);
+            }
+            final int bandRow = rowsWritten % blockLength;
+            System.arraycopy(argb, offset + row * width, getData(band), bandRow * width, width);
+            rowsWritten++;
+            if (bandRow == blockLength - 1 || rowsWritten == height) {
+                // a strip, or a row of tiles, is complete
+                final int bandY0 = rowsWritten - 1 - bandRow;
+                final RgbRowReader reader = new RgbRowReader(band);
+                for (int column = 0; column < encoder.getColumns(); column++) {
+                    encode((bandY0 / blockLength) * encoder.getColumns() + column, reader, 0, bandY0);
+                }
+                if (parameters.executor != null) {
+                    // the pending blocks still read the pixels
+                    band = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes a tile of an image written in tiles. The tiles can be written
+     * in any order.
+     *
+     * @param tileX the column of the tile, counted in tiles from the left
+     *              of the image
+     * @param tileY the row of the tile, counted in tiles from the top of
+     *              the image
+     * @param argb  the ARGB values of the pixels of the tile, row by row,
+     *              with as many as the tile is wide in each row, even for
+     *              the tiles on the right and bottom of the image, whose
+     *              pixels past the image are ignored
+     * @throws ImageWriteException if the image isn't written in tiles, the
+     *                             tile doesn't exist or was already
+     *                             written, or compressing it fails
+     * @throws IOException         if the file can't be written
+     */
+    public void writeTile(final int tileX, final int tileY, final int[] argb)
+            throws ImageWriteException, IOException {
+        checkNotFinished();
+        if (!parameters.isTiled()) {
+            throw new ImageWriteException("The image is written in strips, not tiles");
+        }
+        if (rowsWritten > 0) {
+            throw new ImageWriteException("Tiles can't be written after rows");
+        }
+        final int columns = encoder.getColumns();
+        final int index = tileY * columns + tileX;
+        if (tileX < 0 || tileX >= columns || tileY < 0 || index >= encoder.getBlockCount()) {
+            throw new ImageWriteException("Invalid tile: " + tileX + ", " + tileY);
+        }
+        if (isWritten(index)) {
+            throw new ImageWriteException("Tile " + tileX + ", " + tileY + " was already written");
+        }
+        if (argb.length < blockWidth * blockLength) {
+            throw new ImageWriteException("A tile has " + (blockWidth * blockLength)
+                    + " pixels, not " + argb.length);
+        }
+
+        if (tile == null || parameters.executor != null) {
+            tile = new BufferedImage(blockWidth, blockLength, BufferedImage.TYPE_INT_ARGB);
+        }
+        System.arraycopy(argb, 0, getData(tile), 0, blockWidth * blockLength);
+        encode(index, new RgbRowReader(tile), tileX * blockWidth, tileY * blockLength);
+    }
+
+    /**
+     * Writes the directory of the image, once all its rows or tiles are
+     * written, which completes the file.
+     *
+     * @throws ImageWriteException if rows or tiles are missing, or
+     *                             compressing them fails
+     * @throws IOException         if the file can't be written
+     */
+    public void finish() throws ImageWriteException, IOException {
+        checkNotFinished();
+        while (!pending.isEmpty()) {
+            writePending();
+        }
+        if (blocksDone.cardinality() != offsets.length) {
+            if (parameters.isTiled() && rowsWritten == 0) {
+                throw new ImageWriteException("Only " + blocksDone.cardinality() + " of "
+                        + offsets.length + " tiles were written");
+            }
+            throw new ImageWriteException("Only " + rowsWritten + " of " + height
+                    + " rows were written");
+        }
+        finished = true;
+
+        final TiffElement.DataElement[] imageData = new TiffElement.DataElement[offsets.length];
+        for (int i = 0; i < offsets.length; i++) {
+            imageData[i] = new TiffImageData.Data(offsets[i], byteCounts[i], NO_DATA);
+        }
+        final TiffImageData tiffImageData;
+        if (parameters.isTiled()) {
+            tiffImageData = new TiffImageData.Tiles(imageData, blockWidth, blockLength);
+        } else {
+            tiffImageData = new TiffImageData.Strips(imageData, blockLength);
+        }
+        final TiffOutputSet outputSet = parameters.createOutputSet(byteOrder, width, height, null);
+        outputSet.getRootDirectory().setWrittenTiffImageData(tiffImageData);
+
+        // the directory and its values follow the image data
+        final TiffOutputSummary outputSummary = writer.validateDirectories(outputSet);
+        final List<TiffOutputItem> outputItems = outputSet.getOutputItems(outputSummary);
+        writer.updateOffsetsStep(outputItems, position);
+        if (!writer.bigTiff) {
+            for (final TiffOutputItem outputItem : outputItems) {
+                checkOffset(outputItem.getOffset() + outputItem.getItemLength());
+            }
+        }
+        outputSummary.updateOffsets(byteOrder);
+
+        file.seek(position);
+        final BinaryOutputStream bos = new BinaryOutputStream(
+                new BufferedOutputStream(Channels.newOutputStream(file.getChannel())), byteOrder);
+        writer.writeItems(bos, outputItems);
+        bos.flush();
+
+        file.seek(0);
+        writeHeader(outputSet.getRootDirectory().getOffset());
+    }
+
+    /**
+     * Closes the file. If {@link #finish()} wasn't called, the file is
+     * incomplete.
+     *
+     * @throws IOException if the file can't be closed
+     */
+    @Override
+    public void close() throws IOException {
+        pending.cancel();
+        pendingIndices.clear();
+        file.close();
+    }
+
+    private void checkNotFinished() throws ImageWriteException {
+        if (finished) {
+            throw new ImageWriteException("The image is already finished");
+        }
+    }
+
+    private boolean isWritten(final int index) {
+        if (blocksDone.get(index)) {
+            return true;
+        }
+        return pendingIndices.contains(index);
+    }
+
+    private void checkOffset(final long offset) throws ImageWriteException {
+        if (offset > 0xFFFFffffL) {
+            throw new ImageWriteException(
+                    "The image is too large for a TIFF, use the TIFF_BIG_TIFF parameter to write a BigTIFF");
+        }
+    }
+
+    private static int[] getData(final BufferedImage image) {
+        return ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+    }
+
+    private void encode(final int index, final RgbRowReader reader, final int originX, final int originY)
+            throws ImageWriteException, IOException {
+        if (parameters.executor == null) {
+            writeBlock(index, encoder.encode(index, reader, originX, originY));
+            return;
+        }
+
+        pending.submit(() -> encoder.encode(index, reader, originX, originY));
+        pendingIndices.add(index);
+        while (pending.isFull()) {
+            writePending();
+        }
+    }
+
+    private void writePending() throws ImageWriteException, IOException {
+        final int index = pendingIndices.remove();
+        try {
+            writeBlock(index, pending.take());
+        } finally {
+            if (pending.isEmpty()) {
+                // a block that fails cancels the ones still pending
+                pendingIndices.clear();
+            }
+        }
+    }
+
+    private void writeBlock(final int index, final byte[] block) throws ImageWriteException, IOException {
+        if (!writer.bigTiff) {
+            checkOffset(position + block.length);
+        }
+        file.write(block);
+        final int padding = TiffImageWriterBase.imageDataPaddingLength(block.length);
+        file.write(PADDING, 0, padding);
+        offsets[index] = position;
+        byteCounts[index] = block.length;
+        blocksDone.set(index);
+        position += block.length + padding;
+    }
+
+    private void writeHeader(final long offsetToFirstIFD) throws IOException {
+        final ByteArrayOutputStream header = new ByteArrayOutputStream();
+        try (BinaryOutputStream bos = new BinaryOutputStream(header, byteOrder)) {
+            writer.writeImageFileHeader(bos, offsetToFirstIFD);
+        }
+        file.write(header.toByteArray());
+    }
+}
@@ -16,6 +16,10 @@
  */
 package org.apache.commons.imaging.formats.tiff.write;
 
+import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.TIFF_BIG_DIRECTORY_FOOTER_LENGTH;
+import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.TIFF_BIG_DIRECTORY_HEADER_LENGTH;
+import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.TIFF_BIG_ENTRY_LENGTH;
+import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.TIFF_BIG_ENTRY_MAX_VALUE_LENGTH;
 import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.TIFF_DIRECTORY_FOOTER_LENGTH;
 import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.TIFF_DIRECTORY_HEADER_LENGTH;
 import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.TIFF_ENTRY_LENGTH;
@@ -85,6 +89,9 @@ public final class TiffOutputDirectory extends TiffOutputItem {
     };
     private JpegImageData jpegImageData;
     private TiffImageData tiffImageData;
+    // whether the image data is already in the file, at the offsets of its
+    // elements, as written by TiffImageWriterStreaming
+    private boolean tiffImageDataWritten;
 
     public void setNextDirectory(final TiffOutputDirectory nextDirectory) {
         this.nextDirectory = nextDirectory;
@@ -610,12 +617,28 @@ public final class TiffOutputDirectory extends TiffOutputItem {
     @Override
     public void writeItem(final BinaryOutputStream bos) throws IOException,
             ImageWriteException {
+        writeItem(bos, false, null);
+    }
+
+    /**
+     * Writes the directory to a TIFF or a BigTIFF, writing the fields the
+     * summary replaces, if there is one, in place of the fields of the
+     * directory.
+     */
+    private void writeItem(final BinaryOutputStream bos, final boolean bigTiff,
+            final TiffOutputSummary outputSummary) throws IOException, ImageWriteException {
         // Write Directory Field Count
-        bos.write2Bytes(fields.size()); // DirectoryFieldCount
+        if (bigTiff) {
+            bos.write8Bytes(fields.size());
+        } else {
+            bos.write2Bytes(fields.size()); // DirectoryFieldCount
+        }
 
         // Write Fields
         for (final TiffOutputField field : fields) {
-            field.writeField(bos);
+            final TiffOutputField writtenField = outputSummary != null
+                    ? outputSummary.getWrittenField(field) : field;
+            writtenField.writeField(bos, bigTiff);
 
             // Debug.debug("\t" + "writing field (" + field.tag + ", 0x" +
             // Integer.toHexString(field.tag) + ")", field.tagInfo);
@@ -630,7 +653,10 @@ public final class TiffOutputDirectory extends TiffOutputItem {
 
         // Write nextDirectoryOffset
         if (nextDirectoryOffset == UNDEFINED_VALUE) {
-            bos.write4Bytes(0);
+            nextDirectoryOffset = 0;
+        }
+        if (bigTiff) {
+            bos.write8Bytes(nextDirectoryOffset);
         } else {
             bos.write4Bytes((int) nextDirectoryOffset);
         }
@@ -646,6 +672,19 @@ public final class TiffOutputDirectory extends TiffOutputItem {
 
     public void setTiffImageData(final TiffImageData rawTiffImageData) {
         this.tiffImageData = rawTiffImageData;
+        this.tiffImageDataWritten = false;
+    }
+
+    /**
+     * Sets image data that has already been written, so only its offsets
+     * and byte counts are written with the directory.
+     *
+     * @param writtenTiffImageData the image data, whose elements have the
+     * offsets the strips or tiles were written at
+     */
+    void setWrittenTiffImageData(final TiffImageData writtenTiffImageData) {
+        this.tiffImageData = writtenTiffImageData;
+        this.tiffImageDataWritten = true;
     }
 
     public TiffImageData getRawTiffImageData() {
@@ -654,6 +693,14 @@ public final class TiffOutputDirectory extends TiffOutputItem {
 
     @Override
     public int getItemLength() {
+        return getItemLength(false);
+    }
+
+    private int getItemLength(final boolean bigTiff) {
+        if (bigTiff) {
+            return TIFF_BIG_ENTRY_LENGTH * fields.size() + TIFF_BIG_DIRECTORY_HEADER_LENGTH
+                    + TIFF_BIG_DIRECTORY_FOOTER_LENGTH;
+        }
         return TIFF_ENTRY_LENGTH * fields.size() + TIFF_DIRECTORY_HEADER_LENGTH
                 + TIFF_DIRECTORY_FOOTER_LENGTH;
     }
@@ -672,8 +719,11 @@ public final class TiffOutputDirectory extends TiffOutputItem {
     }
 
     protected List<TiffOutputItem> getOutputItems(
-            final TiffOutputSummary outputSummary) throws ImageWriteException {
+            final TiffOutputSummary outputSummary) throws ImageWriteException, IOException {
         // first validate directory fields.
+        final boolean bigTiff = outputSummary.bigTiff;
+        // a BigTIFF has 8 byte offsets
+        final FieldType offsetType = bigTiff ? FieldType.LONG8 : FieldType.LONG;
 
         removeFieldIfPresent(TiffTagConstants.TIFF_TAG_JPEG_INTERCHANGE_FORMAT);
         removeFieldIfPresent(TiffTagConstants.TIFF_TAG_JPEG_INTERCHANGE_FORMAT_LENGTH);
@@ -682,7 +732,8 @@ public final class TiffOutputDirectory extends TiffOutputItem {
         if (null != jpegImageData) {
             jpegOffsetField = new TiffOutputField(
                     TiffTagConstants.TIFF_TAG_JPEG_INTERCHANGE_FORMAT,
-                    FieldType.LONG, 1, new byte[TIFF_ENTRY_MAX_VALUE_LENGTH]);
+                    offsetType, 1, new byte[bigTiff ? TIFF_BIG_ENTRY_MAX_VALUE_LENGTH
+                            : TIFF_ENTRY_MAX_VALUE_LENGTH]);
             add(jpegOffsetField);
 
             final byte[] lengthValue = FieldType.LONG.writeData(
@@ -724,7 +775,7 @@ public final class TiffOutputDirectory extends TiffOutputItem {
 
             // TiffOutputField imageDataOffsetsField = null;
 
-            final int[] imageDataOffsets = new int[imageData.length];
+            final long[] imageDataOffsets = new long[imageData.length];
             final int[] imageDataByteCounts = new int[imageData.length];
             for (int i = 0; i < imageData.length; i++) {
                 imageDataByteCounts[i] = imageData[i].length;
@@ -733,10 +784,14 @@ public final class TiffOutputDirectory extends TiffOutputItem {
             // --------
 
             // Append imageData-related fields to first directory
+            final byte[] offsetsValue;
+            if (tiffImageDataWritten) {
+                offsetsValue = writeOffsets(imageData, offsetType, outputSummary.byteOrder);
+            } else {
+                offsetsValue = new byte[imageDataOffsets.length * offsetType.getSize()];
+            }
             imageDataOffsetField = new TiffOutputField(offsetTag,
-                    FieldType.LONG, imageDataOffsets.length,
-                    FieldType.LONG.writeData(imageDataOffsets,
-                            outputSummary.byteOrder));
+                    offsetType, imageDataOffsets.length, offsetsValue);
             add(imageDataOffsetField);
 
             // --------
@@ -749,21 +804,24 @@ public final class TiffOutputDirectory extends TiffOutputItem {
 
             // --------
 
-            imageDataInfo = new ImageDataOffsets(imageData, imageDataOffsets, imageDataOffsetField);
+            if (!tiffImageDataWritten) {
+                imageDataInfo = new ImageDataOffsets(imageData, imageDataOffsets, imageDataOffsetField);
+            }
         }
 
         // --------------------------------------------------------------
 
         final List<TiffOutputItem> result = new ArrayList<>();
-        result.add(this);
+        result.add(new WrittenDirectory(outputSummary));
         sortFields();
 
         for (final TiffOutputField field : fields) {
-            if (field.isLocalValue()) {
+            final TiffOutputField writtenField = outputSummary.getWrittenField(field);
+            if (writtenField.isLocalValue(bigTiff)) {
                 continue;
             }
 
-            final TiffOutputItem item = field.getSeperateValue();
+            final TiffOutputItem item = writtenField.getSeperateValue();
             result.add(item);
             // outputSummary.add(item, field);
         }
@@ -783,4 +841,62 @@ public final class TiffOutputDirectory extends TiffOutputItem {
 
         return result;
     }
+
+    /**
+     * The directory as one write writes it, with the offset size and the
+     * replaced fields of that write, so the directory itself doesn't keep
+     * them. Its offset is the offset of the directory.
+     */
+    private final class WrittenDirectory extends TiffOutputItem {
+        private final TiffOutputSummary outputSummary;
+
+        WrittenDirectory(final TiffOutputSummary outputSummary) {
+            this.outputSummary = outputSummary;
+        }
+
+        @Override
+        protected long getOffset() {
+            return TiffOutputDirectory.this.getOffset();
+        }
+
+        @Override
+        protected void setOffset(final long offset) {
+            TiffOutputDirectory.this.setOffset(offset);
+        }
+
+        @Override
+        public int getItemLength() {
+            return TiffOutputDirectory.this.getItemLength(outputSummary.bigTiff);
+        }
+
+        @Override
+        public String getItemDescription() {
+            return TiffOutputDirectory.this.getItemDescription();
+        }
+
+        @Override
+        public void writeItem(final BinaryOutputStream bos) throws IOException, ImageWriteException {
+            TiffOutputDirectory.this.writeItem(bos, outputSummary.bigTiff, outputSummary);
+        }
+    }
+
+    private static byte[] writeOffsets(final TiffElement.DataElement[] imageData,
+            final FieldType offsetType, final ByteOrder byteOrder) throws ImageWriteException {
+        if (offsetType == FieldType.LONG8) {
+            final long[] offsets = new long[imageData.length];
+            for (int i = 0; i < imageData.length; i++) {
+                offsets[i] = imageData[i].offset;
+            }
+            return FieldType.LONG8.writeData(offsets, byteOrder);
+        }
+        final int[] offsets = new int[imageData.length];
+        for (int i = 0; i < imageData.length; i++) {
+            if (imageData[i].offset > 0xFFFFffffL) {
+                throw new ImageWriteException("Image data offset " + imageData[i].offset
+                        + " is too large for a TIFF, write a BigTIFF instead");
+            }
+            offsets[i] = (int) imageData[i].offset;
+        }
+        return FieldType.LONG.writeData(offsets, byteOrder);
+    }
 }
@@ -16,6 +16,7 @@
  */
 package org.apache.commons.imaging.formats.tiff.write;
 
+import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.TIFF_BIG_ENTRY_MAX_VALUE_LENGTH;
 import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.TIFF_ENTRY_MAX_VALUE_LENGTH;
 
 import java.io.IOException;
@@ -61,27 +62,61 @@ public class TiffOutputField {
 
     protected static TiffOutputField createOffsetField(final TagInfo tagInfo,
             final ByteOrder byteOrder) throws ImageWriteException {
+        return createOffsetField(tagInfo, byteOrder, false);
+    }
+
+    /**
+     * Creates a field for the offset of a directory or value, which is
+     * filled in once the offset is known.
+     *
+     * @param bigTiff whether the offset is written to a BigTIFF, where it
+     * is an 8 byte IFD8 rather than a LONG
+     */
+    protected static TiffOutputField createOffsetField(final TagInfo tagInfo,
+            final ByteOrder byteOrder, final boolean bigTiff) throws ImageWriteException {
+        if (bigTiff) {
+            return new TiffOutputField(tagInfo, FieldType.IFD8, 1,
+                    FieldType.IFD8.writeData(0L, byteOrder));
+        }
         return new TiffOutputField(tagInfo, FieldType.LONG, 1,
                 FieldType.LONG.writeData(0, byteOrder));
     }
 
     protected void writeField(final BinaryOutputStream bos) throws IOException,
             ImageWriteException {
+        writeField(bos, false);
+    }
+
+    /**
+     * Writes the directory entry of the field.
+     *
+     * @param bigTiff whether the entry is written to a BigTIFF, where the
+     * count and the value or offset are 8 bytes long
+     */
+    protected void writeField(final BinaryOutputStream bos, final boolean bigTiff)
+            throws IOException, ImageWriteException {
         bos.write2Bytes(tag);
         bos.write2Bytes(fieldType.getType());
-        bos.write4Bytes(count);
+        if (bigTiff) {
+            bos.write8Bytes(count);
+        } else {
+            bos.write4Bytes(count);
+        }
 
-        if (isLocalValue()) {
-            if (separateValueItem != null) {
+        if (isLocalValue(bigTiff)) {
+            // values of 5 to 8 bytes have a separate value item, which
+            // isn't written to a BigTIFF
+            if (separateValueItem != null && !bigTiff) {
                 throw new ImageWriteException("Unexpected separate value item.");
             }
-            if (bytes.length > 4) {
+            final int maxLength = bigTiff ? TIFF_BIG_ENTRY_MAX_VALUE_LENGTH : TIFF_ENTRY_MAX_VALUE_LENGTH;
+            if (bytes.length > maxLength) {
                 throw new ImageWriteException(
                         "Local value has invalid length: " + bytes.length);
             }
 
             bos.write(bytes);
-            final int remainder = TIFF_ENTRY_MAX_VALUE_LENGTH - bytes.length;
+            final int remainder = maxLength - bytes.length;
             for (int i = 0; i < remainder; i++) {
                 bos.write(0);
             }
@@ -90,7 +125,11 @@ public class TiffOutputField {
                 throw new ImageWriteException("Missing separate value item.");
             }
 
-            bos.write4Bytes((int) separateValueItem.getOffset());
+            if (bigTiff) {
+                bos.write8Bytes(separateValueItem.getOffset());
+            } else {
+                bos.write4Bytes((int) separateValueItem.getOffset());
+            }
         }
     }
 
@@ -102,6 +141,14 @@ public class TiffOutputField {
         return bytes.length <= TIFF_ENTRY_MAX_VALUE_LENGTH;
     }
 
+    /**
+     * @param bigTiff whether the field is written to a BigTIFF, where
+     * values of up to 8 bytes are stored in the directory entry
+     */
+    protected final boolean isLocalValue(final boolean bigTiff) {
+        return bytes.length <= (bigTiff ? TIFF_BIG_ENTRY_MAX_VALUE_LENGTH : TIFF_ENTRY_MAX_VALUE_LENGTH);
+    }
+
     public boolean bytesEqual(final byte[] data) {
         return Arrays.equals(bytes, data);
     }
@@ -18,6 +18,7 @@ package org.apache.commons.imaging.formats.tiff.write;
 
 import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.DEFAULT_TIFF_BYTE_ORDER;
 
+import java.io.IOException;
 import java.nio.ByteOrder;
 import java.util.ArrayList;
 import java.util.List;
@@ -44,7 +45,7 @@ public final class TiffOutputSet {
     }
 
     protected List<TiffOutputItem> getOutputItems(
-            final TiffOutputSummary outputSummary) throws ImageWriteException {
+            final TiffOutputSummary outputSummary) throws ImageWriteException, IOException {
         final List<TiffOutputItem> result = new ArrayList<>();
 
         for (final TiffOutputDirectory directory : directories) {
@@ -18,23 +18,29 @@ package org.apache.commons.imaging.formats.tiff.write;
 
 import java.nio.ByteOrder;
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 
 import org.apache.commons.imaging.ImageWriteException;
 import org.apache.commons.imaging.formats.tiff.fieldtypes.FieldType;
+import org.apache.commons.imaging.formats.tiff.fieldtypes.FieldTypeLong8;
 
 class TiffOutputSummary {
     public final ByteOrder byteOrder;
+    public final boolean bigTiff;
     public final TiffOutputDirectory rootDirectory;
     public final Map<Integer, TiffOutputDirectory> directoryTypeMap;
     private final List<OffsetItem> offsetItems = new ArrayList<>();
     private final List<ImageDataOffsets> imageDataItems = new ArrayList<>();
+    // fields of the output set written as other fields, keyed by identity
+    private final Map<TiffOutputField, TiffOutputField> replacedFields = new IdentityHashMap<>();
 
-    TiffOutputSummary(final ByteOrder byteOrder,
+    TiffOutputSummary(final ByteOrder byteOrder, final boolean bigTiff,
             final TiffOutputDirectory rootDirectory,
             final Map<Integer, TiffOutputDirectory> directoryTypeMap) {
         this.byteOrder = byteOrder;
+        this.bigTiff = bigTiff;
         this.rootDirectory = rootDirectory;
         this.directoryTypeMap = directoryTypeMap;
     }
@@ -55,22 +61,60 @@ class TiffOutputSummary {
         offsetItems.add(new OffsetItem(item, itemOffsetField));
     }
 
+    /**
+     * Writes a field in place of a field of the output set, without changing
+     * the output set.
+     */
+    void replaceField(final TiffOutputField field, final TiffOutputField writtenField) {
+        replacedFields.put(field, writtenField);
+    }
+
+    /**
+     * Returns the field written for a field of the output set.
+     */
+    TiffOutputField getWrittenField(final TiffOutputField field) {
+        final TiffOutputField writtenField = replacedFields.get(field);
+        return writtenField != null ? writtenField : field;
+    }
+
     public void updateOffsets(final ByteOrder byteOrder) throws ImageWriteException {
         for (final OffsetItem offset : offsetItems) {
-            final byte[] value = FieldType.LONG.writeData(
-                    (int) offset.item.getOffset(), byteOrder);
+            final byte[] value;
+            if (offset.itemOffsetField.fieldType instanceof FieldTypeLong8) {
+                value = offset.itemOffsetField.fieldType.writeData(offset.item.getOffset(), byteOrder);
+            } else {
+                value = FieldType.LONG.writeData(toClassicOffset(offset.item.getOffset()), byteOrder);
+            }
             offset.itemOffsetField.setData(value);
         }
 
         for (final ImageDataOffsets imageDataInfo : imageDataItems) {
+            final long[] offsets = imageDataInfo.imageDataOffsets;
             for (int j = 0; j < imageDataInfo.outputItems.length; j++) {
                 final TiffOutputItem item = imageDataInfo.outputItems[j];
-                imageDataInfo.imageDataOffsets[j] = (int) item.getOffset();
+                offsets[j] = item.getOffset();
             }
 
-            imageDataInfo.imageDataOffsetsField.setData(
-                    FieldType.LONG.writeData(imageDataInfo.imageDataOffsets, byteOrder));
+            if (imageDataInfo.imageDataOffsetsField.fieldType instanceof FieldTypeLong8) {
+                imageDataInfo.imageDataOffsetsField.setData(
+                        FieldType.LONG8.writeData(offsets, byteOrder));
+            } else {
+                final int[] intOffsets = new int[offsets.length];
+                for (int j = 0; j < offsets.length; j++) {
+                    intOffsets[j] = toClassicOffset(offsets[j]);
+                }
+                imageDataInfo.imageDataOffsetsField.setData(
+                        FieldType.LONG.writeData(intOffsets, byteOrder));
+            }
+        }
+    }
+
+    private static int toClassicOffset(final long offset) throws ImageWriteException {
+        if (offset > 0xFFFFffffL) {
+            throw new ImageWriteException(
+                    "The image is too large for a TIFF, use the TIFF_BIG_TIFF parameter to write a BigTIFF");
         }
+        return (int) offset;
     }
 
     public void addTiffImageData(final ImageDataOffsets imageDataInfo) {
@@ -0,0 +1,218 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.palette;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.concurrent.Executor;
+
+import org.apache.commons.imaging.ImageWriteException;
+import org.apache.commons.imaging.common.PendingTasks;
+import org.apache.commons.imaging.common.RgbRowReader;
+
+/**
+ * Counts how often each color occurs in an image, in an open addressing
+ * hash table of ints, so counting a pixel allocates nothing. The colors
+ * are kept in the order they first occur in the image, which is also the
+ * order when the histogram is built concurrently.
+ */
+final class ColorHistogram {
+    /**
+     * The number of rows in each band of the image that is counted
+     * concurrently.
+     */
+    private static final int BAND_HEIGHT = 64;
+
+    private int[] colors = new int[64];
+    private int[] counts = new int[64];
+    private int size;
+    // the index of the color in each slot plus one, or 0 for empty slots
+    private int[] slots = new int[128];
+    private int shift = 32 - 7;
+
+    /**
+     * Counts the colors of an image on the calling thread.
+     *
+     * @param image the image
+     * @param mask  the mask applied to each ARGB value before it is counted
+     * @param max   the most colors to count
+     * @return the histogram, or null if the image has more than {@code max}
+     *         colors
+     */
+    static ColorHistogram build(final BufferedImage image, final int mask, final int max) {
+        final ColorHistogram histogram = new ColorHistogram();
+        final boolean complete = histogram.addRows(new RgbRowReader(image), image.getWidth(), 0,
+                image.getHeight(), mask, max);
+        return complete ? histogram : null;
+    }
+
+    /**
+     * Counts the colors of an image.
+     *
+     * @param image    the image
+     * @param mask     the mask applied to each ARGB value before it is
+     *                 counted
+     * @param max      the most colors to count
+     * @param executor counts bands of the image concurrently, or null to
+     *                 count them on the calling thread
+     * @return the histogram, or null if the image has more than {@code max}
+     *         colors
+     * @throws ImageWriteException if counting is interrupted or fails
+     */
+    static ColorHistogram build(final BufferedImage image, final int mask, final int max,
+            final Executor executor) throws ImageWriteException {
+        if (executor == null || image.getHeight() <= BAND_HEIGHT) {
+            return build(image, mask, max);
+        }
+
+        final RgbRowReader rowReader = new RgbRowReader(image);
+        final ColorHistogram histogram = new ColorHistogram();
+        final PendingTasks<ColorHistogram, ImageWriteException> pending =
+                PendingTasks.forWriting(executor, "counting colors");
+        try {
+            int y = 0;
+            while (y < image.getHeight() || !pending.isEmpty()) {
+                if (y < image.getHeight() && !pending.isFull()) {
+                    final int y0 = y;
+                    final int y1 = Math.min(image.getHeight(), y + BAND_HEIGHT);
+                    pending.submit(() -> {
+                        final ColorHistogram band = new ColorHistogram();
+                        return band.addRows(rowReader, image.getWidth(), y0, y1, mask, max) ? band : null;
+                    });
+                    y = y1;
+                    continue;
+                }
+                final ColorHistogram band = pending.take();
+                if (band == null || !histogram.addAll(band, max)) {
+                    return null;
+                }
+            }
+            return histogram;
+        } catch (final IOException ioException) {
+            // the bands don't do I/O
+            throw new ImageWriteException("Error counting colors", ioException);
+        } finally {
+            // stops counting the bands still pending once there are too
+            // many colors
+            pending.cancel();
+        }
+    }
+
+    private boolean addRows(final RgbRowReader rowReader, final int width, final int y0, final int y1,
+            final int mask, final int max) {
+        final int[] row = new int[width];
+        for (int y = y0; y < y1; y++) {
+            rowReader.getRgbRow(y, row);
+            int previous = 0;
+            int previousIndex = -1;
+            for (int x = 0; x < width; x++) {
+                final int argb = row[x] & mask;
+                // runs of the same color are common
+                if (argb != previous || previousIndex < 0) {
+                    previous = argb;
+                    previousIndex = indexOf(argb);
+                    if (size > max) {
+                        return false;
+                    }
+                }
+                counts[previousIndex]++;
+            }
+        }
+        return true;
+    }
+
+    private boolean addAll(final ColorHistogram other, final int max) {
+        for (int i = 0; i < other.size; i++) {
+            // indexOf may grow the arrays
+            final int index = indexOf(other.colors[i]);
+            counts[index] += other.counts[i];
+        }
+        return size <= max;
+    }
+
+    /**
+     * Finds the index of a color, adding it with a count of 0 if it
+     * isn't in the histogram yet.
+     */
+    private int indexOf(final int argb) {
+        final int mask = slots.length - 1;
+        int slot = slot(argb);
+        while (slots[slot] != 0) {
+            final int index = slots[slot] - 1;
+            if (colors[index] == argb) {
+                return index;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        if (size == colors.length) {
+            final int[] newColors = new int[size * 2];
+            final int[] newCounts = new int[size * 2];
+            System.arraycopy(colors, 0, newColors, 0, size);
+            System.arraycopy(counts, 0, newCounts, 0, size);
+            colors = newColors;
+            counts = newCounts;
+        }
+        colors[size] = argb;
+        slots[slot] = ++size;
+        if (2 * size > slots.length) {
+            rehash();
+        }
+        return size - 1;
+    }
+
+    private void rehash() {
+        slots = new int[slots.length * 2];
+        shift--;
+        final int mask = slots.length - 1;
+        for (int i = 0; i < size; i++) {
+            int slot = slot(colors[i]);
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = i + 1;
+        }
+    }
+
+    private int slot(final int argb) {
+        // Fibonacci hashing spreads out colors that differ in a few bits
+        return (argb * 0x9E3779B9) >>> shift;
+    }
+
+    /**
+     * @return the number of colors
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * @param index the index of the color, in the order colors first occur
+     * @return the ARGB value of the color
+     */
+    int getColor(final int index) {
+        return colors[index];
+    }
+
+    /**
+     * @param index the index of the color, in the order colors first occur
+     * @return how many pixels have the color
+     */
+    int getCount(final int index) {
+        return counts[index];
+    }
+}
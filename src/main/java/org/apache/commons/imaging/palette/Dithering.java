@@ -17,13 +17,44 @@
 package org.apache.commons.imaging.palette;
 
 import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.Executor;
 
 import org.apache.commons.imaging.ImageWriteException;
+import org.apache.commons.imaging.common.PendingTasks;
+import org.apache.commons.imaging.common.RgbRowReader;
 
 /**
  * Dithering algorithms to use when quantizing an image to paletted form.
+ *
+ * <p>The image is read a row at a time into an array, and written back once
+ * the row is done, rather than reading and writing pixels one at a time
+ * through the color model of the image.</p>
  */
 public final class Dithering {
+    /**
+     * The 8x8 Bayer matrix, the order in which ordered dithering turns on
+     * the pixels of each 8x8 block as the color moves between two entries of
+     * the palette.
+     */
+    private static final int[] BAYER_MATRIX = {
+         0, 32,  8, 40,  2, 34, 10, 42,
+        48, 16, 56, 24, 50, 18, 58, 26,
+        12, 44,  4, 36, 14, 46,  6, 38,
+        60, 28, 52, 20, 62, 30, 54, 22,
+         3, 35, 11, 43,  1, 33,  9, 41,
+        51, 19, 59, 27, 49, 17, 57, 25,
+        15, 47,  7, 39, 13, 45,  5, 37,
+        63, 31, 55, 23, 61, 29, 53, 21,
+    };
+
+    /**
+     * The number of rows in each band of the image that is dithered
+     * concurrently.
+     */
+    private static final int BAND_HEIGHT = 64;
+
     private Dithering() {
     }
 
@@ -37,81 +68,150 @@ public final class Dithering {
      * @throws ImageWriteException if it fails to read the palette index
      */
     public static void applyFloydSteinbergDithering(final BufferedImage image, final Palette palette) throws ImageWriteException {
-        for (int y = 0; y < image.getHeight(); y++) {
-            for (int x = 0; x < image.getWidth(); x++) {
-                final int argb = image.getRGB(x, y);
-                final int index = palette.getPaletteIndex(argb);
-                final int nextArgb = palette.getEntry(index);
-                image.setRGB(x, y, nextArgb);
-
-                final int a = (argb >> 24) & 0xff;
-                final int r = (argb >> 16) & 0xff;
-                final int g = (argb >> 8) & 0xff;
-                final int b = argb & 0xff;
-
-                final int na = (nextArgb >> 24) & 0xff;
-                final int nr = (nextArgb >> 16) & 0xff;
-                final int ng = (nextArgb >> 8) & 0xff;
-                final int nb = nextArgb & 0xff;
-
-                final int errA = a - na;
-                final int errR = r - nr;
-                final int errG = g - ng;
-                final int errB = b - nb;
-
-                if (x + 1 < image.getWidth()) {
-                    int update = adjustPixel(image.getRGB(x + 1, y), errA, errR, errG, errB, 7);
-                    image.setRGB(x + 1, y, update);
-                    if (y + 1 < image.getHeight()) {
-                        update = adjustPixel(image.getRGB(x + 1, y + 1), errA, errR, errG, errB, 1);
-                        image.setRGB(x + 1, y + 1, update);
-                    }
-                }
-                if (y + 1 < image.getHeight()) {
-                    int update = adjustPixel(image.getRGB(x, y + 1), errA, errR, errG, errB, 5);
-                    image.setRGB(x, y + 1, update);
-                    if (x - 1 >= 0) {
-                        update = adjustPixel(image.getRGB(x - 1, y + 1), errA, errR, errG, errB, 3);
-                        image.setRGB(x - 1, y + 1, update);
-                    }
-
-                }
+        applyFloydSteinbergDithering(image, palette, false);
+    }
+
+    /**
+     * Changes the given image to only use colors from the given palette,
+     * applying Floyd-Steinberg dithering in the process. Ensure that
+     * your alpha values in the image and in the palette are consistent.
+     *
+     * <p>With serpentine scanning, every other row is scanned from right to
+     * left, so that the error isn't always spread in the same direction,
+     * which shows as diagonal patterns in flat areas of the image.</p>
+     *
+     * @param image      the image to change
+     * @param palette    the palette to use
+     * @param serpentine whether to scan every other row from right to left
+     * @throws ImageWriteException if it fails to read the palette index
+     */
+    public static void applyFloydSteinbergDithering(final BufferedImage image, final Palette palette,
+            final boolean serpentine) throws ImageWriteException {
+        final int width = image.getWidth();
+        final int height = image.getHeight();
+        final RgbRowReader rowReader = new RgbRowReader(image);
+        final int[] row = new int[width];
+        // the error spread to each channel of the pixels of this row and the
+        // next, in sixteenths, with a pixel to spare at each end of the row
+        int[] errors = new int[(width + 2) * 4];
+        int[] nextErrors = new int[(width + 2) * 4];
+
+        for (int y = 0; y < height; y++) {
+            rowReader.getRgbRow(y, row);
+            final boolean reverse = serpentine && (y & 1) != 0;
+            final int step = reverse ? -1 : 1;
+            final int ahead = 4 * step;
+
+            for (int i = 0, x = reverse ? width - 1 : 0; i < width; i++, x += step) {
+                final int argb = row[x];
+                final int e = 4 * (x + 1);
+                final int a = clamp(((argb >> 24) & 0xff) + ((errors[e] + 8) >> 4));
+                final int r = clamp(((argb >> 16) & 0xff) + ((errors[e + 1] + 8) >> 4));
+                final int g = clamp(((argb >> 8) & 0xff) + ((errors[e + 2] + 8) >> 4));
+                final int b = clamp((argb & 0xff) + ((errors[e + 3] + 8) >> 4));
+
+                final int nextArgb = palette.getEntry(palette.getPaletteIndex((a << 24) | (r << 16) | (g << 8) | b));
+                row[x] = nextArgb;
+
+                final int errA = a - ((nextArgb >> 24) & 0xff);
+                final int errR = r - ((nextArgb >> 16) & 0xff);
+                final int errG = g - ((nextArgb >> 8) & 0xff);
+                final int errB = b - (nextArgb & 0xff);
+                spreadError(errors, nextErrors, e, ahead, errA);
+                spreadError(errors, nextErrors, e + 1, ahead, errR);
+                spreadError(errors, nextErrors, e + 2, ahead, errG);
+                spreadError(errors, nextErrors, e + 3, ahead, errB);
             }
+
+            image.setRGB(0, y, width, 1, row, 0, width);
+            final int[] swap = errors;
+            errors = nextErrors;
+            nextErrors = swap;
+            Arrays.fill(nextErrors, 0);
         }
     }
 
-    private static int adjustPixel(final int argb, final int errA, final int errR, final int errG, final int errB, final int mul) {
-        int a = (argb >> 24) & 0xff;
-        int r = (argb >> 16) & 0xff;
-        int g = (argb >> 8) & 0xff;
-        int b = argb & 0xff;
-
-        a += errA * mul / 16;
-        r += errR * mul / 16;
-        g += errG * mul / 16;
-        b += errB * mul / 16;
-
-        if (a < 0) {
-            a = 0;
-        } else if (a > 0xff) {
-            a = 0xff;
+    private static void spreadError(final int[] errors, final int[] nextErrors, final int e, final int ahead,
+            final int err) {
+        errors[e + ahead] += 7 * err;
+        nextErrors[e - ahead] += 3 * err;
+        nextErrors[e] += 5 * err;
+        nextErrors[e + ahead] += err;
+    }
+
+    /**
+     * Changes the given image to only use colors from the given palette,
+     * applying ordered dithering with an 8x8 Bayer matrix. The amount each
+     * pixel is offset by follows from the number of colors in the palette.
+     *
+     * <p>Unlike error diffusion, each pixel is changed on its own, so
+     * dithering an animation doesn't make the pattern crawl between frames,
+     * and bands of rows can be dithered concurrently.</p>
+     *
+     * @param image    the image to change
+     * @param palette  the palette to use
+     * @param executor runs the bands of the image concurrently, or null to
+     *                 dither the image on the calling thread
+     * @throws ImageWriteException if it fails to read the palette index
+     */
+    public static void applyOrderedDithering(final BufferedImage image, final Palette palette,
+            final Executor executor) throws ImageWriteException {
+        // the distance between the levels of each channel, if the palette
+        // spread its colors evenly over the color cube
+        final double spread = 255 / Math.max(1, Math.cbrt(palette.length()) - 1);
+        final int[] offsets = new int[BAYER_MATRIX.length];
+        for (int i = 0; i < offsets.length; i++) {
+            offsets[i] = (int) Math.round(((BAYER_MATRIX[i] + 0.5) / BAYER_MATRIX.length - 0.5) * spread);
         }
-        if (r < 0) {
-            r = 0;
-        } else if (r > 0xff) {
-            r = 0xff;
+        final RgbRowReader rowReader = new RgbRowReader(image);
+
+        if (executor == null) {
+            applyOrderedDithering(image, palette, rowReader, offsets, 0, image.getHeight());
+            return;
         }
-        if (g < 0) {
-            g = 0;
-        } else if (g > 0xff) {
-            g = 0xff;
+
+        final int bandCount = (image.getHeight() + BAND_HEIGHT - 1) / BAND_HEIGHT;
+        try {
+            PendingTasks.<Void>forWriting(executor, "dithering image").run(bandCount, band -> {
+                final int y0 = band * BAND_HEIGHT;
+                applyOrderedDithering(image, palette, rowReader, offsets, y0,
+                        Math.min(image.getHeight(), y0 + BAND_HEIGHT));
+                return null;
+            }, (band, ignored) -> {
+                // the bands are dithered in place
+            });
+        } catch (final IOException ioException) {
+            // the bands don't do I/O
+            throw new ImageWriteException("Error dithering image", ioException);
         }
-        if (b < 0) {
-            b = 0;
-        } else if (b > 0xff) {
-            b = 0xff;
+    }
+
+    private static void applyOrderedDithering(final BufferedImage image, final Palette palette,
+            final RgbRowReader rowReader, final int[] offsets, final int y0, final int y1)
+            throws ImageWriteException {
+        final int width = image.getWidth();
+        final int[] row = new int[width];
+        for (int y = y0; y < y1; y++) {
+            rowReader.getRgbRow(y, row);
+            final int matrixRow = (y & 7) << 3;
+            for (int x = 0; x < width; x++) {
+                final int argb = row[x];
+                final int offset = offsets[matrixRow | (x & 7)];
+                final int r = clamp(((argb >> 16) & 0xff) + offset);
+                final int g = clamp(((argb >> 8) & 0xff) + offset);
+                final int b = clamp((argb & 0xff) + offset);
+                row[x] = palette.getEntry(palette.getPaletteIndex((argb & 0xff000000) | (r << 16) | (g << 8) | b));
+            }
+            image.setRGB(0, y, width, 1, row, 0, width);
         }
+    }
 
-        return (a << 24) | (r << 16) | (g << 8) | b;
+    private static int clamp(final int value) {
+        if (value < 0) {
+            return 0;
+        } else if (value > 0xff) {
+            return 0xff;
+        }
+        return value;
     }
 }
@@ -21,71 +21,52 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 import org.apache.commons.imaging.ImageWriteException;
 import org.apache.commons.imaging.internal.Debug;
 
 public class MedianCutQuantizer {
     private final boolean ignoreAlpha;
+    private final Executor executor;
 
     public MedianCutQuantizer(final boolean ignoreAlpha) {
+        this(ignoreAlpha, null);
+    }
+
+    /**
+     * @param ignoreAlpha whether to treat all the colors as opaque
+     * @param executor    counts the colors of bands of the image
+     *                    concurrently, or null to count them on the
+     *                    calling thread
+     */
+    public MedianCutQuantizer(final boolean ignoreAlpha, final Executor executor) {
         this.ignoreAlpha = ignoreAlpha;
+        this.executor = executor;
     }
 
-    private Map<Integer, ColorCount> groupColors1(final BufferedImage image, final int max,
-            final int mask) {
+    private Map<Integer, ColorCount> groupColors(final ColorHistogram histogram) {
+        // putting the colors in the order they occur in the image iterates
+        // them in the same order as counting into the map pixel by pixel,
+        // which the median cut depends on to break ties
         final Map<Integer, ColorCount> colorMap = new HashMap<>();
-
-        final int width = image.getWidth();
-        final int height = image.getHeight();
-
-        final int[] row = new int[width];
-        for (int y = 0; y < height; y++) {
-            image.getRGB(0, y, width, 1, row, 0, width);
-            for (int x = 0; x < width; x++) {
-                int argb = row[x];
-
-                if (ignoreAlpha) {
-                    argb &= 0xffffff;
-                }
-                argb &= mask;
-
-                ColorCount color = colorMap.get(argb);
-                if (color == null) {
-                    color = new ColorCount(argb);
-                    colorMap.put(argb, color);
-                    if (colorMap.keySet().size() > max) {
-                        return null;
-                    }
-                }
-                color.count++;
-            }
+        for (int i = 0; i < histogram.size(); i++) {
+            final ColorCount color = new ColorCount(histogram.getColor(i));
+            color.count = histogram.getCount(i);
+            colorMap.put(color.argb, color);
         }
-
         return colorMap;
     }
 
     public Map<Integer, ColorCount> groupColors(final BufferedImage image, final int maxColors) {
-        final int max = Integer.MAX_VALUE;
-
-        for (int i = 0; i < 8; i++) {
-            int mask = 0xff & (0xff << i);
-            mask = mask | (mask << 8) | (mask << 16) | (mask << 24);
-
-            Debug.debug("mask(" + i + "): " + mask + " (" + Integer.toHexString(mask) + ")");
-
-            final Map<Integer, ColorCount> result = groupColors1(image, max, mask);
-            if (result != null) {
-                return result;
-            }
-        }
-        throw new Error("");
+        return groupColors(ColorHistogram.build(image, ignoreAlpha ? 0xffffff : 0xffffffff, Integer.MAX_VALUE));
     }
 
     public Palette process(final BufferedImage image, final int maxColors,
             final MedianCut medianCut)
             throws ImageWriteException {
-        final Map<Integer, ColorCount> colorMap = groupColors(image, maxColors);
+        final Map<Integer, ColorCount> colorMap = groupColors(ColorHistogram.build(image,
+                ignoreAlpha ? 0xffffff : 0xffffffff, Integer.MAX_VALUE, executor));
 
         final int discreteColors = colorMap.keySet().size();
         if (discreteColors <= maxColors) {
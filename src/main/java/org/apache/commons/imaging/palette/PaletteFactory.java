@@ -22,13 +22,13 @@ import java.awt.image.ColorModel;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
+import java.util.concurrent.Executor;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.apache.commons.imaging.ImageWriteException;
+import org.apache.commons.imaging.common.RgbRowReader;
 
 /**
  * Factory for creating palettes.
@@ -53,10 +53,13 @@ public class PaletteFactory {
 
         final int width = src.getWidth();
         final int height = src.getHeight();
+        final RgbRowReader rowReader = new RgbRowReader(src);
+        final int[] row = new int[width];
 
         for (int y = 0; y < height; y++) {
+            rowReader.getRgbRow(y, row);
             for (int x = 0; x < width; x++) {
-                final int argb = src.getRGB(x, y);
+                final int argb = row[x];
                 final int rggbb = 0x1fffff & argb;
                 final int highred = 0x7 & (argb >> 21);
                 final int mask = 1 << highred;
@@ -344,9 +347,12 @@ public class PaletteFactory {
         }
 
         // step 1: count frequency of colors
+        final RgbRowReader rowReader = new RgbRowReader(src);
+        final int[] row = new int[width];
         for (int y = 0; y < height; y++) {
+            rowReader.getRgbRow(y, row);
             for (int x = 0; x < width; x++) {
-                final int argb = src.getRGB(x, y);
+                final int argb = row[x];
 
                 final int index = pixelToQuantizationTableIndex(argb, precision);
 
@@ -394,7 +400,24 @@ public class PaletteFactory {
      * @throws ImageWriteException if it fails to process the palette
      */
     public Palette makeQuantizedRgbaPalette(final BufferedImage src, final boolean transparent, final int max) throws ImageWriteException {
-        return new MedianCutQuantizer(!transparent).process(src, max,
+        return makeQuantizedRgbaPalette(src, transparent, max, null);
+    }
+
+    /**
+     * Builds an inexact possibly translucent palette of at most {@code max} colors in {@code src}
+     * using the traditional Median Cut algorithm, like {@linkplain #makeQuantizedRgbaPalette(BufferedImage, boolean, int)},
+     * counting the colors of bands of the image concurrently.
+     * @param src the image whose palette to build
+     * @param transparent whether to consider the alpha values
+     * @param max the maximum number of colors the palette can contain
+     * @param executor counts the colors of bands of the image concurrently,
+     * or null to count them on the calling thread
+     * @return the palette of at most {@code max} colors
+     * @throws ImageWriteException if it fails to process the palette
+     */
+    public Palette makeQuantizedRgbaPalette(final BufferedImage src, final boolean transparent, final int max,
+            final Executor executor) throws ImageWriteException {
+        return new MedianCutQuantizer(!transparent, executor).process(src, max,
                 new LongestAxisMedianCut());
     }
 
@@ -406,27 +429,14 @@ public class PaletteFactory {
      * @return the complete palette of {@code max} or less colors, or {@code null} if more than {@code max} colors are necessary
      */
     public SimplePalette makeExactRgbPaletteSimple(final BufferedImage src, final int max) {
-        // This is not efficient for large values of max, say, max > 256;
-        final Set<Integer> rgbs = new HashSet<>();
-
-        final int width = src.getWidth();
-        final int height = src.getHeight();
-
-        for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
-                final int argb = src.getRGB(x, y);
-                final int rgb = 0xffffff & argb;
-
-                if (rgbs.add(rgb) && rgbs.size() > max) {
-                    return null;
-                }
-            }
+        final ColorHistogram histogram = ColorHistogram.build(src, 0xffffff, max);
+        if (histogram == null) {
+            return null;
         }
 
-        final int[] result = new int[rgbs.size()];
-        int next = 0;
-        for (final int rgb : rgbs) {
-            result[next++] = rgb;
+        final int[] result = new int[histogram.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = histogram.getColor(i);
         }
         Arrays.sort(result);
 
@@ -441,9 +451,12 @@ public class PaletteFactory {
             return true;
         }
 
+        final RgbRowReader rowReader = new RgbRowReader(src);
+        final int[] row = new int[width];
         for (int y = 0; y < height; y++) {
+            rowReader.getRgbRow(y, row);
             for (int x = 0; x < width; x++) {
-                final int argb = src.getRGB(x, y);
+                final int argb = row[x];
 
                 final int red = 0xff & (argb >> 16);
                 final int green = 0xff & (argb >> 8);
@@ -469,9 +482,12 @@ public class PaletteFactory {
             return false;
         }
 
+        final RgbRowReader rowReader = new RgbRowReader(src);
+        final int[] row = new int[width];
         for (int y = 0; y < height; y++) {
+            rowReader.getRgbRow(y, row);
             for (int x = 0; x < width; x++) {
-                final int argb = src.getRGB(x, y);
+                final int argb = row[x];
                 final int alpha = 0xff & (argb >> 24);
                 if (alpha < threshold) {
                     return true;
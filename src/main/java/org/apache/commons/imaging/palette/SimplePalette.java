@@ -16,22 +16,56 @@
  */
 package org.apache.commons.imaging.palette;
 
+import java.util.Arrays;
+
+/**
+ * A palette of exact colors. Colors are looked up with an open addressing
+ * hash table of the palette indices, built when the palette is created,
+ * since writers look up the index of every pixel of the image.
+ */
 public class SimplePalette implements Palette {
     private final int[] palette;
+    // the index of the palette entry for each slot, or -1 for empty slots
+    private final int[] slots;
+    private final int shift;
 
     public SimplePalette(final int[] palette) {
         this.palette = palette;
+
+        int capacity = 4;
+        while (capacity < 2 * palette.length) {
+            capacity <<= 1;
+        }
+        slots = new int[capacity];
+        Arrays.fill(slots, -1);
+        shift = 32 - Integer.numberOfTrailingZeros(capacity);
+
+        for (int i = 0; i < palette.length; i++) {
+            int slot = slot(palette[i]);
+            while (slots[slot] >= 0 && palette[slots[slot]] != palette[i]) {
+                slot = (slot + 1) & (capacity - 1);
+            }
+            // the first of any repeated colors is the one found
+            if (slots[slot] < 0) {
+                slots[slot] = i;
+            }
+        }
+    }
+
+    private int slot(final int rgb) {
+        // Fibonacci hashing spreads out colors that differ in a few bits
+        return (rgb * 0x9E3779B9) >>> shift;
     }
 
     @Override
     public int getPaletteIndex(final int rgb) {
-        for (int i = 0; i < palette.length; i++) {
-            if (palette[i] == rgb) {
-                return i;
+        final int mask = slots.length - 1;
+        for (int slot = slot(rgb);; slot = (slot + 1) & mask) {
+            final int index = slots[slot];
+            if (index < 0 || palette[index] == rgb) {
+                return index;
             }
         }
-
-        return -1;
     }
 
     @Override
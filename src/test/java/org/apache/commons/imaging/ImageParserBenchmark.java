@@ -0,0 +1,167 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.imaging.common.ImageMetadata;
+import org.apache.commons.imaging.common.bytesource.ByteSource;
+import org.apache.commons.imaging.common.bytesource.ByteSourceArray;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures reading and writing every supported format. Images are read with
+ * the parser for their file extension, so guessing the format isn't part of
+ * the measurement, and written through {@link Imaging}. The same photo,
+ * stored in each format in the test corpus, is used where it exists so the
+ * formats can be compared with each other.
+ *
+ * <p>Run with the {@code benchmark} profile, which also reports the bytes
+ * allocated per operation ({@code gc.alloc.rate.norm}).</p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ImageParserBenchmark {
+
+    private static final String IMAGES = "src/test/data/images/";
+
+    @State(Scope.Benchmark)
+    public static class ReadState {
+        @Param({
+            "bmp/1/Oregon Scientific DS6639 - DSC_0307 - small.bmp",
+            "dcx/1/Oregon Scientific DS6639 - DSC_0307 - small.dcx",
+            "gif/single/1/Oregon Scientific DS6639 - DSC_0307 - small.gif",
+            "icns/1/poedit48x48.icns",
+            "ico/1/Oregon Scientific DS6639 - DSC_0307 - small.ico",
+            "jpg/1/Oregon Scientific DS6639 - DSC_0307.JPG",
+            "pbm/1/Oregon Scientific DS6639 - DSC_0307 - small.pbm",
+            "pbm/1/Oregon Scientific DS6639 - DSC_0307 - small.pgm",
+            "pbm/1/Oregon Scientific DS6639 - DSC_0307 - small.ppm",
+            "pcx/1/Oregon Scientific DS6639 - DSC_0307 - small.pcx",
+            "png/1/Oregon Scientific DS6639 - DSC_0307 - small.png",
+            "psd/1/Oregon Scientific DS6639 - DSC_0307 - small.psd",
+            "rgbe/1/body_wave_N_0001.hdr",
+            "tiff/1/Oregon Scientific DS6639 - DSC_0307 - small.tif",
+            "tiff/3/Oregon Scientific DS6639 - DSC_0307 - small CCITT T.6.tiff",
+            "tiff/5/Oregon Scientific DS6639 - DSC_0307 - small - LZW - strips.tif",
+            "wbmp/1/Oregon Scientific DS6639 - DSC_0307 - small.wbmp",
+            "xbm/1/Oregon Scientific DS6639 - DSC_0307 - small.xbm",
+            "xpm/1/Oregon Scientific DS6639 - DSC_0307 - small.xpm",
+        })
+        public String file;
+
+        ImageParser parser;
+        ByteSource byteSource;
+
+        @Setup
+        public void setUp() throws ImageReadException, IOException {
+            for (final ImageParser imageParser : ImageParser.getAllImageParsers()) {
+                if (imageParser.canAcceptExtension(file)) {
+                    parser = imageParser;
+                }
+            }
+            if (parser == null) {
+                throw new ImageReadException("No parser for " + file);
+            }
+            byteSource = new ByteSourceArray(file, FileUtils.readFileToByteArray(new File(IMAGES + file)));
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class WriteState {
+        @Param({
+            "BMP", "DCX", "GIF", "ICNS", "ICO", "PAM", "PBM", "PCX", "PGM",
+            "PNG", "PPM", "TIFF", "WBMP", "XBM", "XPM",
+        })
+        public String format;
+
+        ImageFormat imageFormat;
+        BufferedImage image;
+
+        @Setup
+        public void setUp() throws ImageReadException, IOException {
+            imageFormat = ImageFormats.valueOf(format);
+            // ICNS only holds icons of a few fixed sizes
+            final String file = imageFormat == ImageFormats.ICNS
+                    ? "icns/1/poedit48x48.icns"
+                    : "png/1/Oregon Scientific DS6639 - DSC_0307 - small.png";
+            image = Imaging.getBufferedImage(new File(IMAGES + file));
+        }
+    }
+
+    /**
+     * Writes an image of no more than 256 colors, which the formats with
+     * palettes store with an exact palette.
+     */
+    @State(Scope.Benchmark)
+    public static class PaletteWriteState {
+        @Param({"BMP", "GIF", "ICO", "PCX", "XPM"})
+        public String format;
+
+        ImageFormat imageFormat;
+        BufferedImage image;
+
+        @Setup
+        public void setUp() throws ImageReadException, IOException {
+            imageFormat = ImageFormats.valueOf(format);
+            image = Imaging.getBufferedImage(
+                    new File(IMAGES + "gif/single/1/Oregon Scientific DS6639 - DSC_0307 - small.gif"));
+        }
+    }
+
+    @Benchmark
+    public BufferedImage getBufferedImage(final ReadState state) throws ImageReadException, IOException {
+        return state.parser.getBufferedImage(state.byteSource, null);
+    }
+
+    @Benchmark
+    public ImageInfo getImageInfo(final ReadState state) throws ImageReadException, IOException {
+        return state.parser.getImageInfo(state.byteSource, null);
+    }
+
+    @Benchmark
+    public ImageMetadata getMetadata(final ReadState state) throws ImageReadException, IOException {
+        return state.parser.getMetadata(state.byteSource, null);
+    }
+
+    @Benchmark
+    public byte[] writeImage(final WriteState state) throws ImageWriteException, IOException {
+        return Imaging.writeImageToBytes(state.image, state.imageFormat, null);
+    }
+
+    @Benchmark
+    public byte[] writePaletteImage(final PaletteWriteState state) throws ImageWriteException, IOException {
+        return Imaging.writeImageToBytes(state.image, state.imageFormat, null);
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging;
+
+import java.awt.Dimension;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the throughput of reading the size and basic information of small
+ * images held in memory, where guessing the format and finding the parser
+ * are a large part of the cost.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ImagingBenchmark {
+
+    @Param({
+        "src/test/data/images/png/5/trns-rgb.png",
+        "src/test/data/images/gif/animated/2/no_disposal.gif",
+        "src/test/data/images/jpg/4/0x00-to-0xFF-between-segments.jpg",
+        "src/test/data/images/bmp/3/V4-bitfields.bmp",
+        "src/test/data/images/pcx/1/1plane8bppCompressed.pcx",
+    })
+    public String file;
+
+    private byte[] bytes;
+
+    @Setup
+    public void setUp() throws IOException {
+        bytes = FileUtils.readFileToByteArray(new File(file));
+    }
+
+    @Benchmark
+    public ImageFormat guessFormat() throws ImageReadException, IOException {
+        return Imaging.guessFormat(bytes);
+    }
+
+    @Benchmark
+    public Dimension getImageSize() throws ImageReadException, IOException {
+        return Imaging.getImageSize(bytes);
+    }
+
+    @Benchmark
+    public ImageInfo getImageInfo() throws ImageReadException, IOException {
+        return Imaging.getImageInfo(bytes);
+    }
+}
@@ -18,12 +18,14 @@
 package org.apache.commons.imaging;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import java.io.File;
 import java.util.Arrays;
 import java.util.stream.Stream;
 
 import org.apache.commons.io.FilenameUtils;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
 
@@ -40,6 +42,9 @@ public class ImagingGuessFormatTest extends ImagingTest {
     public static final String PBM_IMAGE_FILE = "pbm\\1\\Oregon Scientific DS6639 - DSC_0307 - small.pbm";
     public static final String PGM_IMAGE_FILE = "pbm\\1\\Oregon Scientific DS6639 - DSC_0307 - small.pgm";
     public static final String PPM_IMAGE_FILE = "pbm\\1\\Oregon Scientific DS6639 - DSC_0307 - small.ppm";
+    public static final String PCX_IMAGE_FILE = "pcx\\1\\Oregon Scientific DS6639 - DSC_0307 - small.pcx";
+    public static final String XBM_IMAGE_FILE = "xbm\\1\\Oregon Scientific DS6639 - DSC_0307 - small.xbm";
+    public static final String XPM_IMAGE_FILE = "xpm\\1\\Oregon Scientific DS6639 - DSC_0307 - small.xpm";
     public static final String TGA_IMAGE_FILE = "tga\\1\\Oregon Scientific DS6639 - DSC_0307 - small.tga";
     public static final String UNKNOWN_IMAGE_FILE = "info.txt";
 
@@ -48,8 +53,7 @@ public class ImagingGuessFormatTest extends ImagingTest {
                 new Object[] { ImageFormats.PNG, PNG_IMAGE_FILE },
                 new Object[] { ImageFormats.GIF, GIF_IMAGE_FILE },
                 new Object[] { ImageFormats.ICNS, ICNS_IMAGE_FILE },
-                // TODO(cmchen): add ability to sniff ICOs if possible.
-                // new Object[] { ImageFormat.IMAGE_FORMAT_ICO, ICO_IMAGE_FILE },
+                new Object[] { ImageFormats.ICO, ICO_IMAGE_FILE },
                 new Object[] { ImageFormats.TIFF, TIFF_IMAGE_FILE },
                 new Object[] { ImageFormats.JPEG, JPEG_IMAGE_FILE },
                 new Object[] { ImageFormats.BMP, BMP_IMAGE_FILE },
@@ -57,6 +61,9 @@ public class ImagingGuessFormatTest extends ImagingTest {
                 new Object[] { ImageFormats.PBM, PBM_IMAGE_FILE },
                 new Object[] { ImageFormats.PGM, PGM_IMAGE_FILE },
                 new Object[] { ImageFormats.PPM, PPM_IMAGE_FILE },
+                new Object[] { ImageFormats.PCX, PCX_IMAGE_FILE },
+                new Object[] { ImageFormats.XBM, XBM_IMAGE_FILE },
+                new Object[] { ImageFormats.XPM, XPM_IMAGE_FILE },
                 // TODO(cmchen): add ability to sniff TGAs if possible.
                 // new Object[] { ImageFormat.IMAGE_FORMAT_TGA, TGA_IMAGE_FILE },
                 // TODO(cmchen): Add test images for these formats.
@@ -76,4 +83,15 @@ public class ImagingGuessFormatTest extends ImagingTest {
         assertEquals(expectedFormat, guessedFormat);
     }
 
+    @Test
+    public void testGuessFormatFromBytes() throws Exception {
+        assertEquals(ImageFormats.JBIG2, Imaging.guessFormat(new byte[] { (byte) 0x97, 0x4A, 0x42, 0x32 }));
+        // a truncated JBIG2 signature
+        assertEquals(ImageFormats.UNKNOWN, Imaging.guessFormat(new byte[] { (byte) 0x97, 0x4A, 0x42 }));
+        assertEquals(ImageFormats.PCX, Imaging.guessFormat(new byte[] { 0x0A, 0x05, 0x01, 0x08 }));
+        // a true color TGA without an image ID
+        assertEquals(ImageFormats.UNKNOWN, Imaging.guessFormat(new byte[] { 0x00, 0x00, 0x02, 0x00, 0x00 }));
+        assertThrows(ImageReadException.class, () -> Imaging.guessFormat(new byte[] { 0x42 }));
+    }
+
 }
@@ -0,0 +1,187 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.common;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.imaging.ImageReadException;
+import org.apache.commons.imaging.ImageWriteException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class PendingTasksTest {
+    private ExecutorService executor;
+
+    @BeforeEach
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(3);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testResultsInOrder() throws Exception {
+        final List<Integer> results = new ArrayList<>();
+        PendingTasks.<Integer>forReading(executor, "testing").run(1000, index -> {
+            if (index % 7 == 0) {
+                Thread.sleep(1);
+            }
+            return index * 2;
+        }, (index, result) -> {
+            assertEquals(results.size(), index);
+            results.add(result);
+        });
+
+        assertEquals(1000, results.size());
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(i * 2, results.get(i).intValue());
+        }
+    }
+
+    @Test
+    public void testBoundsPendingTasks() throws Exception {
+        // the executor runs nothing, so every submitted task stays pending
+        final List<Runnable> submitted = new ArrayList<>();
+        final PendingTasks<Integer, ImageWriteException> tasks = PendingTasks.forWriting(submitted::add, "testing");
+        int count = 0;
+        while (!tasks.isFull()) {
+            tasks.submit(() -> 1);
+            count++;
+        }
+        assertEquals(4 * Runtime.getRuntime().availableProcessors(), count);
+
+        submitted.get(0).run();
+        assertEquals(1, tasks.take().intValue());
+        assertFalse(tasks.isFull());
+    }
+
+    @Test
+    public void testRethrowsTaskExceptions() {
+        final ImageReadException imageReadException = new ImageReadException("read");
+        assertSame(imageReadException, assertThrows(ImageReadException.class,
+                () -> PendingTasks.<Void>forReading(executor, "testing").run(10, index -> {
+                    throw imageReadException;
+                }, (index, result) -> { })));
+
+        final IOException ioException = new IOException("io");
+        assertSame(ioException, assertThrows(IOException.class,
+                () -> PendingTasks.<Void>forWriting(executor, "testing").run(10, index -> {
+                    throw ioException;
+                }, (index, result) -> { })));
+
+        final IllegalStateException runtimeException = new IllegalStateException("runtime");
+        assertSame(runtimeException, assertThrows(IllegalStateException.class,
+                () -> PendingTasks.<Void>forReading(executor, "testing").run(10, index -> {
+                    throw runtimeException;
+                }, (index, result) -> { })));
+    }
+
+    @Test
+    public void testWrapsOtherExceptions() {
+        final Exception exception = new Exception("other");
+        final ImageWriteException imageWriteException = assertThrows(ImageWriteException.class,
+                () -> PendingTasks.<Void>forWriting(executor, "testing").run(10, index -> {
+                    throw exception;
+                }, (index, result) -> { }));
+        assertEquals("Error testing", imageWriteException.getMessage());
+        assertSame(exception, imageWriteException.getCause());
+
+        // a read queue doesn't pass write exceptions through as they are
+        final ImageWriteException writeException = new ImageWriteException("write");
+        final ImageReadException imageReadException = assertThrows(ImageReadException.class,
+                () -> PendingTasks.<Void>forReading(executor, "testing").run(10, index -> {
+                    throw writeException;
+                }, (index, result) -> { }));
+        assertSame(writeException, imageReadException.getCause());
+    }
+
+    @Test
+    public void testCancelsPendingTasksOnFailure() {
+        // the executor runs nothing until asked, so the tasks after the
+        // failed one are still pending when it fails
+        final List<Runnable> submitted = new ArrayList<>();
+        final AtomicInteger ran = new AtomicInteger();
+        final PendingTasks<Integer, ImageReadException> tasks = PendingTasks.forReading(submitted::add, "testing");
+        tasks.submit(() -> {
+            throw new ImageReadException("failed");
+        });
+        for (int i = 0; i < 3; i++) {
+            tasks.submit(ran::incrementAndGet);
+        }
+
+        submitted.get(0).run();
+        assertThrows(ImageReadException.class, tasks::take);
+        assertTrue(tasks.isEmpty());
+        for (final Runnable runnable : submitted) {
+            runnable.run();
+        }
+        assertEquals(0, ran.get());
+    }
+
+    @Test
+    public void testCancelsPendingTasksWhenTheConsumerFails() {
+        final List<Runnable> submitted = new ArrayList<>();
+        final AtomicInteger ran = new AtomicInteger();
+        final Executor runFirst = task -> {
+            if (submitted.isEmpty()) {
+                task.run();
+            }
+            submitted.add(task);
+        };
+        assertThrows(ImageReadException.class,
+                () -> PendingTasks.<Integer>forReading(runFirst, "testing").run(3, index -> ran.incrementAndGet(),
+                        (index, result) -> {
+                            throw new ImageReadException("consumer");
+                        }));
+        for (final Runnable runnable : submitted) {
+            runnable.run();
+        }
+        assertEquals(1, ran.get());
+    }
+
+    @Test
+    public void testInterrupted() {
+        final List<Runnable> submitted = new ArrayList<>();
+        final PendingTasks<Integer, ImageWriteException> tasks = PendingTasks.forWriting(submitted::add, "testing");
+        tasks.submit(() -> 1);
+
+        Thread.currentThread().interrupt();
+        try {
+            final ImageWriteException imageWriteException = assertThrows(ImageWriteException.class, tasks::take);
+            assertEquals("Interrupted while testing", imageWriteException.getMessage());
+            assertTrue(Thread.currentThread().isInterrupted());
+        } finally {
+            Thread.interrupted();
+        }
+    }
+}
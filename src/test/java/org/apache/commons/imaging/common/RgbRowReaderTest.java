@@ -0,0 +1,64 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.common;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+public class RgbRowReaderTest {
+
+    private static void assertSameRows(final BufferedImage image) {
+        final RgbRowReader rowReader = new RgbRowReader(image);
+        final int[] expected = new int[image.getWidth()];
+        final int[] actual = new int[image.getWidth()];
+        for (int y = 0; y < image.getHeight(); y++) {
+            image.getRGB(0, y, image.getWidth(), 1, expected, 0, image.getWidth());
+            rowReader.getRgbRow(y, actual);
+            assertArrayEquals(expected, actual, "row " + y);
+
+            final int x = image.getWidth() / 3;
+            final int length = image.getWidth() / 2;
+            image.getRGB(x, y, length, 1, expected, 0, length);
+            rowReader.getRgbRow(x, y, length, actual);
+            assertArrayEquals(Arrays.copyOf(expected, length), Arrays.copyOf(actual, length), "part of row " + y);
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = { BufferedImage.TYPE_INT_ARGB, BufferedImage.TYPE_INT_RGB,
+            BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_4BYTE_ABGR, BufferedImage.TYPE_BYTE_GRAY,
+            BufferedImage.TYPE_INT_ARGB_PRE, BufferedImage.TYPE_INT_BGR, BufferedImage.TYPE_USHORT_GRAY,
+            BufferedImage.TYPE_BYTE_INDEXED })
+    public void testGetRgbRow(final int type) {
+        final BufferedImage image = new BufferedImage(23, 17, type);
+        final Random random = new Random(type);
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                image.setRGB(x, y, random.nextInt());
+            }
+        }
+
+        assertSameRows(image);
+        assertSameRows(image.getSubimage(5, 3, 11, 9));
+    }
+}
@@ -54,6 +54,21 @@ public class ByteSourceDataTest extends ByteSourceTest {
         }
     }
 
+    private class ByteSourceFileChannelFactory implements ByteSourceFactory {
+        private final boolean memoryMapped;
+
+        ByteSourceFileChannelFactory(final boolean memoryMapped) {
+            this.memoryMapped = memoryMapped;
+        }
+
+        @Override
+        public ByteSource getByteSource(final byte src[]) throws IOException {
+            final File file = createTempFile(src);
+
+            return new ByteSourceFileChannel(file, memoryMapped);
+        }
+    }
+
     private class ByteSourceInputStreamFileFactory implements ByteSourceFactory {
         @Override
         public ByteSource getByteSource(final byte src[]) throws IOException {
@@ -75,6 +90,18 @@ public class ByteSourceDataTest extends ByteSourceTest {
 
     }
 
+    private static class ByteSourceInputStreamSpillingFactory implements ByteSourceFactory {
+        @Override
+        public ByteSource getByteSource(final byte src[]) throws IOException {
+            final ByteArrayInputStream is = new ByteArrayInputStream(src);
+
+            // small blocks and a memory limit of a few blocks, so most blocks
+            // are written to and read back from the temporary file
+            return new ByteSourceInputStream(is, null, 64, 256, true);
+        }
+
+    }
+
     protected void writeAndReadBytes(final ByteSourceFactory byteSourceFactory,
             final byte src[]) throws IOException {
         final ByteSource byteSource = byteSourceFactory.getByteSource(src);
@@ -121,6 +148,11 @@ public class ByteSourceDataTest extends ByteSourceTest {
                     assertTrue(dst[i] == src[i + start]);
                 }
             }
+
+            // test getBlock() method.
+            final int length = src.length / 3;
+            assertArrayEquals(Arrays.copyOfRange(src, start, start + length),
+                    byteSource.getBlock(start, length));
         }
 
     }
@@ -132,6 +164,16 @@ public class ByteSourceDataTest extends ByteSourceTest {
     }
     @ParameterizedTest
     @MethodSource("data")
+    public void testByteSourceFileChannelFactory(byte[] testByteArray) throws Exception {
+        writeAndReadBytes(new ByteSourceFileChannelFactory(false), testByteArray);
+    }
+    @ParameterizedTest
+    @MethodSource("data")
+    public void testByteSourceFileChannelMemoryMappedFactory(byte[] testByteArray) throws Exception {
+        writeAndReadBytes(new ByteSourceFileChannelFactory(true), testByteArray);
+    }
+    @ParameterizedTest
+    @MethodSource("data")
     public void testByteSourceInputStreamFileFactory(byte[] testByteArray) throws Exception {
         writeAndReadBytes(new ByteSourceInputStreamFileFactory(), testByteArray);
     }
@@ -140,4 +182,9 @@ public class ByteSourceDataTest extends ByteSourceTest {
     public void testByteSourceInputStreamRawFactory(byte[] testByteArray) throws Exception {
         writeAndReadBytes(new ByteSourceInputStreamRawFactory(), testByteArray);
     }
+    @ParameterizedTest
+    @MethodSource("data")
+    public void testByteSourceInputStreamSpillingFactory(byte[] testByteArray) throws Exception {
+        writeAndReadBytes(new ByteSourceInputStreamSpillingFactory(), testByteArray);
+    }
 }
@@ -62,12 +62,9 @@ public class ByteSourceImageTest extends ByteSourceTest {
         if (imageFile.getName().toLowerCase().endsWith(".ico")
                 || imageFile.getName().toLowerCase().endsWith(".tga")
                 || imageFile.getName().toLowerCase().endsWith(".jb2")
-                || imageFile.getName().toLowerCase().endsWith(".pcx")
                 || imageFile.getName().toLowerCase().endsWith(".dcx")
                 || imageFile.getName().toLowerCase().endsWith(".psd")
-                || imageFile.getName().toLowerCase().endsWith(".wbmp")
-                || imageFile.getName().toLowerCase().endsWith(".xbm")
-                || imageFile.getName().toLowerCase().endsWith(".xpm")) {
+                || imageFile.getName().toLowerCase().endsWith(".wbmp")) {
             // these formats can't be parsed without a file name hint.
             // they have ambiguous "magic number" signatures.
             return;
@@ -121,6 +118,16 @@ public class ByteSourceImageTest extends ByteSourceTest {
         assertNotNull(imageSizeBytes);
         assertTrue(imageSizeFile.width == imageSizeBytes.width);
         assertTrue(imageSizeFile.height == imageSizeBytes.height);
+
+        for (final String fileAccess : new String[] { ImagingConstants.FILE_ACCESS_CHANNEL,
+                ImagingConstants.FILE_ACCESS_MEMORY_MAPPED }) {
+            final Map<String, Object> params = new HashMap<>();
+            params.put(ImagingConstants.PARAM_KEY_FILE_ACCESS, fileAccess);
+            final Dimension imageSizeChannel = Imaging.getImageSize(imageFile, params);
+            assertNotNull(imageSizeChannel);
+            assertTrue(imageSizeFile.width == imageSizeChannel.width);
+            assertTrue(imageSizeFile.height == imageSizeChannel.height);
+        }
     }
 
     public void checkGuessFormat(final File imageFile, final byte[] imageFileBytes)
@@ -16,13 +16,17 @@
  */
 package org.apache.commons.imaging.common.bytesource;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import java.awt.image.BufferedImage;
 import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Collections;
 
 import org.apache.commons.imaging.ImageReadException;
@@ -53,4 +57,32 @@ class ByteSourceInputStreamTest {
         }
     }
 
+    @Test
+    public void testMemoryLimitWithoutSpilling() throws IOException {
+        final byte[] bytes = new byte[4096];
+        try (ByteSourceInputStream byteSource = new ByteSourceInputStream(
+                new ByteArrayInputStream(bytes), null, 256, 1024, false)) {
+            // within the limit
+            assertEquals(512, byteSource.getBlock(256, 512).length);
+            // the stream must be cached beyond the limit
+            assertThrows(IOException.class, () -> byteSource.getBlock(2048, 16));
+        }
+    }
+
+    @Test
+    public void testBlocksSpilledToTempFile() throws IOException {
+        final byte[] bytes = new byte[10000];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) (i * 31);
+        }
+        try (ByteSourceInputStream byteSource = new ByteSourceInputStream(
+                new ByteArrayInputStream(bytes), null, 100, 1000, true)) {
+            assertArrayEquals(Arrays.copyOfRange(bytes, 9000, 9500), byteSource.getBlock(9000, 500));
+            // read back from the temporary file
+            assertArrayEquals(Arrays.copyOfRange(bytes, 50, 2050), byteSource.getBlock(50, 2000));
+            assertEquals(bytes.length, byteSource.getLength());
+            assertArrayEquals(bytes, byteSource.getAll());
+        }
+    }
+
 }
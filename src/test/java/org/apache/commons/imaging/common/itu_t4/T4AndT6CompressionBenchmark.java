@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.common.itu_t4;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.imaging.ImageReadException;
+import org.apache.commons.imaging.ImageWriteException;
+import org.apache.commons.imaging.Imaging;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures compressing and decompressing the bilevel images of the CCITT
+ * test files with each of the encodings, the way a TIFF strip holding the
+ * whole image would be.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class T4AndT6CompressionBenchmark {
+
+    @Param({
+        "src/test/data/images/tiff/3/1pagefax.tif",
+        "src/test/data/images/tiff/3/Oregon Scientific DS6639 - DSC_0307 - small CCITT T.6.tiff",
+    })
+    public String file;
+
+    @Param({ "MODIFIED_HUFFMAN", "T4_1D", "T4_2D", "T6" })
+    public String encoding;
+
+    private int width;
+    private int height;
+    private byte[] pixels;
+    private byte[] compressed;
+
+    @Setup
+    public void setUp() throws ImageReadException, ImageWriteException, IOException {
+        final BufferedImage image = Imaging.getBufferedImage(new File(file));
+        width = image.getWidth();
+        height = image.getHeight();
+        final int rowLength = (width + 7) / 8;
+        pixels = new byte[rowLength * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                if ((image.getRGB(x, y) & 0xffffff) == 0) {
+                    pixels[y * rowLength + (x >> 3)] |= 0x80 >>> (x & 7);
+                }
+            }
+        }
+        compressed = compress();
+    }
+
+    @Benchmark
+    public byte[] compress() throws ImageWriteException {
+        switch (encoding) {
+        case "MODIFIED_HUFFMAN":
+            return T4AndT6Compression.compressModifiedHuffman(pixels, width, height);
+        case "T4_1D":
+            return T4AndT6Compression.compressT4_1D(pixels, width, height, true);
+        case "T4_2D":
+            return T4AndT6Compression.compressT4_2D(pixels, width, height, true, 4);
+        default:
+            return T4AndT6Compression.compressT6(pixels, width, height);
+        }
+    }
+
+    @Benchmark
+    public byte[] decompress() throws ImageReadException {
+        switch (encoding) {
+        case "MODIFIED_HUFFMAN":
+            return T4AndT6Compression.decompressModifiedHuffman(compressed, width, height);
+        case "T4_1D":
+            return T4AndT6Compression.decompressT4_1D(compressed, width, height, true);
+        case "T4_2D":
+            return T4AndT6Compression.decompressT4_2D(compressed, width, height, true);
+        default:
+            return T4AndT6Compression.decompressT6(compressed, width, height);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.common.itu_t4;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Random;
+
+import org.apache.commons.imaging.ImageReadException;
+import org.apache.commons.imaging.ImageWriteException;
+import org.junit.jupiter.api.Test;
+
+public class T4AndT6CompressionTest {
+
+    private static final int WIDTH = 3001;
+    private static final int HEIGHT = 20;
+    private static final int ROW_LENGTH = (WIDTH + 7) / 8;
+
+    /**
+     * Creates rows with runs of every length up to more than the longest
+     * make up code, some repeated from the row above so the 2D modes are
+     * used, and with the bits past the width set, which are ignored.
+     */
+    private static byte[] createImage() {
+        final Random random = new Random(7);
+        final byte[] pixels = new byte[ROW_LENGTH * HEIGHT];
+        for (int y = 0; y < HEIGHT; y++) {
+            int color = y & 1;
+            for (int x = 0; x < WIDTH;) {
+                final int runLength = y < 2 ? 1 + y * 2700 + random.nextInt(3) : 1 + random.nextInt(y * y);
+                for (final int end = Math.min(WIDTH, x + runLength); x < end; x++) {
+                    if (y >= 10 && random.nextInt(8) != 0) {
+                        color = getPixel(pixels, y - 1, x);
+                    }
+                    if (color != 0) {
+                        pixels[y * ROW_LENGTH + (x >> 3)] |= 0x80 >>> (x & 7);
+                    }
+                }
+                color = 1 - color;
+            }
+        }
+        return pixels;
+    }
+
+    private static int getPixel(final byte[] pixels, final int y, final int x) {
+        return (pixels[y * ROW_LENGTH + (x >> 3)] >> (7 - (x & 7))) & 1;
+    }
+
+    private static byte[] withoutPadding(final byte[] pixels) {
+        final byte[] unpadded = pixels.clone();
+        for (int y = 0; y < HEIGHT; y++) {
+            unpadded[y * ROW_LENGTH + ROW_LENGTH - 1] &= 0xff << (8 - (WIDTH & 7));
+        }
+        return unpadded;
+    }
+
+    @Test
+    public void testRoundTrips() throws ImageReadException, ImageWriteException {
+        final byte[] pixels = createImage();
+        for (int y = 0; y < HEIGHT; y++) {
+            pixels[y * ROW_LENGTH + ROW_LENGTH - 1] |= 0xff >>> (WIDTH & 7);
+        }
+        final byte[] expected = withoutPadding(pixels);
+
+        assertArrayEquals(expected, T4AndT6Compression.decompressModifiedHuffman(
+                T4AndT6Compression.compressModifiedHuffman(pixels, WIDTH, HEIGHT), WIDTH, HEIGHT));
+        for (final boolean hasFill : new boolean[] { false, true }) {
+            assertArrayEquals(expected, T4AndT6Compression.decompressT4_1D(
+                    T4AndT6Compression.compressT4_1D(pixels, WIDTH, HEIGHT, hasFill), WIDTH, HEIGHT, hasFill));
+            for (final int parameterK : new int[] { 1, 4, HEIGHT + 1 }) {
+                assertArrayEquals(expected, T4AndT6Compression.decompressT4_2D(
+                        T4AndT6Compression.compressT4_2D(pixels, WIDTH, HEIGHT, hasFill, parameterK),
+                        WIDTH, HEIGHT, hasFill));
+            }
+        }
+        assertArrayEquals(expected, T4AndT6Compression.decompressT6(
+                T4AndT6Compression.compressT6(pixels, WIDTH, HEIGHT), WIDTH, HEIGHT));
+    }
+
+    @Test
+    public void testInvalidData() throws ImageWriteException {
+        final byte[] pixels = createImage();
+        final byte[] compressed = T4AndT6Compression.compressT6(pixels, WIDTH, HEIGHT);
+
+        // truncated
+        final byte[] truncated = new byte[compressed.length / 2];
+        System.arraycopy(compressed, 0, truncated, 0, truncated.length);
+        assertThrows(ImageReadException.class, () -> T4AndT6Compression.decompressT6(truncated, WIDTH, HEIGHT));
+        // no EOL
+        assertThrows(ImageReadException.class, () -> T4AndT6Compression.decompressT4_1D(compressed, WIDTH, HEIGHT,
+                true));
+        // rows that are too long
+        assertThrows(ImageReadException.class, () -> T4AndT6Compression.decompressT6(compressed, WIDTH / 2, HEIGHT));
+        assertThrows(ImageReadException.class, () -> T4AndT6Compression.decompressModifiedHuffman(
+                T4AndT6Compression.compressModifiedHuffman(pixels, WIDTH, HEIGHT), WIDTH - 1, HEIGHT));
+        // too few pixels
+        assertThrows(ImageWriteException.class, () -> T4AndT6Compression.compressT6(pixels, WIDTH, HEIGHT + 1));
+    }
+}
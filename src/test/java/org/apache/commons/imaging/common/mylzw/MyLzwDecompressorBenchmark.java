@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.common.mylzw;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.imaging.ImageReadException;
+import org.apache.commons.imaging.Imaging;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures LZW decompression, both on its own and as part of decoding a GIF
+ * and an LZW compressed TIFF. For the former the pixels of the image are
+ * compressed the way a TIFF strip would be.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MyLzwDecompressorBenchmark {
+
+    @Param({
+        "src/test/data/images/gif/single/2/test.gif",
+        "src/test/data/images/tiff/5/Oregon Scientific DS6639 - DSC_0307 - small - LZW - strips.tif",
+    })
+    public String file;
+
+    private byte[] bytes;
+    private byte[] compressed;
+    private int length;
+
+    @Setup
+    public void setUp() throws ImageReadException, IOException {
+        bytes = FileUtils.readFileToByteArray(new File(file));
+        final BufferedImage image = Imaging.getBufferedImage(bytes);
+        final byte[] pixels = new byte[image.getWidth() * image.getHeight() * 3];
+        int i = 0;
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                final int rgb = image.getRGB(x, y);
+                pixels[i++] = (byte) (rgb >> 16);
+                pixels[i++] = (byte) (rgb >> 8);
+                pixels[i++] = (byte) rgb;
+            }
+        }
+        length = pixels.length;
+        compressed = new MyLzwCompressor(8, ByteOrder.BIG_ENDIAN, true).compress(pixels);
+    }
+
+    @Benchmark
+    public byte[] decompress() throws IOException {
+        final MyLzwDecompressor decompressor = new MyLzwDecompressor(8, ByteOrder.BIG_ENDIAN);
+        decompressor.setTiffLZWMode();
+        return decompressor.decompress(new ByteArrayInputStream(compressed), length);
+    }
+
+    @Benchmark
+    public BufferedImage decodeImage() throws ImageReadException, IOException {
+        return Imaging.getBufferedImage(bytes);
+    }
+}
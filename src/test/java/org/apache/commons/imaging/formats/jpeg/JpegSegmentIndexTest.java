@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.formats.jpeg;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.imaging.ImageReadException;
+import org.apache.commons.imaging.common.bytesource.ByteSource;
+import org.apache.commons.imaging.common.bytesource.ByteSourceArray;
+import org.apache.commons.imaging.common.bytesource.ByteSourceFile;
+import org.junit.jupiter.api.Test;
+
+public class JpegSegmentIndexTest {
+
+    private static final File IMAGE = new File("src/test/data/images/jpg/1/Oregon Scientific DS6639 - DSC_0307.JPG");
+
+    @Test
+    public void testEntries() throws ImageReadException, IOException {
+        final byte[] bytes = Files.readAllBytes(IMAGE.toPath());
+        final JpegSegmentIndex index = JpegSegmentIndex.read(new ByteSourceArray(bytes));
+        index.checkComplete();
+
+        final List<JpegSegmentIndex.Entry> entries = index.getEntries();
+        assertFalse(entries.isEmpty());
+        assertEquals(JpegConstants.JPEG_APP1_MARKER, entries.get(0).marker);
+        long end = JpegConstants.SOI.size();
+        for (final JpegSegmentIndex.Entry entry : entries) {
+            // the marker and the length before the data
+            assertTrue(entry.offset >= end + 4);
+            final int position = (int) entry.offset;
+            assertEquals(0xff, bytes[position - 4] & 0xff);
+            assertEquals(entry.marker & 0xff, bytes[position - 3] & 0xff);
+            assertEquals(entry.length + 2, (bytes[position - 2] & 0xff) << 8 | (bytes[position - 1] & 0xff));
+            end = entry.offset + entry.length;
+        }
+        // the first scan follows the last segment
+        assertEquals(0xff, bytes[(int) end] & 0xff);
+        assertEquals(JpegConstants.SOS_MARKER & 0xff, bytes[(int) end + 1] & 0xff);
+        assertArrayEquals(Arrays.copyOfRange(bytes, (int) entries.get(0).offset,
+                (int) (entries.get(0).offset + entries.get(0).length)),
+                index.getSegmentData(entries.get(0)));
+    }
+
+    @Test
+    public void testHeaderOnly() throws ImageReadException, IOException {
+        final byte[] bytes = Files.readAllBytes(IMAGE.toPath());
+        final List<JpegSegmentIndex.Entry> entries = JpegSegmentIndex.read(new ByteSourceArray(bytes)).getEntries();
+        final JpegSegmentIndex.Entry last = entries.get(entries.size() - 1);
+        // the segments and the marker of the first scan, without the scan
+        final byte[] header = Arrays.copyOf(bytes, (int) (last.offset + last.length) + 2);
+
+        final JpegImageParser parser = new JpegImageParser();
+        final ByteSource full = new ByteSourceFile(IMAGE);
+        final ByteSource headerOnly = new ByteSourceArray(header);
+        assertEquals(parser.getImageInfo(full, null).toString(), parser.getImageInfo(headerOnly, null).toString());
+        assertEquals(parser.getMetadata(full, null).toString(), parser.getMetadata(headerOnly, null).toString());
+        assertEquals(parser.getImageSize(full, null), parser.getImageSize(headerOnly, null));
+        assertArrayEquals(parser.getICCProfileBytes(full, null), parser.getICCProfileBytes(headerOnly, null));
+        assertEquals(parser.getXmpXml(full, null), parser.getXmpXml(headerOnly, null));
+        assertTrue(parser.hasExifSegment(headerOnly));
+        assertNotNull(parser.getExifRawData(headerOnly));
+    }
+
+    @Test
+    public void testTruncated() throws ImageReadException, IOException {
+        final byte[] bytes = Files.readAllBytes(IMAGE.toPath());
+        final List<JpegSegmentIndex.Entry> entries = JpegSegmentIndex.read(new ByteSourceArray(bytes)).getEntries();
+        final JpegSegmentIndex.Entry last = entries.get(entries.size() - 1);
+        // in the middle of the last segment
+        final ByteSource truncated = new ByteSourceArray(
+                Arrays.copyOf(bytes, (int) last.offset + last.length / 2));
+
+        final JpegSegmentIndex index = JpegSegmentIndex.read(truncated);
+        assertThrows(IOException.class, index::checkComplete);
+        final JpegImageParser parser = new JpegImageParser();
+        assertThrows(IOException.class, () -> parser.getImageInfo(truncated, null));
+        // found before the end of the file
+        assertTrue(parser.hasExifSegment(truncated));
+
+        assertThrows(ImageReadException.class,
+                () -> JpegSegmentIndex.read(new ByteSourceArray(new byte[] { 1, 2, 3, 4 })));
+    }
+}
@@ -0,0 +1,304 @@
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *  under the License.
+ */
+
+package org.apache.commons.imaging.formats.jpeg.decoder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.imaging.ImageReadException;
+import org.apache.commons.imaging.common.bytesource.ByteSourceArray;
+import org.apache.commons.imaging.formats.jpeg.JpegConstants;
+import org.apache.commons.imaging.formats.jpeg.JpegUtils;
+import org.apache.commons.imaging.formats.jpeg.segments.DhtSegment;
+import org.apache.commons.imaging.formats.jpeg.segments.SofnSegment;
+import org.apache.commons.imaging.formats.jpeg.segments.SosSegment;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the entropy decoding of the baseline JPEGs of the test corpus
+ * with {@link HuffmanLookupTable} and {@link JpegInputStream} against the
+ * bit at a time "DECODE" and "RECEIVE" procedures of T.81 that JpegDecoder
+ * used before them, which are kept here as the baseline. Both decode the
+ * Huffman codes and coefficient bits of every block of the scan, in the
+ * order JpegDecoder reads them, but skip the inverse DCT and color
+ * conversion, which are the same for both.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HuffmanDecodingBenchmark {
+
+    @Param({
+        "src/test/data/images/jpg/1/Canon Powershot SD750 - 2007.12.26.n.IMG_3704.JPG",
+        "src/test/data/images/jpg/1/Nikon D50 - 2007.12.19.n.DSC_3656.JPG",
+        "src/test/resources/images/jpeg/photoshop/IMAGING-246/FallHarvestKitKat_07610.jpg" })
+    public String file;
+
+    private final DhtSegment.HuffmanTable[] dcTables = new DhtSegment.HuffmanTable[4];
+    private final DhtSegment.HuffmanTable[] acTables = new DhtSegment.HuffmanTable[4];
+    private HuffmanLookupTable[] dcLookupTables;
+    private HuffmanLookupTable[] acLookupTables;
+    private SofnSegment sofnSegment;
+    private SosSegment sosSegment;
+    private byte[] scanPayload;
+    private int mcuCount;
+    // for each scan component, the number of blocks in an MCU
+    private int[] blocksPerMCU;
+
+    @Setup
+    public void setUp() throws IOException, ImageReadException {
+        final byte[] bytes = FileUtils.readFileToByteArray(new File(file));
+        new JpegUtils().traverseJFIF(new ByteSourceArray(bytes), new JpegUtils.Visitor() {
+            @Override
+            public boolean beginSOS() {
+                return true;
+            }
+
+            @Override
+            public void visitSOS(final int marker, final byte[] markerBytes, final byte[] imageData) {
+                final int segmentLength = ((0xff & imageData[0]) << 8) | (0xff & imageData[1]);
+                try {
+                    sosSegment = new SosSegment(marker, Arrays.copyOfRange(imageData, 2, segmentLength));
+                } catch (final IOException e) {
+                    throw new IllegalStateException(e);
+                }
+                scanPayload = Arrays.copyOfRange(imageData, segmentLength, imageData.length);
+            }
+
+            @Override
+            public boolean visitSegment(final int marker, final byte[] markerBytes, final int segmentLength,
+                    final byte[] segmentLengthBytes, final byte[] segmentData) throws IOException {
+                if (marker == JpegConstants.SOF0_MARKER) {
+                    sofnSegment = new SofnSegment(marker, segmentData);
+                } else if (marker == JpegConstants.DHT_MARKER) {
+                    for (final DhtSegment.HuffmanTable table : new DhtSegment(marker, segmentData).huffmanTables) {
+                        (table.tableClass == 0 ? dcTables : acTables)[table.destinationIdentifier] = table;
+                    }
+                }
+                return true;
+            }
+        });
+
+        dcLookupTables = new HuffmanLookupTable[dcTables.length];
+        acLookupTables = new HuffmanLookupTable[acTables.length];
+        for (int i = 0; i < dcTables.length; i++) {
+            dcLookupTables[i] = dcTables[i] == null ? null : new HuffmanLookupTable(dcTables[i]);
+            acLookupTables[i] = acTables[i] == null ? null : new HuffmanLookupTable(acTables[i]);
+        }
+
+        int hMax = 0;
+        int vMax = 0;
+        for (final SofnSegment.Component component : sofnSegment.getComponents()) {
+            hMax = Math.max(hMax, component.horizontalSamplingFactor);
+            vMax = Math.max(vMax, component.verticalSamplingFactor);
+        }
+        mcuCount = ((sofnSegment.width + 8 * hMax - 1) / (8 * hMax))
+                * ((sofnSegment.height + 8 * vMax - 1) / (8 * vMax));
+        blocksPerMCU = new int[sosSegment.numberOfComponents];
+        for (int i = 0; i < blocksPerMCU.length; i++) {
+            for (final SofnSegment.Component component : sofnSegment.getComponents()) {
+                if (component.componentIdentifier == sosSegment.getComponents(i).scanComponentSelector) {
+                    blocksPerMCU[i] = component.horizontalSamplingFactor * component.verticalSamplingFactor;
+                }
+            }
+        }
+
+        // both decoders must read the same values
+        final long lookupTable = lookupTable();
+        final long bitByBit = bitByBit();
+        if (lookupTable != bitByBit) {
+            throw new IllegalStateException("The decoders differ: " + lookupTable + " != " + bitByBit);
+        }
+    }
+
+    @Benchmark
+    public long lookupTable() throws ImageReadException {
+        final JpegInputStream[] streams = JpegDecoder.splitByRstMarkers(scanPayload);
+        int streamIndex = 0;
+        JpegInputStream is = streams[0];
+        long checksum = 0;
+        for (int mcu = 0; mcu < mcuCount; mcu++) {
+            if (!is.hasNext() && streamIndex + 1 < streams.length) {
+                is = streams[++streamIndex];
+            }
+            for (int i = 0; i < blocksPerMCU.length; i++) {
+                final SosSegment.Component component = sosSegment.getComponents(i);
+                final HuffmanLookupTable dcTable = dcLookupTables[component.dcCodingTableSelector];
+                final HuffmanLookupTable acTable = acLookupTables[component.acCodingTableSelector];
+                for (int block = 0; block < blocksPerMCU[i]; block++) {
+                    final int t = dcTable.decode(is);
+                    checksum += extend(is.readBits(t), t);
+                    for (int k = 1; k < 64;) {
+                        final int rs = acTable.decode(is);
+                        final int ssss = rs & 0xf;
+                        final int r = rs >> 4;
+                        if (ssss == 0) {
+                            if (r != 15) {
+                                break;
+                            }
+                            k += 16;
+                        } else {
+                            k += r;
+                            checksum += k * extend(is.readBits(ssss), ssss);
+                            k++;
+                        }
+                    }
+                }
+            }
+        }
+        return checksum;
+    }
+
+    @Benchmark
+    public long bitByBit() throws ImageReadException {
+        final List<Integer> starts = JpegDecoder.getIntervalStartPositions(scanPayload);
+        int streamIndex = 0;
+        BitByBitInputStream is = new BitByBitInputStream(scanPayload, starts, 0);
+        long checksum = 0;
+        for (int mcu = 0; mcu < mcuCount; mcu++) {
+            if (!is.hasNext() && streamIndex + 1 < starts.size()) {
+                is = new BitByBitInputStream(scanPayload, starts, ++streamIndex);
+            }
+            for (int i = 0; i < blocksPerMCU.length; i++) {
+                final SosSegment.Component component = sosSegment.getComponents(i);
+                final DhtSegment.HuffmanTable dcTable = dcTables[component.dcCodingTableSelector];
+                final DhtSegment.HuffmanTable acTable = acTables[component.acCodingTableSelector];
+                for (int block = 0; block < blocksPerMCU[i]; block++) {
+                    final int t = decode(is, dcTable);
+                    checksum += extend(receive(t, is), t);
+                    for (int k = 1; k < 64;) {
+                        final int rs = decode(is, acTable);
+                        final int ssss = rs & 0xf;
+                        final int r = rs >> 4;
+                        if (ssss == 0) {
+                            if (r != 15) {
+                                break;
+                            }
+                            k += 16;
+                        } else {
+                            k += r;
+                            checksum += k * extend(receive(ssss, is), ssss);
+                            k++;
+                        }
+                    }
+                }
+            }
+        }
+        return checksum;
+    }
+
+    private static int extend(int v, final int t) {
+        // "EXTEND", section F.2.2.1, figure F.12, page 105 of T.81
+        int vt = (1 << (t - 1));
+        if (v < vt) {
+            vt = (-1 << t) + 1;
+            v += vt;
+        }
+        return v;
+    }
+
+    private static int receive(final int ssss, final BitByBitInputStream is) throws ImageReadException {
+        // "RECEIVE", section F.2.2.4, figure F.17, page 110 of T.81
+        int i = 0;
+        int v = 0;
+        while (i != ssss) {
+            i++;
+            v = (v << 1) + is.nextBit();
+        }
+        return v;
+    }
+
+    private static int decode(final BitByBitInputStream is, final DhtSegment.HuffmanTable huffmanTable)
+            throws ImageReadException {
+        // "DECODE", section F.2.2.3, figure F.16, page 109 of T.81
+        int i = 1;
+        int code = is.nextBit();
+        while (code > huffmanTable.getMaxCode(i)) {
+            i++;
+            code = (code << 1) | is.nextBit();
+        }
+        int j = huffmanTable.getValPtr(i);
+        j += code - huffmanTable.getMinCode(i);
+        return huffmanTable.getHuffVal(j);
+    }
+
+    /**
+     * The JpegInputStream that JpegDecoder used before the lookup tables,
+     * which reads a bit at a time from a copy of the interval.
+     */
+    private static final class BitByBitInputStream {
+        // Figure F.18, F.2.2.5, page 111 of ITU-T T.81
+        private final int[] interval;
+        private int nextPos;
+        private int cnt;
+        private int b;
+
+        BitByBitInputStream(final byte[] scanPayload, final List<Integer> intervalStarts, final int index) {
+            final int from = intervalStarts.get(index);
+            final int to = index + 1 < intervalStarts.size() ? intervalStarts.get(index + 1) - 2 : scanPayload.length;
+            interval = new int[to - from];
+            for (int i = 0; i < interval.length; i++) {
+                interval[i] = 0xff & scanPayload[from + i];
+            }
+        }
+
+        boolean hasNext() {
+            return nextPos < interval.length;
+        }
+
+        int nextBit() throws ImageReadException {
+            if (cnt == 0) {
+                b = read();
+                cnt = 8;
+                if (b == 0xff) {
+                    final int b2 = read();
+                    if (b2 != 0) {
+                        throw new ImageReadException("Invalid marker found "
+                            + "in entropy data: 0xFF " + Integer.toHexString(b2));
+                    }
+                }
+            }
+            final int bit = (b >> 7) & 0x1;
+            cnt--;
+            b <<= 1;
+            return bit;
+        }
+
+        private int read() throws ImageReadException {
+            if (!hasNext()) {
+                throw new ImageReadException("Premature End of File");
+            }
+            return interval[nextPos++];
+        }
+    }
+}
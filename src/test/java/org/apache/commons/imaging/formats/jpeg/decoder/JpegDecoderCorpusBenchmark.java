@@ -0,0 +1,73 @@
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *  under the License.
+ */
+
+package org.apache.commons.imaging.formats.jpeg.decoder;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.imaging.ImageReadException;
+import org.apache.commons.imaging.common.bytesource.ByteSource;
+import org.apache.commons.imaging.common.bytesource.ByteSourceArray;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Single threaded decoding time of the baseline JPEGs of the test corpus,
+ * which is dominated by entropy decoding. {@link HuffmanDecodingBenchmark}
+ * compares the entropy decoding on its own against the previous decoder.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JpegDecoderCorpusBenchmark {
+
+    @Param({
+        "src/test/data/images/jpg/1/Canon Powershot SD750 - 2007.12.26.n.IMG_3704.JPG",
+        "src/test/data/images/jpg/1/Nikon D50 - 2007.12.19.n.DSC_3656.JPG",
+        "src/test/data/images/jpg/1/Oregon Scientific DS6639 - DSC_0307.JPG",
+        "src/test/data/images/jpg/2/2008-07-27+-+Photo+216+-+WE+a+l'etang+de+Blodelsheim.jpg",
+        "src/test/data/images/jpg/3/img_F028c_small.jpg",
+        "src/test/data/images/jpg/7/_DSC6099.jpg",
+        "src/test/resources/images/jpeg/photoshop/IMAGING-246/FallHarvestKitKat_07610.jpg" })
+    public String file;
+
+    private ByteSource byteSource;
+
+    @Setup
+    public void setUp() throws IOException {
+        byteSource = new ByteSourceArray(FileUtils.readFileToByteArray(new File(file)));
+    }
+
+    @Benchmark
+    public BufferedImage decode() throws ImageReadException, IOException {
+        return new JpegDecoder().decode(byteSource);
+    }
+}
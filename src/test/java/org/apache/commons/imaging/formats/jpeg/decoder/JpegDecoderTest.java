@@ -17,13 +17,17 @@
 
 package org.apache.commons.imaging.formats.jpeg.decoder;
 
+import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
 
 import org.apache.commons.imaging.ImageReadException;
 import org.apache.commons.imaging.common.bytesource.ByteSourceFile;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
 
 /**
  * Tests for the JpegDecoder.
@@ -47,4 +51,34 @@ public class JpegDecoderTest {
             new JpegDecoder().decode(byteSourceFile);
         });
     }
+
+    /**
+     * Test that decoding the restart intervals concurrently produces the same
+     * pixels as decoding them one after the other.
+     *
+     * @throws IOException
+     * @throws ImageReadException
+     */
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "/images/jpeg/photoshop/IMAGING-246/FallHarvestKitKat_07610.jpg",
+            "/IMAGING-136/1402522741337.jpg" })
+    public void testDecodeRestartIntervalsConcurrently(final String path) throws ImageReadException, IOException {
+        final File inputFile = new File(JpegDecoderTest.class.getResource(path).getFile());
+        final ByteSourceFile byteSourceFile = new ByteSourceFile(inputFile);
+        final BufferedImage expected = new JpegDecoder().decode(byteSourceFile);
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            final BufferedImage actual = new JpegDecoder(pool).decode(byteSourceFile);
+            Assertions.assertEquals(expected.getWidth(), actual.getWidth());
+            Assertions.assertEquals(expected.getHeight(), actual.getHeight());
+            for (int y = 0; y < expected.getHeight(); y++) {
+                for (int x = 0; x < expected.getWidth(); x++) {
+                    Assertions.assertEquals(expected.getRGB(x, y), actual.getRGB(x, y));
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
 }
@@ -30,7 +30,7 @@ public class JpegInputStreamTest {
 
   @Test
   public void testNextBitThrowsImageReadExceptionOne() throws IOException, ImageReadException {
-    int[] byteArray = new int[6];
+    byte[] byteArray = new byte[6];
     byteArray[0] = (byte) (-1);
     byteArray[1] = (byte) 74;
     JpegInputStream jpegInputStream = new JpegInputStream(byteArray);
@@ -43,7 +43,7 @@ public class JpegInputStreamTest {
 
   @Test
   public void testNextBitThrowsImageReadExceptionTwo() throws IOException, ImageReadException {
-    int[] byteArray = new int[0];
+    byte[] byteArray = new byte[0];
     JpegInputStream jpegInputStream = new JpegInputStream(byteArray);
 
     Assertions.assertThrows(IllegalStateException.class, () -> {
@@ -52,4 +52,31 @@ public class JpegInputStreamTest {
 
   }
 
+  @Test
+  public void testReadBitsRemovesStuffedZeros() throws ImageReadException {
+    byte[] byteArray = { (byte) 0xA5, (byte) 0xFF, 0x00, 0x3C };
+    JpegInputStream jpegInputStream = new JpegInputStream(byteArray);
+
+    Assertions.assertEquals(0xA, jpegInputStream.peekBits(4));
+    Assertions.assertEquals(0xA, jpegInputStream.readBits(4));
+    Assertions.assertEquals(0x5FF, jpegInputStream.readBits(12));
+    Assertions.assertTrue(jpegInputStream.hasNext());
+    Assertions.assertEquals(0x3C, jpegInputStream.readBits(8));
+    Assertions.assertFalse(jpegInputStream.hasNext());
+  }
+
+  @Test
+  public void testReadBitsStopsAtMarker() throws ImageReadException {
+    byte[] byteArray = { 0x12, (byte) 0xFF, (byte) 0xD9 };
+    JpegInputStream jpegInputStream = new JpegInputStream(byteArray);
+
+    Assertions.assertEquals(0x12, jpegInputStream.readBits(8));
+    Assertions.assertFalse(jpegInputStream.hasNext());
+    // bits after the marker read as zeros, but can't be consumed
+    Assertions.assertEquals(0, jpegInputStream.peekBits(9));
+    Assertions.assertThrows(ImageReadException.class, () -> {
+        jpegInputStream.skipBits(1);
+    });
+  }
+
 }
@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.formats.jpeg.exif;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.imaging.ImageReadException;
+import org.apache.commons.imaging.Imaging;
+import org.apache.commons.imaging.formats.jpeg.JpegImageMetadata;
+import org.apache.commons.imaging.formats.tiff.TiffField;
+import org.apache.commons.imaging.formats.tiff.TiffImageMetadata;
+import org.apache.commons.imaging.formats.tiff.constants.ExifTagConstants;
+import org.apache.commons.imaging.formats.tiff.constants.GpsTagConstants;
+import org.apache.commons.imaging.formats.tiff.constants.TiffConstants;
+import org.apache.commons.imaging.formats.tiff.constants.TiffTagConstants;
+import org.apache.commons.imaging.formats.tiff.taginfos.TagInfo;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures extracting the EXIF metadata of JPEGs: reading it, and looking
+ * up every known TIFF, EXIF and GPS tag in it, or reading only the
+ * orientation, the time and the position.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExifReadBenchmark {
+
+    private static final List<TagInfo> TAGS = new ArrayList<>();
+    private static final List<TagInfo> SELECTED_TAGS = Arrays.asList(
+            TiffTagConstants.TIFF_TAG_ORIENTATION,
+            ExifTagConstants.EXIF_TAG_DATE_TIME_ORIGINAL,
+            GpsTagConstants.GPS_TAG_GPS_LATITUDE_REF,
+            GpsTagConstants.GPS_TAG_GPS_LATITUDE,
+            GpsTagConstants.GPS_TAG_GPS_LONGITUDE_REF,
+            GpsTagConstants.GPS_TAG_GPS_LONGITUDE);
+
+    static {
+        TAGS.addAll(TiffTagConstants.ALL_TIFF_TAGS);
+        TAGS.addAll(ExifTagConstants.ALL_EXIF_TAGS);
+        TAGS.addAll(GpsTagConstants.ALL_GPS_TAGS);
+    }
+
+    @Param({
+        "src/test/data/images/jpg/1/Canon Powershot SD750 - 2007.12.26.n.IMG_3704.JPG",
+        "src/test/data/images/jpg/1/Nikon D50 - 2007.12.19.n.DSC_3656.JPG",
+        "src/test/data/images/jpg/1/Oregon Scientific DS6639 - DSC_0307.JPG",
+    })
+    public String file;
+
+    private byte[] bytes;
+    private TiffImageMetadata exif;
+    private Map<String, Object> selectedParams;
+
+    @Setup
+    public void setUp() throws ImageReadException, IOException {
+        bytes = FileUtils.readFileToByteArray(new File(file));
+        exif = ((JpegImageMetadata) Imaging.getMetadata(bytes)).getExif();
+        selectedParams = new HashMap<>();
+        selectedParams.put(TiffConstants.PARAM_KEY_TIFF_READ_TAGS, SELECTED_TAGS);
+    }
+
+    private static int findFields(final TiffImageMetadata exif) throws ImageReadException {
+        int found = 0;
+        for (final TagInfo tag : TAGS) {
+            final TiffField field = exif.findField(tag);
+            if (field != null) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    @Benchmark
+    public int readExif() throws ImageReadException, IOException {
+        return findFields(((JpegImageMetadata) Imaging.getMetadata(bytes)).getExif());
+    }
+
+    @Benchmark
+    public int findFields() throws ImageReadException {
+        return findFields(exif);
+    }
+
+    @Benchmark
+    public int readSelectedExif() throws ImageReadException, IOException {
+        // reading EXIF adds to the parameters
+        final TiffImageMetadata selected = ((JpegImageMetadata) Imaging.getMetadata(bytes,
+                new HashMap<>(selectedParams))).getExif();
+        int found = 0;
+        for (final TagInfo tag : SELECTED_TAGS) {
+            if (selected.findField(tag) != null) {
+                found++;
+            }
+        }
+        return found;
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.formats.jpeg.exif;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.imaging.ImageReadException;
+import org.apache.commons.imaging.ImageWriteException;
+import org.apache.commons.imaging.Imaging;
+import org.apache.commons.imaging.common.ImageMetadata.ImageMetadataItem;
+import org.apache.commons.imaging.formats.jpeg.JpegImageMetadata;
+import org.apache.commons.imaging.formats.tiff.TiffDirectory;
+import org.apache.commons.imaging.formats.tiff.TiffImageMetadata;
+import org.apache.commons.imaging.formats.tiff.constants.ExifTagConstants;
+import org.apache.commons.imaging.formats.tiff.constants.GpsTagConstants;
+import org.apache.commons.imaging.formats.tiff.constants.TiffConstants;
+import org.apache.commons.imaging.formats.tiff.constants.TiffDirectoryConstants;
+import org.apache.commons.imaging.formats.tiff.constants.TiffTagConstants;
+import org.apache.commons.imaging.formats.tiff.taginfos.TagInfo;
+import org.apache.commons.imaging.formats.tiff.write.TiffOutputDirectory;
+import org.apache.commons.imaging.formats.tiff.write.TiffOutputSet;
+import org.junit.jupiter.api.Test;
+
+public class ExifReadTagsTest {
+
+    private static final File IMAGE = new File(
+            "src/test/data/images/jpg/1/Oregon Scientific DS6639 - DSC_0307 - small.jpg");
+
+    private static final List<TagInfo> TAGS = Arrays.asList(
+            TiffTagConstants.TIFF_TAG_ORIENTATION,
+            ExifTagConstants.EXIF_TAG_DATE_TIME_ORIGINAL,
+            GpsTagConstants.GPS_TAG_GPS_LATITUDE_REF,
+            GpsTagConstants.GPS_TAG_GPS_LATITUDE,
+            GpsTagConstants.GPS_TAG_GPS_LONGITUDE_REF,
+            GpsTagConstants.GPS_TAG_GPS_LONGITUDE);
+
+    private static byte[] createImageWithGps() throws ImageReadException, ImageWriteException, IOException {
+        final TiffOutputSet outputSet = ((JpegImageMetadata) Imaging.getMetadata(IMAGE)).getExif().getOutputSet();
+        outputSet.setGPSInDegrees(7.5, 47.8);
+        // the interoperability index has the number of the GPS latitude reference
+        final TiffOutputDirectory interoperabilityDirectory = new TiffOutputDirectory(
+                TiffDirectoryConstants.DIRECTORY_TYPE_INTEROPERABILITY, outputSet.byteOrder);
+        interoperabilityDirectory.add(ExifTagConstants.EXIF_TAG_INTEROPERABILITY_INDEX, "R98");
+        outputSet.addDirectory(interoperabilityDirectory);
+        final ByteArrayOutputStream os = new ByteArrayOutputStream();
+        new ExifRewriter().updateExifMetadataLossless(IMAGE, os, outputSet);
+        return os.toByteArray();
+    }
+
+    private static TiffImageMetadata readExif(final byte[] bytes, final Object tags)
+            throws ImageReadException, IOException {
+        final Map<String, Object> params = new HashMap<>();
+        params.put(TiffConstants.PARAM_KEY_TIFF_READ_TAGS, tags);
+        return ((JpegImageMetadata) Imaging.getMetadata(bytes, params)).getExif();
+    }
+
+    @Test
+    public void testReadTags() throws ImageReadException, ImageWriteException, IOException {
+        final byte[] bytes = createImageWithGps();
+        final TiffImageMetadata all = ((JpegImageMetadata) Imaging.getMetadata(bytes)).getExif();
+        final TiffImageMetadata selected = readExif(bytes, TAGS);
+
+        for (final TagInfo tag : TAGS) {
+            assertNotNull(all.findField(tag), tag.name);
+            assertEquals(all.findField(tag).getValueDescription(), selected.findField(tag).getValueDescription());
+        }
+        assertEquals(all.getGPS().getLatitudeAsDegreesNorth(), selected.getGPS().getLatitudeAsDegreesNorth());
+        assertEquals(all.getGPS().getLongitudeAsDegreesEast(), selected.getGPS().getLongitudeAsDegreesEast());
+
+        assertNotNull(all.findField(TiffTagConstants.TIFF_TAG_MAKE));
+        assertNull(selected.findField(TiffTagConstants.TIFF_TAG_MAKE));
+        assertNotNull(all.findField(ExifTagConstants.EXIF_TAG_DATE_TIME_DIGITIZED));
+        assertNull(selected.findField(ExifTagConstants.EXIF_TAG_DATE_TIME_DIGITIZED));
+    }
+
+    @Test
+    public void testReadTagsOfRootDirectory() throws ImageReadException, ImageWriteException, IOException {
+        final byte[] bytes = createImageWithGps();
+        final TiffImageMetadata selected = readExif(bytes,
+                Collections.singleton(TiffTagConstants.TIFF_TAG_ORIENTATION));
+
+        assertNotNull(selected.findField(TiffTagConstants.TIFF_TAG_ORIENTATION));
+        // the sub-directories aren't read
+        assertNull(selected.findDirectory(TiffDirectoryConstants.DIRECTORY_TYPE_EXIF));
+        assertNull(selected.findDirectory(TiffDirectoryConstants.DIRECTORY_TYPE_GPS));
+        assertNull(selected.getGPS());
+    }
+
+    @Test
+    public void testReadTagsOfTheirDirectory() throws ImageReadException, ImageWriteException, IOException {
+        final byte[] bytes = createImageWithGps();
+        final TiffImageMetadata all = ((JpegImageMetadata) Imaging.getMetadata(bytes)).getExif();
+        // the thumbnail directory has a resolution too
+        assertNotNull(all.findDirectory(TiffDirectoryConstants.DIRECTORY_TYPE_ROOT)
+                .findField(TiffTagConstants.TIFF_TAG_XRESOLUTION));
+        assertNotNull(all.findDirectory(TiffDirectoryConstants.DIRECTORY_TYPE_DIR_1)
+                .findField(TiffTagConstants.TIFF_TAG_XRESOLUTION));
+        assertNotNull(all.findDirectory(TiffDirectoryConstants.DIRECTORY_TYPE_INTEROPERABILITY)
+                .findField(GpsTagConstants.GPS_TAG_GPS_LATITUDE_REF));
+
+        final TiffImageMetadata selected = readExif(bytes, Arrays.asList(
+                TiffTagConstants.TIFF_TAG_XRESOLUTION, GpsTagConstants.GPS_TAG_GPS_LATITUDE_REF));
+        assertNotNull(selected.findDirectory(TiffDirectoryConstants.DIRECTORY_TYPE_ROOT)
+                .findField(TiffTagConstants.TIFF_TAG_XRESOLUTION));
+        assertNull(selected.findDirectory(TiffDirectoryConstants.DIRECTORY_TYPE_DIR_1)
+                .findField(TiffTagConstants.TIFF_TAG_XRESOLUTION));
+        final TiffDirectory gps = selected.findDirectory(TiffDirectoryConstants.DIRECTORY_TYPE_GPS);
+        assertNotNull(gps.findField(GpsTagConstants.GPS_TAG_GPS_LATITUDE_REF));
+        for (final ImageMetadataItem item : selected.getDirectories()) {
+            final TiffImageMetadata.Directory directory = (TiffImageMetadata.Directory) item;
+            if (directory.type != TiffDirectoryConstants.DIRECTORY_TYPE_GPS) {
+                assertNull(directory.findField(GpsTagConstants.GPS_TAG_GPS_LATITUDE_REF));
+            }
+        }
+    }
+
+    @Test
+    public void testInvalidTags() throws ImageReadException, ImageWriteException, IOException {
+        final byte[] bytes = createImageWithGps();
+        assertThrows(ImageReadException.class, () -> readExif(bytes, TiffTagConstants.TIFF_TAG_ORIENTATION));
+        assertThrows(ImageReadException.class, () -> readExif(bytes, Collections.singleton("Orientation")));
+    }
+}
@@ -26,7 +26,9 @@ import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -41,6 +43,7 @@ import org.apache.commons.imaging.common.ImageMetadata.ImageMetadataItem;
 import org.apache.commons.imaging.common.bytesource.ByteSource;
 import org.apache.commons.imaging.common.bytesource.ByteSourceArray;
 import org.apache.commons.imaging.common.bytesource.ByteSourceFile;
+import org.apache.commons.imaging.common.bytesource.ByteSourceFileChannel;
 import org.apache.commons.imaging.formats.jpeg.JpegImageMetadata;
 import org.apache.commons.imaging.formats.jpeg.JpegUtils;
 import org.apache.commons.imaging.formats.tiff.TiffField;
@@ -96,6 +99,60 @@ public class ExifRewriteTest extends ExifBaseTest {
         }
     }
 
+    @Test
+    public void testImageDataCopied() throws Exception {
+        final List<File> images = getImagesWithExifData();
+        for (final File imageFile : images) {
+            if (isPhilHarveyTestImage(imageFile)) {
+                continue;
+            }
+            final byte[] original = FileUtils.readFileToByteArray(imageFile);
+            final long offset = new JpegUtils().traverseJFIFSegments(new ByteSourceFile(imageFile),
+                    new JpegUtils.Visitor() {
+                        @Override
+                        public boolean beginSOS() {
+                            return false;
+                        }
+
+                        @Override
+                        public void visitSOS(final int marker, final byte[] markerBytes, final byte[] imageData) {
+                            // not called
+                        }
+
+                        @Override
+                        public boolean visitSegment(final int marker, final byte[] markerBytes,
+                                final int segmentLength, final byte[] segmentLengthBytes, final byte[] segmentData) {
+                            return true;
+                        }
+                    });
+            assertEquals(0xff, original[(int) offset] & 0xff);
+            assertEquals(0xda, original[(int) offset + 1] & 0xff);
+
+            // streamed from the file, the file channel and the array, the
+            // first scan and what follows it are copied as they are
+            final ByteArrayOutputStream fromArray = new ByteArrayOutputStream();
+            new ExifRewriter().removeExifMetadata(original, fromArray);
+            final ByteArrayOutputStream fromChannel = new ByteArrayOutputStream();
+            try (ByteSourceFileChannel byteSource = new ByteSourceFileChannel(imageFile)) {
+                new ExifRewriter().removeExifMetadata(byteSource, fromChannel);
+            }
+            assertArrayEquals(fromArray.toByteArray(), fromChannel.toByteArray());
+            final File tempFile = File.createTempFile("copied_", ".jpg");
+            try {
+                try (OutputStream os = Files.newOutputStream(tempFile.toPath())) {
+                    new ExifRewriter().removeExifMetadata(imageFile, os);
+                }
+                final byte[] fromFile = FileUtils.readFileToByteArray(tempFile);
+                assertArrayEquals(fromArray.toByteArray(), fromFile);
+                final int imageDataLength = (int) (original.length - offset);
+                assertArrayEquals(Arrays.copyOfRange(original, (int) offset, original.length),
+                        Arrays.copyOfRange(fromFile, fromFile.length - imageDataLength, fromFile.length));
+            } finally {
+                tempFile.delete();
+            }
+        }
+    }
+
     @Test
     public void testInsert() throws Exception {
         final List<File> images = getImagesWithExifData();
@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.formats.jpeg.exif;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.imaging.ImageReadException;
+import org.apache.commons.imaging.ImageWriteException;
+import org.apache.commons.imaging.Imaging;
+import org.apache.commons.imaging.formats.jpeg.JpegImageMetadata;
+import org.apache.commons.imaging.formats.tiff.write.TiffOutputSet;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.output.NullOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures rewriting the EXIF metadata of JPEGs, writing back the metadata
+ * the image already has, from memory, and from a file with the image data
+ * streamed to the output.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExifRewriterBenchmark {
+
+    @Param({
+        "src/test/data/images/jpg/1/Oregon Scientific DS6639 - DSC_0307 - small.jpg",
+        "src/test/data/images/jpg/1/Oregon Scientific DS6639 - DSC_0307.JPG",
+    })
+    public String file;
+
+    private byte[] bytes;
+    private TiffOutputSet outputSet;
+
+    @Setup
+    public void setUp() throws ImageReadException, ImageWriteException, IOException {
+        bytes = FileUtils.readFileToByteArray(new File(file));
+        final JpegImageMetadata metadata = (JpegImageMetadata) Imaging.getMetadata(bytes);
+        outputSet = metadata.getExif().getOutputSet();
+    }
+
+    @Benchmark
+    public byte[] updateExifMetadataLossless() throws ImageReadException, ImageWriteException, IOException {
+        final ByteArrayOutputStream os = new ByteArrayOutputStream(bytes.length);
+        new ExifRewriter().updateExifMetadataLossless(bytes, os, outputSet);
+        return os.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] updateExifMetadataLossy() throws ImageReadException, ImageWriteException, IOException {
+        final ByteArrayOutputStream os = new ByteArrayOutputStream(bytes.length);
+        new ExifRewriter().updateExifMetadataLossy(bytes, os, outputSet);
+        return os.toByteArray();
+    }
+
+    @Benchmark
+    public void updateExifMetadataLosslessFromFile() throws ImageReadException, ImageWriteException, IOException {
+        new ExifRewriter().updateExifMetadataLossless(new File(file), NullOutputStream.NULL_OUTPUT_STREAM, outputSet);
+    }
+
+    @Benchmark
+    public byte[] removeExifMetadata() throws ImageReadException, ImageWriteException, IOException {
+        final ByteArrayOutputStream os = new ByteArrayOutputStream(bytes.length);
+        new ExifRewriter().removeExifMetadata(bytes, os);
+        return os.toByteArray();
+    }
+}
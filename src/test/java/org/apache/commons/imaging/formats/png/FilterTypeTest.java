@@ -0,0 +1,65 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.formats.png;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+import java.util.Random;
+
+import org.apache.commons.imaging.formats.png.scanlinefilters.ScanlineFilter;
+import org.apache.commons.imaging.formats.png.scanlinefilters.ScanlineFilterAverage;
+import org.apache.commons.imaging.formats.png.scanlinefilters.ScanlineFilterNone;
+import org.apache.commons.imaging.formats.png.scanlinefilters.ScanlineFilterPaeth;
+import org.apache.commons.imaging.formats.png.scanlinefilters.ScanlineFilterSub;
+import org.apache.commons.imaging.formats.png.scanlinefilters.ScanlineFilterUp;
+import org.junit.jupiter.api.Test;
+
+public class FilterTypeTest {
+
+    @Test
+    public void testFilterIsReversedByUnfilter() throws Exception {
+        final Random random = new Random(0);
+        for (int bytesPerPixel = 1; bytesPerPixel <= 8; bytesPerPixel++) {
+            // in the order of FilterType
+            final ScanlineFilter[] unfilters = {
+                new ScanlineFilterNone(),
+                new ScanlineFilterSub(bytesPerPixel),
+                new ScanlineFilterUp(),
+                new ScanlineFilterAverage(bytesPerPixel),
+                new ScanlineFilterPaeth(bytesPerPixel),
+            };
+            final int length = bytesPerPixel * 17;
+            final byte[] up = new byte[length];
+            final byte[] row = new byte[length];
+            random.nextBytes(up);
+            random.nextBytes(row);
+            for (final FilterType filterType : FilterType.values()) {
+                final ScanlineFilter unfilter = unfilters[filterType.ordinal()];
+                final byte[] filtered = new byte[length];
+                final byte[] unfiltered = new byte[length];
+
+                filterType.filter(row, filtered, up, bytesPerPixel);
+                unfilter.unfilter(filtered, unfiltered, up);
+                assertArrayEquals(row, unfiltered);
+
+                filterType.filter(row, filtered, null, bytesPerPixel);
+                unfilter.unfilter(filtered, unfiltered, null);
+                assertArrayEquals(row, unfiltered);
+            }
+        }
+    }
+}
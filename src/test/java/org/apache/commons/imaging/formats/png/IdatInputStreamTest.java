@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.formats.png;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+import org.apache.commons.imaging.ImageFormats;
+import org.apache.commons.imaging.ImageReadException;
+import org.apache.commons.imaging.Imaging;
+import org.junit.jupiter.api.Test;
+
+public class IdatInputStreamTest {
+
+    private static BufferedImage createImage() {
+        final BufferedImage image = new BufferedImage(37, 29, BufferedImage.TYPE_INT_ARGB);
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                image.setRGB(x, y, (x * 7) << 24 | (y * 9) << 16 | (x * y) << 8 | (x ^ y));
+            }
+        }
+        return image;
+    }
+
+    /**
+     * Splits the image data of a PNG into IDAT chunks of the given size,
+     * with an empty IDAT chunk and a tEXt chunk among them.
+     */
+    private static byte[] rechunk(final byte[] png, final int size, final boolean badCrc) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.wrap(png);
+        buffer.position(PngConstants.PNG_SIGNATURE.size());
+        final ByteArrayOutputStream header = new ByteArrayOutputStream();
+        final ByteArrayOutputStream idat = new ByteArrayOutputStream();
+        while (buffer.hasRemaining()) {
+            final int length = buffer.getInt();
+            final byte[] type = new byte[4];
+            buffer.get(type);
+            final byte[] data = new byte[length];
+            buffer.get(data);
+            buffer.getInt();
+            final String name = new String(type, StandardCharsets.US_ASCII);
+            if (name.equals("IDAT")) {
+                idat.write(data);
+            } else if (!name.equals("IEND")) {
+                writeChunk(new DataOutputStream(header), name, data, false);
+            }
+        }
+
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        final DataOutputStream dos = new DataOutputStream(baos);
+        PngConstants.PNG_SIGNATURE.writeTo(dos);
+        dos.write(header.toByteArray());
+        final byte[] data = idat.toByteArray();
+        for (int start = 0, n = 0; start < data.length; start += size, n++) {
+            final byte[] part = new byte[Math.min(size, data.length - start)];
+            System.arraycopy(data, start, part, 0, part.length);
+            writeChunk(dos, "IDAT", part, badCrc && start + size >= data.length);
+            if (n == 1) {
+                writeChunk(dos, "IDAT", new byte[0], false);
+            } else if (n == 2) {
+                writeChunk(dos, "tEXt", "key\0value".getBytes(StandardCharsets.US_ASCII), false);
+            }
+        }
+        writeChunk(dos, "IEND", new byte[0], false);
+        return baos.toByteArray();
+    }
+
+    private static void writeChunk(final DataOutputStream dos, final String type, final byte[] data,
+            final boolean badCrc) throws IOException {
+        final byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        final CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(data);
+        dos.writeInt(data.length);
+        dos.write(typeBytes);
+        dos.write(data);
+        dos.writeInt((int) crc.getValue() ^ (badCrc ? 1 : 0));
+    }
+
+    @Test
+    public void testSplitImageData() throws Exception {
+        final BufferedImage image = createImage();
+        final byte[] png = Imaging.writeImageToBytes(image, ImageFormats.PNG, null);
+        for (final int size : new int[] { 1, 7, 100 }) {
+            final BufferedImage read = Imaging.getBufferedImage(rechunk(png, size, false));
+            for (int y = 0; y < image.getHeight(); y++) {
+                for (int x = 0; x < image.getWidth(); x++) {
+                    assertEquals(image.getRGB(x, y), read.getRGB(x, y));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testInvalidCrc() throws Exception {
+        final byte[] png = Imaging.writeImageToBytes(createImage(), ImageFormats.PNG, null);
+        // the last chunk only holds the end of the zlib stream, which isn't
+        // needed to decode the pixels
+        final byte[] corrupt = rechunk(png, 7, true);
+        assertThrows(ImageReadException.class, () -> Imaging.getBufferedImage(corrupt));
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.formats.png;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.imaging.ImageFormats;
+import org.apache.commons.imaging.ImageReadException;
+import org.apache.commons.imaging.ImageWriteException;
+import org.apache.commons.imaging.Imaging;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures writing a large PNG from images of each of the common
+ * {@link BufferedImage} types, whose pixels are read straight from their
+ * data buffers, and from a premultiplied image, which goes through
+ * {@link BufferedImage#getRGB(int, int)}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PngImageTypeBenchmark {
+
+    private static final String FILE = "src/test/data/images/png/1/Oregon Scientific DS6639 - DSC_0307 - small.png";
+
+    @Param({
+        "TYPE_INT_ARGB", "TYPE_INT_RGB", "TYPE_3BYTE_BGR", "TYPE_4BYTE_ABGR", "TYPE_BYTE_GRAY",
+        "TYPE_INT_ARGB_PRE",
+    })
+    public String imageType;
+
+    private BufferedImage image;
+
+    @Setup
+    public void setUp() throws ImageReadException, IOException, ReflectiveOperationException {
+        final BufferedImage photo = Imaging.getBufferedImage(new File(FILE));
+        final int type = BufferedImage.class.getField(imageType).getInt(null);
+        image = new BufferedImage(2048, 1536, type);
+        final Graphics2D g = image.createGraphics();
+        g.drawImage(photo, 0, 0, image.getWidth(), image.getHeight(), null);
+        g.dispose();
+        if (image.getColorModel().hasAlpha()) {
+            // a gradient of alpha, so the image is written with it
+            for (int y = 0; y < image.getHeight(); y++) {
+                for (int x = 0; x < image.getWidth(); x++) {
+                    image.setRGB(x, y, (x & 0xff) << 24 | (0xffffff & image.getRGB(x, y)));
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public byte[] writeImage() throws ImageWriteException, IOException {
+        return Imaging.writeImageToBytes(image, ImageFormats.PNG, null);
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.formats.png;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.DeflaterOutputStream;
+
+import org.apache.commons.imaging.ImageFormats;
+import org.apache.commons.imaging.ImageInfo;
+import org.apache.commons.imaging.ImageReadException;
+import org.apache.commons.imaging.Imaging;
+import org.apache.commons.imaging.common.bytesource.ByteSourceArray;
+import org.apache.commons.imaging.common.bytesource.ByteSourceFile;
+import org.junit.jupiter.api.Test;
+
+public class PngReadScanlinesTest extends PngBaseTest {
+
+    private static BufferedImage createImage(final int width, final int height) {
+        final BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setRGB(x, y, (x * 19 + 7) << 24 | (y * 23) << 16 | (x * y) << 8 | (x + y));
+            }
+        }
+        return image;
+    }
+
+    /**
+     * Writes an 8 bit RGBA image with filtered rows, so that reading them
+     * has to undo the filters.
+     */
+    private static byte[] writeFiltered(final BufferedImage image) throws Exception {
+        final Map<String, Object> params = new HashMap<>();
+        params.put(PngConstants.PARAM_KEY_PNG_FORCE_TRUE_COLOR, Boolean.TRUE);
+        params.put(PngConstants.PARAM_KEY_PNG_FILTER_STRATEGY, PngFilterStrategy.ADAPTIVE);
+        return Imaging.writeImageToBytes(image, ImageFormats.PNG, params);
+    }
+
+    private static byte[] getSamples(final BufferedImage image, final int y) {
+        final byte[] samples = new byte[4 * image.getWidth()];
+        for (int x = 0; x < image.getWidth(); x++) {
+            final int argb = image.getRGB(x, y);
+            samples[4 * x] = (byte) (argb >> 16);
+            samples[4 * x + 1] = (byte) (argb >> 8);
+            samples[4 * x + 2] = (byte) argb;
+            samples[4 * x + 3] = (byte) (argb >>> 24);
+        }
+        return samples;
+    }
+
+    @Test
+    public void testRowsMatchWrittenSamples() throws Exception {
+        final BufferedImage image = createImage(37, 23);
+        final byte[] bytes = writeFiltered(image);
+
+        final int[] next = new int[1];
+        new PngImageParser().readScanlines(new ByteSourceArray(bytes), null, new PngScanlineHandler() {
+            @Override
+            public void start(final int width, final int height, final PngColorType pngColorType,
+                    final int bitDepth) {
+                assertEquals(image.getWidth(), width);
+                assertEquals(image.getHeight(), height);
+                assertEquals(PngColorType.TRUE_COLOR_WITH_ALPHA, pngColorType);
+                assertEquals(8, bitDepth);
+            }
+
+            @Override
+            public void scanline(final int y, final byte[] samples) {
+                assertEquals(next[0]++, y);
+                assertArrayEquals(getSamples(image, y), samples);
+            }
+        });
+        assertEquals(image.getHeight(), next[0]);
+    }
+
+    @Test
+    public void testHandlerMayModifySamples() throws Exception {
+        final BufferedImage image = createImage(37, 23);
+        final byte[] bytes = writeFiltered(image);
+
+        final int[] next = new int[1];
+        new PngImageParser().readScanlines(new ByteSourceArray(bytes), null, (y, samples) -> {
+            assertEquals(next[0]++, y);
+            assertArrayEquals(getSamples(image, y), samples);
+            // the rows filtered with Up, Average or Paeth still decode
+            Arrays.fill(samples, (byte) 0x5a);
+        });
+        assertEquals(image.getHeight(), next[0]);
+    }
+
+    @Test
+    public void testRowsOfTestImages() throws Exception {
+        final PngImageParser parser = new PngImageParser();
+        final List<File> images = getPngImages();
+        for (final File imageFile : images) {
+            if (isInvalidPNGTestFile(imageFile)) {
+                continue;
+            }
+            final ImageInfo imageInfo = Imaging.getImageInfo(imageFile);
+            final ByteSourceFile byteSource = new ByteSourceFile(imageFile);
+            if (imageInfo.isProgressive()) {
+                assertThrows(ImageReadException.class,
+                        () -> parser.readScanlines(byteSource, null, (y, samples) -> { }));
+                continue;
+            }
+            final int rowLength = (imageInfo.getWidth() * imageInfo.getBitsPerPixel() + 7) / 8;
+            final int[] next = new int[1];
+            parser.readScanlines(byteSource, null, (y, samples) -> {
+                assertEquals(next[0]++, y);
+                assertEquals(rowLength, samples.length);
+            });
+            assertEquals(imageInfo.getHeight(), next[0]);
+        }
+    }
+
+    @Test
+    public void testRejectsInterlacedImages() throws Exception {
+        final byte[] bytes = writeInterlaced(createImage(13, 11));
+        // the image itself is valid
+        assertEquals(13, Imaging.getBufferedImage(bytes).getWidth());
+        assertThrows(ImageReadException.class, () -> new PngImageParser().readScanlines(
+                new ByteSourceArray(bytes), null, (y, samples) -> { }));
+    }
+
+    /**
+     * Writes an 8 bit RGBA image with Adam7 interlacing and no filtering,
+     * which PngWriter does not support.
+     */
+    private static byte[] writeInterlaced(final BufferedImage image) throws IOException {
+        final int[] startingRow = { 0, 0, 4, 0, 2, 0, 1 };
+        final int[] startingCol = { 0, 4, 0, 2, 0, 1, 0 };
+        final int[] rowIncrement = { 8, 8, 8, 4, 4, 2, 2 };
+        final int[] colIncrement = { 8, 8, 4, 4, 2, 2, 1 };
+        final int width = image.getWidth();
+        final int height = image.getHeight();
+
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (DeflaterOutputStream dos = new DeflaterOutputStream(compressed)) {
+            for (int pass = 0; pass < 7; pass++) {
+                if (startingCol[pass] >= width) {
+                    continue;
+                }
+                for (int y = startingRow[pass]; y < height; y += rowIncrement[pass]) {
+                    dos.write(0); // filter type NONE
+                    for (int x = startingCol[pass]; x < width; x += colIncrement[pass]) {
+                        final int argb = image.getRGB(x, y);
+                        dos.write(argb >> 16);
+                        dos.write(argb >> 8);
+                        dos.write(argb);
+                        dos.write(argb >>> 24);
+                    }
+                }
+            }
+        }
+
+        final ByteArrayOutputStream ihdr = new ByteArrayOutputStream();
+        final DataOutputStream ihdrData = new DataOutputStream(ihdr);
+        ihdrData.writeInt(width);
+        ihdrData.writeInt(height);
+        ihdrData.write(new byte[] { 8, 6, 0, 0, 1 });
+
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        final DataOutputStream dos = new DataOutputStream(baos);
+        PngConstants.PNG_SIGNATURE.writeTo(dos);
+        writeChunk(dos, "IHDR", ihdr.toByteArray());
+        writeChunk(dos, "IDAT", compressed.toByteArray());
+        writeChunk(dos, "IEND", new byte[0]);
+        return baos.toByteArray();
+    }
+
+    private static void writeChunk(final DataOutputStream dos, final String type, final byte[] data)
+            throws IOException {
+        final byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        final CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(data);
+        dos.writeInt(data.length);
+        dos.write(typeBytes);
+        dos.write(data);
+        dos.writeInt((int) crc.getValue());
+    }
+}
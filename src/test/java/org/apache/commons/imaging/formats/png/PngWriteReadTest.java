@@ -20,9 +20,11 @@ package org.apache.commons.imaging.formats.png;
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.util.HashMap;
@@ -30,6 +32,9 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import javax.imageio.ImageIO;
 
 import org.apache.commons.imaging.ImageFormats;
 import org.apache.commons.imaging.ImageReadException;
@@ -102,6 +107,71 @@ public class PngWriteReadTest extends ImagingTest {
         }
     }
 
+    @Test
+    public void testFilterStrategies() throws Exception {
+        final int[][][] testData = { getSimpleRawData(256, 256, 0xffff0000),
+                getSimpleRawData(1, 1, 0xffff0000), getAscendingRawData(256, 256),
+                randomRawData(256, 256), randomRawData(3, 200), };
+
+        for (final PngFilterStrategy filterStrategy : PngFilterStrategy.values()) {
+            final Map<String, Object> writeParams = new HashMap<>();
+            writeParams.put(PngConstants.PARAM_KEY_PNG_FILTER_STRATEGY, filterStrategy);
+            for (final int[][] rawData : testData) {
+                writeAndReadImageData(rawData, writeParams);
+            }
+        }
+
+        // rows are not filtered by default
+        for (final int[][] rawData : testData) {
+            final BufferedImage image = imageDataToBufferedImage(rawData);
+            final Map<String, Object> writeParams = new HashMap<>();
+            writeParams.put(PngConstants.PARAM_KEY_PNG_FILTER_STRATEGY, PngFilterStrategy.NONE);
+            assertArrayEquals(Imaging.writeImageToBytes(image, ImageFormats.PNG, writeParams),
+                    Imaging.writeImageToBytes(image, ImageFormats.PNG, null));
+        }
+    }
+
+    @Test
+    public void testConcurrentEncoding() throws Exception {
+        final int[][][] testData = { getSimpleRawData(256, 256, 0xffff0000),
+                getSimpleRawData(1, 1, 0xffff0000), getAscendingRawData(256, 256),
+                randomRawData(256, 256), randomRawData(3, 200), };
+
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (final Integer bandHeight : new Integer[] { null, 1, 7 }) {
+                final Map<String, Object> writeParams = new HashMap<>();
+                writeParams.put(PngConstants.PARAM_KEY_PNG_ENCODE_EXECUTOR, pool);
+                if (bandHeight != null) {
+                    writeParams.put(PngConstants.PARAM_KEY_PNG_ENCODE_BAND_HEIGHT, bandHeight);
+                }
+                for (final int[][] rawData : testData) {
+                    writeAndReadImageData(rawData, writeParams);
+
+                    // the bands must join into a stream any decoder can read
+                    final BufferedImage image = imageDataToBufferedImage(rawData);
+                    final BufferedImage expected = ImageIO.read(new ByteArrayInputStream(
+                            Imaging.writeImageToBytes(image, ImageFormats.PNG, null)));
+                    final BufferedImage read = ImageIO.read(new ByteArrayInputStream(
+                            Imaging.writeImageToBytes(image, ImageFormats.PNG, new HashMap<>(writeParams))));
+                    for (int y = 0; y < rawData.length; y++) {
+                        for (int x = 0; x < rawData[y].length; x++) {
+                            assertEquals(expected.getRGB(x, y), read.getRGB(x, y));
+                        }
+                    }
+                }
+            }
+
+            final Map<String, Object> writeParams = new HashMap<>();
+            writeParams.put(PngConstants.PARAM_KEY_PNG_ENCODE_EXECUTOR, pool);
+            writeParams.put(PngConstants.PARAM_KEY_PNG_ENCODE_BAND_HEIGHT, 0);
+            assertThrows(ImageWriteException.class, () -> Imaging.writeImageToBytes(
+                    imageDataToBufferedImage(getAscendingRawData(16, 16)), ImageFormats.PNG, writeParams));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
     @Test
     public void test_withMultipletEXt() throws Exception {
         final int[][] smallBlackPixels = getSimpleRawData(256, 256, 0);
@@ -179,14 +249,19 @@ public class PngWriteReadTest extends ImagingTest {
 
     private void writeAndReadImageData(final int[][] rawData) throws IOException,
             ImageReadException, ImageWriteException {
-        final BufferedImage srcImage = imageDataToBufferedImage(rawData);
-
         final Map<String, Object> writeParams = new HashMap<>();
         // writeParams.put(ImagingConstants.PARAM_KEY_FORMAT,
         // ImageFormat.IMAGE_FORMAT_PNG);
         // writeParams.put(PngConstants.PARAM_KEY_PNG_FORCE_TRUE_COLOR,
         // Boolean.TRUE);
 
+        writeAndReadImageData(rawData, writeParams);
+    }
+
+    private void writeAndReadImageData(final int[][] rawData, final Map<String, Object> writeParams)
+            throws IOException, ImageReadException, ImageWriteException {
+        final BufferedImage srcImage = imageDataToBufferedImage(rawData);
+
         final byte[] bytes = Imaging.writeImageToBytes(srcImage,
                 ImageFormats.PNG, writeParams);
 
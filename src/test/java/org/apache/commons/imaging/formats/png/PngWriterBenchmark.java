@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.formats.png;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.imaging.ImageFormats;
+import org.apache.commons.imaging.ImageReadException;
+import org.apache.commons.imaging.ImageWriteException;
+import org.apache.commons.imaging.Imaging;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures writing PNGs with each filter strategy, on the calling thread and
+ * concurrently.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PngWriterBenchmark {
+
+    @Param({
+        // photo
+        "src/test/data/images/png/1/Oregon Scientific DS6639 - DSC_0307 - small.png",
+        // drawing
+        "src/test/data/images/png/2/28569.png",
+        // dithered, 256 colors
+        "src/test/data/images/gif/single/1/Oregon Scientific DS6639 - DSC_0307 - small.gif",
+        // grayscale scan
+        "src/test/data/images/tiff/1/matthew2.tif",
+    })
+    public String file;
+
+    @Param({"NONE", "ADAPTIVE", "BRUTE_FORCE"})
+    public PngFilterStrategy filterStrategy;
+
+    /**
+     * The number of threads the image is encoded on, or 0 to encode it on
+     * the calling thread.
+     */
+    @Param({"0", "4"})
+    public int threads;
+
+    private BufferedImage image;
+    private Map<String, Object> params;
+    private ForkJoinPool pool;
+
+    @Setup
+    public void setUp() throws ImageReadException, ImageWriteException, IOException {
+        image = Imaging.getBufferedImage(new File(file));
+        params = new HashMap<>();
+        params.put(PngConstants.PARAM_KEY_PNG_FILTER_STRATEGY, filterStrategy);
+        if (threads > 0) {
+            pool = new ForkJoinPool(threads);
+            params.put(PngConstants.PARAM_KEY_PNG_ENCODE_EXECUTOR, pool);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    @Benchmark
+    public byte[] writeImage() throws ImageWriteException, IOException {
+        return Imaging.writeImageToBytes(image, ImageFormats.PNG, params);
+    }
+}
@@ -17,15 +17,23 @@
 
 package org.apache.commons.imaging.formats.tiff;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
+import org.apache.commons.imaging.FormatCompliance;
 import org.apache.commons.imaging.ImageFormat;
 import org.apache.commons.imaging.ImageFormats;
 import org.apache.commons.imaging.ImageReadException;
 import org.apache.commons.imaging.Imaging;
+import org.apache.commons.imaging.ImagingConstants;
 import org.apache.commons.imaging.ImagingTest;
+import org.apache.commons.imaging.common.bytesource.ByteSource;
 
 public abstract class TiffBaseTest extends ImagingTest {
 
@@ -41,4 +49,40 @@ public abstract class TiffBaseTest extends ImagingTest {
         return getTestImages(IMAGE_FILTER);
     }
 
+    /**
+     * Creates an RGB gradient with a pattern over it, for the writing tests.
+     */
+    protected static BufferedImage createImage(final int width, final int height) {
+        final BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setRGB(x, y, (x * 255 / (width - 1)) << 16 | (y * 255 / (height - 1)) << 8 | ((x * y) & 0xff));
+            }
+        }
+        return image;
+    }
+
+    protected static Map<String, Object> createParams(final int compression) {
+        final Map<String, Object> params = new HashMap<>();
+        params.put(ImagingConstants.PARAM_KEY_COMPRESSION, compression);
+        return params;
+    }
+
+    protected static void assertSamePixels(final BufferedImage expected, final BufferedImage actual) {
+        assertEquals(expected.getWidth(), actual.getWidth());
+        assertEquals(expected.getHeight(), actual.getHeight());
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                assertEquals(expected.getRGB(x, y), actual.getRGB(x, y), "pixel " + x + ", " + y);
+            }
+        }
+    }
+
+    /**
+     * Reads the directories of a TIFF, without its image data.
+     */
+    protected static TiffContents readContents(final ByteSource byteSource) throws ImageReadException, IOException {
+        return new TiffReader(true).readDirectories(byteSource, false, FormatCompliance.getDefault());
+    }
+
 }
@@ -0,0 +1,172 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.formats.tiff;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.commons.imaging.ImageFormats;
+import org.apache.commons.imaging.ImageReadException;
+import org.apache.commons.imaging.ImageWriteException;
+import org.apache.commons.imaging.Imaging;
+import org.apache.commons.imaging.common.RationalNumber;
+import org.apache.commons.imaging.common.bytesource.ByteSourceArray;
+import org.apache.commons.imaging.formats.tiff.constants.ExifTagConstants;
+import org.apache.commons.imaging.formats.tiff.constants.TiffConstants;
+import org.apache.commons.imaging.formats.tiff.constants.TiffDirectoryType;
+import org.apache.commons.imaging.formats.tiff.constants.TiffTagConstants;
+import org.apache.commons.imaging.formats.tiff.fieldtypes.FieldType;
+import org.apache.commons.imaging.formats.tiff.taginfos.TagInfoUnknown;
+import org.apache.commons.imaging.formats.tiff.write.TiffImageWriterLossy;
+import org.apache.commons.imaging.formats.tiff.write.TiffOutputDirectory;
+import org.apache.commons.imaging.formats.tiff.write.TiffOutputField;
+import org.apache.commons.imaging.formats.tiff.write.TiffOutputSet;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+public class TiffBigTiffTest extends TiffBaseTest {
+
+    private static final int WIDTH = 90;
+    private static final int HEIGHT = 60;
+
+    private static TiffContents readContents(final byte[] bytes) throws ImageReadException, IOException {
+        return readContents(new ByteSourceArray(bytes));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = { TiffConstants.TIFF_COMPRESSION_UNCOMPRESSED, TiffConstants.TIFF_COMPRESSION_LZW,
+            TiffConstants.TIFF_COMPRESSION_PACKBITS, TiffConstants.TIFF_COMPRESSION_CCITT_GROUP_4 })
+    public void testWriteAndRead(final int compression) throws ImageReadException, ImageWriteException, IOException {
+        final BufferedImage image = createImage(WIDTH, HEIGHT);
+        final Map<String, Object> params = createParams(compression);
+        final BufferedImage expected = Imaging.getBufferedImage(
+                Imaging.writeImageToBytes(image, ImageFormats.TIFF, params));
+
+        params.put(TiffConstants.PARAM_KEY_TIFF_BIG_TIFF, Boolean.TRUE);
+        // several strips, whose offsets don't fit in the directory entry,
+        // except for the single strip of the bilevel image
+        params.put(TiffConstants.PARAM_KEY_LZW_COMPRESSION_BLOCK_SIZE, 8000);
+        final byte[] bytes = Imaging.writeImageToBytes(image, ImageFormats.TIFF, params);
+
+        final TiffContents contents = readContents(bytes);
+        assertTrue(contents.header.bigTiff);
+        assertEquals(TiffConstants.TIFF_VERSION_BIG, contents.header.tiffVersion);
+        assertEquals(TiffConstants.TIFF_BIG_HEADER_SIZE, contents.header.offsetToFirstIFD);
+        final TiffDirectory directory = contents.directories.get(0);
+        final TiffField stripOffsets = directory.findField(TiffTagConstants.TIFF_TAG_STRIP_OFFSETS);
+        assertEquals(FieldType.LONG8, stripOffsets.getFieldType());
+        assertEquals(WIDTH, directory.getSingleFieldValue(TiffTagConstants.TIFF_TAG_IMAGE_WIDTH));
+
+        assertSamePixels(expected, Imaging.getBufferedImage(bytes));
+    }
+
+    @Test
+    public void testTiles() throws ImageReadException, ImageWriteException, IOException {
+        final BufferedImage image = createImage(WIDTH, HEIGHT);
+        final Map<String, Object> params = createParams(TiffConstants.TIFF_COMPRESSION_DEFLATE_ADOBE);
+        params.put(TiffConstants.PARAM_KEY_TIFF_TILE_WIDTH, 32);
+        params.put(TiffConstants.PARAM_KEY_TIFF_BIG_TIFF, Boolean.TRUE);
+        final byte[] bytes = Imaging.writeImageToBytes(image, ImageFormats.TIFF, params);
+
+        final TiffDirectory directory = readContents(bytes).directories.get(0);
+        assertEquals(FieldType.LONG8, directory.findField(TiffTagConstants.TIFF_TAG_TILE_OFFSETS).getFieldType());
+        assertSamePixels(image, Imaging.getBufferedImage(bytes));
+    }
+
+    @Test
+    public void testFieldsAndSubDirectories() throws ImageReadException, ImageWriteException, IOException {
+        final TagInfoUnknown bigValueTag = new TagInfoUnknown("BigValue", 0xc7a1,
+                TiffDirectoryType.EXIF_DIRECTORY_UNKNOWN);
+        final long[] bigValues = { 0x123456789aL, -1L };
+        final RationalNumber exposureTime = new RationalNumber(1, 250);
+
+        final TiffOutputSet outputSet = new TiffOutputSet(ByteOrder.BIG_ENDIAN);
+        final TiffOutputDirectory root = outputSet.getOrCreateRootDirectory();
+        root.add(TiffTagConstants.TIFF_TAG_IMAGE_DESCRIPTION, "A BigTIFF");
+        root.add(new TiffOutputField(bigValueTag, FieldType.LONG8, bigValues.length,
+                FieldType.LONG8.writeData(bigValues, ByteOrder.BIG_ENDIAN)));
+        // a LONG offset, as in an output set copied from a classic TIFF
+        root.add(ExifTagConstants.EXIF_TAG_EXIF_OFFSET, 0);
+        // 8 bytes, which fit in the directory entry of a BigTIFF
+        outputSet.getOrCreateExifDirectory().add(ExifTagConstants.EXIF_TAG_EXPOSURE_TIME, exposureTime);
+
+        final ByteArrayOutputStream os = new ByteArrayOutputStream();
+        new TiffImageWriterLossy(ByteOrder.BIG_ENDIAN, true).write(os, outputSet);
+        final byte[] bytes = os.toByteArray();
+        assertArrayEquals(new byte[] { 'M', 'M', 0, 43, 0, 8, 0, 0 }, Arrays.copyOf(bytes, 8));
+
+        final TiffContents contents = readContents(bytes);
+        final TiffDirectory rootDirectory = contents.directories.get(0);
+        assertEquals("A BigTIFF", rootDirectory.getSingleFieldValue(TiffTagConstants.TIFF_TAG_IMAGE_DESCRIPTION));
+        assertArrayEquals(bigValues, rootDirectory.findField(bigValueTag).getLongArrayValue());
+        // the first value doesn't fit in an int
+        assertThrows(ImageReadException.class, () -> rootDirectory.findField(bigValueTag).getIntArrayValue());
+        assertEquals(FieldType.IFD8,
+                rootDirectory.findField(ExifTagConstants.EXIF_TAG_EXIF_OFFSET).getFieldType());
+
+        final TiffField exposureField = contents.findField(ExifTagConstants.EXIF_TAG_EXPOSURE_TIME);
+        final RationalNumber value = (RationalNumber) exposureField.getValue();
+        assertEquals(exposureTime.numerator, value.numerator);
+        assertEquals(exposureTime.divisor, value.divisor);
+        assertNull(exposureField.getOversizeValueElement());
+    }
+
+    @Test
+    public void testOutputSetUnchanged() throws ImageReadException, ImageWriteException, IOException {
+        final TiffOutputSet outputSet = new TiffOutputSet(ByteOrder.BIG_ENDIAN);
+        outputSet.getOrCreateRootDirectory().add(TiffTagConstants.TIFF_TAG_IMAGE_DESCRIPTION, "Written twice");
+        outputSet.getOrCreateExifDirectory().add(ExifTagConstants.EXIF_TAG_EXPOSURE_TIME, new RationalNumber(1, 250));
+        outputSet.setGPSInDegrees(7.5, 47.8);
+        final ByteArrayOutputStream classic = new ByteArrayOutputStream();
+        new TiffImageWriterLossy(ByteOrder.BIG_ENDIAN).write(classic, outputSet);
+
+        final ByteArrayOutputStream big = new ByteArrayOutputStream();
+        new TiffImageWriterLossy(ByteOrder.BIG_ENDIAN, true).write(big, outputSet);
+        final TiffDirectory bigRoot = readContents(big.toByteArray()).directories.get(0);
+        assertEquals(FieldType.IFD8, bigRoot.findField(ExifTagConstants.EXIF_TAG_EXIF_OFFSET).getFieldType());
+        assertEquals(FieldType.IFD8, bigRoot.findField(ExifTagConstants.EXIF_TAG_GPSINFO).getFieldType());
+
+        // the offsets of the output set are still LONGs, so it is written
+        // to a classic TIFF as it was before
+        final TiffOutputDirectory root = outputSet.getRootDirectory();
+        assertEquals(FieldType.LONG, root.findField(ExifTagConstants.EXIF_TAG_EXIF_OFFSET).fieldType);
+        assertEquals(FieldType.LONG, root.findField(ExifTagConstants.EXIF_TAG_GPSINFO).fieldType);
+        final ByteArrayOutputStream again = new ByteArrayOutputStream();
+        new TiffImageWriterLossy(ByteOrder.BIG_ENDIAN).write(again, outputSet);
+        assertArrayEquals(classic.toByteArray(), again.toByteArray());
+    }
+
+    @Test
+    public void testInvalidParameter() {
+        final Map<String, Object> params = new HashMap<>();
+        params.put(TiffConstants.PARAM_KEY_TIFF_BIG_TIFF, "yes");
+        assertThrows(ImageWriteException.class,
+                () -> Imaging.writeImageToBytes(createImage(WIDTH, HEIGHT), ImageFormats.TIFF, params));
+    }
+}
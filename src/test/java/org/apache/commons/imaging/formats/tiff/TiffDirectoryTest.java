@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.formats.tiff;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.imaging.ImageReadException;
+import org.apache.commons.imaging.formats.tiff.constants.TiffDirectoryConstants;
+import org.apache.commons.imaging.formats.tiff.constants.TiffDirectoryType;
+import org.apache.commons.imaging.formats.tiff.constants.TiffTagConstants;
+import org.apache.commons.imaging.formats.tiff.fieldtypes.FieldType;
+import org.apache.commons.imaging.formats.tiff.taginfos.TagInfoUnknown;
+import org.junit.jupiter.api.Test;
+
+public class TiffDirectoryTest {
+
+    private static TiffField createField(final int tag, final int value) {
+        return new TiffField(tag, TiffDirectoryConstants.DIRECTORY_TYPE_ROOT, FieldType.SHORT, 1, 0,
+                new byte[] { 0, (byte) value }, ByteOrder.BIG_ENDIAN, 0);
+    }
+
+    private static TiffDirectory createDirectory(final List<TiffField> fields) {
+        return new TiffDirectory(TiffDirectoryConstants.DIRECTORY_TYPE_ROOT, fields, 8, 0, ByteOrder.BIG_ENDIAN);
+    }
+
+    @Test
+    public void testFindField() throws ImageReadException {
+        final List<TiffField> fields = new ArrayList<>();
+        for (int tag = 0; tag < 600; tag += 3) {
+            fields.add(createField(tag, tag & 0xff));
+        }
+        // the tags of a directory aren't always in order, or unique
+        Collections.reverse(fields);
+        fields.add(createField(300, 7));
+        final TiffDirectory directory = createDirectory(fields);
+
+        for (int tag = 0; tag < 600; tag++) {
+            final TiffField field = directory.findField(new TagInfoUnknown("Tag", tag,
+                    TiffDirectoryType.EXIF_DIRECTORY_UNKNOWN));
+            if (tag % 3 == 0) {
+                assertEquals(tag, field.getTag());
+                assertEquals(tag & 0xff, field.getIntValue());
+            } else {
+                assertNull(field);
+            }
+        }
+        // the first of the fields with a tag
+        assertEquals(300 & 0xff, directory.findField(new TagInfoUnknown("Tag", 300,
+                TiffDirectoryType.EXIF_DIRECTORY_UNKNOWN)).getIntValue());
+    }
+
+    @Test
+    public void testFindFieldInEmptyDirectory() throws ImageReadException {
+        final TiffDirectory directory = createDirectory(new ArrayList<>());
+        assertThrows(ImageReadException.class,
+                () -> directory.findField(TiffTagConstants.TIFF_TAG_IMAGE_WIDTH, true));
+        assertNull(createDirectory(Collections.singletonList(createField(1, 1)))
+                .findField(TiffTagConstants.TIFF_TAG_IMAGE_WIDTH));
+    }
+}
@@ -27,6 +27,7 @@ import java.nio.ByteOrder;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Random;
 
 import org.apache.commons.imaging.ImageReadException;
 import org.apache.commons.imaging.common.bytesource.ByteSource;
@@ -58,6 +59,22 @@ public class TiffLzwTest extends TiffBaseTest {
         }
     }
 
+    @Test
+    public void testFullTable() throws Exception {
+        // long runs make strings of thousands of bytes, and the noise fills
+        // the table so that it has to be cleared several times
+        final byte[] bytes = new byte[1024 * 1024];
+        final Random random = new Random(1);
+        for (int i = 1; i < bytes.length; i++) {
+            bytes[i] = random.nextInt(8) == 0 ? (byte) random.nextInt(256) : bytes[i - 1];
+        }
+        for (int i = bytes.length / 2; i < bytes.length / 2 + 100000; i++) {
+            bytes[i] = 7;
+        }
+
+        compressRoundtripAndValidate(bytes);
+    }
+
     @Disabled // FIXME fails with java.io.IOException: Bad Code: -1 codes: 258 code_size: 9, table: 4096
     @Test
     public void testTiffImageData() throws IOException, ImageReadException {
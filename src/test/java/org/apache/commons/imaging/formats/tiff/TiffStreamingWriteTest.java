@@ -0,0 +1,191 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.formats.tiff;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import org.apache.commons.imaging.ImageFormats;
+import org.apache.commons.imaging.ImageReadException;
+import org.apache.commons.imaging.ImageWriteException;
+import org.apache.commons.imaging.Imaging;
+import org.apache.commons.imaging.common.bytesource.ByteSourceFile;
+import org.apache.commons.imaging.formats.tiff.constants.TiffConstants;
+import org.apache.commons.imaging.formats.tiff.constants.TiffTagConstants;
+import org.apache.commons.imaging.formats.tiff.write.TiffImageWriterStreaming;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+public class TiffStreamingWriteTest extends TiffBaseTest {
+
+    private static final int WIDTH = 100;
+    private static final int HEIGHT = 70;
+
+    @TempDir
+    File tempDir;
+
+    private static TiffContents readContents(final File file) throws ImageReadException, IOException {
+        return readContents(new ByteSourceFile(file));
+    }
+
+    private static void writeRows(final BufferedImage image, final File file, final Map<String, Object> params,
+            final int rowsAtATime) throws ImageWriteException, IOException {
+        try (TiffImageWriterStreaming writer = new TiffImageWriterStreaming(file, WIDTH, HEIGHT, params)) {
+            for (int y = 0; y < HEIGHT; y += rowsAtATime) {
+                final int rows = Math.min(rowsAtATime, HEIGHT - y);
+                final int[] argb = new int[3 + rows * WIDTH];
+                image.getRGB(0, y, WIDTH, rows, argb, 3, WIDTH);
+                writer.writeRows(argb, 3, rows);
+            }
+            writer.finish();
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = { TiffConstants.TIFF_COMPRESSION_UNCOMPRESSED, TiffConstants.TIFF_COMPRESSION_LZW,
+            TiffConstants.TIFF_COMPRESSION_PACKBITS, TiffConstants.TIFF_COMPRESSION_DEFLATE_ADOBE,
+            TiffConstants.TIFF_COMPRESSION_CCITT_GROUP_4 })
+    public void testStrips(final int compression) throws ImageReadException, ImageWriteException, IOException {
+        final BufferedImage image = createImage(WIDTH, HEIGHT);
+        final Map<String, Object> params = createParams(compression);
+        params.put(TiffConstants.PARAM_KEY_LZW_COMPRESSION_BLOCK_SIZE, 8000);
+        final byte[] expected = Imaging.writeImageToBytes(image, ImageFormats.TIFF, params);
+
+        final File file = new File(tempDir, "strips.tif");
+        writeRows(image, file, params, 7);
+
+        final TiffContents contents = readContents(file);
+        assertEquals(1, contents.directories.size());
+        assertSamePixels(Imaging.getBufferedImage(expected), Imaging.getBufferedImage(file));
+        // the same strips, before the directory rather than after it
+        final byte[] bytes = Files.readAllBytes(file.toPath());
+        assertEquals(expected.length, bytes.length);
+    }
+
+    @Test
+    public void testTiles() throws ImageReadException, ImageWriteException, IOException {
+        final BufferedImage image = createImage(WIDTH, HEIGHT);
+        final Map<String, Object> params = createParams(TiffConstants.TIFF_COMPRESSION_DEFLATE_ADOBE);
+        params.put(TiffConstants.PARAM_KEY_TIFF_TILE_WIDTH, 32);
+        params.put(TiffConstants.PARAM_KEY_TIFF_TILE_LENGTH, 48);
+        params.put(TiffConstants.PARAM_KEY_TIFF_PREDICTOR, TiffTagConstants.PREDICTOR_VALUE_HORIZONTAL_DIFFERENCING);
+
+        final File rows = new File(tempDir, "rows.tif");
+        writeRows(image, rows, params, 20);
+        assertSamePixels(image, Imaging.getBufferedImage(rows));
+
+        // the tiles in reverse order
+        final File tiles = new File(tempDir, "tiles.tif");
+        try (TiffImageWriterStreaming writer = new TiffImageWriterStreaming(tiles, WIDTH, HEIGHT, params)) {
+            for (int tileY = 1; tileY >= 0; tileY--) {
+                for (int tileX = 3; tileX >= 0; tileX--) {
+                    final int[] argb = new int[32 * 48];
+                    final int x0 = tileX * 32;
+                    final int y0 = tileY * 48;
+                    image.getRGB(x0, y0, Math.min(32, WIDTH - x0), Math.min(48, HEIGHT - y0), argb, 0, 32);
+                    writer.writeTile(tileX, tileY, argb);
+                }
+            }
+            writer.finish();
+        }
+        final TiffDirectory directory = readContents(tiles).directories.get(0);
+        assertEquals(4 * 2, directory.getFieldValue(TiffTagConstants.TIFF_TAG_TILE_OFFSETS, true).length);
+        assertSamePixels(image, Imaging.getBufferedImage(tiles));
+    }
+
+    @Test
+    public void testBigTiff() throws ImageReadException, ImageWriteException, IOException {
+        final BufferedImage image = createImage(WIDTH, HEIGHT);
+        final Map<String, Object> params = createParams(TiffConstants.TIFF_COMPRESSION_LZW);
+        params.put(TiffConstants.PARAM_KEY_LZW_COMPRESSION_BLOCK_SIZE, 8000);
+        params.put(TiffConstants.PARAM_KEY_TIFF_BIG_TIFF, Boolean.TRUE);
+
+        final File file = new File(tempDir, "big.tif");
+        writeRows(image, file, params, HEIGHT);
+
+        final TiffContents contents = readContents(file);
+        assertTrue(contents.header.bigTiff);
+        assertSamePixels(image, Imaging.getBufferedImage(file));
+    }
+
+    @Test
+    public void testConcurrentEncoding() throws ImageWriteException, IOException {
+        final BufferedImage image = createImage(WIDTH, HEIGHT);
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (final boolean tiled : new boolean[] { false, true }) {
+                final Map<String, Object> params = createParams(TiffConstants.TIFF_COMPRESSION_LZW);
+                params.put(TiffConstants.PARAM_KEY_LZW_COMPRESSION_BLOCK_SIZE, 8000);
+                if (tiled) {
+                    params.put(TiffConstants.PARAM_KEY_TIFF_TILE_WIDTH, 16);
+                }
+                final File expected = new File(tempDir, "expected.tif");
+                writeRows(image, expected, params, 5);
+
+                params.put(TiffConstants.PARAM_KEY_TIFF_ENCODE_EXECUTOR, pool);
+                final File actual = new File(tempDir, "actual.tif");
+                writeRows(image, actual, params, 5);
+                assertArrayEquals(Files.readAllBytes(expected.toPath()), Files.readAllBytes(actual.toPath()));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testInvalidUse() throws ImageWriteException, IOException {
+        final File file = new File(tempDir, "invalid.tif");
+        final int[] row = new int[WIDTH];
+        final Map<String, Object> params = new HashMap<>();
+
+        assertThrows(ImageWriteException.class, () -> new TiffImageWriterStreaming(file, 0, HEIGHT, params));
+
+        try (TiffImageWriterStreaming writer = new TiffImageWriterStreaming(file, WIDTH, HEIGHT, params)) {
+            writer.writeRows(row, 0, 1);
+            // missing rows
+            assertThrows(ImageWriteException.class, writer::finish);
+            // too many rows
+            assertThrows(ImageWriteException.class, () -> writer.writeRows(new int[WIDTH * HEIGHT], 0, HEIGHT));
+            // not tiled
+            assertThrows(ImageWriteException.class, () -> writer.writeTile(0, 0, new int[WIDTH * HEIGHT]));
+        }
+
+        params.put(TiffConstants.PARAM_KEY_TIFF_TILE_WIDTH, 64);
+        params.put(TiffConstants.PARAM_KEY_TIFF_TILE_LENGTH, 64);
+        try (TiffImageWriterStreaming writer = new TiffImageWriterStreaming(file, WIDTH, HEIGHT, params)) {
+            final int[] tile = new int[64 * 64];
+            writer.writeTile(1, 1, tile);
+            assertThrows(ImageWriteException.class, () -> writer.writeTile(1, 1, tile));
+            assertThrows(ImageWriteException.class, () -> writer.writeTile(2, 0, tile));
+            assertThrows(ImageWriteException.class, () -> writer.writeTile(0, 0, new int[64]));
+            assertThrows(ImageWriteException.class, () -> writer.writeRows(row, 0, 1));
+            assertThrows(ImageWriteException.class, writer::finish);
+        }
+    }
+}
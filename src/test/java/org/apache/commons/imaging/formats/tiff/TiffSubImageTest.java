@@ -17,6 +17,8 @@
 package org.apache.commons.imaging.formats.tiff;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 import java.awt.image.BufferedImage;
@@ -27,10 +29,12 @@ import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
 
+import org.apache.commons.imaging.FormatCompliance;
 import org.apache.commons.imaging.ImageFormats;
 import org.apache.commons.imaging.ImageReadException;
 import org.apache.commons.imaging.ImageWriteException;
 import org.apache.commons.imaging.Imaging;
+import org.apache.commons.imaging.common.bytesource.ByteSourceArray;
 import org.apache.commons.imaging.formats.tiff.constants.TiffConstants;
 import org.junit.jupiter.api.Test;
 
@@ -56,6 +60,60 @@ public class TiffSubImageTest extends TiffBaseTest {
         assertEquals(image.getHeight(), 3);
     }
     
+    @Test
+    public void testSubImageReadsOnlyIntersectingStrips() throws ImageReadException, ImageWriteException, IOException {
+        final BufferedImage src = new BufferedImage(256, 256, BufferedImage.TYPE_INT_RGB);
+        final byte[] imageBytes = Imaging.writeImageToBytes(src, ImageFormats.TIFF, null);
+
+        final CountingByteSource fullSource = new CountingByteSource(imageBytes);
+        new TiffImageParser().getBufferedImage(fullSource, null);
+
+        final Map<String, Object> params = new HashMap<>();
+        params.put(TiffConstants.PARAM_KEY_SUBIMAGE_X, 0);
+        params.put(TiffConstants.PARAM_KEY_SUBIMAGE_Y, 100);
+        params.put(TiffConstants.PARAM_KEY_SUBIMAGE_WIDTH, 256);
+        params.put(TiffConstants.PARAM_KEY_SUBIMAGE_HEIGHT, 4);
+        final CountingByteSource subImageSource = new CountingByteSource(imageBytes);
+        final BufferedImage image = new TiffImageParser().getBufferedImage(subImageSource, params);
+        assertEquals(4, image.getHeight());
+        assertTrue(subImageSource.bytesRead * 4 < fullSource.bytesRead,
+                "read " + subImageSource.bytesRead + " of " + fullSource.bytesRead + " bytes");
+    }
+
+    @Test
+    public void testImageDataReadErrorIsPropagated() throws ImageReadException, ImageWriteException, IOException {
+        final BufferedImage src = new BufferedImage(10, 10, BufferedImage.TYPE_INT_RGB);
+        final byte[] imageBytes = Imaging.writeImageToBytes(src, ImageFormats.TIFF, null);
+        final TiffContents contents = new TiffReader(true).readFirstDirectory(
+                new ByteSourceArray(imageBytes), null, true, FormatCompliance.getDefault());
+        final long imageDataOffset = contents.directories.get(0).getTiffImageData().getImageData()[0].offset;
+
+        final ByteSourceArray failingSource = new ByteSourceArray(imageBytes) {
+            @Override
+            public byte[] getBlock(final long start, final int length) throws IOException {
+                if (start == imageDataOffset) {
+                    throw new IOException("test");
+                }
+                return super.getBlock(start, length);
+            }
+        };
+        assertThrows(IOException.class, () -> new TiffImageParser().getBufferedImage(failingSource, null));
+    }
+
+    private static class CountingByteSource extends ByteSourceArray {
+        long bytesRead;
+
+        CountingByteSource(final byte[] bytes) {
+            super(bytes);
+        }
+
+        @Override
+        public byte[] getBlock(final long start, final int length) throws IOException {
+            bytesRead += length;
+            return super.getBlock(start, length);
+        }
+    }
+
     @Test
     public void testBadSubImage()  throws ImageReadException, IOException{
         File target = imageFileList.get(0);
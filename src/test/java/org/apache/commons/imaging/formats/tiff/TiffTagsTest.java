@@ -16,10 +16,15 @@
  */
 package org.apache.commons.imaging.formats.tiff;
 
+import org.apache.commons.imaging.formats.tiff.constants.ExifTagConstants;
+import org.apache.commons.imaging.formats.tiff.constants.GpsTagConstants;
+import org.apache.commons.imaging.formats.tiff.constants.TiffDirectoryConstants;
+import org.apache.commons.imaging.formats.tiff.constants.TiffTagConstants;
 import org.apache.commons.imaging.formats.tiff.taginfos.TagInfo;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 
 public class TiffTagsTest{
 
@@ -31,4 +36,21 @@ public class TiffTagsTest{
         assertEquals( "Unknown Tag", tagInfo.name );
     }
 
+    @Test
+    public void testGetTagInOtherDirectories() {
+        // the later image directories, and the unknown ones
+        assertSame(TiffTagConstants.TIFF_TAG_IMAGE_WIDTH,
+                TiffTags.getTag(TiffDirectoryConstants.DIRECTORY_TYPE_DIR_4 + 10, 0x0100));
+        assertSame(GpsTagConstants.GPS_TAG_GPS_LATITUDE_REF,
+                TiffTags.getTag(TiffDirectoryConstants.DIRECTORY_TYPE_GPS, 0x0001));
+        assertSame(ExifTagConstants.EXIF_TAG_INTEROPERABILITY_INDEX, TiffTags.getTag(-100, 0x0001));
+        assertSame(TiffTagConstants.TIFF_TAG_UNKNOWN, TiffTags.getTag(0, 0xfffe));
+    }
+
+    @Test
+    public void testGetTagCount() {
+        assertEquals(0, TiffTags.getTagCount(0xfffe));
+        assertEquals(1, TiffTags.getTagCount(TiffTagConstants.TIFF_TAG_IMAGE_WIDTH.tag));
+    }
+
 }
\ No newline at end of file
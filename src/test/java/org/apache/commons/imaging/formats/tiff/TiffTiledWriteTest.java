@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.formats.tiff;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import org.apache.commons.imaging.ImageFormats;
+import org.apache.commons.imaging.ImageReadException;
+import org.apache.commons.imaging.ImageWriteException;
+import org.apache.commons.imaging.Imaging;
+import org.apache.commons.imaging.common.bytesource.ByteSourceArray;
+import org.apache.commons.imaging.formats.tiff.constants.TiffConstants;
+import org.apache.commons.imaging.formats.tiff.constants.TiffTagConstants;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+public class TiffTiledWriteTest extends TiffBaseTest {
+
+    // not a multiple of the tile size, so the tiles on the right and
+    // bottom are padded
+    private static final int WIDTH = 100;
+    private static final int HEIGHT = 70;
+
+    private static TiffDirectory readDirectory(final byte[] bytes) throws ImageReadException, IOException {
+        return readContents(new ByteSourceArray(bytes)).directories.get(0);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = { TiffConstants.TIFF_COMPRESSION_UNCOMPRESSED, TiffConstants.TIFF_COMPRESSION_LZW,
+            TiffConstants.TIFF_COMPRESSION_PACKBITS, TiffConstants.TIFF_COMPRESSION_DEFLATE_ADOBE,
+            TiffConstants.TIFF_COMPRESSION_CCITT_1D, TiffConstants.TIFF_COMPRESSION_CCITT_GROUP_3,
+            TiffConstants.TIFF_COMPRESSION_CCITT_GROUP_4 })
+    public void testTiles(final int compression) throws ImageReadException, ImageWriteException, IOException {
+        final BufferedImage image = createImage(WIDTH, HEIGHT);
+        // bilevel images are compared with the same image written in strips
+        final BufferedImage expected = Imaging.getBufferedImage(
+                Imaging.writeImageToBytes(image, ImageFormats.TIFF, createParams(compression)));
+
+        final Map<String, Object> params = createParams(compression);
+        params.put(TiffConstants.PARAM_KEY_TIFF_TILE_WIDTH, 32);
+        params.put(TiffConstants.PARAM_KEY_TIFF_TILE_LENGTH, 48);
+        final byte[] bytes = Imaging.writeImageToBytes(image, ImageFormats.TIFF, params);
+
+        final TiffDirectory directory = readDirectory(bytes);
+        assertEquals(32, directory.getFieldValue(TiffTagConstants.TIFF_TAG_TILE_WIDTH, true)[0]);
+        assertEquals(48, directory.getFieldValue(TiffTagConstants.TIFF_TAG_TILE_LENGTH, true)[0]);
+        assertEquals(4 * 2, directory.getFieldValue(TiffTagConstants.TIFF_TAG_TILE_OFFSETS, true).length);
+        assertNull(directory.findField(TiffTagConstants.TIFF_TAG_ROWS_PER_STRIP));
+        assertSamePixels(expected, Imaging.getBufferedImage(bytes));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = { TiffConstants.TIFF_COMPRESSION_LZW, TiffConstants.TIFF_COMPRESSION_DEFLATE_ADOBE })
+    public void testPredictor(final int compression) throws ImageReadException, ImageWriteException, IOException {
+        final BufferedImage image = createImage(WIDTH, HEIGHT);
+        final byte[] withoutPredictor = Imaging.writeImageToBytes(image, ImageFormats.TIFF, createParams(compression));
+
+        final Map<String, Object> params = createParams(compression);
+        params.put(TiffConstants.PARAM_KEY_TIFF_PREDICTOR, TiffTagConstants.PREDICTOR_VALUE_HORIZONTAL_DIFFERENCING);
+        final byte[] strips = Imaging.writeImageToBytes(image, ImageFormats.TIFF, params);
+        assertEquals(TiffTagConstants.PREDICTOR_VALUE_HORIZONTAL_DIFFERENCING,
+                readDirectory(strips).getFieldValue(TiffTagConstants.TIFF_TAG_PREDICTOR));
+        assertSamePixels(image, Imaging.getBufferedImage(strips));
+        // the gradients become runs of the same differences
+        assertTrue(strips.length < withoutPredictor.length,
+                strips.length + " bytes with the predictor, " + withoutPredictor.length + " without");
+
+        params.put(TiffConstants.PARAM_KEY_TIFF_TILE_WIDTH, 32);
+        final byte[] tiles = Imaging.writeImageToBytes(image, ImageFormats.TIFF, params);
+        assertSamePixels(image, Imaging.getBufferedImage(tiles));
+    }
+
+    @Test
+    public void testTiledSubImage() throws ImageReadException, ImageWriteException, IOException {
+        final BufferedImage image = createImage(WIDTH, HEIGHT);
+        final Map<String, Object> params = createParams(TiffConstants.TIFF_COMPRESSION_DEFLATE_ADOBE);
+        params.put(TiffConstants.PARAM_KEY_TIFF_TILE_WIDTH, 16);
+        params.put(TiffConstants.PARAM_KEY_TIFF_PREDICTOR, TiffTagConstants.PREDICTOR_VALUE_HORIZONTAL_DIFFERENCING);
+        final byte[] bytes = Imaging.writeImageToBytes(image, ImageFormats.TIFF, params);
+
+        final Map<String, Object> readParams = new HashMap<>();
+        readParams.put(TiffConstants.PARAM_KEY_SUBIMAGE_X, 21);
+        readParams.put(TiffConstants.PARAM_KEY_SUBIMAGE_Y, 13);
+        readParams.put(TiffConstants.PARAM_KEY_SUBIMAGE_WIDTH, 70);
+        readParams.put(TiffConstants.PARAM_KEY_SUBIMAGE_HEIGHT, 40);
+        assertSamePixels(image.getSubimage(21, 13, 70, 40), Imaging.getBufferedImage(bytes, readParams));
+    }
+
+    @Test
+    public void testConcurrentEncoding() throws ImageWriteException, IOException {
+        final BufferedImage image = createImage(WIDTH, HEIGHT);
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (final boolean tiled : new boolean[] { false, true }) {
+                final Map<String, Object> params = createParams(TiffConstants.TIFF_COMPRESSION_LZW);
+                params.put(TiffConstants.PARAM_KEY_LZW_COMPRESSION_BLOCK_SIZE, 8000);
+                if (tiled) {
+                    params.put(TiffConstants.PARAM_KEY_TIFF_TILE_WIDTH, 16);
+                }
+                final byte[] expected = Imaging.writeImageToBytes(image, ImageFormats.TIFF, params);
+
+                params.put(TiffConstants.PARAM_KEY_TIFF_ENCODE_EXECUTOR, pool);
+                final byte[] actual = Imaging.writeImageToBytes(image, ImageFormats.TIFF, params);
+                assertNotNull(actual);
+                assertArrayEquals(expected, actual);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testInvalidParameters() {
+        final BufferedImage image = createImage(WIDTH, HEIGHT);
+
+        final Map<String, Object> tileWidth = new HashMap<>();
+        tileWidth.put(TiffConstants.PARAM_KEY_TIFF_TILE_WIDTH, 20);
+        assertThrows(ImageWriteException.class, () -> Imaging.writeImageToBytes(image, ImageFormats.TIFF, tileWidth));
+
+        final Map<String, Object> predictor = createParams(TiffConstants.TIFF_COMPRESSION_PACKBITS);
+        predictor.put(TiffConstants.PARAM_KEY_TIFF_PREDICTOR, TiffTagConstants.PREDICTOR_VALUE_HORIZONTAL_DIFFERENCING);
+        assertThrows(ImageWriteException.class, () -> Imaging.writeImageToBytes(image, ImageFormats.TIFF, predictor));
+
+        final Map<String, Object> executor = new HashMap<>();
+        executor.put(TiffConstants.PARAM_KEY_TIFF_ENCODE_EXECUTOR, "pool");
+        assertThrows(ImageWriteException.class, () -> Imaging.writeImageToBytes(image, ImageFormats.TIFF, executor));
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.formats.tiff.datareaders;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import org.apache.commons.imaging.FormatCompliance;
+import org.apache.commons.imaging.ImageReadException;
+import org.apache.commons.imaging.Imaging;
+import org.apache.commons.imaging.ImagingTestConstants;
+import org.apache.commons.imaging.common.bytesource.ByteSourceFile;
+import org.apache.commons.imaging.formats.tiff.TiffContents;
+import org.apache.commons.imaging.formats.tiff.TiffDirectory;
+import org.apache.commons.imaging.formats.tiff.TiffRasterData;
+import org.apache.commons.imaging.formats.tiff.TiffReader;
+import org.apache.commons.imaging.formats.tiff.constants.TiffConstants;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class DataReaderTiledTest {
+    private ForkJoinPool pool;
+
+    @BeforeEach
+    public void setUp() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    private static File getTiffFile(final String folder, final String name) {
+        return new File(new File(new File(ImagingTestConstants.TEST_IMAGE_FOLDER, "tiff"), folder), name);
+    }
+
+    private static void assertSamePixels(final BufferedImage expected, final BufferedImage actual) {
+        assertEquals(expected.getWidth(), actual.getWidth());
+        assertEquals(expected.getHeight(), actual.getHeight());
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                assertEquals(expected.getRGB(x, y), actual.getRGB(x, y));
+            }
+        }
+    }
+
+    @Test
+    public void testDecodeTilesConcurrently() throws ImageReadException, IOException {
+        final File file = getTiffFile("5", "Oregon Scientific DS6639 - DSC_0307 - small - LZW - tiled.tif");
+        final Map<String, Object> params = new HashMap<>();
+        final BufferedImage expected = Imaging.getBufferedImage(file, params);
+
+        params.put(TiffConstants.PARAM_KEY_TIFF_DECODE_EXECUTOR, pool);
+        assertSamePixels(expected, Imaging.getBufferedImage(file, params));
+
+        final int x = expected.getWidth() / 3;
+        final int y = expected.getHeight() / 3;
+        final int width = expected.getWidth() / 2;
+        final int height = expected.getHeight() / 2;
+        params.put(TiffConstants.PARAM_KEY_SUBIMAGE_X, x);
+        params.put(TiffConstants.PARAM_KEY_SUBIMAGE_Y, y);
+        params.put(TiffConstants.PARAM_KEY_SUBIMAGE_WIDTH, width);
+        params.put(TiffConstants.PARAM_KEY_SUBIMAGE_HEIGHT, height);
+        assertSamePixels(expected.getSubimage(x, y, width, height), Imaging.getBufferedImage(file, params));
+    }
+
+    @Test
+    public void testDecodeFloatingPointTilesConcurrently() throws ImageReadException, IOException {
+        final File file = getTiffFile("9", "USGS_13_n38w077_dir5.tiff");
+        final TiffReader tiffReader = new TiffReader(true);
+        final TiffContents contents = tiffReader.readDirectories(
+                new ByteSourceFile(file), true, FormatCompliance.getDefault());
+        final TiffDirectory directory = contents.directories.get(0);
+        final TiffRasterData expected = directory.getFloatingPointRasterData(null);
+
+        final Map<String, Object> params = new HashMap<>();
+        params.put(TiffConstants.PARAM_KEY_TIFF_DECODE_EXECUTOR, pool);
+        final TiffRasterData actual = directory.getFloatingPointRasterData(params);
+        assertEquals(expected.getWidth(), actual.getWidth());
+        assertEquals(expected.getHeight(), actual.getHeight());
+        assertArrayEquals(expected.getData(), actual.getData());
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.formats.tiff.fieldtypes;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.ByteOrder;
+
+import org.apache.commons.imaging.ImageWriteException;
+import org.junit.jupiter.api.Test;
+
+public class FieldTypeLong8Test {
+
+    @Test
+    public void testWriteData() throws ImageWriteException {
+        assertArrayEquals(new byte[] { 0, 0, 0, 0x12, 0x34, 0x56, 0x78, (byte) 0x9a },
+                FieldType.LONG8.writeData(0x123456789aL, ByteOrder.BIG_ENDIAN));
+        assertArrayEquals(new byte[] { (byte) 0x9a, 0x78, 0x56, 0x34, 0x12, 0, 0, 0, 1, 0, 0, 0, 0, 0, 0, 0 },
+                FieldType.IFD8.writeData(new long[] { 0x123456789aL, 1 }, ByteOrder.LITTLE_ENDIAN));
+    }
+
+    @Test
+    public void testWriteDataWithInvalidData() {
+        assertThrows(ImageWriteException.class, () -> FieldType.LONG8.writeData(1, ByteOrder.BIG_ENDIAN));
+    }
+
+}
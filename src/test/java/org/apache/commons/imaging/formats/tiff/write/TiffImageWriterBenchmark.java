@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.formats.tiff.write;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.imaging.ImageFormats;
+import org.apache.commons.imaging.ImageReadException;
+import org.apache.commons.imaging.ImageWriteException;
+import org.apache.commons.imaging.Imaging;
+import org.apache.commons.imaging.ImagingConstants;
+import org.apache.commons.imaging.formats.tiff.constants.TiffConstants;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures writing a large TIFF in strips or 256 by 256 tiles, with or
+ * without the horizontal differencing predictor, and with the strips or
+ * tiles compressed on the calling thread or on a pool of threads.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TiffImageWriterBenchmark {
+
+    private static final String FILE = "src/test/data/images/png/1/Oregon Scientific DS6639 - DSC_0307 - small.png";
+
+    @Param({ "5", "8" })
+    public int compression;
+
+    @Param({ "STRIPS", "TILES" })
+    public String layout;
+
+    @Param({ "1", "2" })
+    public int predictor;
+
+    @Param({ "0", "4" })
+    public int threads;
+
+    private BufferedImage image;
+    private ForkJoinPool pool;
+    private final Map<String, Object> params = new HashMap<>();
+
+    @Setup
+    public void setUp() throws ImageReadException, IOException {
+        final BufferedImage photo = Imaging.getBufferedImage(new File(FILE));
+        image = new BufferedImage(2048, 1536, BufferedImage.TYPE_INT_RGB);
+        final Graphics2D g = image.createGraphics();
+        g.drawImage(photo, 0, 0, image.getWidth(), image.getHeight(), null);
+        g.dispose();
+
+        params.put(ImagingConstants.PARAM_KEY_COMPRESSION, compression);
+        params.put(TiffConstants.PARAM_KEY_TIFF_PREDICTOR, predictor);
+        if (layout.equals("TILES")) {
+            params.put(TiffConstants.PARAM_KEY_TIFF_TILE_WIDTH, 256);
+        }
+        if (threads > 0) {
+            pool = new ForkJoinPool(threads);
+            params.put(TiffConstants.PARAM_KEY_TIFF_ENCODE_EXECUTOR, pool);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    @Benchmark
+    public byte[] writeImage() throws ImageWriteException, IOException {
+        return Imaging.writeImageToBytes(image, ImageFormats.TIFF, params);
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.formats.tiff.write;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteOrder;
+import java.util.HashMap;
+
+import org.apache.commons.imaging.ImageWriteException;
+import org.apache.commons.imaging.formats.tiff.TiffElement;
+import org.apache.commons.imaging.formats.tiff.TiffImageData;
+import org.apache.commons.imaging.formats.tiff.constants.ExifTagConstants;
+import org.apache.commons.imaging.formats.tiff.constants.TiffConstants;
+import org.apache.commons.imaging.formats.tiff.constants.TiffDirectoryConstants;
+import org.apache.commons.imaging.formats.tiff.constants.TiffTagConstants;
+import org.apache.commons.imaging.formats.tiff.fieldtypes.FieldType;
+import org.junit.jupiter.api.Test;
+
+public class TiffOutputSummaryTest {
+    private static final ByteOrder BYTE_ORDER = TiffConstants.DEFAULT_TIFF_BYTE_ORDER;
+    // the first offset a classic TIFF can't hold
+    private static final long TOO_LARGE = 0x100000000L;
+
+    private static TiffOutputSummary createSummary() {
+        final TiffOutputDirectory rootDirectory = new TiffOutputDirectory(
+                TiffDirectoryConstants.DIRECTORY_TYPE_ROOT, BYTE_ORDER);
+        return new TiffOutputSummary(BYTE_ORDER, false, rootDirectory,
+                new HashMap<Integer, TiffOutputDirectory>());
+    }
+
+    @Test
+    public void testItemOffsetTooLarge() throws Exception {
+        final TiffOutputSummary summary = createSummary();
+        final TiffOutputItem item = new TiffOutputItem.Value("test", new byte[4]);
+        final TiffOutputField offsetField = TiffOutputField.createOffsetField(
+                ExifTagConstants.EXIF_TAG_EXIF_OFFSET, BYTE_ORDER);
+        summary.add(item, offsetField);
+
+        item.setOffset(TOO_LARGE - 1);
+        summary.updateOffsets(BYTE_ORDER);
+        assertTrue(offsetField.bytesEqual(FieldType.LONG.writeData((int) (TOO_LARGE - 1), BYTE_ORDER)));
+
+        item.setOffset(TOO_LARGE);
+        final ImageWriteException e = assertThrows(ImageWriteException.class,
+                () -> summary.updateOffsets(BYTE_ORDER));
+        assertTrue(e.getMessage().contains("TIFF_BIG_TIFF"));
+    }
+
+    @Test
+    public void testImageDataOffsetTooLarge() throws Exception {
+        final TiffOutputSummary summary = createSummary();
+        final TiffOutputField offsetsField = new TiffOutputField(TiffTagConstants.TIFF_TAG_STRIP_OFFSETS,
+                FieldType.LONG, 2, new byte[8]);
+        final ImageDataOffsets imageDataOffsets = new ImageDataOffsets(new TiffElement.DataElement[] {
+                new TiffImageData.Data(0, 1, new byte[1]), new TiffImageData.Data(1, 1, new byte[1]) },
+                new long[2], offsetsField);
+        summary.addTiffImageData(imageDataOffsets);
+
+        imageDataOffsets.outputItems[0].setOffset(8);
+        imageDataOffsets.outputItems[1].setOffset(TOO_LARGE);
+        final ImageWriteException e = assertThrows(ImageWriteException.class,
+                () -> summary.updateOffsets(BYTE_ORDER));
+        assertTrue(e.getMessage().contains("TIFF_BIG_TIFF"));
+    }
+}
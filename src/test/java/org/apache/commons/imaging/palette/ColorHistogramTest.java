@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.palette;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.apache.commons.imaging.ImageWriteException;
+import org.junit.jupiter.api.Test;
+
+public class ColorHistogramTest {
+
+    private static BufferedImage createImage(final int colors) {
+        final BufferedImage image = new BufferedImage(57, 301, BufferedImage.TYPE_INT_ARGB);
+        final Random random = new Random(colors);
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                // runs of a color, and colors that differ in the high bits
+                image.setRGB(x, y, (random.nextInt(colors) * 0x9f3c1) << (x % 3 == 0 ? 4 : 0));
+            }
+        }
+        return image;
+    }
+
+    private static void assertHistogram(final BufferedImage image, final int mask,
+            final ColorHistogram histogram) {
+        final Map<Integer, Integer> expected = new LinkedHashMap<>();
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                expected.merge(image.getRGB(x, y) & mask, 1, Integer::sum);
+            }
+        }
+
+        assertNotNull(histogram);
+        assertEquals(expected.size(), histogram.size());
+        final List<Integer> colors = new ArrayList<>(expected.keySet());
+        for (int i = 0; i < histogram.size(); i++) {
+            assertEquals(colors.get(i).intValue(), histogram.getColor(i));
+            assertEquals(expected.get(colors.get(i)).intValue(), histogram.getCount(i));
+        }
+    }
+
+    @Test
+    public void testBuild() {
+        for (final int colors : new int[] { 1, 5, 300, 10000 }) {
+            final BufferedImage image = createImage(colors);
+            assertHistogram(image, 0xffffffff, ColorHistogram.build(image, 0xffffffff, Integer.MAX_VALUE));
+            assertHistogram(image, 0xffffff, ColorHistogram.build(image, 0xffffff, Integer.MAX_VALUE));
+        }
+    }
+
+    @Test
+    public void testBuildConcurrently() throws ImageWriteException {
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (final int colors : new int[] { 1, 5, 300, 10000 }) {
+                final BufferedImage image = createImage(colors);
+                assertHistogram(image, 0xffffffff,
+                        ColorHistogram.build(image, 0xffffffff, Integer.MAX_VALUE, pool));
+            }
+            assertNull(ColorHistogram.build(createImage(300), 0xffffffff, 256, pool));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testTooManyColors() {
+        final BufferedImage image = createImage(300);
+        final int colors = ColorHistogram.build(image, 0xffffffff, Integer.MAX_VALUE).size();
+        assertNull(ColorHistogram.build(image, 0xffffffff, colors - 1));
+        assertNotNull(ColorHistogram.build(image, 0xffffffff, colors));
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.palette;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.WritableRaster;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.imaging.ImageReadException;
+import org.apache.commons.imaging.ImageWriteException;
+import org.apache.commons.imaging.Imaging;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures dithering a photo to a palette of 256 colors, as when writing a
+ * GIF. Each operation dithers a fresh copy of the photo, so copying it is
+ * part of the measurement.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DitheringBenchmark {
+
+    private static final String FILE = "src/test/data/images/png/1/Oregon Scientific DS6639 - DSC_0307 - small.png";
+
+    @Param({"FLOYD_STEINBERG", "SERPENTINE", "ORDERED", "ORDERED_CONCURRENT"})
+    public String dithering;
+
+    private BufferedImage image;
+    private Palette palette;
+    private ForkJoinPool pool;
+
+    @Setup
+    public void setUp() throws ImageReadException, ImageWriteException, IOException {
+        image = Imaging.getBufferedImage(new File(FILE));
+        palette = new PaletteFactory().makeQuantizedRgbPalette(image, 256);
+        pool = new ForkJoinPool();
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public BufferedImage dither() throws ImageWriteException {
+        final WritableRaster raster = image.copyData(null);
+        final BufferedImage copy = new BufferedImage(image.getColorModel(), raster, false, null);
+        switch (dithering) {
+        case "FLOYD_STEINBERG":
+            Dithering.applyFloydSteinbergDithering(copy, palette);
+            break;
+        case "SERPENTINE":
+            Dithering.applyFloydSteinbergDithering(copy, palette, true);
+            break;
+        case "ORDERED":
+            Dithering.applyOrderedDithering(copy, palette, null);
+            break;
+        default:
+            Dithering.applyOrderedDithering(copy, palette, pool);
+            break;
+        }
+        return copy;
+    }
+}
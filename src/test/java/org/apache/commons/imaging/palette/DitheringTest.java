@@ -17,10 +17,13 @@
 package org.apache.commons.imaging.palette;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.awt.image.BufferedImage;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 
 import org.apache.commons.imaging.ImageWriteException;
 import org.junit.jupiter.api.Test;
@@ -63,4 +66,94 @@ public class DitheringTest {
       assertEquals(-1, bufferedImage.getRGB(2,2) );
   }
 
+  /**
+   * A palette of black and white, which maps every color to the nearer of
+   * the two.
+   */
+  private static final Palette BLACK_AND_WHITE = new Palette() {
+      @Override
+      public int getPaletteIndex(final int rgb) {
+          final int sum = ((rgb >> 16) & 0xff) + ((rgb >> 8) & 0xff) + (rgb & 0xff);
+          return sum < 3 * 128 ? 0 : 1;
+      }
+
+      @Override
+      public int getEntry(final int index) {
+          return index == 0 ? 0xff000000 : 0xffffffff;
+      }
+
+      @Override
+      public int length() {
+          return 2;
+      }
+  };
+
+  private static BufferedImage createGrayImage(final int gray) {
+      final BufferedImage image = new BufferedImage(64, 48, BufferedImage.TYPE_INT_ARGB);
+      for (int y = 0; y < image.getHeight(); y++) {
+          for (int x = 0; x < image.getWidth(); x++) {
+              image.setRGB(x, y, 0xff000000 | gray * 0x010101);
+          }
+      }
+      return image;
+  }
+
+  private static int countWhitePixels(final BufferedImage image) {
+      int white = 0;
+      for (int y = 0; y < image.getHeight(); y++) {
+          for (int x = 0; x < image.getWidth(); x++) {
+              final int argb = image.getRGB(x, y);
+              assertTrue(argb == 0xff000000 || argb == 0xffffffff);
+              if (argb == 0xffffffff) {
+                  white++;
+              }
+          }
+      }
+      return white;
+  }
+
+  @Test
+  public void testDitheringKeepsAverageColor() throws ImageWriteException {
+      for (final int gray : new int[] { 0, 32, 128, 200, 255 }) {
+          final int pixels = 64 * 48;
+          final int expected = pixels * gray / 255;
+
+          for (final boolean serpentine : new boolean[] { false, true }) {
+              final BufferedImage image = createGrayImage(gray);
+              Dithering.applyFloydSteinbergDithering(image, BLACK_AND_WHITE, serpentine);
+              assertEquals(expected, countWhitePixels(image), pixels / 100.0);
+          }
+
+          final BufferedImage image = createGrayImage(gray);
+          Dithering.applyOrderedDithering(image, BLACK_AND_WHITE, null);
+          assertEquals(expected, countWhitePixels(image), pixels / 32.0);
+      }
+  }
+
+  @Test
+  public void testOrderedDitheringConcurrently() throws ImageWriteException {
+      final BufferedImage image = new BufferedImage(100, 300, BufferedImage.TYPE_INT_RGB);
+      final Random random = new Random(0);
+      for (int y = 0; y < image.getHeight(); y++) {
+          for (int x = 0; x < image.getWidth(); x++) {
+              image.setRGB(x, y, random.nextInt());
+          }
+      }
+      final Palette palette = new PaletteFactory().makeQuantizedRgbPalette(image, 16);
+      final BufferedImage expected = new BufferedImage(image.getColorModel(), image.copyData(null), false, null);
+      Dithering.applyOrderedDithering(expected, palette, null);
+
+      final ForkJoinPool pool = new ForkJoinPool(4);
+      try {
+          Dithering.applyOrderedDithering(image, palette, pool);
+      } finally {
+          pool.shutdown();
+      }
+      for (int y = 0; y < image.getHeight(); y++) {
+          for (int x = 0; x < image.getWidth(); x++) {
+              assertEquals(expected.getRGB(x, y), image.getRGB(x, y));
+          }
+      }
+  }
+
 }
@@ -16,6 +16,8 @@
  */
 package org.apache.commons.imaging.palette;
 
+import java.util.Random;
+
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -34,5 +36,28 @@ public class SimplePaletteTest{
 
     }
 
+    @Test
+    public void testGetPaletteIndex() {
+        final Random random = new Random(0);
+        for (final int length : new int[] { 0, 1, 2, 3, 16, 255, 256, 1000 }) {
+            final int[] colors = new int[length];
+            for (int i = 0; i < length; i++) {
+                // colors that differ in the high bits only, and repeats
+                colors[i] = (i % 7 == 6) ? colors[i / 2] : random.nextInt() & 0xff000000 | i;
+            }
+            final SimplePalette simplePalette = new SimplePalette(colors);
+
+            for (int i = 0; i < length; i++) {
+                int expected = 0;
+                while (colors[expected] != colors[i]) {
+                    expected++;
+                }
+                assertEquals(expected, simplePalette.getPaletteIndex(colors[i]));
+            }
+            assertEquals(-1, simplePalette.getPaletteIndex(0x00abcdef));
+            assertEquals(-1, simplePalette.getPaletteIndex(length));
+        }
+    }
+
 
 }
\ No newline at end of file
@@ -24,7 +24,7 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 
-public class FullColorRoundtrip extends RoundtripBase {
+public class FullColorRoundtripTest extends RoundtripBase {
 
     public static BufferedImage[] images = new BufferedImage[]{
             TestImages.createFullColorImage(1, 1), // minimal